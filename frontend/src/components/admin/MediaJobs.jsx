@@ -0,0 +1,147 @@
+import React, { useState, useEffect, useCallback } from 'react';
+import { ArrowPathIcon, CogIcon } from '@heroicons/react/24/outline';
+import { adminMovieService } from '../../services/movieService';
+
+// Polled while anything is queued or running, so progress moves without a manual refresh
+const POLL_INTERVAL_MS = 5000;
+
+const JOB_LABELS = {
+  PREPARE_VIDEO: 'Prepare video',
+  HLS_PACKAGE: 'HLS packaging',
+  THUMBNAILS: 'Thumbnails',
+};
+
+const STATUS_STYLES = {
+  PENDING: 'bg-yellow-500/20 text-yellow-400',
+  RUNNING: 'bg-blue-500/20 text-blue-400',
+  SUCCEEDED: 'bg-green-500/20 text-green-400',
+  FAILED: 'bg-red-500/20 text-red-400',
+};
+
+const MediaJobs = () => {
+  const [jobs, setJobs] = useState([]);
+  const [status, setStatus] = useState('');
+  const [error, setError] = useState(null);
+  const [retrying, setRetrying] = useState(null);
+
+  const fetchJobs = useCallback(async () => {
+    try {
+      const data = await adminMovieService.getMediaJobs(status || undefined);
+      setJobs(Array.isArray(data) ? data : []);
+      setError(null);
+    } catch (error) {
+      setError(`Failed to load media jobs: ${error.message}`);
+    }
+  }, [status]);
+
+  const active = jobs.some((job) => job.status === 'PENDING' || job.status === 'RUNNING');
+
+  useEffect(() => {
+    fetchJobs();
+  }, [fetchJobs]);
+
+  useEffect(() => {
+    if (!active) {
+      return undefined;
+    }
+    const timer = setInterval(fetchJobs, POLL_INTERVAL_MS);
+    return () => clearInterval(timer);
+  }, [active, fetchJobs]);
+
+  const handleRetry = async (jobId) => {
+    setRetrying(jobId);
+    try {
+      await adminMovieService.retryMediaJob(jobId);
+      await fetchJobs();
+    } catch (error) {
+      // Toast already shown by the service
+    } finally {
+      setRetrying(null);
+    }
+  };
+
+  return (
+    <div className="bg-netflix-darkGray rounded-lg p-6 border border-netflix-gray">
+      <div className="flex items-center justify-between mb-6">
+        <h3 className="text-xl font-semibold text-white">Media Processing</h3>
+        <div className="flex items-center space-x-3">
+          <select
+            value={status}
+            onChange={(e) => setStatus(e.target.value)}
+            className="bg-netflix-black border border-netflix-gray text-white text-sm rounded-lg px-3 py-1 focus:outline-none focus:ring-2 focus:ring-netflix-red"
+          >
+            <option value="">All jobs</option>
+            <option value="PENDING">Pending</option>
+            <option value="RUNNING">Running</option>
+            <option value="FAILED">Failed</option>
+            <option value="SUCCEEDED">Succeeded</option>
+          </select>
+          <button
+            onClick={fetchJobs}
+            className="text-netflix-lightGray hover:text-white transition-colors duration-200"
+            title="Refresh"
+          >
+            <ArrowPathIcon className="h-5 w-5" />
+          </button>
+        </div>
+      </div>
+
+      {error && <p className="text-red-400 text-sm mb-4">{error}</p>}
+
+      {jobs.length > 0 ? (
+        <div className="space-y-3">
+          {jobs.map((job) => (
+            <div key={job.id} className="border-b border-netflix-gray pb-3 last:border-b-0">
+              <div className="flex items-center justify-between">
+                <div className="min-w-0">
+                  <p className="text-white font-medium">{JOB_LABELS[job.type] || job.type}</p>
+                  <p className="text-netflix-lightGray text-sm truncate" title={job.target}>{job.target}</p>
+                </div>
+                <div className="flex items-center space-x-3 flex-shrink-0">
+                  <span className="text-netflix-lightGray text-xs">
+                    Attempt {job.attempts}/{job.maxAttempts}
+                  </span>
+                  <span className={`px-2 py-1 rounded text-xs font-medium ${STATUS_STYLES[job.status] || ''}`}>
+                    {job.status}
+                  </span>
+                  {job.status === 'FAILED' && (
+                    <button
+                      onClick={() => handleRetry(job.id)}
+                      disabled={retrying === job.id}
+                      className="bg-netflix-red hover:bg-red-700 disabled:opacity-50 text-white text-xs px-3 py-1 rounded transition-colors duration-200"
+                    >
+                      Retry
+                    </button>
+                  )}
+                </div>
+              </div>
+              {job.status === 'RUNNING' && (
+                <div className="w-full bg-netflix-gray rounded-full h-2 mt-2">
+                  <div
+                    className="bg-netflix-red h-2 rounded-full transition-all duration-300"
+                    style={{ width: `${Math.min(100, Math.max(0, job.progress || 0))}%` }}
+                  />
+                </div>
+              )}
+              {job.status === 'PENDING' && job.attempts > 0 && job.runAfter && (
+                <p className="text-yellow-400 text-xs mt-1">
+                  Retrying at {new Date(job.runAfter).toLocaleTimeString()}
+                </p>
+              )}
+              {job.lastError && job.status !== 'SUCCEEDED' && (
+                <p className="text-red-400 text-xs mt-1 break-words">{job.lastError}</p>
+              )}
+            </div>
+          ))}
+        </div>
+      ) : (
+        <div className="text-center py-8 text-netflix-lightGray">
+          <CogIcon className="h-12 w-12 mx-auto mb-4 opacity-50" />
+          <p className="text-sm">No media jobs {status ? `with status ${status.toLowerCase()}` : 'yet'}</p>
+        </div>
+      )}
+    </div>
+  );
+};
+
+export default MediaJobs;
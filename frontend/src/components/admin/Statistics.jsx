@@ -12,6 +12,7 @@ import {
 } from '@heroicons/react/24/outline';
 import { adminMovieService } from '../../services/movieService';
 import { SkeletonLoader } from '../common/Loader';
+import MediaJobs from './MediaJobs';
 
 const Statistics = () => {
   // ✅ FIXED: Start with null instead of fake data
@@ -374,6 +375,9 @@ const Statistics = () => {
         </div>
       </div>
 
+      {/* Post-upload processing queue */}
+      <MediaJobs />
+
       {/* Data freshness indicator */}
       {stats && (
         <div className="text-center text-netflix-lightGray text-sm">
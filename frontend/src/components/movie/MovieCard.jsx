@@ -15,7 +15,13 @@ import {
 } from '@heroicons/react/24/solid';
 import { useAuth } from '../../hooks/useAuth';
 import { useMovies } from '../../hooks/useMovies';
-import { formatJavaDuration, getGenreDisplayName, formatRating } from '../../utils/helpers';
+import {
+  formatJavaDuration,
+  getGenreDisplayName,
+  formatRating,
+  getImageSrcSet,
+  getImageVariantUrl,
+} from '../../utils/helpers';
 import { useNotification } from '../../context/NotificationContext';
 
 const MovieCard = ({ 
@@ -48,14 +54,17 @@ const MovieCard = ({
     sm: {
       container: 'w-40',
       image: 'h-60',
+      width: 160,
     },
     md: {
       container: 'w-48',
       image: 'h-72',
+      width: 192,
     },
     lg: {
       container: 'w-56',
       image: 'h-84',
+      width: 224,
     },
   };
 
@@ -158,7 +167,8 @@ const MovieCard = ({
         {/* Image */}
         {!imageError ? (
           <img
-            src={movie.posterUrl || movie.thumbnailUrl}
+            src={getImageVariantUrl(movie.posterUrl || movie.thumbnailUrl, config.width)}
+            srcSet={getImageSrcSet(movie.posterUrl || movie.thumbnailUrl, config.width)}
             alt={movie.title}
             className={`
               w-full h-full object-cover transition-all duration-300
@@ -332,7 +342,8 @@ export const CompactMovieCard = ({ movie, onClick }) => {
     >
       <div className="w-16 h-24 flex-shrink-0 rounded overflow-hidden bg-netflix-gray">
         <img
-          src={movie.posterUrl || movie.thumbnailUrl}
+          src={getImageVariantUrl(movie.posterUrl || movie.thumbnailUrl, 64)}
+          srcSet={getImageSrcSet(movie.posterUrl || movie.thumbnailUrl, 64)}
           alt={movie.title}
           className="w-full h-full object-cover group-hover:scale-105 transition-transform duration-200"
           onError={(e) => {
@@ -2,6 +2,7 @@ import React, { useState, useEffect } from 'react';
 import MovieCard from './MovieCard';
 import { SkeletonLoader } from '../common/Loader';
 import { AdjustmentsHorizontalIcon, Squares2X2Icon, ListBulletIcon } from '@heroicons/react/24/outline';
+import { getImageSrcSet, getImageVariantUrl } from '../../utils/helpers';
 
 const MovieGrid = ({
   movies,
@@ -188,7 +189,8 @@ const MovieGrid = ({
               >
                 <div className="w-20 h-28 flex-shrink-0 rounded overflow-hidden bg-netflix-gray">
                   <img
-                    src={movie.posterUrl || movie.thumbnailUrl}
+                    src={getImageVariantUrl(movie.posterUrl || movie.thumbnailUrl, 80)}
+                    srcSet={getImageSrcSet(movie.posterUrl || movie.thumbnailUrl, 80)}
                     alt={movie.title}
                     className="w-full h-full object-cover group-hover:scale-105 transition-transform duration-200"
                     onError={(e) => {
@@ -13,7 +13,7 @@ import {
 } from '@heroicons/react/24/outline';
 import { useMovies } from '../../hooks/useMovies';
 import { useAuth } from '../../hooks/useAuth';
-import { formatVideoTime, throttle } from '../../utils/helpers';
+import { formatVideoTime, throttle, parseThumbnailTrack } from '../../utils/helpers';
 import { VIDEO_PLAYER, API_ENDPOINTS } from '../../utils/constants';
 
 const VideoPlayer = ({ 
@@ -44,6 +44,8 @@ const VideoPlayer = ({
   const [playbackRate, setPlaybackRate] = useState(1);
   const [isBuffering, setIsBuffering] = useState(false);
   const [error, setError] = useState(null);
+  const [thumbnailCues, setThumbnailCues] = useState([]);
+  const [hoverPreview, setHoverPreview] = useState(null);
 
   // Settings options
   const playbackRates = VIDEO_PLAYER.PLAYBACK_RATES;
@@ -186,6 +188,27 @@ const VideoPlayer = ({
     };
   }, [movie, autoPlay, startTime, getVideoUrl, handleTimeUpdate]);
 
+  // Seek-bar previews come from sprite sheets, so scrubbing never fetches video bytes
+  useEffect(() => {
+    if (!movie?.id) return;
+    const trackUrl = API_ENDPOINTS.STREAMING.THUMBNAILS(movie.id);
+    let cancelled = false;
+    setThumbnailCues([]);
+    fetch(trackUrl)
+      .then(response => (response.ok ? response.text() : ''))
+      .then(text => {
+        if (!cancelled && text) {
+          setThumbnailCues(parseThumbnailTrack(text, trackUrl));
+        }
+      })
+      .catch(() => {
+        // Previews are optional; the player works without them
+      });
+    return () => {
+      cancelled = true;
+    };
+  }, [movie?.id]);
+
   // Update watch progress
   const updateProgress = useCallback((currentTime, duration) => {
     if (!isAuthenticated || !movie || !duration) return;
@@ -312,6 +335,17 @@ const VideoPlayer = ({
     setCurrentTime(newTime);
   };
 
+  const handleProgressHover = (e) => {
+    const progressBar = progressRef.current;
+    if (!progressBar || !duration || thumbnailCues.length === 0) return;
+
+    const rect = progressBar.getBoundingClientRect();
+    const offsetX = Math.min(Math.max(e.clientX - rect.left, 0), rect.width);
+    const time = (offsetX / rect.width) * duration;
+    const cue = thumbnailCues.find(c => time >= c.start && time < c.end) || thumbnailCues[thumbnailCues.length - 1];
+    setHoverPreview({ cue, time, offsetX, barWidth: rect.width });
+  };
+
   const handleVolumeSliderChange = (e) => {
     const video = videoRef.current;
     if (!video) return;
@@ -470,7 +504,31 @@ const VideoPlayer = ({
               ref={progressRef}
               className="relative h-1 bg-white/30 rounded-full cursor-pointer hover:h-2 transition-all duration-200"
               onClick={handleProgressClick}
+              onMouseMove={handleProgressHover}
+              onMouseLeave={() => setHoverPreview(null)}
             >
+              {hoverPreview && (
+                <div
+                  className="absolute bottom-full mb-3 pointer-events-none flex flex-col items-center"
+                  style={{
+                    left: Math.min(
+                      Math.max(hoverPreview.offsetX - hoverPreview.cue.w / 2, 0),
+                      hoverPreview.barWidth - hoverPreview.cue.w
+                    ),
+                  }}
+                >
+                  <div
+                    className="border border-white/70 rounded-sm shadow-lg"
+                    style={{
+                      width: hoverPreview.cue.w,
+                      height: hoverPreview.cue.h,
+                      backgroundImage: `url(${hoverPreview.cue.url})`,
+                      backgroundPosition: `-${hoverPreview.cue.x}px -${hoverPreview.cue.y}px`,
+                    }}
+                  />
+                  <span className="text-white text-xs mt-1">{formatVideoTime(hoverPreview.time)}</span>
+                </div>
+              )}
               <div
                 className="absolute top-0 left-0 h-full bg-netflix-red rounded-full"
                 style={{ width: `${getProgressPercentage()}%` }}
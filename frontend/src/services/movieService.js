@@ -385,6 +385,40 @@ export const adminMovieService = {
     }
   },
 
+  /**
+   * Get recent media processing jobs (Admin only)
+   * @param {string} [status] - PENDING, RUNNING, SUCCEEDED or FAILED; all when omitted
+   * @returns {Promise<Array>} Jobs, newest first
+   */
+  async getMediaJobs(status) {
+    try {
+      const response = await apiService.get(API_ENDPOINTS.ADMIN.MEDIA_JOBS, {
+        params: status ? { status } : {},
+      });
+      return response.data;
+    } catch (error) {
+      console.error('Error fetching media jobs:', error);
+      throw error;
+    }
+  },
+
+  /**
+   * Queue a failed media job again (Admin only)
+   * @param {number} jobId - Job ID
+   * @returns {Promise<object>} The requeued job
+   */
+  async retryMediaJob(jobId) {
+    try {
+      const response = await apiService.post(API_ENDPOINTS.ADMIN.RETRY_MEDIA_JOB(jobId));
+      toast.success('Job queued again');
+      return response.data;
+    } catch (error) {
+      const message = getErrorMessage(error);
+      toast.error(message);
+      throw error;
+    }
+  },
+
   /**
    * Delete user (Admin only)
    * @param {number} userId - User ID
@@ -55,20 +55,10 @@ export const uploadService = {
     }
 
     try {
-      const formData = new FormData();
-      formData.append('file', file);
-      formData.append('type', 'video');
-
       console.log('Uploading video file:', file.name, 'Size:', formatFileSize(file.size));
-
-      const response = await apiService.upload(
-        API_ENDPOINTS.ADMIN.UPLOAD_VIDEO,
-        formData,
-        onProgress
-      );
-
-      console.log('Video upload response:', response.data);
-      return response.data;
+      const response = await this.uploadVideoInChunks(file, onProgress);
+      console.log('Video upload response:', response);
+      return response;
     } catch (error) {
       console.error('Video upload error:', error);
       const message = getErrorMessage(error);
@@ -77,6 +67,61 @@ export const uploadService = {
     }
   },
 
+  /**
+   * Resumable chunked upload: reuses the session saved for this file if the server still has it,
+   * sends only the missing chunks a few at a time, then finalizes.
+   * @param {File} file - Video file
+   * @param {Function} onProgress - Progress callback (0-100)
+   * @returns {Promise<object>} Upload response
+   */
+  async uploadVideoInChunks(file, onProgress) {
+    const resumeKey = `upload:${file.name}:${file.size}:${file.lastModified}`;
+    let session = null;
+    const savedId = localStorage.getItem(resumeKey);
+    if (savedId) {
+      try {
+        session = (await apiService.get(API_ENDPOINTS.ADMIN.UPLOAD_SESSION(savedId))).data;
+      } catch (error) {
+        localStorage.removeItem(resumeKey); // expired or cancelled
+      }
+    }
+    if (!session) {
+      session = (await apiService.post(API_ENDPOINTS.ADMIN.UPLOAD_SESSIONS, {
+        fileName: file.name,
+        contentType: file.type,
+        fileSize: file.size,
+      })).data;
+      localStorage.setItem(resumeKey, session.uploadId);
+    }
+
+    const { uploadId, chunkSize } = session;
+    const pending = [...session.missingChunks];
+    let sentBytes = session.receivedBytes;
+    const report = () => onProgress && onProgress(Math.round((sentBytes * 100) / file.size));
+    report();
+
+    const sendNext = async () => {
+      while (pending.length > 0) {
+        const index = pending.shift();
+        const offset = index * chunkSize;
+        const chunk = file.slice(offset, Math.min(file.size, offset + chunkSize));
+        await apiService.put(API_ENDPOINTS.ADMIN.UPLOAD_CHUNK(uploadId, offset), chunk, {
+          headers: { 'Content-Type': 'application/octet-stream' },
+          timeout: 0,
+        });
+        sentBytes += chunk.size;
+        report();
+      }
+    };
+    await Promise.all(
+      Array.from({ length: FILE_CONSTRAINTS.VIDEO.UPLOAD_CONCURRENCY }, sendNext)
+    );
+
+    const response = await apiService.post(API_ENDPOINTS.ADMIN.UPLOAD_COMPLETE(uploadId), {}, { timeout: 0 });
+    localStorage.removeItem(resumeKey);
+    return response.data;
+  },
+
   /**
    * Upload image file with proper error handling
    * @param {File} file - Image file
@@ -47,6 +47,7 @@ export const API_ENDPOINTS = {
   // Streaming endpoints - FIXED: Uses full URL for video streaming
   STREAMING: {
     STREAM: (movieId) => `${API_BASE_URL}/api/stream/${movieId}`,
+    THUMBNAILS: (movieId) => `${API_BASE_URL}/api/stream/${movieId}/thumbnails/thumbnails.vtt`,
     PROGRESS: '/api/stream/progress',
     COMPLETE: (movieId) => `/api/stream/complete/${movieId}`,
   },
@@ -65,12 +66,23 @@ export const API_ENDPOINTS = {
     USERS: '/api/admin/users',
     MOVIES: '/api/admin/movies',
     UPLOAD_VIDEO: '/api/admin/upload/video',
+    UPLOAD_SESSIONS: '/api/admin/upload/video/sessions',
+    UPLOAD_SESSION: (uploadId) => `/api/admin/upload/video/sessions/${uploadId}`,
+    UPLOAD_CHUNK: (uploadId, offset) => `/api/admin/upload/video/sessions/${uploadId}/chunks?offset=${offset}`,
+    UPLOAD_COMPLETE: (uploadId) => `/api/admin/upload/video/sessions/${uploadId}/complete`,
     UPLOAD_IMAGE: '/api/admin/upload/image',
     DELETE_USER: (userId) => `/api/admin/users/${userId}`,
     UPDATE_MOVIE: (movieId) => `/api/admin/movies/${movieId}`,
     DELETE_MOVIE: (movieId) => `/api/admin/movies/${movieId}`,
     TRENDING: '/api/admin/movies/trending',
     TOGGLE_FEATURED: (movieId) => `/api/admin/movies/${movieId}/feature`,
+    MEDIA_JOBS: '/api/admin/jobs',
+    RETRY_MEDIA_JOB: (jobId) => `/api/admin/jobs/${jobId}/retry`,
+  },
+
+  // Resized posters and thumbnails
+  IMAGES: {
+    VARIANT: '/api/images/variant',
   },
 };
 
@@ -170,7 +182,8 @@ export const TOAST_MESSAGES = {
 // File Upload Constraints
 export const FILE_CONSTRAINTS = {
   VIDEO: {
-    MAX_SIZE: 100 * 1024 * 1024, // 100MB
+    MAX_SIZE: 50 * 1024 * 1024 * 1024, // 50GB, uploaded in resumable chunks
+    UPLOAD_CONCURRENCY: 3,
     ALLOWED_TYPES: ['video/mp4', 'video/avi', 'video/quicktime', 'video/wmv', 'video/flv', 'video/webm'],
   },
   IMAGE: {
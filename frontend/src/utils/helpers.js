@@ -1,4 +1,4 @@
-import { GENRE_DISPLAY_NAMES } from './constants';
+import { API_ENDPOINTS, GENRE_DISPLAY_NAMES } from './constants';
 
 /**
  * Format duration from minutes to readable format
@@ -247,6 +247,66 @@ export const getProgressPercentage = (currentTime, duration) => {
   return Math.min(100, Math.max(0, (currentTime / duration) * 100));
 };
 
+/**
+ * Parse a WebVTT thumbnail track into cues pointing at sprite sheet tiles
+ * @param {string} text - Track contents
+ * @param {string} baseUrl - URL the track was loaded from; sheet names are relative to it
+ * @returns {Array<{start: number, end: number, url: string, x: number, y: number, w: number, h: number}>} Cues
+ */
+export const parseThumbnailTrack = (text, baseUrl) => {
+  const toSeconds = (timestamp) => {
+    const parts = timestamp.split(':').map(parseFloat);
+    return parts.reduce((total, part) => total * 60 + part, 0);
+  };
+  const cues = [];
+  const lines = text.split(/\r?\n/);
+  for (let i = 0; i < lines.length - 1; i++) {
+    const timing = lines[i].match(/^([\d:.]+)\s+-->\s+([\d:.]+)/);
+    const target = timing && lines[i + 1].match(/^(.+)#xywh=(\d+),(\d+),(\d+),(\d+)$/);
+    if (target) {
+      cues.push({
+        start: toSeconds(timing[1]),
+        end: toSeconds(timing[2]),
+        url: new URL(target[1], baseUrl).toString(),
+        x: Number(target[2]),
+        y: Number(target[3]),
+        w: Number(target[4]),
+        h: Number(target[5]),
+      });
+    }
+  }
+  return cues;
+};
+
+/**
+ * URL of an uploaded image resized for display; the server picks the nearest variant width
+ * @param {string} url - Original image URL, e.g. a movie's posterUrl
+ * @param {number} width - Rendered width in device pixels
+ * @returns {string} Variant URL, or the original for images not uploaded here
+ */
+export const getImageVariantUrl = (url, width) => {
+  const start = url ? url.indexOf('/uploads/images/') : -1;
+  if (start < 0) {
+    return url;
+  }
+  // Keep the original's origin, so absolute and relative URLs both resolve as before
+  const src = encodeURIComponent(url.slice(start));
+  return `${url.slice(0, start)}${API_ENDPOINTS.IMAGES.VARIANT}?src=${src}&w=${Math.round(width)}`;
+};
+
+/**
+ * srcSet covering standard and high-density screens for an image shown at a CSS width
+ * @param {string} url - Original image URL
+ * @param {number} cssWidth - Rendered width in CSS pixels
+ * @returns {string|undefined} srcSet value, or undefined for images not uploaded here
+ */
+export const getImageSrcSet = (url, cssWidth) => {
+  if (getImageVariantUrl(url, cssWidth) === url) {
+    return undefined;
+  }
+  return `${getImageVariantUrl(url, cssWidth)} 1x, ${getImageVariantUrl(url, cssWidth * 2)} 2x`;
+};
+
 /**
  * Check if device is mobile
  * @returns {boolean} Is mobile device
@@ -356,6 +416,9 @@ export default {
   debounce,
   throttle,
   getProgressPercentage,
+  parseThumbnailTrack,
+  getImageVariantUrl,
+  getImageSrcSet,
   isMobile,
   isTablet,
   getGridColumns,
@@ -45,7 +45,8 @@ public class CorsConfig {
                 "Content-Range",
                 "Accept-Ranges",
                 "Content-Length",
-                "Content-Type"
+                "Content-Type",
+                "X-Stream-Session"
         ));
         configuration.setAllowCredentials(true);
         // Cache preflight for 1 hour
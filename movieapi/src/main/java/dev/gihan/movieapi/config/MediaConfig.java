@@ -0,0 +1,92 @@
+package dev.gihan.movieapi.config;
+
+import dev.gihan.movieapi.media.ProcessRunner;
+import dev.gihan.movieapi.media.hls.ByteChunkHlsSegmenter;
+import dev.gihan.movieapi.media.hls.FfmpegHlsSegmenter;
+import dev.gihan.movieapi.media.hls.HlsSegmenter;
+import dev.gihan.movieapi.media.thumbnail.FfmpegFrameExtractor;
+import dev.gihan.movieapi.media.thumbnail.FrameExtractor;
+import dev.gihan.movieapi.media.thumbnail.PlaceholderFrameExtractor;
+import dev.gihan.movieapi.media.transcode.FfmpegVideoTranscoder;
+import dev.gihan.movieapi.media.transcode.SegmentingVideoTranscoder;
+import dev.gihan.movieapi.media.transcode.VideoTranscoder;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+@Configuration
+public class MediaConfig {
+
+    @Value("${app.hls.segmenter:ffmpeg}")
+    private String segmenterType;
+
+    @Value("${app.hls.stand-in-chunk-bytes:2097152}")
+    private long standInChunkBytes;
+
+    @Value("${app.transcode.transcoder:ffmpeg}")
+    private String transcoderType;
+
+    @Value("${app.thumbnails.extractor:ffmpeg}")
+    private String frameExtractorType;
+
+    @Value("${app.media.workers:2}")
+    private int mediaWorkers;
+
+    @Value("${app.media.queue-capacity:100}")
+    private int mediaQueueCapacity;
+
+    @Value("${app.jobs.workers:2}")
+    private int jobWorkers;
+
+    @Bean
+    public HlsSegmenter hlsSegmenter(ProcessRunner processRunner) {
+        // "stand-in" needs no external tools; use it for local development and tests
+        if ("stand-in".equalsIgnoreCase(segmenterType)) {
+            return new ByteChunkHlsSegmenter(standInChunkBytes);
+        }
+        return new FfmpegHlsSegmenter(processRunner);
+    }
+
+    @Bean
+    public VideoTranscoder videoTranscoder(ProcessRunner processRunner, HlsSegmenter hlsSegmenter) {
+        if ("stand-in".equalsIgnoreCase(transcoderType)) {
+            return new SegmentingVideoTranscoder(hlsSegmenter);
+        }
+        return new FfmpegVideoTranscoder(processRunner);
+    }
+
+    @Bean
+    public FrameExtractor frameExtractor(ProcessRunner processRunner) {
+        if ("stand-in".equalsIgnoreCase(frameExtractorType)) {
+            return new PlaceholderFrameExtractor();
+        }
+        return new FfmpegFrameExtractor(processRunner);
+    }
+
+    @Bean
+    public ThreadPoolTaskExecutor mediaTaskExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(mediaWorkers);
+        executor.setMaxPoolSize(mediaWorkers);
+        executor.setQueueCapacity(mediaQueueCapacity);
+        executor.setThreadNamePrefix("media-");
+        executor.setWaitForTasksToCompleteOnShutdown(false);
+        executor.initialize();
+        return executor;
+    }
+
+    // Runs claimed media jobs; the worker never claims more than there are idle threads
+    @Bean
+    public ThreadPoolTaskExecutor mediaJobExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(jobWorkers);
+        executor.setMaxPoolSize(jobWorkers);
+        executor.setQueueCapacity(jobWorkers);
+        executor.setThreadNamePrefix("media-job-");
+        // Unfinished jobs are picked up again once their lease runs out
+        executor.setWaitForTasksToCompleteOnShutdown(false);
+        executor.initialize();
+        return executor;
+    }
+}
@@ -5,6 +5,7 @@ import dev.gihan.movieapi.service.impl.CustomUserDetailsService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpMethod;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.dao.DaoAuthenticationProvider;
 import org.springframework.security.config.annotation.authentication.configuration.AuthenticationConfiguration;
@@ -66,6 +67,12 @@ public class SecurityConfig {
                         // Public endpoints
                         .requestMatchers("/api/auth/**").permitAll()
                         .requestMatchers("/api/movies/**").permitAll()
+                        // Seek-bar previews load as CSS backgrounds, which cannot carry a bearer token
+                        .requestMatchers(HttpMethod.GET, "/api/stream/*/thumbnails/*").permitAll()
+                        // Poster variants sit in <img> tags like the originals under /uploads/
+                        .requestMatchers(HttpMethod.GET, "/api/images/**").permitAll()
+                        // Actuator only listens on the internal management port (management.server.port)
+                        .requestMatchers("/actuator/**").permitAll()
                         // Authenticated user endpoints
                         .requestMatchers("/api/users/**").authenticated()
                         .requestMatchers("/api/favorites/**").authenticated()
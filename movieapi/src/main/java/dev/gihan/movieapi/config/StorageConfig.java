@@ -0,0 +1,97 @@
+package dev.gihan.movieapi.config;
+
+import dev.gihan.movieapi.storage.LocalMediaStorage;
+import dev.gihan.movieapi.storage.MediaStorage;
+import dev.gihan.movieapi.storage.S3MediaStorage;
+import dev.gihan.movieapi.storage.S3StandInServer;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.net.URI;
+import java.nio.file.Paths;
+
+@Configuration
+public class StorageConfig {
+
+    @Value("${app.storage.type:local}")
+    private String storageType;
+
+    @Value("${app.file.upload.dir}")
+    private String uploadDir;
+
+    @Value("${app.video.directory}")
+    private String videoDirectory;
+
+    @Value("${app.storage.s3.endpoint:}")
+    private String endpoint;
+
+    @Value("${app.storage.s3.region:us-east-1}")
+    private String region;
+
+    @Value("${app.storage.s3.bucket:movieapi}")
+    private String bucket;
+
+    @Value("${app.storage.s3.access-key:}")
+    private String accessKey;
+
+    @Value("${app.storage.s3.secret-key:}")
+    private String secretKey;
+
+    @Value("${app.storage.s3.path-style:true}")
+    private boolean pathStyle;
+
+    @Value("${app.storage.s3.part-size:64MB}")
+    private DataSize partSize;
+
+    @Value("${app.storage.s3.cache.directory:media-cache}")
+    private String cacheDirectory;
+
+    @Value("${app.storage.s3.cache.max-bytes:50GB}")
+    private DataSize cacheMaxBytes;
+
+    @Value("${app.storage.stand-in.directory:object-store}")
+    private String standInDirectory;
+
+    @Value("${app.storage.stand-in.port:0}")
+    private int standInPort;
+
+    private S3StandInServer standInServer;
+
+    @Bean
+    public MediaStorage mediaStorage() throws IOException {
+        if ("local".equalsIgnoreCase(storageType)) {
+            return new LocalMediaStorage(Paths.get(uploadDir), Paths.get(videoDirectory));
+        }
+        if (partSize.toBytes() < S3MediaStorage.MIN_PART_SIZE) {
+            throw new IllegalStateException("app.storage.s3.part-size must be at least 5MB");
+        }
+        URI s3Endpoint;
+        // "s3-stand-in" runs an S3-compatible store in-process; use it for local development and tests
+        if ("s3-stand-in".equalsIgnoreCase(storageType)) {
+            standInServer = new S3StandInServer(Paths.get(standInDirectory), bucket, accessKey, secretKey, region, standInPort);
+            s3Endpoint = standInServer.endpoint();
+        } else if ("s3".equalsIgnoreCase(storageType)) {
+            if (endpoint.isBlank()) {
+                throw new IllegalStateException("app.storage.s3.endpoint is required for app.storage.type=s3");
+            }
+            s3Endpoint = URI.create(endpoint);
+        } else {
+            throw new IllegalStateException("Unknown app.storage.type: " + storageType);
+        }
+        // Objects are fetched into a cache directory outside the statically served upload directory,
+        // which also keeps this node's own uploads
+        return new S3MediaStorage(s3Endpoint, region, bucket, accessKey, secretKey, pathStyle, partSize.toBytes(),
+                Paths.get(cacheDirectory), cacheMaxBytes.toBytes());
+    }
+
+    @PreDestroy
+    public void stopStandIn() {
+        if (standInServer != null) {
+            standInServer.close();
+        }
+    }
+}
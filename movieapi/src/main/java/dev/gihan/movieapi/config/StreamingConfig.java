@@ -0,0 +1,80 @@
+package dev.gihan.movieapi.config;
+
+import dev.gihan.movieapi.streaming.BandwidthShaper;
+import dev.gihan.movieapi.streaming.HotChunkCache;
+import dev.gihan.movieapi.streaming.StreamingConcurrencyFilter;
+import dev.gihan.movieapi.streaming.StreamingMetrics;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class StreamingConfig {
+
+    @Value("${app.streaming.max-concurrent-transfers:2000}")
+    private int maxConcurrentTransfers;
+
+    @Value("${app.streaming.max-concurrent-metadata:200}")
+    private int maxConcurrentMetadata;
+
+    @Value("${app.streaming.acquire-timeout-ms:250}")
+    private long acquireTimeoutMillis;
+
+    @Value("${app.streaming.bandwidth.global-bytes-per-second:0}")
+    private long globalBytesPerSecond;
+
+    @Value("${app.streaming.bandwidth.per-user-bytes-per-second:0}")
+    private long perUserBytesPerSecond;
+
+    // Opt-in: a shaped session gets sendfile only when its burst covers the whole requested range
+    @Value("${app.streaming.bandwidth.bitrate-headroom:0}")
+    private double bitrateHeadroom;
+
+    @Value("${app.streaming.bandwidth.min-session-bytes-per-second:262144}")
+    private long minSessionBytesPerSecond;
+
+    @Value("${app.streaming.bandwidth.burst-seconds:10}")
+    private int burstSeconds;
+
+    @Value("${app.streaming.hot-cache.max-bytes:268435456}")
+    private long hotCacheMaxBytes;
+
+    @Value("${app.streaming.hot-cache.chunk-size:1048576}")
+    private int hotCacheChunkSize;
+
+    @Value("${app.streaming.metrics.max-tagged-movies:500}")
+    private int metricsMaxTaggedMovies;
+
+    @Bean
+    public HotChunkCache hotChunkCache() {
+        return new HotChunkCache(hotCacheChunkSize, hotCacheMaxBytes);
+    }
+
+    @Bean
+    public BandwidthShaper bandwidthShaper() {
+        return new BandwidthShaper(globalBytesPerSecond, perUserBytesPerSecond, bitrateHeadroom,
+                minSessionBytesPerSecond, burstSeconds);
+    }
+
+    @Bean
+    public StreamingMetrics streamingMetrics(MeterRegistry meterRegistry) {
+        return new StreamingMetrics(meterRegistry, metricsMaxTaggedMovies);
+    }
+
+    @Bean
+    public StreamingConcurrencyFilter streamingConcurrencyFilter() {
+        return new StreamingConcurrencyFilter(maxConcurrentTransfers, maxConcurrentMetadata, acquireTimeoutMillis);
+    }
+
+    // Registered after the security chain so unauthenticated requests never take a permit
+    @Bean
+    public FilterRegistrationBean<StreamingConcurrencyFilter> streamingConcurrencyFilterRegistration(
+            StreamingConcurrencyFilter streamingConcurrencyFilter) {
+        FilterRegistrationBean<StreamingConcurrencyFilter> registration =
+                new FilterRegistrationBean<>(streamingConcurrencyFilter);
+        registration.addUrlPatterns("/api/stream/*");
+        return registration;
+    }
+}
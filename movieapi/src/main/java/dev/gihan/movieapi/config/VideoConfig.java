@@ -1,27 +1,139 @@
 package dev.gihan.movieapi.config;
 
+import dev.gihan.movieapi.storage.MediaStorage;
+import dev.gihan.movieapi.streaming.ContentFingerprintStrategy;
+import dev.gihan.movieapi.streaming.FileValidatorCache;
+import dev.gihan.movieapi.streaming.IfRangeFilter;
+import dev.gihan.movieapi.streaming.ImmutableResourceResolver;
+import dev.gihan.movieapi.streaming.StaticAssetCompressor;
+import dev.gihan.movieapi.streaming.StoredMediaResourceResolver;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.web.servlet.config.annotation.ResourceChainRegistration;
 import org.springframework.web.servlet.config.annotation.ResourceHandlerRegistry;
 import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+import org.springframework.web.servlet.resource.EncodedResourceResolver;
+import org.springframework.web.servlet.resource.VersionResourceResolver;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.LinkedHashMap;
+import java.util.Map;
 
 @Configuration
 public class VideoConfig implements WebMvcConfigurer {
 
+    private static final Logger logger = LoggerFactory.getLogger(VideoConfig.class);
+
+    // Files small and frequently re-fetched enough to be worth fingerprinting; never video
+    private static final String[] FINGERPRINTED_PATTERNS = {
+            "/**/*.png", "/**/*.jpg", "/**/*.jpeg", "/**/*.gif", "/**/*.webp", "/**/*.svg", "/**/*.ico",
+            "/**/*.css", "/**/*.js", "/**/*.json"
+    };
+
+    private static final String UPLOADED_IMAGES_PREFIX = "/uploads/images/";
+
+    @Autowired
+    private FileValidatorCache fileValidatorCache;
+
+    @Autowired
+    private MediaStorage mediaStorage;
+
+    @Autowired
+    @Qualifier("mediaTaskExecutor")
+    private TaskExecutor mediaTaskExecutor;
+
+    @Value("${app.static.precompress:true}")
+    private boolean precompress;
+
+    @Value("${app.static.fingerprint-cache-size:10000}")
+    private int fingerprintCacheSize;
+
     @Override
     public void addResourceHandlers(ResourceHandlerRegistry registry) {
-        // Serve uploaded files statically
-        registry.addResourceHandler("/uploads/**")
-                .addResourceLocations("file:src/main/resources/static/uploads/")
-                .setCachePeriod(3600); // Cache for 1 hour
+        ContentFingerprintStrategy fingerprints = new ContentFingerprintStrategy(fingerprintCacheSize);
+        // ETag + Last-Modified let clients revalidate with a cheap 304 once the hour is up;
+        // fingerprinted and content-addressed URLs are marked immutable for a year instead
+        staticLocations().forEach((prefix, directory) -> {
+            ResourceChainRegistration chain = registry.addResourceHandler(prefix + "**")
+                    .addResourceLocations("file:" + directory)
+                    .setCachePeriod(3600) // Cache for 1 hour
+                    .setUseLastModified(true)
+                    .setEtagGenerator(fileValidatorCache::etagFor)
+                    // Uncached: files are replaced in place, and every resolver here only stats them
+                    .resourceChain(false)
+                    .addResolver(new ImmutableResourceResolver())
+                    .addResolver(new EncodedResourceResolver())
+                    .addResolver(new VersionResourceResolver().addVersionStrategy(fingerprints, FINGERPRINTED_PATTERNS));
+            if (UPLOADED_IMAGES_PREFIX.equals(prefix)) {
+                // Images uploaded on another node are fetched from the media storage on first request
+                chain.addResolver(new StoredMediaResourceResolver(mediaStorage, "images/"));
+            }
+        });
+    }
 
+    // URL prefix -> directory served under it
+    private Map<String, String> staticLocations() {
+        Map<String, String> locations = new LinkedHashMap<>();
+        // Serve uploaded images and videos statically; the rest of the upload directory (partial uploads,
+        // generated media) is not public
+        locations.put(UPLOADED_IMAGES_PREFIX, directoryLocation(mediaStorage.localDirectory("images/")));
+        locations.put("/uploads/videos/", directoryLocation(mediaStorage.localDirectory("videos/")));
         // Serve static video files
-        registry.addResourceHandler("/videos/**")
-                .addResourceLocations("file:src/main/resources/static/videos/")
-                .setCachePeriod(3600);
-
+        locations.put("/videos/", "src/main/resources/static/videos/");
         // Serve static image files
-        registry.addResourceHandler("/images/**")
-                .addResourceLocations("file:src/main/resources/static/images/")
-                .setCachePeriod(3600);
+        locations.put("/images/", "src/main/resources/static/images/");
+        return locations;
+    }
+
+    private static String directoryLocation(Path directory) {
+        String location = directory.toString();
+        return location.endsWith("/") ? location : location + "/";
+    }
+
+    /**
+     * Brings the ".gz" siblings of compressible static files up to date, off the startup thread.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void precompressStaticAssets() {
+        if (!precompress) {
+            return;
+        }
+        try {
+            mediaTaskExecutor.execute(() -> staticLocations().values().forEach(directory -> {
+                try {
+                    int written = StaticAssetCompressor.compressAll(Paths.get(directory));
+                    if (written > 0) {
+                        logger.info("Precompressed {} static files in {}", written, directory);
+                    }
+                } catch (IOException e) {
+                    logger.warn("Could not precompress static files in {}", directory, e);
+                }
+            }));
+        } catch (TaskRejectedException e) {
+            logger.info("Media queue is full, static files will be served uncompressed");
+        }
+    }
+
+    @Bean
+    public FilterRegistrationBean<IfRangeFilter> ifRangeFilterRegistration() {
+        Map<String, Path> locations = new LinkedHashMap<>();
+        staticLocations().forEach((prefix, directory) -> locations.put(prefix, Paths.get(directory)));
+
+        FilterRegistrationBean<IfRangeFilter> registration =
+                new FilterRegistrationBean<>(new IfRangeFilter(locations, fileValidatorCache));
+        locations.keySet().forEach(prefix -> registration.addUrlPatterns(prefix + "*"));
+        return registration;
     }
 }
@@ -1,23 +1,36 @@
 package dev.gihan.movieapi.controller;
 
 import dev.gihan.movieapi.dto.requestDto.MovieRequestDto;
+import dev.gihan.movieapi.dto.requestDto.UploadInitRequestDto;
+import dev.gihan.movieapi.dto.responseDto.ActiveStreamsDto;
 import dev.gihan.movieapi.dto.responseDto.AdminStatsDto;
 import dev.gihan.movieapi.dto.responseDto.FileUploadResponseDto;
+import dev.gihan.movieapi.dto.responseDto.MediaJobDto;
 import dev.gihan.movieapi.dto.responseDto.MessageResponseDto;
 import dev.gihan.movieapi.dto.responseDto.MovieResponseDto;
+import dev.gihan.movieapi.dto.responseDto.UploadSessionDto;
 import dev.gihan.movieapi.dto.responseDto.UserResponseDto;
+import dev.gihan.movieapi.dto.responseDto.ViewCountStatsDto;
 import dev.gihan.movieapi.model.Movie;
+import dev.gihan.movieapi.model.option.MediaJobStatus;
 import dev.gihan.movieapi.service.AdminService;
+import dev.gihan.movieapi.service.ChunkedUploadService;
 import dev.gihan.movieapi.service.FileUploadService;
+import dev.gihan.movieapi.service.MediaJobService;
 import dev.gihan.movieapi.service.MovieService;
+import dev.gihan.movieapi.service.StreamingService;
 import dev.gihan.movieapi.service.UserService;
+import dev.gihan.movieapi.service.ViewCountService;
+import dev.gihan.movieapi.streaming.BandwidthShaper;
+import dev.gihan.movieapi.streaming.HotChunkCache;
+import jakarta.servlet.http.HttpServletRequest;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
-import org.springframework.web.multipart.MultipartFile;
 
+import java.io.IOException;
 import java.util.List;
 
 @RestController
@@ -37,12 +50,50 @@ public class AdminController {
     @Autowired
     private FileUploadService fileUploadService;
 
+    @Autowired
+    private ChunkedUploadService chunkedUploadService;
+
+    @Autowired
+    private ViewCountService viewCountService;
+
+    @Autowired
+    private MediaJobService mediaJobService;
+
+    @Autowired
+    private StreamingService streamingService;
+
+    @Autowired
+    private BandwidthShaper bandwidthShaper;
+
+    @Autowired
+    private HotChunkCache hotChunkCache;
+
     @GetMapping("/stats")
     public ResponseEntity<AdminStatsDto> getAdminStats() {
         AdminStatsDto stats = adminService.getAdminStatistics();
         return ResponseEntity.ok(stats);
     }
 
+    @GetMapping("/stats/view-counts")
+    public ResponseEntity<ViewCountStatsDto> getViewCountStats() {
+        return ResponseEntity.ok(viewCountService.getStats());
+    }
+
+    @GetMapping("/stats/active-streams")
+    public ResponseEntity<ActiveStreamsDto> getActiveStreams() {
+        return ResponseEntity.ok(streamingService.getActiveStreams());
+    }
+
+    @GetMapping("/stats/bandwidth")
+    public ResponseEntity<BandwidthShaper.Stats> getBandwidthStats() {
+        return ResponseEntity.ok(bandwidthShaper.getStats());
+    }
+
+    @GetMapping("/stats/hot-cache")
+    public ResponseEntity<HotChunkCache.Stats> getHotCacheStats() {
+        return ResponseEntity.ok(hotChunkCache.getStats());
+    }
+
     @GetMapping("/users")
     public ResponseEntity<List<UserResponseDto>> getAllUsers() {
         List<UserResponseDto> users = adminService.getAllUsers();
@@ -79,26 +130,68 @@ public class AdminController {
         }
     }
 
+    // Multipart body parsed as it streams in; see spring.servlet.multipart.resolve-lazily
     @PostMapping("/upload/video")
-    public ResponseEntity<?> uploadVideo(@RequestParam("file") MultipartFile file) {
+    public ResponseEntity<?> uploadVideo(HttpServletRequest request) {
         try {
-            FileUploadResponseDto response = fileUploadService.uploadVideo(file);
+            FileUploadResponseDto response = fileUploadService.uploadVideo(request);
             return ResponseEntity.ok(response);
         } catch (Exception e) {
             return ResponseEntity.badRequest().body(new MessageResponseDto(e.getMessage()));
         }
     }
 
+    // Resumable uploads for files beyond the multipart limit: initiate, PUT each chunk at its offset, complete
+    @PostMapping("/upload/video/sessions")
+    public ResponseEntity<UploadSessionDto> initiateVideoUpload(@RequestBody UploadInitRequestDto request) {
+        return ResponseEntity.status(HttpStatus.CREATED).body(chunkedUploadService.initiate(request));
+    }
+
+    @GetMapping("/upload/video/sessions/{uploadId}")
+    public ResponseEntity<UploadSessionDto> getVideoUpload(@PathVariable String uploadId) {
+        return ResponseEntity.ok(chunkedUploadService.getStatus(uploadId));
+    }
+
+    // Raw bytes in the body, read straight into the upload file
+    @PutMapping("/upload/video/sessions/{uploadId}/chunks")
+    public ResponseEntity<Void> uploadVideoChunk(@PathVariable String uploadId, @RequestParam long offset,
+                                                 HttpServletRequest request) throws IOException {
+        chunkedUploadService.writeChunk(uploadId, offset, request.getContentLengthLong(), request.getInputStream());
+        return ResponseEntity.noContent().build();
+    }
+
+    @PostMapping("/upload/video/sessions/{uploadId}/complete")
+    public ResponseEntity<FileUploadResponseDto> completeVideoUpload(@PathVariable String uploadId) {
+        return ResponseEntity.ok(chunkedUploadService.complete(uploadId));
+    }
+
+    @DeleteMapping("/upload/video/sessions/{uploadId}")
+    public ResponseEntity<MessageResponseDto> abortVideoUpload(@PathVariable String uploadId) {
+        chunkedUploadService.abort(uploadId);
+        return ResponseEntity.ok(new MessageResponseDto("Upload cancelled"));
+    }
+
     @PostMapping("/upload/image")
-    public ResponseEntity<?> uploadImage(@RequestParam("file") MultipartFile file) {
+    public ResponseEntity<?> uploadImage(HttpServletRequest request) {
         try {
-            FileUploadResponseDto response = fileUploadService.uploadImage(file);
+            FileUploadResponseDto response = fileUploadService.uploadImage(request);
             return ResponseEntity.ok(response);
         } catch (Exception e) {
             return ResponseEntity.badRequest().body(new MessageResponseDto(e.getMessage()));
         }
     }
 
+    @GetMapping("/jobs")
+    public ResponseEntity<List<MediaJobDto>> getMediaJobs(@RequestParam(required = false) MediaJobStatus status,
+                                                          @RequestParam(defaultValue = "50") int limit) {
+        return ResponseEntity.ok(mediaJobService.getJobs(status, limit));
+    }
+
+    @PostMapping("/jobs/{jobId}/retry")
+    public ResponseEntity<MediaJobDto> retryMediaJob(@PathVariable Long jobId) {
+        return ResponseEntity.ok(mediaJobService.retry(jobId));
+    }
+
     @DeleteMapping("/users/{userId}")
     public ResponseEntity<?> deleteUser(@PathVariable Long userId) {
         try {
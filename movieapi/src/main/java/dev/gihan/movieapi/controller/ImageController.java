@@ -0,0 +1,65 @@
+package dev.gihan.movieapi.controller;
+
+import dev.gihan.movieapi.service.ImageVariantService;
+import dev.gihan.movieapi.streaming.ConditionalRequests;
+import dev.gihan.movieapi.streaming.FileValidatorCache;
+import dev.gihan.movieapi.streaming.VideoRegionWriter;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.io.IOException;
+
+@RestController
+@RequestMapping("/api/images")
+public class ImageController {
+
+    private static final Logger logger = LoggerFactory.getLogger(ImageController.class);
+
+    @Autowired
+    private ImageVariantService imageVariantService;
+
+    @Autowired
+    private FileValidatorCache fileValidatorCache;
+
+    @Autowired
+    private VideoRegionWriter videoRegionWriter;
+
+    /**
+     * An uploaded poster or thumbnail resized for display {@code w} CSS pixels wide (times the device
+     * pixel ratio), e.g. {@code /api/images/variant?src=/uploads/images/ab/cd/....png&w=320}.
+     */
+    @GetMapping("/variant")
+    public void getVariant(@RequestParam String src, @RequestParam("w") int width,
+                           HttpServletRequest request, HttpServletResponse response) throws IOException {
+        ImageVariantService.Variant variant = imageVariantService.getVariant(src, width);
+
+        FileValidatorCache.Validator validator = fileValidatorCache.get(variant.file());
+        ConditionalRequests.writeValidators(response, validator);
+        ConditionalRequests.Outcome outcome = ConditionalRequests.evaluate(request, validator);
+        if (outcome != ConditionalRequests.Outcome.PROCEED) {
+            response.setStatus(outcome == ConditionalRequests.Outcome.NOT_MODIFIED ?
+                    HttpStatus.NOT_MODIFIED.value() : HttpStatus.PRECONDITION_FAILED.value());
+            return;
+        }
+
+        response.setStatus(HttpStatus.OK.value());
+        response.setContentType(variant.contentType());
+        response.setContentLengthLong(validator.size());
+        // Same lifetime as the sprite sheets; uploads never change in place
+        response.setHeader(HttpHeaders.CACHE_CONTROL, "public, max-age=86400");
+        try {
+            videoRegionWriter.writeRegion(request, response, variant.file(), 0, validator.size());
+        } catch (IOException e) {
+            logger.debug("Client aborted transfer of {} ({})", variant.file().getFileName(), e.getMessage());
+        }
+    }
+}
@@ -1,30 +1,44 @@
 package dev.gihan.movieapi.controller;
 
+import dev.gihan.movieapi.dto.requestDto.StreamHeartbeatDto;
 import dev.gihan.movieapi.dto.requestDto.VideoProgressDto;
+import dev.gihan.movieapi.dto.responseDto.SeekOffsetDto;
 import dev.gihan.movieapi.exception.ResourceNotFoundException;
 import dev.gihan.movieapi.model.Movie;
 import dev.gihan.movieapi.model.User;
+import dev.gihan.movieapi.service.HlsPackagingService;
 import dev.gihan.movieapi.service.MovieService;
+import dev.gihan.movieapi.service.SeekIndexService;
 import dev.gihan.movieapi.service.StreamingService;
+import dev.gihan.movieapi.service.ThumbnailService;
+import dev.gihan.movieapi.service.TranscodingService;
 import dev.gihan.movieapi.service.UserService;
+import dev.gihan.movieapi.storage.MediaStorage;
+import dev.gihan.movieapi.streaming.BandwidthShaper;
+import dev.gihan.movieapi.streaming.ByteRange;
+import dev.gihan.movieapi.streaming.ConditionalRequests;
+import dev.gihan.movieapi.streaming.FileValidatorCache;
+import dev.gihan.movieapi.streaming.HotChunkCache;
+import dev.gihan.movieapi.streaming.HttpRangeParser;
+import dev.gihan.movieapi.streaming.StreamingMetrics;
+import dev.gihan.movieapi.streaming.VideoFileNames;
+import dev.gihan.movieapi.streaming.VideoMetadataCache;
+import dev.gihan.movieapi.streaming.VideoRegionWriter;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
+import org.apache.catalina.connector.ClientAbortException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.beans.factory.annotation.Value;
-import org.springframework.core.io.FileSystemResource;
-import org.springframework.core.io.Resource;
 import org.springframework.http.*;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.web.bind.annotation.*;
 
-import java.io.File;
-import java.nio.file.Files;
+import java.io.IOException;
+import java.nio.file.NoSuchFileException;
 import java.nio.file.Path;
-import java.nio.file.Paths;
-import java.util.UUID;
+import java.util.Optional;
 
 @RestController
 @RequestMapping("/api/stream")
@@ -32,6 +46,9 @@ public class StreamingController {
 
     private static final Logger logger = LoggerFactory.getLogger(StreamingController.class);
 
+    // Players echo this id to the heartbeat and end endpoints
+    static final String SESSION_HEADER = "X-Stream-Session";
+
     @Autowired
     private StreamingService streamingService;
 
@@ -41,72 +58,218 @@ public class StreamingController {
     @Autowired
     private UserService userService;
 
-    @Value("${app.video.directory}")
-    private String videoDirectory;
+    @Autowired
+    private HlsPackagingService hlsPackagingService;
+
+    @Autowired
+    private TranscodingService transcodingService;
+
+    @Autowired
+    private SeekIndexService seekIndexService;
+
+    @Autowired
+    private ThumbnailService thumbnailService;
+
+    @Autowired
+    private VideoRegionWriter videoRegionWriter;
+
+    @Autowired
+    private MediaStorage mediaStorage;
+
+    @Autowired
+    private FileValidatorCache fileValidatorCache;
+
+    @Autowired
+    private VideoMetadataCache videoMetadataCache;
+
+    @Autowired
+    private BandwidthShaper bandwidthShaper;
+
+    @Autowired
+    private HotChunkCache hotChunkCache;
+
+    @Autowired
+    private StreamingMetrics streamingMetrics;
 
     @GetMapping("/{movieId}")
-    public ResponseEntity<Resource> streamVideo(
+    public void streamVideo(
             @PathVariable Long movieId,
             @RequestHeader(value = "Range", required = false) String rangeHeader,
             HttpServletRequest request,
-            HttpServletResponse response) {
+            HttpServletResponse response) throws IOException {
 
+        long startNanos = System.nanoTime();
+        StreamingMetrics.Transfer transfer = null;
         try {
-            logger.info("Streaming request for movie ID: {}", movieId);
+            logger.debug("Streaming request for movie ID: {}", movieId);
 
             Movie movie = movieService.getMovieEntityById(movieId);
             if (movie == null) {
                 throw new ResourceNotFoundException("Movie", "id", movieId);
             }
 
+            VideoMetadataCache.Entry video = videoMetadataCache.get(movieId, movie.getVideoUrl())
+                    .orElseThrow(() -> new ResourceNotFoundException("Video file not found for movie: " + movie.getTitle()));
+            FileValidatorCache.Validator validator = video.validator();
+            long fileSize = video.size();
+
+            // Conditional requests: revalidations and failed preconditions never start a session
+            ConditionalRequests.Outcome outcome = ConditionalRequests.evaluate(request, validator);
+            if (outcome != ConditionalRequests.Outcome.PROCEED) {
+                if (outcome == ConditionalRequests.Outcome.NOT_MODIFIED) {
+                    ConditionalRequests.writeValidators(response, validator);
+                    response.setHeader(HttpHeaders.CACHE_CONTROL, "max-age=3600");
+                }
+                response.setStatus(outcome == ConditionalRequests.Outcome.NOT_MODIFIED ?
+                        HttpStatus.NOT_MODIFIED.value() : HttpStatus.PRECONDITION_FAILED.value());
+                return;
+            }
+
             // Track streaming session
-            String sessionId = UUID.randomUUID().toString();
             User user = getCurrentUser();
-            streamingService.startStreamingSession(sessionId, user, movie, request);
-
-            // Get video file path with security validation
-            String videoPath = getSecureVideoFilePath(movie.getVideoUrl());
-            File videoFile = new File(videoPath);
-
-            if (!videoFile.exists() || !videoFile.isFile()) {
-                logger.warn("Video file not found: {}", videoPath);
-                throw new ResourceNotFoundException("Video file not found for movie: " + movie.getTitle());
+            String sessionId = streamingService.startStreamingSession(user, movie, request);
+            response.setHeader(SESSION_HEADER, sessionId);
+            BandwidthShaper.Throttle throttle = bandwidthShaper.throttleFor(sessionId,
+                    user != null ? "u:" + user.getId() : "a:" + request.getRemoteAddr(), fileSize, movie.getDuration());
+            // Only files on this node's disk are cached in memory or sent with sendfile
+            HotChunkCache.CachedFile cached = video.path() != null ?
+                    hotChunkCache.lookup(movieId, video.path(), validator) : null;
+            transfer = streamingMetrics.begin(movieId, startNanos);
+            request.setAttribute(StreamingMetrics.TRANSFER_ATTRIBUTE, transfer);
+
+            MediaType mediaType = video.mediaType();
+            logger.debug("Streaming video: {} (size: {} bytes)", movie.getTitle(), fileSize);
+
+            ConditionalRequests.writeValidators(response, validator);
+
+            // Handle range requests for video streaming; a stale If-Range or a malformed range means a full response
+            if (rangeHeader != null && !ConditionalRequests.rangeApplies(request, validator)) {
+                logger.debug("If-Range validator changed, sending full video for movie ID: {}", movieId);
+                rangeHeader = null;
             }
-
-            // Security check: ensure file is within allowed directory
-            if (!isPathSecure(videoFile.toPath(), Paths.get(videoDirectory))) {
-                logger.error("Security violation: attempt to access file outside video directory: {}", videoPath);
-                return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+            HttpRangeParser.Result ranges = HttpRangeParser.parse(rangeHeader, fileSize);
+            if (ranges.status() != HttpRangeParser.Status.IGNORE) {
+                handleRangeRequest(request, response, video, ranges, fileSize, mediaType, throttle, cached, transfer);
+                return;
             }
-
-            long fileSize = videoFile.length();
-            Resource videoResource = new FileSystemResource(videoFile);
-            String contentType = Files.probeContentType(videoFile.toPath());
-            MediaType mediaType = contentType != null ?
-                    MediaType.valueOf(contentType) : MediaType.APPLICATION_OCTET_STREAM;
-
-            logger.info("Streaming video: {} (size: {} bytes)", movie.getTitle(), fileSize);
-
-            // Handle range requests for video streaming
-            if (rangeHeader != null && rangeHeader.startsWith("bytes=")) {
-                return handleRangeRequest(videoResource, rangeHeader, fileSize, mediaType);
+            if (rangeHeader != null) {
+                logger.debug("Ignoring unusable range header: {}", rangeHeader);
             }
 
             // Full file response
-            return ResponseEntity.ok()
-                    .contentType(mediaType)
-                    .contentLength(fileSize)
-                    .header(HttpHeaders.ACCEPT_RANGES, "bytes")
-                    .header(HttpHeaders.CACHE_CONTROL, "max-age=3600")
-                    .body(videoResource);
+            transfer.request(StreamingMetrics.RequestType.FULL);
+            response.setStatus(HttpStatus.OK.value());
+            response.setContentType(mediaType.toString());
+            response.setContentLengthLong(fileSize);
+            response.setHeader(HttpHeaders.ACCEPT_RANGES, "bytes");
+            response.setHeader(HttpHeaders.CACHE_CONTROL, "max-age=3600");
+            if (video.path() != null) {
+                videoRegionWriter.writeRegion(request, response, video.path(), 0, fileSize, throttle, cached);
+            } else {
+                videoRegionWriter.writeStoredRegion(request, response, video.key(), 0, fileSize, throttle);
+            }
 
         } catch (ResourceNotFoundException e) {
             logger.warn("Resource not found for movie streaming: {}", e.getMessage());
             throw e;
+        } catch (NoSuchFileException e) {
+            // Replaced or removed before the watcher caught up
+            videoMetadataCache.invalidate(movieId);
+            logger.warn("Video file for movie ID: {} disappeared while streaming", movieId);
+            if (!response.isCommitted()) {
+                response.sendError(HttpStatus.NOT_FOUND.value());
+            }
+        } catch (ClientAbortException e) {
+            // Broken pipe / connection reset: the viewer seeked or closed the player
+            if (transfer != null) {
+                transfer.aborted();
+            }
+            logger.debug("Client aborted stream for movie ID: {} ({})", movieId, e.getMessage());
+        } catch (IOException e) {
+            // Ours, not the client's: a truncated file, a short storage read, a disk error
+            if (transfer != null) {
+                transfer.failed();
+            }
+            logger.error("Could not send video for movie ID: {}", movieId, e);
+            if (!response.isCommitted()) {
+                response.sendError(HttpStatus.INTERNAL_SERVER_ERROR.value());
+            }
         } catch (Exception e) {
             logger.error("Unexpected error during video streaming for movie ID: {}", movieId, e);
-            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+            if (!response.isCommitted()) {
+                response.sendError(HttpStatus.INTERNAL_SERVER_ERROR.value());
+            }
+        } finally {
+            if (transfer != null) {
+                transfer.finish();
+            }
+        }
+    }
+
+    @GetMapping("/{movieId}/master.m3u8")
+    public ResponseEntity<String> getMasterPlaylist(@PathVariable Long movieId) throws Exception {
+        Movie movie = movieService.getMovieEntityById(movieId);
+        String playlist = transcodingService.buildMasterPlaylist(movie);
+        if (playlist == null) {
+            throw new ResourceNotFoundException("No adaptive renditions available for movie: " + movie.getTitle());
         }
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType("application/vnd.apple.mpegurl"))
+                .header(HttpHeaders.CACHE_CONTROL, "max-age=60")
+                .body(playlist);
+    }
+
+    /** Where to resume: the byte offset of the keyframe at or before {@code t} seconds. */
+    @GetMapping("/{movieId}/seek")
+    public ResponseEntity<SeekOffsetDto> seek(@PathVariable Long movieId, @RequestParam("t") double seconds)
+            throws Exception {
+        Movie movie = movieService.getMovieEntityById(movieId);
+        return ResponseEntity.ok(seekIndexService.findOffset(movie, seconds));
+    }
+
+    @GetMapping("/{movieId}/hls/{fileName:.+}")
+    public void streamHls(
+            @PathVariable Long movieId,
+            @PathVariable String fileName,
+            HttpServletRequest request,
+            HttpServletResponse response) throws Exception {
+        streamHlsFile(movieId, HlsPackagingService.SOURCE_RENDITION, fileName, request, response);
+    }
+
+    @GetMapping("/{movieId}/hls/{rendition}/{fileName:.+}")
+    public void streamHlsRendition(
+            @PathVariable Long movieId,
+            @PathVariable String rendition,
+            @PathVariable String fileName,
+            HttpServletRequest request,
+            HttpServletResponse response) throws Exception {
+        streamHlsFile(movieId, rendition, fileName, request, response);
+    }
+
+    /** Seek-bar previews: a WebVTT track ({@code thumbnails.vtt}) and the sprite sheets it points into. */
+    @GetMapping("/{movieId}/thumbnails/{fileName:.+}")
+    public void streamThumbnails(
+            @PathVariable Long movieId,
+            @PathVariable String fileName,
+            HttpServletRequest request,
+            HttpServletResponse response) throws Exception {
+        streamThumbnailFile(movieId, fileName, request, response);
+    }
+
+    @PostMapping("/sessions/{sessionId}/heartbeat")
+    public ResponseEntity<Void> heartbeat(@PathVariable String sessionId,
+                                          @RequestBody(required = false) StreamHeartbeatDto heartbeat) {
+        boolean alive = streamingService.heartbeat(sessionId, heartbeat != null ? heartbeat.getPosition() : null);
+        // 404 tells the player its session expired; its next range request opens a new one
+        return alive ? ResponseEntity.noContent().build() : ResponseEntity.notFound().build();
+    }
+
+    @PostMapping("/sessions/{sessionId}/end")
+    public ResponseEntity<Void> endSession(@PathVariable String sessionId,
+                                           @RequestBody(required = false) StreamHeartbeatDto heartbeat) {
+        boolean ended = streamingService.endStreamingSession(sessionId,
+                heartbeat != null ? heartbeat.getDurationWatched() : null);
+        return ended ? ResponseEntity.noContent().build() : ResponseEntity.notFound().build();
     }
 
     @PostMapping("/progress")
@@ -147,99 +310,136 @@ public class StreamingController {
         }
     }
 
-    private ResponseEntity<Resource> handleRangeRequest(Resource resource, String rangeHeader, long fileSize, MediaType mediaType) {
-        try {
-            String[] ranges = rangeHeader.substring(6).split("-");
-            long start = Long.parseLong(ranges[0]);
-            long end = ranges.length > 1 && !ranges[1].isEmpty() ?
-                    Long.parseLong(ranges[1]) : fileSize - 1;
+    private void handleRangeRequest(HttpServletRequest request, HttpServletResponse response, VideoMetadataCache.Entry video,
+                                    HttpRangeParser.Result ranges, long fileSize, MediaType mediaType,
+                                    BandwidthShaper.Throttle throttle, HotChunkCache.CachedFile cached,
+                                    StreamingMetrics.Transfer transfer) throws IOException {
+        if (ranges.status() == HttpRangeParser.Status.UNSATISFIABLE) {
+            logger.warn("Unsatisfiable range request for file of {} bytes", fileSize);
+            transfer.rangeNotSatisfiable();
+            response.setStatus(HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE.value());
+            response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes */" + fileSize);
+            return;
+        }
 
-            if (start >= fileSize || end >= fileSize || start > end) {
-                logger.warn("Invalid range request: {}", rangeHeader);
-                return ResponseEntity.status(HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE)
-                        .header(HttpHeaders.CONTENT_RANGE, "bytes */" + fileSize)
-                        .build();
+        response.setStatus(HttpStatus.PARTIAL_CONTENT.value());
+        response.setHeader(HttpHeaders.ACCEPT_RANGES, "bytes");
+        response.setHeader(HttpHeaders.CACHE_CONTROL, "max-age=3600");
+
+        if (ranges.isMultipart()) {
+            transfer.request(StreamingMetrics.RequestType.MULTIPART);
+            if (video.path() != null) {
+                videoRegionWriter.writeMultipartRegions(request, response, video.path(), ranges.ranges(),
+                        mediaType.toString(), fileSize, throttle, cached);
+            } else {
+                videoRegionWriter.writeStoredMultipartRegions(request, response, video.key(), ranges.ranges(),
+                        mediaType.toString(), fileSize, throttle);
             }
+            return;
+        }
 
-            long contentLength = end - start + 1;
-
-            return ResponseEntity.status(HttpStatus.PARTIAL_CONTENT)
-                    .contentType(mediaType)
-                    .contentLength(contentLength)
-                    .header(HttpHeaders.ACCEPT_RANGES, "bytes")
-                    .header(HttpHeaders.CONTENT_RANGE, "bytes " + start + "-" + end + "/" + fileSize)
-                    .header(HttpHeaders.CACHE_CONTROL, "max-age=3600")
-                    .body(resource);
+        ByteRange range = ranges.ranges().get(0);
+        transfer.request(StreamingMetrics.RequestType.RANGE);
+        response.setContentType(mediaType.toString());
+        response.setContentLengthLong(range.length());
+        response.setHeader(HttpHeaders.CONTENT_RANGE, range.toContentRange(fileSize));
+        if (video.path() != null) {
+            videoRegionWriter.writeRegion(request, response, video.path(), range.start(), range.length(), throttle, cached);
+        } else {
+            videoRegionWriter.writeStoredRegion(request, response, video.key(), range.start(), range.length(), throttle);
+        }
+    }
 
-        } catch (Exception e) {
-            logger.error("Error handling range request", e);
-            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+    private void streamHlsFile(Long movieId, String rendition, String fileName,
+                               HttpServletRequest request, HttpServletResponse response) throws Exception {
+        Movie movie = movieService.getMovieEntityById(movieId);
+        String videoFileName = VideoFileNames.fromVideoUrl(movie.getVideoUrl());
+
+        String packageKey = hlsPackagingService.renditionKey(videoFileName, rendition, fileName);
+        boolean playlist = fileName.endsWith(".m3u8");
+        // Segments never change once packaged; the playlist is re-read after a re-upload
+        boolean served = serveGeneratedFile(packageKey, playlist ? "application/vnd.apple.mpegurl" :
+                        fileName.endsWith(".ts") ? "video/mp2t" : "video/mp4",
+                playlist ? "max-age=60" : "max-age=86400", request, response);
+        if (!served) {
+            throw new ResourceNotFoundException("HLS stream not available for movie: " + movie.getTitle());
         }
     }
 
-    private User getCurrentUser() {
-        Authentication auth = SecurityContextHolder.getContext().getAuthentication();
-        if (auth == null || !auth.isAuthenticated() || "anonymousUser".equals(auth.getPrincipal())) {
-            return null;
+    private void streamThumbnailFile(Long movieId, String fileName,
+                                     HttpServletRequest request, HttpServletResponse response) throws Exception {
+        Movie movie = movieService.getMovieEntityById(movieId);
+        String videoFileName = VideoFileNames.fromVideoUrl(movie.getVideoUrl());
+
+        String thumbnailKey = thumbnailService.thumbnailKey(videoFileName, fileName);
+        boolean track = fileName.endsWith(".vtt");
+        // Sheets are only replaced together with the track, which is revalidated hourly
+        boolean served = serveGeneratedFile(thumbnailKey, track ? "text/vtt;charset=UTF-8" : MediaType.IMAGE_JPEG_VALUE,
+                track ? "max-age=3600" : "max-age=86400", request, response);
+        if (!served) {
+            if (!thumbnailService.isGenerated(videoFileName)) {
+                // Movies uploaded before thumbnails existed get them on first request
+                thumbnailService.scheduleGeneration(videoFileName);
+                throw new ResourceNotFoundException("Thumbnails not available yet for movie: " + movie.getTitle());
+            }
+            throw new ResourceNotFoundException("Thumbnail file not found: " + fileName);
         }
-        return userService.findByEmail(auth.getName());
     }
 
     /**
-     * FIXED: Get secure video file path with proper path construction and sanitization
+     * Sends a packaged or generated object whole, honouring conditional requests: from this node's copy
+     * when it has one, otherwise straight from the media storage. False if there is no such object.
      */
-    private String getSecureVideoFilePath(String videoUrl) {
-        logger.info("DEBUG - Original videoUrl from database: {}", videoUrl);
-        logger.info("DEBUG - Configured videoDirectory: {}", videoDirectory);
-
-        // Extract filename from URL path
-        String fileName;
-        if (videoUrl.startsWith("http")) {
-            // If it's a full URL, extract filename
-            fileName = videoUrl.substring(videoUrl.lastIndexOf('/') + 1);
-        } else if (videoUrl.startsWith("/uploads/")) {
-            // If it's a relative URL like "/uploads/videos/filename.mp4"
-            fileName = videoUrl.substring(videoUrl.lastIndexOf('/') + 1);
+    private boolean serveGeneratedFile(String key, String contentType, String cacheControl,
+                                       HttpServletRequest request, HttpServletResponse response) throws IOException {
+        Path file = mediaStorage.localPath(key).orElse(null);
+        FileValidatorCache.Validator validator;
+        if (file != null) {
+            validator = fileValidatorCache.get(file);
         } else {
-            // If it's already just a filename
-            fileName = videoUrl;
+            Optional<MediaStorage.ObjectInfo> info = mediaStorage.stat(key);
+            if (info.isEmpty()) {
+                return false;
+            }
+            validator = FileValidatorCache.forStoredObject(info.get());
+        }
+        long fileSize = validator.size();
+        ConditionalRequests.writeValidators(response, validator);
+
+        ConditionalRequests.Outcome outcome = ConditionalRequests.evaluate(request, validator);
+        if (outcome != ConditionalRequests.Outcome.PROCEED) {
+            response.setStatus(outcome == ConditionalRequests.Outcome.NOT_MODIFIED ?
+                    HttpStatus.NOT_MODIFIED.value() : HttpStatus.PRECONDITION_FAILED.value());
+            return true;
         }
 
-        logger.info("DEBUG - Extracted fileName: {}", fileName);
-
-        // Sanitize filename to prevent path traversal but keep extension
-        fileName = sanitizeFileName(fileName);
-
-        logger.info("DEBUG - Sanitized fileName: {}", fileName);
-
-        String finalPath = Paths.get(videoDirectory, fileName).toString();
-        logger.info("DEBUG - Final video file path: {}", finalPath);
-
-        return finalPath;
-    }
+        response.setStatus(HttpStatus.OK.value());
+        response.setContentType(contentType);
+        response.setContentLengthLong(fileSize);
+        response.setHeader(HttpHeaders.CACHE_CONTROL, cacheControl);
 
-    /**
-     * FIXED: Sanitize filename while preserving file extension
-     */
-    private String sanitizeFileName(String fileName) {
-        // Preserve file extension but prevent path traversal
-        if (fileName.contains("..") || fileName.contains("/") || fileName.contains("\\")) {
-            // If there are path traversal attempts, extract just the filename
-            fileName = Paths.get(fileName).getFileName().toString();
+        try {
+            if (file != null) {
+                videoRegionWriter.writeRegion(request, response, file, 0, fileSize);
+            } else {
+                videoRegionWriter.writeStoredRegion(request, response, key, 0, fileSize, null);
+            }
+        } catch (ClientAbortException e) {
+            logger.debug("Client aborted transfer of {} ({})", key, e.getMessage());
+        } catch (IOException e) {
+            logger.error("Could not send {}", key, e);
+            if (!response.isCommitted()) {
+                response.sendError(HttpStatus.INTERNAL_SERVER_ERROR.value());
+            }
         }
-
-        // Remove any remaining dangerous characters but keep dots for extensions
-        return fileName.replaceAll("[^a-zA-Z0-9._-]", "_");
+        return true;
     }
 
-    private boolean isPathSecure(Path filePath, Path allowedDirectory) {
-        try {
-            Path normalizedFile = filePath.normalize().toAbsolutePath();
-            Path normalizedDir = allowedDirectory.normalize().toAbsolutePath();
-            return normalizedFile.startsWith(normalizedDir);
-        } catch (Exception e) {
-            logger.error("Error validating path security", e);
-            return false;
+    private User getCurrentUser() {
+        Authentication auth = SecurityContextHolder.getContext().getAuthentication();
+        if (auth == null || !auth.isAuthenticated() || "anonymousUser".equals(auth.getPrincipal())) {
+            return null;
         }
+        return userService.findByEmail(auth.getName());
     }
-}
\ No newline at end of file
+}
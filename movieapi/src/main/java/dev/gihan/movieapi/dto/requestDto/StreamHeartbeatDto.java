@@ -0,0 +1,9 @@
+package dev.gihan.movieapi.dto.requestDto;
+
+import lombok.Data;
+
+@Data
+public class StreamHeartbeatDto {
+    private Integer position;        // seconds
+    private Integer durationWatched; // seconds, only read when ending a session
+}
@@ -0,0 +1,10 @@
+package dev.gihan.movieapi.dto.requestDto;
+
+import lombok.Data;
+
+@Data
+public class UploadInitRequestDto {
+    private String fileName;
+    private String contentType;
+    private Long fileSize; // bytes
+}
@@ -0,0 +1,15 @@
+package dev.gihan.movieapi.dto.responseDto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Map;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class ActiveStreamsDto {
+    private Integer activeStreams;
+    private Map<Long, Integer> activeStreamsByMovie;
+}
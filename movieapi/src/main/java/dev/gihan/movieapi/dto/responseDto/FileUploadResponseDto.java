@@ -12,5 +12,7 @@ public class FileUploadResponseDto {
     private String fileUrl;
     private String fileType;
     private Long fileSize;
+    // Hex SHA-256 of the stored bytes, when computed during the upload
+    private String sha256;
     private String message;
 }
\ No newline at end of file
@@ -0,0 +1,25 @@
+package dev.gihan.movieapi.dto.responseDto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class MediaJobDto {
+    private Long id;
+    private String type;
+    private String target;
+    private String status;
+    private Integer progress; // percent
+    private Integer attempts;
+    private Integer maxAttempts;
+    private String lastError;
+    private LocalDateTime runAfter; // next attempt, while pending
+    private LocalDateTime createdAt;
+    private LocalDateTime updatedAt;
+    private LocalDateTime finishedAt;
+}
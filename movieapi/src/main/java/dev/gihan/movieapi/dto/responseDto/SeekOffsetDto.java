@@ -0,0 +1,16 @@
+package dev.gihan.movieapi.dto.responseDto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class SeekOffsetDto {
+    private Long movieId;
+    private Double requestedTime;  // seconds
+    private Double keyframeTime;   // seconds, the position playback actually resumes from
+    private Long byteOffset;
+    private Boolean exact;         // false when estimated from the average bitrate
+}
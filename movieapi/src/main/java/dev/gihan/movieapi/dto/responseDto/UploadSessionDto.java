@@ -0,0 +1,22 @@
+package dev.gihan.movieapi.dto.responseDto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class UploadSessionDto {
+    private String uploadId;
+    private String status;
+    private Long totalSize;
+    private Integer chunkSize;
+    private Integer totalChunks;
+    private Long receivedBytes;
+    private List<Integer> missingChunks; // indexes still to send; chunk i starts at i * chunkSize
+    private LocalDateTime expiresAt;
+}
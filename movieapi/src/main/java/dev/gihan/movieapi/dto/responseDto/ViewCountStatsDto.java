@@ -0,0 +1,18 @@
+package dev.gihan.movieapi.dto.responseDto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class ViewCountStatsDto {
+    private Integer pendingMovies;
+    private Long pendingViews;
+    private Long flushedViews;
+    private Long failedFlushes;
+    private LocalDateTime lastFlushAt;
+}
@@ -0,0 +1,67 @@
+package dev.gihan.movieapi.media;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs external media tools (ffmpeg) with a timeout, forwarding their output to the log.
+ */
+@Component
+public class ProcessRunner {
+
+    private static final Logger logger = LoggerFactory.getLogger(ProcessRunner.class);
+
+    @Value("${app.media.ffmpeg-path:ffmpeg}")
+    private String ffmpegPath = "ffmpeg";
+
+    @Value("${app.media.process-timeout-minutes:120}")
+    private long timeoutMinutes = 120;
+
+    public String getFfmpegPath() {
+        return ffmpegPath;
+    }
+
+    public void run(List<String> command) throws IOException {
+        logger.debug("Running media command: {}", command);
+        Process process = new ProcessBuilder(command)
+                .redirectErrorStream(true)
+                .start();
+
+        // Drain output on a separate thread so a hung tool cannot block past the timeout
+        Thread.ofVirtual().name("media-process-output").start(() -> {
+            try (BufferedReader output = new BufferedReader(
+                    new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8))) {
+                String line;
+                while ((line = output.readLine()) != null) {
+                    logger.info("[{}] {}", command.get(0), line);
+                }
+            } catch (IOException e) {
+                logger.debug("Stopped reading output of {}: {}", command.get(0), e.getMessage());
+            }
+        });
+
+        try {
+            if (!process.waitFor(timeoutMinutes, TimeUnit.MINUTES)) {
+                process.destroyForcibly();
+                throw new IOException("Media command timed out after " + timeoutMinutes + " minutes: " + command.get(0));
+            }
+        } catch (InterruptedException e) {
+            process.destroyForcibly();
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while waiting for " + command.get(0), e);
+        }
+
+        if (process.exitValue() != 0) {
+            throw new IOException(command.get(0) + " exited with status " + process.exitValue());
+        }
+    }
+}
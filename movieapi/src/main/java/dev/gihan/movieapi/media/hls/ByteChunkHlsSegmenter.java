@@ -0,0 +1,56 @@
+package dev.gihan.movieapi.media.hls;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Locale;
+
+/**
+ * Stand-in segmenter for local development and tests where ffmpeg is not installed.
+ * Cuts the source into equal byte chunks and labels each with the nominal segment duration;
+ * it does not look for keyframes, so output is only playable for MPEG-TS sources.
+ */
+public class ByteChunkHlsSegmenter implements HlsSegmenter {
+
+    private final long chunkBytes;
+
+    public ByteChunkHlsSegmenter(long chunkBytes) {
+        if (chunkBytes <= 0) {
+            throw new IllegalArgumentException("chunkBytes must be positive");
+        }
+        this.chunkBytes = chunkBytes;
+    }
+
+    @Override
+    public void segment(Path source, Path outputDirectory, int segmentSeconds) throws IOException {
+        try (FileChannel in = FileChannel.open(source, StandardOpenOption.READ);
+             Writer playlist = Files.newBufferedWriter(outputDirectory.resolve(PLAYLIST_NAME), StandardCharsets.UTF_8)) {
+            playlist.write("#EXTM3U\n");
+            playlist.write("#EXT-X-VERSION:3\n");
+            playlist.write("#EXT-X-TARGETDURATION:" + segmentSeconds + "\n");
+            playlist.write("#EXT-X-MEDIA-SEQUENCE:0\n");
+            playlist.write("#EXT-X-PLAYLIST-TYPE:VOD\n");
+
+            long size = in.size();
+            int index = 0;
+            for (long position = 0; position < size; position += chunkBytes, index++) {
+                String segmentName = String.format(Locale.ROOT, "segment_%05d.ts", index);
+                long length = Math.min(chunkBytes, size - position);
+                try (FileChannel out = FileChannel.open(outputDirectory.resolve(segmentName),
+                        StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                    long copied = 0;
+                    while (copied < length) {
+                        copied += in.transferTo(position + copied, length - copied, out);
+                    }
+                }
+                playlist.write(String.format(Locale.ROOT, "#EXTINF:%.3f,\n", (double) segmentSeconds));
+                playlist.write(segmentName + "\n");
+            }
+            playlist.write("#EXT-X-ENDLIST\n");
+        }
+    }
+}
@@ -0,0 +1,34 @@
+package dev.gihan.movieapi.media.hls;
+
+import dev.gihan.movieapi.media.ProcessRunner;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+
+/**
+ * Production segmenter: remuxes (no re-encode) into MPEG-TS segments cut on keyframes with ffmpeg.
+ */
+public class FfmpegHlsSegmenter implements HlsSegmenter {
+
+    private final ProcessRunner processRunner;
+
+    public FfmpegHlsSegmenter(ProcessRunner processRunner) {
+        this.processRunner = processRunner;
+    }
+
+    @Override
+    public void segment(Path source, Path outputDirectory, int segmentSeconds) throws IOException {
+        processRunner.run(List.of(
+                processRunner.getFfmpegPath(), "-hide_banner", "-loglevel", "error", "-y",
+                "-i", source.toAbsolutePath().toString(),
+                "-map", "0:v:0?", "-map", "0:a:0?",
+                "-c", "copy",
+                "-f", "hls",
+                "-hls_time", String.valueOf(segmentSeconds),
+                "-hls_playlist_type", "vod",
+                "-hls_segment_filename", outputDirectory.resolve("segment_%05d.ts").toAbsolutePath().toString(),
+                outputDirectory.resolve(PLAYLIST_NAME).toAbsolutePath().toString()
+        ));
+    }
+}
@@ -0,0 +1,17 @@
+package dev.gihan.movieapi.media.hls;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+/**
+ * Splits a source video into fixed-duration HLS segments plus a VOD media playlist.
+ */
+public interface HlsSegmenter {
+
+    String PLAYLIST_NAME = "index.m3u8";
+
+    /**
+     * Writes {@link #PLAYLIST_NAME} and its segments into {@code outputDirectory}, which already exists.
+     */
+    void segment(Path source, Path outputDirectory, int segmentSeconds) throws IOException;
+}
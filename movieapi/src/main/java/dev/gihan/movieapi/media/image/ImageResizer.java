@@ -0,0 +1,75 @@
+package dev.gihan.movieapi.media.image;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.file.Path;
+
+/**
+ * Scales an image down to a target width and writes it as a JPEG. Large reductions are done in
+ * halving steps, which keeps bilinear filtering from aliasing the way a single big step does.
+ */
+public final class ImageResizer {
+
+    private ImageResizer() {
+    }
+
+    /** Reads {@code source}; returns null when no installed ImageIO reader understands it. */
+    public static BufferedImage read(Path source) throws IOException {
+        return ImageIO.read(source.toFile());
+    }
+
+    /**
+     * Writes {@code image} scaled to {@code width} (never enlarged) to {@code target} at JPEG
+     * {@code quality} between 0 and 1. Transparency is flattened onto black, the catalog background.
+     */
+    public static void writeJpeg(BufferedImage image, int width, float quality, Path target) throws IOException {
+        int targetWidth = Math.min(width, image.getWidth());
+        int targetHeight = Math.max(1, (int) Math.round((double) image.getHeight() * targetWidth / image.getWidth()));
+
+        BufferedImage current = image;
+        while (current.getWidth() / 2 >= targetWidth) {
+            current = scale(current, current.getWidth() / 2,
+                    Math.max(targetHeight, current.getHeight() / 2));
+        }
+        if (current.getWidth() != targetWidth || current.getType() != BufferedImage.TYPE_INT_RGB) {
+            current = scale(current, targetWidth, targetHeight);
+        }
+
+        ImageWriter writer = ImageIO.getImageWritersByFormatName("jpeg").next();
+        try (ImageOutputStream out = ImageIO.createImageOutputStream(target.toFile())) {
+            if (out == null) {
+                throw new IOException("Cannot write " + target);
+            }
+            ImageWriteParam param = writer.getDefaultWriteParam();
+            param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+            param.setCompressionQuality(quality);
+            // Progressive JPEGs paint a full-size preview early on slow connections
+            param.setProgressiveMode(ImageWriteParam.MODE_DEFAULT);
+            writer.setOutput(out);
+            writer.write(null, new IIOImage(current, null, null), param);
+        } finally {
+            writer.dispose();
+        }
+    }
+
+    private static BufferedImage scale(BufferedImage source, int width, int height) {
+        BufferedImage scaled = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        Graphics2D graphics = scaled.createGraphics();
+        try {
+            graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            graphics.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            graphics.drawImage(source, 0, 0, width, height, Color.BLACK, null);
+        } finally {
+            graphics.dispose();
+        }
+        return scaled;
+    }
+}
@@ -0,0 +1,142 @@
+package dev.gihan.movieapi.media.mp4;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * ISO base media file box parsing shared by the MP4 tools: top-level boxes are read from the file,
+ * boxes inside {@code moov} from an in-memory copy of it.
+ */
+final class Mp4Boxes {
+
+    /** A box at {@code offset} of {@code size} bytes, header included. */
+    record Box(String type, long offset, long size, int headerSize) {
+
+        long bodyOffset() {
+            return offset + headerSize;
+        }
+
+        long end() {
+            return offset + size;
+        }
+    }
+
+    // Several hours of video index in a few MB; anything larger is not worth holding in memory
+    static final int MAX_MOOV_BYTES = 64 * 1024 * 1024;
+
+    private Mp4Boxes() {
+    }
+
+    /** The top-level boxes covering the whole file, or null if it is not a well-formed box sequence. */
+    static List<Box> readTopLevel(FileChannel in) throws IOException {
+        long fileSize = in.size();
+        List<Box> boxes = new ArrayList<>();
+        ByteBuffer header = ByteBuffer.allocate(16);
+        long position = 0;
+        while (position < fileSize) {
+            if (fileSize - position < 8) {
+                return null;
+            }
+            header.clear().limit((int) Math.min(16, fileSize - position));
+            if (!readFully(in, header, position)) {
+                return null;
+            }
+            Box box = parseHeader(header, 0, header.limit(), position, fileSize - position);
+            if (box == null) {
+                return null;
+            }
+            boxes.add(box);
+            position += box.size();
+        }
+        return boxes;
+    }
+
+    /** The first top-level box of {@code type}, or null. */
+    static Box find(List<Box> boxes, String type) {
+        for (Box box : boxes) {
+            if (box.type().equals(type)) {
+                return box;
+            }
+        }
+        return null;
+    }
+
+    /** Reads a whole box into a heap buffer, or returns null if it is larger than {@link #MAX_MOOV_BYTES}. */
+    static ByteBuffer read(FileChannel in, Box box) throws IOException {
+        if (box.size() > MAX_MOOV_BYTES) {
+            return null;
+        }
+        ByteBuffer bytes = ByteBuffer.allocate((int) box.size());
+        return readFully(in, bytes, box.offset()) ? bytes : null;
+    }
+
+    /**
+     * The child boxes between {@code start} and {@code end} of {@code buffer}, with offsets relative
+     * to the buffer, or null if they do not tile the range exactly.
+     */
+    static List<Box> children(ByteBuffer buffer, int start, int end) {
+        List<Box> boxes = new ArrayList<>();
+        int position = start;
+        while (position < end) {
+            Box box = parseHeader(buffer, position, end, position, end - position);
+            if (box == null) {
+                return null;
+            }
+            boxes.add(box);
+            position += (int) box.size();
+        }
+        return boxes;
+    }
+
+    /** The children of a box held in {@code buffer}. */
+    static List<Box> children(ByteBuffer buffer, Box parent) {
+        return children(buffer, (int) parent.bodyOffset(), (int) parent.end());
+    }
+
+    static Box child(ByteBuffer buffer, Box parent, String type) {
+        List<Box> children = children(buffer, parent);
+        return children != null ? find(children, type) : null;
+    }
+
+    static boolean readFully(FileChannel in, ByteBuffer buffer, long position) throws IOException {
+        int start = buffer.position();
+        while (buffer.hasRemaining()) {
+            if (in.read(buffer, position + buffer.position() - start) < 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Parses the header at {@code index} of {@code buffer} (readable up to {@code limit}) for a box
+     * that starts at {@code offset} and may extend at most {@code available} bytes.
+     */
+    private static Box parseHeader(ByteBuffer buffer, int index, int limit, long offset, long available) {
+        if (limit - index < 8) {
+            return null;
+        }
+        long size = Integer.toUnsignedLong(buffer.getInt(index));
+        byte[] type = new byte[4];
+        buffer.get(index + 4, type);
+        int headerSize = 8;
+        if (size == 1) {
+            if (limit - index < 16) {
+                return null;
+            }
+            size = buffer.getLong(index + 8);
+            headerSize = 16;
+        } else if (size == 0) {
+            // Extends to the end of the enclosing range
+            size = available;
+        }
+        if (size < headerSize || size > available) {
+            return null;
+        }
+        return new Box(new String(type, StandardCharsets.ISO_8859_1), offset, size, headerSize);
+    }
+}
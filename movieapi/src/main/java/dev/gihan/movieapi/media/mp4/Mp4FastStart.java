@@ -0,0 +1,172 @@
+package dev.gihan.movieapi.media.mp4;
+
+import dev.gihan.movieapi.media.mp4.Mp4Boxes.Box;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Moves the {@code moov} box of an MP4/QuickTime file in front of its media data, so players can
+ * start without first fetching the index from the end of the file. Chunk offsets in every
+ * {@code stco}/{@code co64} table are shifted by the size of {@code moov}. Media data is copied
+ * with transferTo; only {@code moov} itself is held in memory.
+ * <p>
+ * Files that cannot be rewritten safely (compressed {@code moov}, chunk offsets outside the moved
+ * region, 32-bit offsets that would overflow) are left untouched.
+ */
+public final class Mp4FastStart {
+
+    public enum Result { REWRITTEN, ALREADY_FAST_START, NOT_MP4, UNSUPPORTED }
+
+    private static final Set<String> CONTAINERS = Set.of("trak", "mdia", "minf", "stbl");
+
+    private Mp4FastStart() {
+    }
+
+    public static Result apply(Path file) throws IOException {
+        List<Box> boxes;
+        Box moov = null;
+        Box firstMdat = null;
+        ByteBuffer moovBytes;
+        try (FileChannel in = FileChannel.open(file, StandardOpenOption.READ)) {
+            boxes = Mp4Boxes.readTopLevel(in);
+            if (boxes == null) {
+                return Result.NOT_MP4;
+            }
+            for (Box box : boxes) {
+                if (box.type().equals("moov")) {
+                    if (moov != null) {
+                        return Result.UNSUPPORTED;
+                    }
+                    moov = box;
+                } else if (box.type().equals("mdat") && firstMdat == null) {
+                    firstMdat = box;
+                }
+            }
+            if (moov == null || firstMdat == null) {
+                return Result.NOT_MP4;
+            }
+            if (moov.offset() < firstMdat.offset()) {
+                return Result.ALREADY_FAST_START;
+            }
+            moovBytes = Mp4Boxes.read(in, moov);
+            if (moovBytes == null) {
+                return Result.UNSUPPORTED;
+            }
+        }
+
+        // Everything from the first mdat up to moov moves back by the size of moov
+        if (!patchChunkOffsets(moovBytes, moov.headerSize(), moovBytes.capacity(),
+                firstMdat.offset(), moov.offset(), moov.size())) {
+            return Result.UNSUPPORTED;
+        }
+
+        List<Box> layout = new ArrayList<>(boxes.size());
+        for (Box box : boxes) {
+            if (box.offset() < firstMdat.offset()) {
+                layout.add(box);
+            }
+        }
+        layout.add(moov);
+        for (Box box : boxes) {
+            if (box.offset() >= firstMdat.offset() && box != moov) {
+                layout.add(box);
+            }
+        }
+
+        // Unique per attempt, so scratch left by a killed rewrite cannot block the next one
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp-" + UUID.randomUUID());
+        try {
+            try (FileChannel in = FileChannel.open(file, StandardOpenOption.READ);
+                 FileChannel out = FileChannel.open(temp, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE)) {
+                for (Box box : layout) {
+                    if (box == moov) {
+                        moovBytes.rewind();
+                        while (moovBytes.hasRemaining()) {
+                            out.write(moovBytes);
+                        }
+                    } else {
+                        copy(in, box.offset(), box.size(), out);
+                    }
+                }
+                out.force(false);
+            }
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+        return Result.REWRITTEN;
+    }
+
+    /**
+     * Adds {@code shift} to every chunk offset in the boxes between {@code start} and {@code end}.
+     * Returns false if an offset lies outside [{@code movedFrom}, {@code movedTo}) or a 32-bit
+     * offset would overflow.
+     */
+    private static boolean patchChunkOffsets(ByteBuffer moov, int start, int end,
+                                             long movedFrom, long movedTo, long shift) {
+        List<Box> children = Mp4Boxes.children(moov, start, end);
+        if (children == null) {
+            return false;
+        }
+        for (Box box : children) {
+            int body = (int) box.bodyOffset();
+            int boxEnd = (int) box.end();
+            String type = box.type();
+            if (type.equals("cmov")) {
+                return false;
+            } else if (CONTAINERS.contains(type)) {
+                if (!patchChunkOffsets(moov, body, boxEnd, movedFrom, movedTo, shift)) {
+                    return false;
+                }
+            } else if (type.equals("stco") || type.equals("co64")) {
+                int entrySize = type.equals("stco") ? 4 : 8;
+                // Full box: version and flags, then the entry count
+                if (boxEnd - body < 8) {
+                    return false;
+                }
+                long entries = Integer.toUnsignedLong(moov.getInt(body + 4));
+                if (entries * entrySize > boxEnd - body - 8) {
+                    return false;
+                }
+                for (int i = 0; i < entries; i++) {
+                    int at = body + 8 + i * entrySize;
+                    long offset = entrySize == 4 ? Integer.toUnsignedLong(moov.getInt(at)) : moov.getLong(at);
+                    if (offset < movedFrom || offset >= movedTo) {
+                        return false;
+                    }
+                    long shifted = offset + shift;
+                    if (entrySize == 4) {
+                        if (shifted > 0xFFFFFFFFL) {
+                            return false;
+                        }
+                        moov.putInt(at, (int) shifted);
+                    } else {
+                        moov.putLong(at, shifted);
+                    }
+                }
+            }
+        }
+        return true;
+    }
+
+    private static void copy(FileChannel in, long start, long length, FileChannel out) throws IOException {
+        long copied = 0;
+        while (copied < length) {
+            long written = in.transferTo(start + copied, length - copied, out);
+            if (written <= 0) {
+                throw new IOException("Source truncated during fast-start rewrite");
+            }
+            copied += written;
+        }
+    }
+}
@@ -0,0 +1,192 @@
+package dev.gihan.movieapi.media.mp4;
+
+import dev.gihan.movieapi.media.mp4.Mp4Boxes.Box;
+import dev.gihan.movieapi.media.probe.MediaInfo;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Describes an MP4/QuickTime file from its {@code moov} box: duration from {@code mvhd} (or
+ * {@code mehd} for fragmented files), and per track the handler, sample entry codec, display size
+ * and, from the sample size table, the average bitrate.
+ */
+public final class Mp4Probe {
+
+    private static final Map<String, String> CODECS = Map.ofEntries(
+            Map.entry("avc1", "h264"), Map.entry("avc3", "h264"),
+            Map.entry("hvc1", "hevc"), Map.entry("hev1", "hevc"),
+            Map.entry("av01", "av1"), Map.entry("vp08", "vp8"), Map.entry("vp09", "vp9"),
+            Map.entry("mp4v", "mpeg4"), Map.entry("mp4a", "aac"), Map.entry("Opus", "opus"),
+            Map.entry("ac-3", "ac3"), Map.entry("ec-3", "eac3"), Map.entry("fLaC", "flac"),
+            Map.entry(".mp3", "mp3"));
+
+    private record Track(String codec, Integer width, Integer height, Double frameRate, Integer bitrateKbps) {
+    }
+
+    private Mp4Probe() {
+    }
+
+    /** The file's container description, or null if it has no {@code moov} we can read. */
+    public static MediaInfo probe(Path file) throws IOException {
+        long size;
+        ByteBuffer moov;
+        Box moovBox;
+        String brand = null;
+        try (FileChannel in = FileChannel.open(file, StandardOpenOption.READ)) {
+            size = in.size();
+            List<Box> boxes = Mp4Boxes.readTopLevel(in);
+            moovBox = boxes != null ? Mp4Boxes.find(boxes, "moov") : null;
+            moov = moovBox != null ? Mp4Boxes.read(in, moovBox) : null;
+            Box ftyp = boxes != null ? Mp4Boxes.find(boxes, "ftyp") : null;
+            if (ftyp != null && ftyp.size() >= ftyp.headerSize() + 4) {
+                ByteBuffer major = ByteBuffer.allocate(4);
+                if (Mp4Boxes.readFully(in, major, ftyp.bodyOffset())) {
+                    brand = new String(major.array(), StandardCharsets.ISO_8859_1);
+                }
+            }
+        }
+        if (moov == null) {
+            return null;
+        }
+        try {
+            List<Box> children = Mp4Boxes.children(moov, moovBox.headerSize(), moov.capacity());
+            if (children == null) {
+                return null;
+            }
+            Box mvhd = Mp4Boxes.find(children, "mvhd");
+            Long durationMillis = mvhd != null ? durationMillis(moov, mvhd) : null;
+            Box mvex = Mp4Boxes.find(children, "mvex");
+            Box mehd = mvex != null ? Mp4Boxes.child(moov, mvex, "mehd") : null;
+            if (durationMillis == null && mvhd != null && mehd != null) {
+                // Fragmented: the movie header is empty and the fragments' total lives here
+                int body = (int) mehd.bodyOffset();
+                long duration = moov.get(body) == 1 ? moov.getLong(body + 4) : Integer.toUnsignedLong(moov.getInt(body + 4));
+                durationMillis = millis(duration, timescale(moov, mvhd));
+            }
+
+            Track video = null;
+            Track audio = null;
+            for (Box trak : children) {
+                if (!trak.type().equals("trak")) {
+                    continue;
+                }
+                String handler = handler(moov, trak);
+                if (video == null && "vide".equals(handler)) {
+                    video = track(moov, trak, true);
+                } else if (audio == null && "soun".equals(handler)) {
+                    audio = track(moov, trak, false);
+                }
+            }
+
+            return new MediaInfo("qt  ".equals(brand) ? "mov" : "mp4", durationMillis,
+                    video != null ? video.codec() : null, audio != null ? audio.codec() : null,
+                    video != null ? video.width() : null, video != null ? video.height() : null,
+                    video != null ? video.frameRate() : null, MediaInfo.kbps(size, durationMillis),
+                    video != null ? video.bitrateKbps() : null, audio != null ? audio.bitrateKbps() : null);
+        } catch (IndexOutOfBoundsException e) {
+            // A box claims more fields than it holds
+            return null;
+        }
+    }
+
+    private static String handler(ByteBuffer moov, Box trak) {
+        Box mdia = Mp4Boxes.child(moov, trak, "mdia");
+        Box hdlr = mdia != null ? Mp4Boxes.child(moov, mdia, "hdlr") : null;
+        // Full box header, pre_defined, then the handler type
+        return hdlr != null ? fourCc(moov, (int) hdlr.bodyOffset() + 8) : null;
+    }
+
+    private static Track track(ByteBuffer moov, Box trak, boolean video) {
+        Box mdia = Mp4Boxes.child(moov, trak, "mdia");
+        Box mdhd = Mp4Boxes.child(moov, mdia, "mdhd");
+        Box minf = Mp4Boxes.child(moov, mdia, "minf");
+        Box stbl = minf != null ? Mp4Boxes.child(moov, minf, "stbl") : null;
+        Box stsd = stbl != null ? Mp4Boxes.child(moov, stbl, "stsd") : null;
+        Box stsz = stbl != null ? Mp4Boxes.child(moov, stbl, "stsz") : null;
+
+        // Version and flags, entry count, then the first sample entry's size and format
+        int entry = stsd != null && u32(moov, (int) stsd.bodyOffset() + 4) > 0 ? (int) stsd.bodyOffset() + 8 : -1;
+        String format = entry >= 0 ? fourCc(moov, entry + 4) : null;
+        String codec = format != null ? CODECS.getOrDefault(format, format.trim().toLowerCase()) : null;
+
+        Integer width = null;
+        Integer height = null;
+        if (video) {
+            // Display size as 16.16 fixed point, the last two fields of the track header
+            Box tkhd = Mp4Boxes.child(moov, trak, "tkhd");
+            if (tkhd != null) {
+                width = positive(moov.getInt((int) tkhd.end() - 8) >>> 16);
+                height = positive(moov.getInt((int) tkhd.end() - 4) >>> 16);
+            }
+            if ((width == null || height == null) && entry >= 0) {
+                // Coded size of the visual sample entry
+                width = positive(Short.toUnsignedInt(moov.getShort(entry + 32)));
+                height = positive(Short.toUnsignedInt(moov.getShort(entry + 34)));
+            }
+        }
+
+        Long durationMillis = mdhd != null ? durationMillis(moov, mdhd) : null;
+        long samples = 0;
+        long bytes = 0;
+        if (stsz != null) {
+            int body = (int) stsz.bodyOffset();
+            long fixedSize = u32(moov, body + 4);
+            samples = u32(moov, body + 8);
+            if (fixedSize != 0) {
+                bytes = fixedSize * samples;
+            } else {
+                for (int i = 0; i < samples; i++) {
+                    bytes += u32(moov, body + 12 + i * 4);
+                }
+            }
+        }
+        Double frameRate = video && samples > 0 && durationMillis != null && durationMillis > 0
+                ? Math.round(samples * 1000_000.0 / durationMillis) / 1000.0 : null;
+        return new Track(codec, width, height, frameRate, MediaInfo.kbps(bytes, durationMillis));
+    }
+
+    /** Duration of an {@code mvhd} or {@code mdhd} box, which share their layout; null when unset. */
+    private static Long durationMillis(ByteBuffer moov, Box header) {
+        int body = (int) header.bodyOffset();
+        boolean wide = moov.get(body) == 1;
+        long duration = wide ? moov.getLong(body + 24) : Integer.toUnsignedLong(moov.getInt(body + 16));
+        // All ones means unknown
+        if (duration == -1 || (!wide && duration == 0xFFFFFFFFL)) {
+            return null;
+        }
+        return millis(duration, timescale(moov, header));
+    }
+
+    private static long timescale(ByteBuffer moov, Box header) {
+        int body = (int) header.bodyOffset();
+        return u32(moov, body + (moov.get(body) == 1 ? 20 : 12));
+    }
+
+    private static Long millis(long duration, long timescale) {
+        if (duration <= 0 || timescale == 0) {
+            return null;
+        }
+        return duration / timescale * 1000 + duration % timescale * 1000 / timescale;
+    }
+
+    private static Integer positive(int value) {
+        return value > 0 ? value : null;
+    }
+
+    private static long u32(ByteBuffer buffer, int at) {
+        return Integer.toUnsignedLong(buffer.getInt(at));
+    }
+
+    private static String fourCc(ByteBuffer buffer, int at) {
+        byte[] type = new byte[4];
+        buffer.get(at, type);
+        return new String(type, StandardCharsets.ISO_8859_1);
+    }
+}
@@ -0,0 +1,282 @@
+package dev.gihan.movieapi.media.mp4;
+
+import dev.gihan.movieapi.media.mp4.Mp4Boxes.Box;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Keyframe timestamps and the byte offsets of their samples in an MP4 file, so a player can resume
+ * at a position with one range request. Built from the video track's sample tables and stored as a
+ * sidecar: a header naming the source file's size and mtime, then one (millis, offset) pair per
+ * keyframe.
+ */
+public final class SeekIndex {
+
+    public record Entry(long timeMillis, long byteOffset) {
+    }
+
+    private static final int MAGIC = 0x534B4958; // "SKIX"
+    private static final int VERSION = 1;
+
+    // Without a sync sample table every sample is a keyframe; keep one per second
+    private static final long MIN_UNSYNCED_INTERVAL_MILLIS = 1000;
+
+    private final long sourceSize;
+    private final long sourceLastModified;
+    private final long[] times;
+    private final long[] offsets;
+
+    SeekIndex(long sourceSize, long sourceLastModified, long[] times, long[] offsets) {
+        this.sourceSize = sourceSize;
+        this.sourceLastModified = sourceLastModified;
+        this.times = times;
+        this.offsets = offsets;
+    }
+
+    /** Indexes the first video track of {@code file}, or returns null if it has none we can read. */
+    public static SeekIndex fromMp4(Path file) throws IOException {
+        return fromMp4(file, Files.getLastModifiedTime(file).toMillis());
+    }
+
+    /** As {@link #fromMp4(Path)}, recording {@code sourceLastModified}, e.g. of the stored object, as the mtime. */
+    public static SeekIndex fromMp4(Path file, long sourceLastModified) throws IOException {
+        long size;
+        ByteBuffer moov;
+        Box moovBox;
+        try (FileChannel in = FileChannel.open(file, StandardOpenOption.READ)) {
+            size = in.size();
+            List<Box> boxes = Mp4Boxes.readTopLevel(in);
+            moovBox = boxes != null ? Mp4Boxes.find(boxes, "moov") : null;
+            moov = moovBox != null ? Mp4Boxes.read(in, moovBox) : null;
+        }
+        if (moov == null) {
+            return null;
+        }
+        try {
+            List<Box> tracks = Mp4Boxes.children(moov, moovBox.headerSize(), moov.capacity());
+            if (tracks == null) {
+                return null;
+            }
+            for (Box trak : tracks) {
+                if (trak.type().equals("trak")) {
+                    SeekIndex index = fromTrack(moov, trak, size, sourceLastModified);
+                    if (index != null) {
+                        return index;
+                    }
+                }
+            }
+            return null;
+        } catch (IndexOutOfBoundsException e) {
+            // A table claims more entries than its box holds
+            return null;
+        }
+    }
+
+    public static SeekIndex read(Path sidecar) throws IOException {
+        return read(Files.newInputStream(sidecar), sidecar.toString());
+    }
+
+    /** An index without keyframes, recording that a file of this size and mtime has none we can read. */
+    public static SeekIndex empty(long sourceSize, long sourceLastModified) {
+        return new SeekIndex(sourceSize, sourceLastModified, new long[0], new long[0]);
+    }
+
+    /** Reads a sidecar from {@code content}, which is closed afterwards. */
+    public static SeekIndex read(InputStream content, String name) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(content))) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                throw new IOException("Not a seek index: " + name);
+            }
+            long sourceSize = in.readLong();
+            long sourceLastModified = in.readLong();
+            int count = in.readInt();
+            long[] times = new long[count];
+            long[] offsets = new long[count];
+            for (int i = 0; i < count; i++) {
+                times[i] = Integer.toUnsignedLong(in.readInt());
+                offsets[i] = in.readLong();
+            }
+            return new SeekIndex(sourceSize, sourceLastModified, times, offsets);
+        }
+    }
+
+    /** Writes the sidecar through a temp file so readers never see a partial index. */
+    public void write(Path sidecar) throws IOException {
+        // Unique, so concurrent writers of one sidecar never share a temp file
+        Path temp = sidecar.resolveSibling(sidecar.getFileName() + ".tmp-" + UUID.randomUUID());
+        try {
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)))) {
+                out.writeInt(MAGIC);
+                out.writeInt(VERSION);
+                out.writeLong(sourceSize);
+                out.writeLong(sourceLastModified);
+                out.writeInt(times.length);
+                for (int i = 0; i < times.length; i++) {
+                    out.writeInt((int) times[i]);
+                    out.writeLong(offsets[i]);
+                }
+            }
+            Files.move(temp, sidecar, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    /** True if the index was built from a file of this size and mtime. */
+    public boolean matches(long size, long lastModified) {
+        return sourceSize == size && sourceLastModified == lastModified;
+    }
+
+    /** The last keyframe at or before {@code timeMillis}, the first one if it is earlier, or null if empty. */
+    public Entry floor(long timeMillis) {
+        if (times.length == 0) {
+            return null;
+        }
+        int found = Arrays.binarySearch(times, timeMillis);
+        int index = found >= 0 ? found : Math.max(0, -found - 2);
+        return new Entry(times[index], offsets[index]);
+    }
+
+    public int size() {
+        return times.length;
+    }
+
+    private static SeekIndex fromTrack(ByteBuffer moov, Box trak, long size, long lastModified) {
+        Box mdia = Mp4Boxes.child(moov, trak, "mdia");
+        Box hdlr = mdia != null ? Mp4Boxes.child(moov, mdia, "hdlr") : null;
+        // Full box header, pre_defined, then the handler type
+        if (hdlr == null || !"vide".equals(fourCc(moov, (int) hdlr.bodyOffset() + 8))) {
+            return null;
+        }
+        Box mdhd = Mp4Boxes.child(moov, mdia, "mdhd");
+        Box minf = Mp4Boxes.child(moov, mdia, "minf");
+        Box stbl = minf != null ? Mp4Boxes.child(moov, minf, "stbl") : null;
+        if (mdhd == null || stbl == null) {
+            return null;
+        }
+        int mdhdBody = (int) mdhd.bodyOffset();
+        long timescale = Integer.toUnsignedLong(moov.getInt(mdhdBody + (moov.get(mdhdBody) == 1 ? 20 : 12)));
+
+        Box stts = Mp4Boxes.child(moov, stbl, "stts");
+        Box stsc = Mp4Boxes.child(moov, stbl, "stsc");
+        Box stsz = Mp4Boxes.child(moov, stbl, "stsz");
+        Box stss = Mp4Boxes.child(moov, stbl, "stss");
+        Box stco = Mp4Boxes.child(moov, stbl, "stco");
+        Box co64 = stco == null ? Mp4Boxes.child(moov, stbl, "co64") : null;
+        if (timescale == 0 || stts == null || stsc == null || stsz == null || (stco == null && co64 == null)) {
+            return null;
+        }
+
+        SampleTables tables = new SampleTables(moov, stts, stsc, stsz, stss, stco != null ? stco : co64, stco != null);
+        return tables.index(timescale, size, lastModified);
+    }
+
+    private static String fourCc(ByteBuffer buffer, int at) {
+        byte[] type = new byte[4];
+        buffer.get(at, type);
+        return new String(type, StandardCharsets.ISO_8859_1);
+    }
+
+    /** Walks the sample tables of one track in file order. All tables are full boxes. */
+    private static final class SampleTables {
+        private final ByteBuffer moov;
+        private final int stts;
+        private final int stsc;
+        private final int stsz;
+        private final int stss;
+        private final int chunkOffsets;
+        private final boolean shortOffsets;
+
+        SampleTables(ByteBuffer moov, Box stts, Box stsc, Box stsz, Box stss, Box chunkOffsets, boolean shortOffsets) {
+            this.moov = moov;
+            this.stts = (int) stts.bodyOffset();
+            this.stsc = (int) stsc.bodyOffset();
+            this.stsz = (int) stsz.bodyOffset();
+            this.stss = stss != null ? (int) stss.bodyOffset() : -1;
+            this.chunkOffsets = (int) chunkOffsets.bodyOffset();
+            this.shortOffsets = shortOffsets;
+        }
+
+        SeekIndex index(long timescale, long size, long lastModified) {
+            long sampleCount = u32(stsz + 8);
+            int fixedSampleSize = moov.getInt(stsz + 4);
+            long chunkCount = u32(chunkOffsets + 4);
+            long stscCount = u32(stsc + 4);
+            long sttsCount = u32(stts + 4);
+            long syncCount = stss >= 0 ? u32(stss + 4) : -1;
+
+            if (sampleCount > Integer.MAX_VALUE) {
+                return null;
+            }
+            long[] times = new long[256];
+            long[] offsets = new long[256];
+            int entries = 0;
+
+            int sttsEntry = 0;
+            long sttsRemaining = sttsCount > 0 ? u32(stts + 8) : 0;
+            long decodeTime = 0;
+            int stscEntry = 0;
+            int syncEntry = 0;
+            long sample = 0;
+            for (long chunk = 0; chunk < chunkCount && sample < sampleCount; chunk++) {
+                while (stscEntry + 1 < stscCount && u32(stsc + 8 + (stscEntry + 1) * 12) - 1 <= chunk) {
+                    stscEntry++;
+                }
+                long samplesInChunk = u32(stsc + 8 + stscEntry * 12 + 4);
+                long offset = shortOffsets ? u32(chunkOffsets + 8 + (int) chunk * 4)
+                        : moov.getLong(chunkOffsets + 8 + (int) chunk * 8);
+                for (long i = 0; i < samplesInChunk && sample < sampleCount; i++, sample++) {
+                    boolean sync;
+                    if (syncCount >= 0) {
+                        sync = syncEntry < syncCount && u32(stss + 8 + syncEntry * 4) == sample + 1;
+                        if (sync) {
+                            syncEntry++;
+                        }
+                    } else {
+                        sync = entries == 0 || decodeTime * 1000 / timescale - times[entries - 1]
+                                >= MIN_UNSYNCED_INTERVAL_MILLIS;
+                    }
+                    if (sync) {
+                        if (entries == times.length) {
+                            times = Arrays.copyOf(times, entries * 2);
+                            offsets = Arrays.copyOf(offsets, entries * 2);
+                        }
+                        times[entries] = decodeTime * 1000 / timescale;
+                        offsets[entries] = offset;
+                        entries++;
+                    }
+
+                    offset += fixedSampleSize != 0 ? fixedSampleSize : u32(stsz + 12 + (int) sample * 4);
+                    while (sttsRemaining == 0 && sttsEntry + 1 < sttsCount) {
+                        sttsEntry++;
+                        sttsRemaining = u32(stts + 8 + sttsEntry * 8);
+                    }
+                    if (sttsRemaining > 0) {
+                        decodeTime += u32(stts + 8 + sttsEntry * 8 + 4);
+                        sttsRemaining--;
+                    }
+                }
+            }
+            return new SeekIndex(size, lastModified, Arrays.copyOf(times, entries), Arrays.copyOf(offsets, entries));
+        }
+
+        private long u32(int at) {
+            return Integer.toUnsignedLong(moov.getInt(at));
+        }
+    }
+}
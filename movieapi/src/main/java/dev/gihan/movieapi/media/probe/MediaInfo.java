@@ -0,0 +1,20 @@
+package dev.gihan.movieapi.media.probe;
+
+/**
+ * What a container header says about a video file. Fields the container does not record are null;
+ * bitrates are in kbit/s, codecs are short lowercase names such as {@code h264} or {@code opus}.
+ */
+public record MediaInfo(String container, Long durationMillis, String videoCodec, String audioCodec,
+                        Integer width, Integer height, Double frameRate, Integer bitrateKbps,
+                        Integer videoBitrateKbps, Integer audioBitrateKbps) {
+
+    /** Average bitrate of {@code bytes} over {@code millis}, or null when either is unknown. */
+    public static Integer kbps(long bytes, Long millis) {
+        if (bytes <= 0 || millis == null || millis <= 0) {
+            return null;
+        }
+        // Bits per millisecond is kbit/s
+        long kbps = bytes * 8 / millis;
+        return kbps > 0 && kbps <= Integer.MAX_VALUE ? (int) kbps : null;
+    }
+}
@@ -0,0 +1,33 @@
+package dev.gihan.movieapi.media.probe;
+
+import dev.gihan.movieapi.media.mp4.Mp4Probe;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Reads duration, codecs, resolution and bitrate from the headers of MP4/QuickTime and
+ * WebM/Matroska files without decoding anything, so it is cheap enough to run on every upload.
+ */
+public final class MediaProbe {
+
+    private MediaProbe() {
+    }
+
+    /** The container's description of {@code file}, or null if it is neither format or unreadable. */
+    public static MediaInfo probe(Path file) throws IOException {
+        ByteBuffer magic = ByteBuffer.allocate(4);
+        try (FileChannel in = FileChannel.open(file, StandardOpenOption.READ)) {
+            while (magic.hasRemaining() && in.read(magic, magic.position()) > 0) {
+                // Short files just fall through to the MP4 check
+            }
+        }
+        if (magic.position() == 4 && magic.getInt(0) == WebmProbe.EBML_MAGIC) {
+            return WebmProbe.probe(file);
+        }
+        return Mp4Probe.probe(file);
+    }
+}
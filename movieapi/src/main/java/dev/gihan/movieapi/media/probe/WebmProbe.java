@@ -0,0 +1,301 @@
+package dev.gihan.movieapi.media.probe;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Map;
+
+/**
+ * Describes a WebM/Matroska file from the EBML header and the Segment's Info and Tracks elements.
+ * Clusters are skipped by their size, so only the few KB of headers are read. Files recorded live
+ * (browser MediaRecorder output, for one) carry no Duration, and then neither does the result.
+ */
+final class WebmProbe {
+
+    static final int EBML_MAGIC = 0x1A45DFA3;
+
+    private static final int DOC_TYPE = 0x4282;
+    private static final int SEGMENT = 0x18538067;
+    private static final int INFO = 0x1549A966;
+    private static final int TIMESTAMP_SCALE = 0x2AD7B1;
+    private static final int DURATION = 0x4489;
+    private static final int TRACKS = 0x1654AE6B;
+    private static final int TRACK_ENTRY = 0xAE;
+    private static final int TRACK_TYPE = 0x83;
+    private static final int CODEC_ID = 0x86;
+    private static final int DEFAULT_DURATION = 0x23E383;
+    private static final int VIDEO = 0xE0;
+    private static final int PIXEL_WIDTH = 0xB0;
+    private static final int PIXEL_HEIGHT = 0xBA;
+    private static final int CLUSTER = 0x1F43B675;
+
+    private static final int TRACK_TYPE_VIDEO = 1;
+    private static final int TRACK_TYPE_AUDIO = 2;
+
+    private static final long UNBOUNDED = Long.MAX_VALUE;
+
+    // Info and Tracks are a few KB; anything this large is not a header worth reading
+    private static final int MAX_HEADER_BYTES = 4 * 1024 * 1024;
+
+    private static final Map<String, String> CODECS = Map.of(
+            "V_VP8", "vp8", "V_VP9", "vp9", "V_AV1", "av1",
+            "V_MPEG4/ISO/AVC", "h264", "V_MPEGH/ISO/HEVC", "hevc",
+            "A_OPUS", "opus", "A_VORBIS", "vorbis", "A_AAC", "aac", "A_FLAC", "flac");
+
+    /** An element whose data starts at {@code dataOffset}; {@code size} is -1 when unknown. */
+    private record Element(int id, long dataOffset, long size) {
+
+        long end() {
+            return dataOffset + size;
+        }
+    }
+
+    private WebmProbe() {
+    }
+
+    static MediaInfo probe(Path file) throws IOException {
+        try (FileChannel in = FileChannel.open(file, StandardOpenOption.READ)) {
+            long fileSize = in.size();
+            Element ebml = readHeader(in, 0);
+            if (ebml == null || ebml.id() != EBML_MAGIC || ebml.size() < 0 || ebml.size() > MAX_HEADER_BYTES) {
+                return null;
+            }
+            ByteBuffer header = read(in, ebml);
+            String docType = header != null ? findString(header, 0, header.limit(), DOC_TYPE) : null;
+            if (docType == null || !(docType.equals("webm") || docType.equals("matroska"))) {
+                return null;
+            }
+
+            Element segment = readHeader(in, ebml.end());
+            if (segment == null || segment.id() != SEGMENT) {
+                return null;
+            }
+            long segmentEnd = segment.size() < 0 ? fileSize : Math.min(fileSize, segment.end());
+            Builder result = new Builder();
+            long position = segment.dataOffset();
+            while (position < segmentEnd && !(result.infoSeen && result.tracksSeen)) {
+                Element element = readHeader(in, position);
+                if (element == null || element.size() < 0) {
+                    // Live-written clusters have no size; nothing after them can be reached cheaply
+                    break;
+                }
+                if (element.id() == INFO || element.id() == TRACKS) {
+                    ByteBuffer body = element.size() <= MAX_HEADER_BYTES ? read(in, element) : null;
+                    if (body == null) {
+                        return null;
+                    }
+                    if (element.id() == INFO) {
+                        result.info(body);
+                    } else {
+                        result.tracks(body);
+                    }
+                } else if (element.id() == CLUSTER && result.tracksSeen) {
+                    // Info and Tracks precede the media in files written by common muxers
+                    break;
+                }
+                position = element.end();
+            }
+            if (!result.tracksSeen) {
+                return null;
+            }
+            return result.build(docType.equals("webm") ? "webm" : "mkv", fileSize);
+        } catch (IndexOutOfBoundsException | IllegalArgumentException e) {
+            // An element claims more bytes than its parent holds
+            return null;
+        }
+    }
+
+    private static final class Builder {
+        private boolean infoSeen;
+        private boolean tracksSeen;
+        private Long durationMillis;
+        private String videoCodec;
+        private String audioCodec;
+        private Integer width;
+        private Integer height;
+        private Double frameRate;
+
+        void info(ByteBuffer body) {
+            infoSeen = true;
+            long scale = 1_000_000;
+            Double duration = null;
+            for (int position = 0; position < body.limit(); ) {
+                Element element = parseHeader(body, position, body.limit());
+                if (element.id() == TIMESTAMP_SCALE) {
+                    scale = unsigned(body, element);
+                } else if (element.id() == DURATION) {
+                    duration = element.size() == 4 ? body.getFloat((int) element.dataOffset())
+                            : element.size() == 8 ? body.getDouble((int) element.dataOffset()) : null;
+                }
+                position = (int) element.end();
+            }
+            if (duration != null && duration > 0 && scale > 0) {
+                // In timestamp units of scale nanoseconds each
+                durationMillis = Math.round(duration * scale / 1_000_000);
+            }
+        }
+
+        void tracks(ByteBuffer body) {
+            tracksSeen = true;
+            for (int position = 0; position < body.limit(); ) {
+                Element entry = parseHeader(body, position, body.limit());
+                if (entry.id() == TRACK_ENTRY) {
+                    track(body, entry);
+                }
+                position = (int) entry.end();
+            }
+        }
+
+        private void track(ByteBuffer body, Element entry) {
+            long type = 0;
+            String codecId = null;
+            long defaultDuration = 0;
+            Element video = null;
+            for (int position = (int) entry.dataOffset(); position < entry.end(); ) {
+                Element element = parseHeader(body, position, (int) entry.end());
+                switch (element.id()) {
+                    case TRACK_TYPE -> type = unsigned(body, element);
+                    case CODEC_ID -> codecId = string(body, element);
+                    case DEFAULT_DURATION -> defaultDuration = unsigned(body, element);
+                    case VIDEO -> video = element;
+                    default -> {
+                    }
+                }
+                position = (int) element.end();
+            }
+            String codec = codecId != null ? CODECS.getOrDefault(codecId, codecId.substring(codecId.indexOf('_') + 1).toLowerCase()) : null;
+            if (type == TRACK_TYPE_VIDEO && videoCodec == null) {
+                videoCodec = codec;
+                if (video != null) {
+                    width = positive(unsignedChild(body, video, PIXEL_WIDTH));
+                    height = positive(unsignedChild(body, video, PIXEL_HEIGHT));
+                }
+                if (defaultDuration > 0) {
+                    // Nanoseconds per frame
+                    frameRate = Math.round(1e12 / defaultDuration) / 1000.0;
+                }
+            } else if (type == TRACK_TYPE_AUDIO && audioCodec == null) {
+                audioCodec = codec;
+            }
+        }
+
+        MediaInfo build(String container, long fileSize) {
+            return new MediaInfo(container, durationMillis, videoCodec, audioCodec, width, height, frameRate,
+                    MediaInfo.kbps(fileSize, durationMillis), null, null);
+        }
+    }
+
+    private static Element readHeader(FileChannel in, long position) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(12);
+        while (header.hasRemaining() && in.read(header, position + header.position()) > 0) {
+            // Fewer bytes are left near the end of the file
+        }
+        header.flip();
+        try {
+            Element element = parseHeader(header, 0, UNBOUNDED);
+            return new Element(element.id(), position + element.dataOffset(), element.size());
+        } catch (IndexOutOfBoundsException | IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    private static ByteBuffer read(FileChannel in, Element element) throws IOException {
+        ByteBuffer body = ByteBuffer.allocate((int) element.size());
+        while (body.hasRemaining()) {
+            if (in.read(body, element.dataOffset() + body.position()) < 0) {
+                return null;
+            }
+        }
+        return body.flip();
+    }
+
+    /**
+     * Parses the element header at {@code position}: an ID of up to 4 bytes that keeps its length
+     * marker, then a size of up to 8 bytes that drops it. Elements ending past {@code limit} are
+     * rejected, as are unknown sizes other than at the top level, where the limit is unbounded.
+     */
+    private static Element parseHeader(ByteBuffer buffer, int position, long limit) {
+        int first = Byte.toUnsignedInt(buffer.get(position));
+        int idLength = Integer.numberOfLeadingZeros(first) - 23;
+        if (first == 0 || idLength > 4) {
+            throw new IllegalArgumentException("Invalid element ID");
+        }
+        int id = 0;
+        for (int i = 0; i < idLength; i++) {
+            id = id << 8 | Byte.toUnsignedInt(buffer.get(position + i));
+        }
+
+        int sizeAt = position + idLength;
+        int marker = Byte.toUnsignedInt(buffer.get(sizeAt));
+        int sizeLength = Integer.numberOfLeadingZeros(marker) - 23;
+        if (marker == 0) {
+            throw new IllegalArgumentException("Invalid element size");
+        }
+        long size = marker & (0xFF >> sizeLength);
+        boolean allOnes = size == 0xFF >> sizeLength;
+        for (int i = 1; i < sizeLength; i++) {
+            int next = Byte.toUnsignedInt(buffer.get(sizeAt + i));
+            size = size << 8 | next;
+            allOnes &= next == 0xFF;
+        }
+        long dataOffset = sizeAt + sizeLength;
+        if (allOnes && limit == UNBOUNDED) {
+            return new Element(id, dataOffset, -1);
+        }
+        if (allOnes || dataOffset + size > limit) {
+            throw new IllegalArgumentException("Element overruns its parent");
+        }
+        return new Element(id, dataOffset, size);
+    }
+
+    private static long unsigned(ByteBuffer buffer, Element element) {
+        if (element.size() > 8) {
+            throw new IllegalArgumentException("Integer element too long");
+        }
+        long value = 0;
+        for (int i = 0; i < element.size(); i++) {
+            value = value << 8 | Byte.toUnsignedInt(buffer.get((int) element.dataOffset() + i));
+        }
+        return value;
+    }
+
+    private static long unsignedChild(ByteBuffer buffer, Element parent, int id) {
+        for (int position = (int) parent.dataOffset(); position < parent.end(); ) {
+            Element element = parseHeader(buffer, position, (int) parent.end());
+            if (element.id() == id) {
+                return unsigned(buffer, element);
+            }
+            position = (int) element.end();
+        }
+        return 0;
+    }
+
+    private static String findString(ByteBuffer buffer, int start, int end, int id) {
+        for (int position = start; position < end; ) {
+            Element element = parseHeader(buffer, position, end);
+            if (element.id() == id) {
+                return string(buffer, element);
+            }
+            position = (int) element.end();
+        }
+        return null;
+    }
+
+    // ASCII strings may be padded with zero bytes
+    private static String string(ByteBuffer buffer, Element element) {
+        byte[] bytes = new byte[(int) element.size()];
+        buffer.get((int) element.dataOffset(), bytes);
+        int length = 0;
+        while (length < bytes.length && bytes[length] != 0) {
+            length++;
+        }
+        return new String(bytes, 0, length, StandardCharsets.US_ASCII);
+    }
+
+    private static Integer positive(long value) {
+        return value > 0 && value <= Integer.MAX_VALUE ? (int) value : null;
+    }
+}
@@ -0,0 +1,43 @@
+package dev.gihan.movieapi.media.thumbnail;
+
+import dev.gihan.movieapi.media.ProcessRunner;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Frame grabs with ffmpeg's fps filter, scaled and padded to the tile size.
+ */
+public class FfmpegFrameExtractor implements FrameExtractor {
+
+    private static final String FRAME_PREFIX = "frame_";
+
+    private final ProcessRunner processRunner;
+
+    public FfmpegFrameExtractor(ProcessRunner processRunner) {
+        this.processRunner = processRunner;
+    }
+
+    @Override
+    public List<Path> extract(Path source, Path outputDirectory, int intervalSeconds, int width, int height)
+            throws IOException {
+        processRunner.run(List.of(
+                processRunner.getFfmpegPath(), "-hide_banner", "-loglevel", "error", "-y",
+                "-i", source.toAbsolutePath().toString(),
+                "-map", "0:v:0", "-an",
+                "-vf", "fps=1/" + intervalSeconds
+                        + ",scale=w=" + width + ":h=" + height + ":force_original_aspect_ratio=decrease"
+                        + ",pad=" + width + ":" + height + ":(ow-iw)/2:(oh-ih)/2",
+                "-q:v", "5",
+                outputDirectory.resolve(FRAME_PREFIX + "%05d.jpg").toAbsolutePath().toString()
+        ));
+        try (Stream<Path> files = Files.list(outputDirectory)) {
+            return files.filter(file -> file.getFileName().toString().startsWith(FRAME_PREFIX))
+                    .sorted()
+                    .toList();
+        }
+    }
+}
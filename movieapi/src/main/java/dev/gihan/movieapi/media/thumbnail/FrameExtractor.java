@@ -0,0 +1,13 @@
+package dev.gihan.movieapi.media.thumbnail;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+
+/**
+ * Grabs one frame every {@code intervalSeconds} from a source video as images of exactly
+ * {@code width} x {@code height} (letterboxed as needed), returned in playback order.
+ */
+public interface FrameExtractor {
+    List<Path> extract(Path source, Path outputDirectory, int intervalSeconds, int width, int height) throws IOException;
+}
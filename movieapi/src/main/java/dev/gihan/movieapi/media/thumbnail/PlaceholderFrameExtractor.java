@@ -0,0 +1,48 @@
+package dev.gihan.movieapi.media.thumbnail;
+
+import dev.gihan.movieapi.media.mp4.SeekIndex;
+
+import javax.imageio.ImageIO;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Stand-in extractor for local development and tests where ffmpeg is not installed. Draws a
+ * card with a position bar per interval; the duration comes from the MP4 keyframe index, so non-MP4 sources
+ * get a single card.
+ */
+public class PlaceholderFrameExtractor implements FrameExtractor {
+
+    @Override
+    public List<Path> extract(Path source, Path outputDirectory, int intervalSeconds, int width, int height)
+            throws IOException {
+        SeekIndex index = SeekIndex.fromMp4(source);
+        SeekIndex.Entry last = index != null ? index.floor(Long.MAX_VALUE) : null;
+        long frames = last != null ? last.timeMillis() / (intervalSeconds * 1000L) + 1 : 1;
+
+        List<Path> files = new ArrayList<>();
+        for (int i = 0; i < frames; i++) {
+            BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+            Graphics2D graphics = image.createGraphics();
+            try {
+                graphics.setColor(Color.DARK_GRAY);
+                graphics.fillRect(0, 0, width, height);
+                // A bar filled up to the frame's position; text would need fonts on the server
+                graphics.setColor(Color.LIGHT_GRAY);
+                graphics.fillRect(0, height - height / 6, (int) (width * (i + 1) / frames), height / 6);
+            } finally {
+                graphics.dispose();
+            }
+            Path file = outputDirectory.resolve(String.format(Locale.ROOT, "frame_%05d.jpg", i + 1));
+            ImageIO.write(image, "jpg", file.toFile());
+            files.add(file);
+        }
+        return files;
+    }
+}
@@ -0,0 +1,71 @@
+package dev.gihan.movieapi.media.thumbnail;
+
+import javax.imageio.ImageIO;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Packs frame grabs into JPEG sprite sheets of {@code columns} x {@code rows} tiles and writes a
+ * WebVTT thumbnail track whose cues point at each tile with a {@code #xywh=} media fragment, the
+ * format players use for seek-bar previews.
+ */
+public final class SpriteSheetWriter {
+
+    public static final String TRACK_NAME = "thumbnails.vtt";
+
+    private SpriteSheetWriter() {
+    }
+
+    /** Writes the sheets and track into {@code outputDirectory}; returns the number of sheets. */
+    public static int write(List<Path> frames, Path outputDirectory, int intervalSeconds,
+                            int width, int height, int columns, int rows) throws IOException {
+        int tilesPerSheet = columns * rows;
+        int sheets = (frames.size() + tilesPerSheet - 1) / tilesPerSheet;
+        try (Writer track = Files.newBufferedWriter(outputDirectory.resolve(TRACK_NAME), StandardCharsets.UTF_8)) {
+            track.write("WEBVTT\n");
+            for (int sheet = 0; sheet < sheets; sheet++) {
+                int first = sheet * tilesPerSheet;
+                int count = Math.min(tilesPerSheet, frames.size() - first);
+                int usedRows = (count + columns - 1) / columns;
+                String sheetName = sheetName(sheet);
+
+                BufferedImage image = new BufferedImage(columns * width, usedRows * height, BufferedImage.TYPE_INT_RGB);
+                Graphics2D graphics = image.createGraphics();
+                try {
+                    for (int tile = 0; tile < count; tile++) {
+                        BufferedImage frame = ImageIO.read(frames.get(first + tile).toFile());
+                        if (frame == null) {
+                            throw new IOException("Unreadable frame " + frames.get(first + tile));
+                        }
+                        int x = tile % columns * width;
+                        int y = tile / columns * height;
+                        graphics.drawImage(frame, x, y, width, height, null);
+
+                        long start = (long) (first + tile) * intervalSeconds;
+                        track.write("\n" + timestamp(start) + " --> " + timestamp(start + intervalSeconds) + "\n");
+                        track.write(sheetName + "#xywh=" + x + "," + y + "," + width + "," + height + "\n");
+                    }
+                } finally {
+                    graphics.dispose();
+                }
+                ImageIO.write(image, "jpg", outputDirectory.resolve(sheetName).toFile());
+            }
+        }
+        return sheets;
+    }
+
+    static String sheetName(int sheet) {
+        return String.format(Locale.ROOT, "sprite_%03d.jpg", sheet);
+    }
+
+    private static String timestamp(long seconds) {
+        return String.format(Locale.ROOT, "%02d:%02d:%02d.000", seconds / 3600, seconds / 60 % 60, seconds % 60);
+    }
+}
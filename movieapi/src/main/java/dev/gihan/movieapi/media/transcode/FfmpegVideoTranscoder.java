@@ -0,0 +1,46 @@
+package dev.gihan.movieapi.media.transcode;
+
+import dev.gihan.movieapi.media.ProcessRunner;
+import dev.gihan.movieapi.media.hls.HlsSegmenter;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+
+/**
+ * H.264/AAC encode with ffmpeg. Keyframes are forced on segment boundaries so every rendition
+ * cuts at the same timestamps and players can switch quality between any two segments.
+ */
+public class FfmpegVideoTranscoder implements VideoTranscoder {
+
+    private final ProcessRunner processRunner;
+
+    public FfmpegVideoTranscoder(ProcessRunner processRunner) {
+        this.processRunner = processRunner;
+    }
+
+    @Override
+    public void transcode(Path source, Path outputDirectory, RenditionProfile profile, int segmentSeconds)
+            throws IOException {
+        int videoKbps = profile.videoBitrateKbps();
+        processRunner.run(List.of(
+                processRunner.getFfmpegPath(), "-hide_banner", "-loglevel", "error", "-y",
+                "-i", source.toAbsolutePath().toString(),
+                "-map", "0:v:0", "-map", "0:a:0?",
+                "-vf", "scale=w=" + profile.width() + ":h=" + profile.height()
+                        + ":force_original_aspect_ratio=decrease,scale=trunc(iw/2)*2:trunc(ih/2)*2",
+                "-c:v", "libx264", "-preset", "veryfast", "-profile:v", "main",
+                "-b:v", videoKbps + "k",
+                "-maxrate", (videoKbps * 107 / 100) + "k",
+                "-bufsize", (videoKbps * 3 / 2) + "k",
+                "-force_key_frames", "expr:gte(t,n_forced*" + segmentSeconds + ")",
+                "-sc_threshold", "0",
+                "-c:a", "aac", "-b:a", profile.audioBitrateKbps() + "k", "-ac", "2",
+                "-f", "hls",
+                "-hls_time", String.valueOf(segmentSeconds),
+                "-hls_playlist_type", "vod",
+                "-hls_segment_filename", outputDirectory.resolve("segment_%05d.ts").toAbsolutePath().toString(),
+                outputDirectory.resolve(HlsSegmenter.PLAYLIST_NAME).toAbsolutePath().toString()
+        ));
+    }
+}
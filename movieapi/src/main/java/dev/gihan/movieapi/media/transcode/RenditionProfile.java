@@ -0,0 +1,34 @@
+package dev.gihan.movieapi.media.transcode;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * One rung of the bitrate ladder, e.g. {@code 720p:1280x720:2800:128}.
+ */
+public record RenditionProfile(String name, int width, int height, int videoBitrateKbps, int audioBitrateKbps) {
+
+    /**
+     * Parses a comma-separated ladder of {@code name:WIDTHxHEIGHT:videoKbps:audioKbps} entries.
+     */
+    public static List<RenditionProfile> parseLadder(String ladder) {
+        List<RenditionProfile> profiles = new ArrayList<>();
+        if (ladder == null || ladder.isBlank()) {
+            return profiles;
+        }
+        for (String entry : ladder.split(",")) {
+            String[] parts = entry.trim().split(":");
+            if (parts.length != 4 || !parts[0].matches("[A-Za-z0-9_-]+")) {
+                throw new IllegalArgumentException("Invalid rendition profile: " + entry);
+            }
+            String[] size = parts[1].toLowerCase().split("x");
+            if (size.length != 2) {
+                throw new IllegalArgumentException("Invalid rendition resolution: " + entry);
+            }
+            profiles.add(new RenditionProfile(parts[0],
+                    Integer.parseInt(size[0].trim()), Integer.parseInt(size[1].trim()),
+                    Integer.parseInt(parts[2].trim()), Integer.parseInt(parts[3].trim())));
+        }
+        return profiles;
+    }
+}
@@ -0,0 +1,25 @@
+package dev.gihan.movieapi.media.transcode;
+
+import dev.gihan.movieapi.media.hls.HlsSegmenter;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+/**
+ * Stand-in transcoder for local development and tests: every rendition is the source re-segmented,
+ * so the ladder, job queue and master playlist can be exercised without ffmpeg.
+ */
+public class SegmentingVideoTranscoder implements VideoTranscoder {
+
+    private final HlsSegmenter hlsSegmenter;
+
+    public SegmentingVideoTranscoder(HlsSegmenter hlsSegmenter) {
+        this.hlsSegmenter = hlsSegmenter;
+    }
+
+    @Override
+    public void transcode(Path source, Path outputDirectory, RenditionProfile profile, int segmentSeconds)
+            throws IOException {
+        hlsSegmenter.segment(source, outputDirectory, segmentSeconds);
+    }
+}
@@ -0,0 +1,11 @@
+package dev.gihan.movieapi.media.transcode;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+/**
+ * Encodes a source video into one HLS rendition (playlist plus segments) in {@code outputDirectory}.
+ */
+public interface VideoTranscoder {
+    void transcode(Path source, Path outputDirectory, RenditionProfile profile, int segmentSeconds) throws IOException;
+}
@@ -0,0 +1,85 @@
+package dev.gihan.movieapi.model;
+
+import dev.gihan.movieapi.model.option.MediaJobStatus;
+import dev.gihan.movieapi.model.option.MediaJobType;
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Entity
+@AllArgsConstructor
+@NoArgsConstructor
+@Data
+@Table(name = "media_jobs", indexes = {
+        // Claiming scans pending jobs in due order
+        @Index(name = "idx_media_job_due", columnList = "status, run_after"),
+        @Index(name = "idx_media_job_target", columnList = "type, target")
+})
+public class MediaJob {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 32)
+    private MediaJobType type;
+
+    // Video file name the job works on
+    @Column(nullable = false)
+    private String target;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 16)
+    private MediaJobStatus status = MediaJobStatus.PENDING;
+
+    // Percent complete, reported by the running handler
+    @Column(nullable = false)
+    private Integer progress = 0;
+
+    @Column(nullable = false)
+    private Integer attempts = 0;
+
+    @Column(name = "max_attempts", nullable = false)
+    private Integer maxAttempts;
+
+    // Not claimed before this; pushed back after each failed attempt
+    @Column(name = "run_after", nullable = false)
+    private LocalDateTime runAfter;
+
+    // Node running the job, and when it last showed signs of life
+    @Column(name = "locked_by", length = 100)
+    private String lockedBy;
+
+    @Column(name = "heartbeat_at")
+    private LocalDateTime heartbeatAt;
+
+    @Column(name = "last_error", length = 1000)
+    private String lastError;
+
+    @Column(name = "created_at", nullable = false, updatable = false)
+    private LocalDateTime createdAt;
+
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+
+    @Column(name = "finished_at")
+    private LocalDateTime finishedAt;
+
+    @PrePersist
+    protected void onCreate() {
+        createdAt = LocalDateTime.now();
+        updatedAt = LocalDateTime.now();
+        if (runAfter == null) {
+            runAfter = createdAt;
+        }
+    }
+
+    @PreUpdate
+    protected void onUpdate() {
+        updatedAt = LocalDateTime.now();
+    }
+}
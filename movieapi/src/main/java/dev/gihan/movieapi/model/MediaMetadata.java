@@ -0,0 +1,75 @@
+package dev.gihan.movieapi.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+/**
+ * Technical metadata of an uploaded video as read from its container headers, keyed like renditions
+ * by the file name in the video directory.
+ */
+@Entity
+@AllArgsConstructor
+@NoArgsConstructor
+@Data
+@Table(name = "media_metadata")
+public class MediaMetadata {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "source_file_name", nullable = false, unique = true)
+    private String sourceFileName;
+
+    // Size of the file that was probed, to notice it being replaced
+    @Column(name = "file_size", nullable = false)
+    private Long fileSize;
+
+    // mp4, mov, webm or mkv
+    @Column(nullable = false, length = 16)
+    private String container;
+
+    @Column(name = "duration_millis")
+    private Long durationMillis;
+
+    @Column(name = "video_codec", length = 32)
+    private String videoCodec;
+
+    @Column(name = "audio_codec", length = 32)
+    private String audioCodec;
+
+    private Integer width;
+
+    private Integer height;
+
+    @Column(name = "frame_rate")
+    private Double frameRate;
+
+    // Whole file, container overhead included
+    @Column(name = "bitrate_kbps")
+    private Integer bitrateKbps;
+
+    @Column(name = "video_bitrate_kbps")
+    private Integer videoBitrateKbps;
+
+    @Column(name = "audio_bitrate_kbps")
+    private Integer audioBitrateKbps;
+
+    @Column(name = "probed_at", nullable = false)
+    private LocalDateTime probedAt;
+
+    @PrePersist
+    @PreUpdate
+    protected void onProbe() {
+        probedAt = LocalDateTime.now();
+    }
+
+    public Duration getDuration() {
+        return durationMillis != null ? Duration.ofMillis(durationMillis) : null;
+    }
+}
@@ -85,8 +85,9 @@ public class Movie {
     @Column(name = "trailer_url", length = 500)
     private String trailerUrl;
 
+    // Only ever changed by ViewCountService's relative UPDATE; entity saves must not write back a stale count
     @Min(value = 0, message = "View count cannot be negative")
-    @Column(name = "view_count", columnDefinition = "BIGINT DEFAULT 0", nullable = false)
+    @Column(name = "view_count", columnDefinition = "BIGINT DEFAULT 0", nullable = false, updatable = false)
     private Long viewCount = 0L;
 
     @Column(name = "featured", nullable = false)
@@ -120,9 +121,4 @@ public class Movie {
     protected void onUpdate() {
         updatedAt = LocalDateTime.now();
     }
-
-    // Helper method to increment view count
-    public void incrementViewCount() {
-        this.viewCount = (this.viewCount == null ? 0L : this.viewCount) + 1;
-    }
 }
\ No newline at end of file
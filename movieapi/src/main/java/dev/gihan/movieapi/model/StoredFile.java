@@ -0,0 +1,57 @@
+package dev.gihan.movieapi.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Entity
+@AllArgsConstructor
+@NoArgsConstructor
+@Data
+@Table(name = "stored_files", uniqueConstraints = {
+        @UniqueConstraint(name = "uk_stored_file_content", columnNames = {"directory", "sha256"})
+})
+public class StoredFile {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    // Hex SHA-256 of the bytes as uploaded
+    @Column(nullable = false, length = 64)
+    private String sha256;
+
+    // Upload subdirectory: videos or images
+    @Column(nullable = false, length = 16)
+    private String directory;
+
+    // Relative to the upload directory; the URL is /uploads/ + path
+    @Column(nullable = false, unique = true, length = 200)
+    private String path;
+
+    @Column(name = "content_type", length = 100)
+    private String contentType;
+
+    @Column(nullable = false)
+    private Long size;
+
+    // Movie URL fields pointing at this file
+    @Column(name = "reference_count", nullable = false)
+    private Integer referenceCount = 0;
+
+    @Column(name = "created_at", nullable = false, updatable = false)
+    private LocalDateTime createdAt;
+
+    @PrePersist
+    protected void onCreate() {
+        createdAt = LocalDateTime.now();
+    }
+
+    // Name within the subdirectory, as handed to the media pipeline
+    public String getFileName() {
+        return path.substring(directory.length() + 1);
+    }
+}
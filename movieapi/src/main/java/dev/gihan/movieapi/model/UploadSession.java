@@ -0,0 +1,64 @@
+package dev.gihan.movieapi.model;
+
+import dev.gihan.movieapi.model.option.UploadStatus;
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Entity
+@AllArgsConstructor
+@NoArgsConstructor
+@Data
+@Table(name = "upload_sessions", indexes = {
+        @Index(name = "idx_upload_status_expires", columnList = "status, expires_at")
+})
+public class UploadSession {
+
+    // Random id handed to the client; knowing it is what lets a client resume
+    @Id
+    @Column(length = 36)
+    private String id;
+
+    @Column(name = "original_file_name", nullable = false)
+    private String originalFileName;
+
+    @Column(name = "content_type", nullable = false, length = 100)
+    private String contentType;
+
+    // Name the video is published under in the video directory; its content hash once finalized
+    @Column(name = "file_name", nullable = false, length = 100)
+    private String fileName;
+
+    @Column(name = "total_size", nullable = false)
+    private Long totalSize;
+
+    @Column(name = "chunk_size", nullable = false)
+    private Integer chunkSize;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 16)
+    private UploadStatus status = UploadStatus.UPLOADING;
+
+    @Column(name = "created_at", nullable = false, updatable = false)
+    private LocalDateTime createdAt;
+
+    @Column(name = "expires_at", nullable = false)
+    private LocalDateTime expiresAt;
+
+    @PrePersist
+    protected void onCreate() {
+        createdAt = LocalDateTime.now();
+    }
+
+    public int getTotalChunks() {
+        return (int) ((totalSize + chunkSize - 1) / chunkSize);
+    }
+
+    // Every chunk is chunkSize bytes except a shorter last one
+    public long getChunkLength(int index) {
+        return Math.min(chunkSize, totalSize - (long) index * chunkSize);
+    }
+}
@@ -0,0 +1,78 @@
+package dev.gihan.movieapi.model;
+
+import dev.gihan.movieapi.model.option.RenditionStatus;
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Entity
+@AllArgsConstructor
+@NoArgsConstructor
+@Data
+@Table(name = "video_renditions", uniqueConstraints = {
+        @UniqueConstraint(columnNames = {"source_file_name", "name"})
+}, indexes = {
+        @Index(name = "idx_rendition_movie", columnList = "movie_id"),
+        @Index(name = "idx_rendition_status", columnList = "status")
+})
+public class VideoRendition {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    // Set once a movie references the uploaded file; renditions are produced before that
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "movie_id")
+    private Movie movie;
+
+    @Column(name = "source_file_name", nullable = false)
+    private String sourceFileName;
+
+    @Column(nullable = false, length = 32)
+    private String name;
+
+    @Column(nullable = false)
+    private Integer width;
+
+    @Column(nullable = false)
+    private Integer height;
+
+    @Column(name = "video_bitrate_kbps", nullable = false)
+    private Integer videoBitrateKbps;
+
+    @Column(name = "audio_bitrate_kbps", nullable = false)
+    private Integer audioBitrateKbps;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 16)
+    private RenditionStatus status = RenditionStatus.PENDING;
+
+    @Column(name = "error_message", length = 1000)
+    private String errorMessage;
+
+    @Column(name = "created_at", nullable = false, updatable = false)
+    private LocalDateTime createdAt;
+
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+
+    @PrePersist
+    protected void onCreate() {
+        createdAt = LocalDateTime.now();
+        updatedAt = LocalDateTime.now();
+    }
+
+    @PreUpdate
+    protected void onUpdate() {
+        updatedAt = LocalDateTime.now();
+    }
+
+    // Peak bandwidth advertised in the master playlist, in bits per second
+    public long getPeakBandwidth() {
+        return (long) ((videoBitrateKbps + audioBitrateKbps) * 1000L * 1.1);
+    }
+}
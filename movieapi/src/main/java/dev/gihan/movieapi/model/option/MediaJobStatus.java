@@ -0,0 +1,8 @@
+package dev.gihan.movieapi.model.option;
+
+public enum MediaJobStatus {
+    PENDING,
+    RUNNING,
+    SUCCEEDED,
+    FAILED
+}
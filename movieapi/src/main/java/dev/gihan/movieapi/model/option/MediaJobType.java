@@ -0,0 +1,12 @@
+package dev.gihan.movieapi.model.option;
+
+public enum MediaJobType {
+    // Queues the jobs below (fast start runs before publishing)
+    PREPARE_VIDEO,
+    HLS_PACKAGE,
+    THUMBNAILS,
+    // Target is a video_renditions id
+    TRANSCODE_RENDITION,
+    // Seek index of an MP4/MOV upload; a seek that finds the index missing or stale queues it too
+    SEEK_INDEX
+}
@@ -0,0 +1,8 @@
+package dev.gihan.movieapi.model.option;
+
+public enum RenditionStatus {
+    PENDING,
+    PROCESSING,
+    READY,
+    FAILED
+}
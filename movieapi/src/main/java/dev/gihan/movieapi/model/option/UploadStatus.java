@@ -0,0 +1,7 @@
+package dev.gihan.movieapi.model.option;
+
+public enum UploadStatus {
+    UPLOADING,
+    COMPLETING,
+    COMPLETED
+}
@@ -0,0 +1,95 @@
+package dev.gihan.movieapi.repository;
+
+import dev.gihan.movieapi.model.MediaJob;
+import dev.gihan.movieapi.model.option.MediaJobStatus;
+import dev.gihan.movieapi.model.option.MediaJobType;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface MediaJobRepository extends JpaRepository<MediaJob, Long> {
+
+    /**
+     * Locks up to {@code limit} due jobs for the caller's transaction. Rows another node has locked
+     * are skipped rather than waited on, so workers on several nodes never claim the same job.
+     */
+    @Query(value = "SELECT * FROM media_jobs WHERE status = 'PENDING' AND run_after <= :now " +
+            "ORDER BY run_after, id LIMIT :limit FOR UPDATE SKIP LOCKED", nativeQuery = true)
+    List<MediaJob> lockDue(@Param("now") LocalDateTime now, @Param("limit") int limit);
+
+    boolean existsByTypeAndTargetAndStatusIn(MediaJobType type, String target, Collection<MediaJobStatus> statuses);
+
+    List<MediaJob> findAllByOrderByIdDesc(Pageable pageable);
+
+    List<MediaJob> findByStatusOrderByIdDesc(MediaJobStatus status, Pageable pageable);
+
+    long countByStatus(MediaJobStatus status);
+
+    // Every update of a running job names the attempt, so a node whose lease expired cannot
+    // overwrite the outcome of the attempt that replaced it
+
+    @Modifying
+    @Transactional
+    @Query("UPDATE MediaJob j SET j.progress = :progress, j.heartbeatAt = :now " +
+            "WHERE j.id = :id AND j.attempts = :attempt AND j.status = 'RUNNING'")
+    int updateProgress(@Param("id") Long id, @Param("attempt") int attempt,
+                       @Param("progress") int progress, @Param("now") LocalDateTime now);
+
+    @Modifying
+    @Transactional
+    @Query("UPDATE MediaJob j SET j.heartbeatAt = :now " +
+            "WHERE j.id IN :ids AND j.lockedBy = :node AND j.status = 'RUNNING'")
+    int heartbeat(@Param("ids") Collection<Long> ids, @Param("node") String node, @Param("now") LocalDateTime now);
+
+    @Modifying
+    @Transactional
+    @Query("UPDATE MediaJob j SET j.status = 'SUCCEEDED', j.progress = 100, j.lastError = NULL, " +
+            "j.lockedBy = NULL, j.finishedAt = :now, j.updatedAt = :now " +
+            "WHERE j.id = :id AND j.attempts = :attempt AND j.status = 'RUNNING'")
+    int complete(@Param("id") Long id, @Param("attempt") int attempt, @Param("now") LocalDateTime now);
+
+    @Modifying
+    @Transactional
+    @Query("UPDATE MediaJob j SET j.status = 'PENDING', j.runAfter = :runAfter, j.lastError = :error, " +
+            "j.lockedBy = NULL WHERE j.id = :id AND j.attempts = :attempt AND j.status = 'RUNNING'")
+    int retryLater(@Param("id") Long id, @Param("attempt") int attempt,
+                   @Param("runAfter") LocalDateTime runAfter, @Param("error") String error);
+
+    @Modifying
+    @Transactional
+    @Query("UPDATE MediaJob j SET j.status = 'FAILED', j.lastError = :error, j.lockedBy = NULL, " +
+            "j.finishedAt = :now, j.updatedAt = :now " +
+            "WHERE j.id = :id AND j.attempts = :attempt AND j.status = 'RUNNING'")
+    int fail(@Param("id") Long id, @Param("attempt") int attempt,
+             @Param("error") String error, @Param("now") LocalDateTime now);
+
+    // Jobs whose node stopped heartbeating, most likely because it died mid-job
+
+    @Modifying
+    @Transactional
+    @Query("UPDATE MediaJob j SET j.status = 'FAILED', j.lastError = 'Worker stopped responding', " +
+            "j.lockedBy = NULL, j.finishedAt = :now " +
+            "WHERE j.status = 'RUNNING' AND j.heartbeatAt < :cutoff AND j.attempts >= j.maxAttempts")
+    int failAbandoned(@Param("cutoff") LocalDateTime cutoff, @Param("now") LocalDateTime now);
+
+    @Modifying
+    @Transactional
+    @Query("UPDATE MediaJob j SET j.status = 'PENDING', j.lockedBy = NULL, j.runAfter = :now " +
+            "WHERE j.status = 'RUNNING' AND j.heartbeatAt < :cutoff")
+    int requeueAbandoned(@Param("cutoff") LocalDateTime cutoff, @Param("now") LocalDateTime now);
+
+    @Modifying(clearAutomatically = true)
+    @Transactional
+    @Query("UPDATE MediaJob j SET j.status = 'PENDING', j.attempts = 0, j.progress = 0, j.lastError = NULL, " +
+            "j.runAfter = :now, j.finishedAt = NULL, j.updatedAt = :now WHERE j.id = :id AND j.status = 'FAILED'")
+    int retry(@Param("id") Long id, @Param("now") LocalDateTime now);
+}
@@ -0,0 +1,13 @@
+package dev.gihan.movieapi.repository;
+
+import dev.gihan.movieapi.model.MediaMetadata;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.Optional;
+
+@Repository
+public interface MediaMetadataRepository extends JpaRepository<MediaMetadata, Long> {
+
+    Optional<MediaMetadata> findBySourceFileName(String sourceFileName);
+}
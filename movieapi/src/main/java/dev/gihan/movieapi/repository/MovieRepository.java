@@ -3,8 +3,11 @@ package dev.gihan.movieapi.repository;
 import dev.gihan.movieapi.model.Movie;
 import dev.gihan.movieapi.model.option.Genre;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.Duration;
 import java.util.List;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
@@ -26,4 +29,12 @@ public interface MovieRepository extends JpaRepository<Movie, Long> {
             @Param("year") Integer year
     );
 
+    // videoUrl is a bare file name, an /uploads/videos/ path or an absolute URL ending in the name
+    @Modifying
+    @Transactional
+    @Query("UPDATE Movie m SET m.duration = :duration WHERE m.videoUrl = :fileName OR m.videoUrl LIKE :pathSuffix")
+    int updateDurationForVideo(@Param("duration") Duration duration,
+                               @Param("fileName") String fileName,
+                               @Param("pathSuffix") String pathSuffix);
+
 }
@@ -0,0 +1,35 @@
+package dev.gihan.movieapi.repository;
+
+import dev.gihan.movieapi.model.StoredFile;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Optional;
+
+@Repository
+public interface StoredFileRepository extends JpaRepository<StoredFile, Long> {
+
+    Optional<StoredFile> findByDirectoryAndSha256(String directory, String sha256);
+
+    Optional<StoredFile> findByPath(String path);
+
+    @Modifying
+    @Transactional
+    @Query("UPDATE StoredFile f SET f.referenceCount = f.referenceCount + 1 WHERE f.path = :path")
+    int retain(@Param("path") String path);
+
+    @Modifying
+    @Transactional
+    @Query("UPDATE StoredFile f SET f.referenceCount = f.referenceCount - 1 WHERE f.path = :path AND f.referenceCount > 0")
+    int release(@Param("path") String path);
+
+    // Checked in the same statement, so a reference taken meanwhile keeps the row
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM StoredFile f WHERE f.path = :path AND f.referenceCount = 0")
+    int deleteUnreferenced(@Param("path") String path);
+}
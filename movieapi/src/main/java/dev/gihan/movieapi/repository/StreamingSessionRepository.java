@@ -6,16 +6,12 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
-import java.time.LocalDateTime;
 import java.util.List;
 
 @Repository
 public interface StreamingSessionRepository extends JpaRepository<StreamingSession, Long> {
     StreamingSession findBySessionId(String sessionId);
 
-    @Query("SELECT s FROM StreamingSession s WHERE s.startTime >= :since AND s.endTime IS NULL")
-    List<StreamingSession> findActiveStreams(@Param("since") LocalDateTime since);
-
     @Query("SELECT COUNT(s) FROM StreamingSession s WHERE s.movie.id = :movieId")
     Long countByMovieId(@Param("movieId") Long movieId);
 
@@ -0,0 +1,27 @@
+package dev.gihan.movieapi.repository;
+
+import dev.gihan.movieapi.model.UploadChunk;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+
+@Repository
+public interface UploadChunkRepository extends JpaRepository<UploadChunk, Long> {
+
+    boolean existsByUploadIdAndChunkIndex(String uploadId, Integer chunkIndex);
+
+    long countByUploadId(String uploadId);
+
+    @Query("SELECT c.chunkIndex FROM UploadChunk c WHERE c.uploadId = :uploadId")
+    List<Integer> findChunkIndexes(@Param("uploadId") String uploadId);
+
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM UploadChunk c WHERE c.uploadId = :uploadId")
+    int deleteByUploadId(@Param("uploadId") String uploadId);
+}
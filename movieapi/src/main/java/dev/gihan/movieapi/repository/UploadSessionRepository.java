@@ -0,0 +1,40 @@
+package dev.gihan.movieapi.repository;
+
+import dev.gihan.movieapi.model.UploadSession;
+import dev.gihan.movieapi.model.option.UploadStatus;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface UploadSessionRepository extends JpaRepository<UploadSession, String> {
+
+    List<UploadSession> findByExpiresAtBeforeAndStatusIn(LocalDateTime time, Collection<UploadStatus> statuses);
+
+    // Compare-and-set, so only one finalize request wins
+    @Modifying
+    @Transactional
+    @Query("UPDATE UploadSession s SET s.status = :to WHERE s.id = :id AND s.status = :from")
+    int updateStatus(@Param("id") String id, @Param("from") UploadStatus from, @Param("to") UploadStatus to);
+
+    // Only while chunks are still accepted
+    @Modifying
+    @Transactional
+    @Query("UPDATE UploadSession s SET s.expiresAt = :expiresAt WHERE s.id = :id " +
+            "AND s.status = dev.gihan.movieapi.model.option.UploadStatus.UPLOADING")
+    int extendExpiry(@Param("id") String id, @Param("expiresAt") LocalDateTime expiresAt);
+
+    // Deletes the session only if it is still expired and in the state the sweeper saw, so a chunk or
+    // finalize request that got in first wins
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM UploadSession s WHERE s.id = :id AND s.status = :status AND s.expiresAt < :now")
+    int deleteExpired(@Param("id") String id, @Param("status") UploadStatus status, @Param("now") LocalDateTime now);
+}
@@ -0,0 +1,33 @@
+package dev.gihan.movieapi.repository;
+
+import dev.gihan.movieapi.model.Movie;
+import dev.gihan.movieapi.model.VideoRendition;
+import dev.gihan.movieapi.model.option.RenditionStatus;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface VideoRenditionRepository extends JpaRepository<VideoRendition, Long> {
+
+    Optional<VideoRendition> findBySourceFileNameAndName(String sourceFileName, String name);
+
+    List<VideoRendition> findBySourceFileName(String sourceFileName);
+
+    @Query("SELECT r FROM VideoRendition r WHERE (r.movie.id = :movieId OR r.sourceFileName = :fileName) " +
+            "AND r.status = :status ORDER BY r.videoBitrateKbps DESC")
+    List<VideoRendition> findForMovie(@Param("movieId") Long movieId,
+                                      @Param("fileName") String fileName,
+                                      @Param("status") RenditionStatus status);
+
+    @Modifying
+    @Transactional
+    @Query("UPDATE VideoRendition r SET r.movie = :movie WHERE r.sourceFileName = :fileName")
+    int linkToMovie(@Param("movie") Movie movie, @Param("fileName") String fileName);
+}
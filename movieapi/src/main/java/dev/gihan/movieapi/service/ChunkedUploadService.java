@@ -0,0 +1,16 @@
+package dev.gihan.movieapi.service;
+
+import dev.gihan.movieapi.dto.requestDto.UploadInitRequestDto;
+import dev.gihan.movieapi.dto.responseDto.FileUploadResponseDto;
+import dev.gihan.movieapi.dto.responseDto.UploadSessionDto;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+public interface ChunkedUploadService {
+    UploadSessionDto initiate(UploadInitRequestDto request);
+    void writeChunk(String uploadId, long offset, long length, InputStream body) throws IOException;
+    UploadSessionDto getStatus(String uploadId);
+    FileUploadResponseDto complete(String uploadId);
+    void abort(String uploadId);
+}
@@ -0,0 +1,19 @@
+package dev.gihan.movieapi.service;
+
+import dev.gihan.movieapi.model.StoredFile;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+
+public interface ContentStoreService {
+
+    /** The stored entry, and whether its content was already present so the new copy was discarded. */
+    record Stored(StoredFile file, boolean duplicate) {
+    }
+
+    Stored store(Path file, String directory, String sha256, String extension, String contentType, long size)
+            throws IOException;
+    void updateReferences(List<String> previousUrls, List<String> currentUrls);
+    void delete(String path);
+}
@@ -1,12 +1,22 @@
 package dev.gihan.movieapi.service;
 
 import dev.gihan.movieapi.dto.responseDto.FileUploadResponseDto;
+import jakarta.servlet.http.HttpServletRequest;
 import org.springframework.web.multipart.MultipartFile;
 
+import java.io.IOException;
+import java.nio.file.Path;
+
 public interface FileUploadService {
     FileUploadResponseDto uploadVideo(MultipartFile file);
     FileUploadResponseDto uploadImage(MultipartFile file);
+    FileUploadResponseDto uploadVideo(HttpServletRequest request) throws IOException;
+    FileUploadResponseDto uploadImage(HttpServletRequest request) throws IOException;
     void deleteFile(String fileName);
     boolean isValidVideoFile(MultipartFile file);
     boolean isValidImageFile(MultipartFile file);
-}
\ No newline at end of file
+    boolean isAllowedVideoType(String contentType);
+    ContentStoreService.Stored storeVideo(Path file, String extension, String contentType) throws IOException;
+    void processUploadedVideo(String fileName);
+    void prepareVideo(String fileName) throws IOException;
+}
@@ -0,0 +1,22 @@
+package dev.gihan.movieapi.service;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+public interface HlsPackagingService {
+
+    // Rendition holding the keyframe-cut remux of the original upload
+    String SOURCE_RENDITION = "source";
+
+    void packageVideo(String videoFileName) throws IOException;
+    void buildRendition(String videoFileName, String renditionName, RenditionWriter writer) throws IOException;
+    void deleteRendition(String videoFileName, String renditionName) throws IOException;
+    String packageKey(String videoFileName, String fileName);
+    String renditionKey(String videoFileName, String renditionName, String fileName);
+    boolean isPackaged(String videoFileName) throws IOException;
+
+    @FunctionalInterface
+    interface RenditionWriter {
+        void write(Path source, Path outputDirectory) throws IOException;
+    }
+}
@@ -0,0 +1,15 @@
+package dev.gihan.movieapi.service;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+public interface ImageVariantService {
+
+    /** File to send for a request, and its content type; the original when it cannot be resized. */
+    record Variant(Path file, String contentType) {
+    }
+
+    int selectWidth(int requestedWidth);
+    Variant getVariant(String source, int width) throws IOException;
+    void scheduleVariants(String source);
+}
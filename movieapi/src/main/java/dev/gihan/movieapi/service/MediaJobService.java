@@ -0,0 +1,14 @@
+package dev.gihan.movieapi.service;
+
+import dev.gihan.movieapi.dto.responseDto.MediaJobDto;
+import dev.gihan.movieapi.model.option.MediaJobStatus;
+import dev.gihan.movieapi.model.option.MediaJobType;
+
+import java.util.List;
+
+public interface MediaJobService {
+    void enqueue(MediaJobType type, String target);
+    void enqueueOnDemand(MediaJobType type, String target);
+    List<MediaJobDto> getJobs(MediaJobStatus status, int limit);
+    MediaJobDto retry(Long id);
+}
@@ -0,0 +1,13 @@
+package dev.gihan.movieapi.service;
+
+import dev.gihan.movieapi.model.MediaMetadata;
+import dev.gihan.movieapi.model.Movie;
+
+import java.io.IOException;
+import java.util.Optional;
+
+public interface MediaMetadataService {
+    Optional<MediaMetadata> probe(String videoFileName) throws IOException;
+    Optional<MediaMetadata> getMetadata(String videoFileName);
+    void applyDuration(Movie movie);
+}
@@ -0,0 +1,11 @@
+package dev.gihan.movieapi.service;
+
+import dev.gihan.movieapi.dto.responseDto.SeekOffsetDto;
+import dev.gihan.movieapi.model.Movie;
+
+import java.io.IOException;
+
+public interface SeekIndexService {
+    void buildIndex(String videoFileName) throws IOException;
+    SeekOffsetDto findOffset(Movie movie, double seconds) throws IOException;
+}
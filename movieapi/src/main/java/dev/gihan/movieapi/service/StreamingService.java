@@ -1,18 +1,20 @@
 package dev.gihan.movieapi.service;
 
 import dev.gihan.movieapi.dto.requestDto.VideoProgressDto;
+import dev.gihan.movieapi.dto.responseDto.ActiveStreamsDto;
 import dev.gihan.movieapi.model.Movie;
-import dev.gihan.movieapi.model.StreamingSession;
 import dev.gihan.movieapi.model.User;
 import jakarta.servlet.http.HttpServletRequest;
 
-import java.util.List;
-
 public interface StreamingService {
-    StreamingSession startStreamingSession(String sessionId, User user, Movie movie, HttpServletRequest request);
-    void endStreamingSession(String sessionId, Integer durationWatched);
+    String startStreamingSession(User user, Movie movie, HttpServletRequest request);
+    boolean heartbeat(String sessionId, Integer position);
+    boolean endStreamingSession(String sessionId, Integer durationWatched);
     void updateWatchProgress(User user, VideoProgressDto progressDto);
     void markAsCompleted(User user, Long movieId);
-    List<StreamingSession> getActiveStreams();
+    ActiveStreamsDto getActiveStreams();
     Long getTotalViewsForMovie(Long movieId);
+    void flushPendingWrites();
+    int sweepIdleSessions();
+    void refreshHotMovies();
 }
\ No newline at end of file
@@ -0,0 +1,11 @@
+package dev.gihan.movieapi.service;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+public interface ThumbnailService {
+    void scheduleGeneration(String videoFileName) throws IOException;
+    void generateThumbnails(String videoFileName) throws IOException;
+    String thumbnailKey(String videoFileName, String fileName);
+    boolean isGenerated(String videoFileName) throws IOException;
+}
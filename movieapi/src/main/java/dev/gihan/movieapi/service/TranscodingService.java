@@ -0,0 +1,15 @@
+package dev.gihan.movieapi.service;
+
+import dev.gihan.movieapi.model.Movie;
+import dev.gihan.movieapi.model.VideoRendition;
+
+import java.io.IOException;
+import java.util.List;
+
+public interface TranscodingService {
+    List<VideoRendition> enqueueLadder(String videoFileName) throws IOException;
+    void transcodeRendition(Long renditionId) throws IOException;
+    void linkRenditions(Movie movie);
+    List<VideoRendition> getReadyRenditions(Movie movie);
+    String buildMasterPlaylist(Movie movie);
+}
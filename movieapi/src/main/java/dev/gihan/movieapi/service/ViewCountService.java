@@ -0,0 +1,9 @@
+package dev.gihan.movieapi.service;
+
+import dev.gihan.movieapi.dto.responseDto.ViewCountStatsDto;
+
+public interface ViewCountService {
+    void recordView(Long movieId);
+    long flush();
+    ViewCountStatsDto getStats();
+}
@@ -0,0 +1,306 @@
+package dev.gihan.movieapi.service.impl;
+
+import dev.gihan.movieapi.dto.requestDto.UploadInitRequestDto;
+import dev.gihan.movieapi.dto.responseDto.FileUploadResponseDto;
+import dev.gihan.movieapi.dto.responseDto.UploadSessionDto;
+import dev.gihan.movieapi.exception.BusinessException;
+import dev.gihan.movieapi.exception.ResourceNotFoundException;
+import dev.gihan.movieapi.model.UploadChunk;
+import dev.gihan.movieapi.model.UploadSession;
+import dev.gihan.movieapi.model.option.UploadStatus;
+import dev.gihan.movieapi.repository.UploadChunkRepository;
+import dev.gihan.movieapi.repository.UploadSessionRepository;
+import dev.gihan.movieapi.service.ChunkedUploadService;
+import dev.gihan.movieapi.service.ContentStoreService;
+import dev.gihan.movieapi.service.FileUploadService;
+import dev.gihan.movieapi.storage.MediaStorage;
+import dev.gihan.movieapi.streaming.VideoFileNames;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.util.StringUtils;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.util.BitSet;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.IntStream;
+
+/**
+ * Resumable video uploads: the client declares the size, PUTs fixed-size chunks at their offsets in
+ * any order (in parallel if it likes), and finalizes once every chunk is in. Chunks are written with
+ * positional FileChannel writes straight into a file sized up front, so nothing is reassembled at the
+ * end; finalizing hashes the file and publishes it through the content store like any other upload.
+ */
+@Service
+public class ChunkedUploadServiceImpl implements ChunkedUploadService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ChunkedUploadServiceImpl.class);
+
+    @Autowired
+    private UploadSessionRepository uploadSessionRepository;
+
+    @Autowired
+    private UploadChunkRepository uploadChunkRepository;
+
+    @Autowired
+    private FileUploadService fileUploadService;
+
+    @Autowired
+    private MediaStorage mediaStorage;
+
+    @Value("${app.file.upload.dir:src/main/resources/static/uploads}")
+    private String uploadDir;
+
+    @Value("${app.upload.chunked.chunk-size:8MB}")
+    private DataSize chunkSize = DataSize.ofMegabytes(8);
+
+    @Value("${app.upload.chunked.max-size:50GB}")
+    private DataSize maxSize = DataSize.ofGigabytes(50);
+
+    @Value("${app.upload.chunked.expiry-hours:24}")
+    private int expiryHours = 24;
+
+    @Override
+    public UploadSessionDto initiate(UploadInitRequestDto request) {
+        if (!fileUploadService.isAllowedVideoType(request.getContentType())) {
+            throw new BusinessException("Invalid video file type");
+        }
+        Long size = request.getFileSize();
+        if (size == null || size <= 0 || size > maxSize.toBytes()) {
+            throw new BusinessException("File size must be between 1 byte and " + maxSize);
+        }
+        String originalFileName = StringUtils.cleanPath(request.getFileName() == null ? "" : request.getFileName());
+        int dot = originalFileName.lastIndexOf('.');
+        if (dot < 0 || !originalFileName.substring(dot).matches("\\.[A-Za-z0-9]{1,8}")) {
+            throw new BusinessException("File name must have an extension");
+        }
+
+        String uploadId = UUID.randomUUID().toString();
+        Path partFile = partFile(uploadId);
+        try {
+            Files.createDirectories(partFile.getParent());
+            // Full size up front; chunks land at their offsets
+            try (RandomAccessFile file = new RandomAccessFile(partFile.toFile(), "rw")) {
+                file.setLength(size);
+            }
+        } catch (IOException e) {
+            throw new RuntimeException("Could not allocate upload file", e);
+        }
+
+        UploadSession session = new UploadSession();
+        session.setId(uploadId);
+        session.setOriginalFileName(originalFileName);
+        session.setContentType(request.getContentType());
+        session.setFileName(uploadId + originalFileName.substring(dot).toLowerCase());
+        session.setTotalSize(size);
+        session.setChunkSize((int) chunkSize.toBytes());
+        session.setStatus(UploadStatus.UPLOADING);
+        session.setExpiresAt(LocalDateTime.now().plusHours(expiryHours));
+        uploadSessionRepository.save(session);
+
+        logger.info("Started chunked upload {} for {} ({} bytes)", uploadId, originalFileName, size);
+        return toDto(session, List.of());
+    }
+
+    @Override
+    public void writeChunk(String uploadId, long offset, long length, InputStream body) throws IOException {
+        UploadSession session = findSession(uploadId);
+        if (session.getStatus() != UploadStatus.UPLOADING) {
+            throw new BusinessException("Upload " + uploadId + " is no longer accepting chunks");
+        }
+        if (offset < 0 || offset >= session.getTotalSize() || offset % session.getChunkSize() != 0) {
+            throw new BusinessException("Chunk offset must be a multiple of " + session.getChunkSize()
+                    + " below " + session.getTotalSize());
+        }
+        int index = (int) (offset / session.getChunkSize());
+        long expected = session.getChunkLength(index);
+        if (length != expected) {
+            throw new BusinessException("Chunk " + index + " must be exactly " + expected + " bytes");
+        }
+        // The resume window runs from the last chunk, so a slow upload that is still moving never expires
+        uploadSessionRepository.extendExpiry(uploadId, LocalDateTime.now().plusHours(expiryHours));
+        // A retry after a lost response; the bytes are already on disk
+        if (uploadChunkRepository.existsByUploadIdAndChunkIndex(uploadId, index)) {
+            return;
+        }
+
+        try (FileChannel channel = FileChannel.open(partFile(uploadId), StandardOpenOption.WRITE)) {
+            ReadableByteChannel source = Channels.newChannel(body);
+            long position = offset;
+            long end = offset + length;
+            while (position < end) {
+                long written = channel.transferFrom(source, position, end - position);
+                if (written <= 0) {
+                    throw new IOException("Chunk " + index + " ended after " + (position - offset)
+                            + " of " + length + " bytes");
+                }
+                position += written;
+            }
+            // Only record chunks that would survive a crash
+            channel.force(false);
+        } catch (NoSuchFileException e) {
+            throw new ResourceNotFoundException("Upload file missing for upload: " + uploadId);
+        }
+
+        UploadChunk chunk = new UploadChunk();
+        chunk.setUploadId(uploadId);
+        chunk.setChunkIndex(index);
+        try {
+            uploadChunkRepository.save(chunk);
+        } catch (DataIntegrityViolationException e) {
+            // The same chunk arrived twice in parallel; both wrote identical bytes
+            logger.debug("Chunk {} of upload {} already recorded", index, uploadId);
+        }
+    }
+
+    @Override
+    public UploadSessionDto getStatus(String uploadId) {
+        UploadSession session = findSession(uploadId);
+        return toDto(session, uploadChunkRepository.findChunkIndexes(uploadId));
+    }
+
+    @Override
+    public FileUploadResponseDto complete(String uploadId) {
+        UploadSession session = findSession(uploadId);
+        if (session.getStatus() == UploadStatus.COMPLETED) {
+            return toResponse(session);
+        }
+        long received = uploadChunkRepository.countByUploadId(uploadId);
+        if (received < session.getTotalChunks()) {
+            throw new BusinessException("Upload " + uploadId + " is missing "
+                    + (session.getTotalChunks() - received) + " of " + session.getTotalChunks() + " chunks");
+        }
+        if (uploadSessionRepository.updateStatus(uploadId, UploadStatus.UPLOADING, UploadStatus.COMPLETING) != 1) {
+            throw new BusinessException("Upload " + uploadId + " is already being finalized");
+        }
+        session.setStatus(UploadStatus.COMPLETING);
+
+        try {
+            Path partFile = partFile(uploadId);
+            if (Files.exists(partFile)) {
+                String fileName = session.getFileName();
+                ContentStoreService.Stored stored = fileUploadService.storeVideo(partFile,
+                        fileName.substring(fileName.lastIndexOf('.')), session.getContentType());
+                session.setFileName(stored.file().getFileName());
+                uploadSessionRepository.save(session);
+                if (!stored.duplicate()) {
+                    fileUploadService.processUploadedVideo(session.getFileName());
+                }
+            } else if (mediaStorage.stat(VideoFileNames.storageKey(session.getFileName())).isPresent()) {
+                // A finalize retried after the queueing step failed; the file is already published
+                fileUploadService.processUploadedVideo(session.getFileName());
+            } else {
+                throw new NoSuchFileException(partFile.toString());
+            }
+        } catch (IOException | RuntimeException e) {
+            // Back to UPLOADING, so the client can finalize again or abort
+            uploadSessionRepository.updateStatus(uploadId, UploadStatus.COMPLETING, UploadStatus.UPLOADING);
+            throw new RuntimeException("Could not publish upload " + uploadId, e);
+        }
+
+        session.setStatus(UploadStatus.COMPLETED);
+        uploadSessionRepository.save(session);
+        uploadChunkRepository.deleteByUploadId(uploadId);
+
+        logger.info("Completed chunked upload {} as {}", uploadId, session.getFileName());
+        return toResponse(session);
+    }
+
+    @Override
+    public void abort(String uploadId) {
+        UploadSession session = findSession(uploadId);
+        if (session.getStatus() == UploadStatus.COMPLETING) {
+            throw new BusinessException("Upload " + uploadId + " is being finalized");
+        }
+        discard(session);
+    }
+
+    // Abandoned uploads release their disk space once the resume window has passed. Sessions being
+    // finalized are left alone: their part file is what is being published.
+    @Scheduled(fixedDelayString = "${app.upload.chunked.cleanup-interval-ms:3600000}")
+    public void expireSessions() {
+        LocalDateTime now = LocalDateTime.now();
+        List<UploadSession> expired = uploadSessionRepository.findByExpiresAtBeforeAndStatusIn(now,
+                EnumSet.of(UploadStatus.UPLOADING, UploadStatus.COMPLETED));
+        int removed = 0;
+        for (UploadSession session : expired) {
+            try {
+                if (uploadSessionRepository.deleteExpired(session.getId(), session.getStatus(), now) == 1) {
+                    removeFiles(session);
+                    removed++;
+                }
+            } catch (RuntimeException e) {
+                logger.warn("Could not expire upload {}", session.getId(), e);
+            }
+        }
+        if (removed > 0) {
+            logger.info("Expired {} upload sessions", removed);
+        }
+    }
+
+    private void discard(UploadSession session) {
+        removeFiles(session);
+        uploadSessionRepository.delete(session);
+    }
+
+    private void removeFiles(UploadSession session) {
+        if (session.getStatus() == UploadStatus.UPLOADING) {
+            try {
+                Files.deleteIfExists(partFile(session.getId()));
+            } catch (IOException e) {
+                throw new RuntimeException("Could not delete upload file for " + session.getId(), e);
+            }
+        }
+        uploadChunkRepository.deleteByUploadId(session.getId());
+    }
+
+    private UploadSession findSession(String uploadId) {
+        return uploadSessionRepository.findById(uploadId)
+                .orElseThrow(() -> new ResourceNotFoundException("Upload", "id", uploadId));
+    }
+
+    private Path partFile(String uploadId) {
+        // Ids come from the client on every call after initiate
+        return Paths.get(uploadDir, "incoming", UUID.fromString(uploadId) + ".part");
+    }
+
+    private UploadSessionDto toDto(UploadSession session, List<Integer> receivedChunks) {
+        int totalChunks = session.getTotalChunks();
+        BitSet received = new BitSet(totalChunks);
+        long receivedBytes = 0;
+        for (Integer index : receivedChunks) {
+            received.set(index);
+            receivedBytes += session.getChunkLength(index);
+        }
+        if (session.getStatus() == UploadStatus.COMPLETED) {
+            received.set(0, totalChunks);
+            receivedBytes = session.getTotalSize();
+        }
+        List<Integer> missing = IntStream.range(0, totalChunks).filter(i -> !received.get(i)).boxed().toList();
+        return new UploadSessionDto(session.getId(), session.getStatus().name(), session.getTotalSize(),
+                session.getChunkSize(), totalChunks, receivedBytes, missing, session.getExpiresAt());
+    }
+
+    private static FileUploadResponseDto toResponse(UploadSession session) {
+        return new FileUploadResponseDto(session.getFileName(), "/uploads/videos/" + session.getFileName(),
+                session.getContentType(), session.getTotalSize(), null, "File uploaded successfully");
+    }
+}
@@ -0,0 +1,146 @@
+package dev.gihan.movieapi.service.impl;
+
+import dev.gihan.movieapi.exception.BusinessException;
+import dev.gihan.movieapi.model.StoredFile;
+import dev.gihan.movieapi.repository.StoredFileRepository;
+import dev.gihan.movieapi.service.ContentStoreService;
+import dev.gihan.movieapi.storage.MediaStorage;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Stores uploads under the SHA-256 of their bytes, so the same content uploaded twice is kept once.
+ * Images go under two levels of hash-prefix keys in the media storage; videos stay flat under "videos/",
+ * named by their hash, because that file name is the key for HLS output, renditions, thumbnails
+ * and seek indexes. Movie URL fields hold references, and bytes are only deleted once none remain.
+ */
+@Service
+public class ContentStoreServiceImpl implements ContentStoreService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ContentStoreServiceImpl.class);
+
+    private static final String URL_PREFIX = "/uploads/";
+
+    @Autowired
+    private StoredFileRepository storedFileRepository;
+
+    @Autowired
+    private MediaStorage mediaStorage;
+
+    @Override
+    public Stored store(Path file, String directory, String sha256, String extension, String contentType, long size)
+            throws IOException {
+        Optional<StoredFile> existing = storedFileRepository.findByDirectoryAndSha256(directory, sha256);
+        if (existing.isPresent()) {
+            String key = validKey(existing.get().getPath());
+            if (mediaStorage.stat(key).isPresent()) {
+                Files.delete(file);
+                return new Stored(existing.get(), true);
+            }
+            // Bytes removed behind our back; this upload restores them
+            logger.warn("Stored file {} was missing from storage, restoring from upload", key);
+            mediaStorage.store(key, file);
+            return new Stored(existing.get(), false);
+        }
+
+        StoredFile stored = new StoredFile();
+        stored.setSha256(sha256);
+        stored.setDirectory(directory);
+        stored.setPath(contentPath(directory, sha256, extension));
+        stored.setContentType(contentType);
+        stored.setSize(size);
+        try {
+            // The row goes in first, so of two identical uploads racing only one publishes and processes
+            stored = storedFileRepository.saveAndFlush(stored);
+        } catch (DataIntegrityViolationException e) {
+            Files.delete(file);
+            return new Stored(storedFileRepository.findByDirectoryAndSha256(directory, sha256)
+                    .orElseThrow(() -> e), true);
+        }
+
+        try {
+            mediaStorage.store(validKey(stored.getPath()), file);
+        } catch (IOException e) {
+            storedFileRepository.delete(stored);
+            throw e;
+        }
+        return new Stored(stored, false);
+    }
+
+    @Override
+    public void updateReferences(List<String> previousUrls, List<String> currentUrls) {
+        List<String> released = new ArrayList<>(previousUrls);
+        for (String url : currentUrls) {
+            // Unchanged URLs cancel out instead of being released and retaken
+            if (!released.remove(url)) {
+                String path = pathFromUrl(url);
+                if (path != null) {
+                    storedFileRepository.retain(path);
+                }
+            }
+        }
+        for (String url : released) {
+            String path = pathFromUrl(url);
+            if (path != null) {
+                storedFileRepository.release(path);
+            }
+        }
+    }
+
+    @Override
+    public void delete(String path) {
+        String relative = path.startsWith(URL_PREFIX) ? path.substring(URL_PREFIX.length()) : path;
+        String key = validKey(relative);
+        Optional<StoredFile> stored = storedFileRepository.findByPath(relative);
+        if (stored.isPresent() && storedFileRepository.deleteUnreferenced(relative) == 0) {
+            throw new BusinessException("File " + relative + " is still referenced by "
+                    + stored.get().getReferenceCount() + " movie field(s)");
+        }
+        try {
+            mediaStorage.delete(key);
+        } catch (IOException e) {
+            throw new RuntimeException("Could not delete file: " + relative, e);
+        }
+    }
+
+    static String contentPath(String directory, String sha256, String extension) {
+        if ("videos".equals(directory)) {
+            return directory + "/" + sha256 + extension;
+        }
+        return directory + "/" + sha256.substring(0, 2) + "/" + sha256.substring(2, 4) + "/" + sha256 + extension;
+    }
+
+    // Accepts "/uploads/..." paths and absolute URLs; anything else is not ours to count
+    static String pathFromUrl(String url) {
+        if (url == null) {
+            return null;
+        }
+        int start = url.indexOf(URL_PREFIX);
+        if (start < 0) {
+            return null;
+        }
+        String path = url.substring(start + URL_PREFIX.length());
+        int query = path.indexOf('?');
+        return query >= 0 ? path.substring(0, query) : path;
+    }
+
+    // Storage keys stay below the upload root
+    private static String validKey(String relative) {
+        Path normalized = Paths.get(relative).normalize();
+        if (relative.isBlank() || normalized.isAbsolute() || normalized.startsWith("..") || relative.contains("\\")) {
+            throw new BusinessException("Invalid file path: " + relative);
+        }
+        return relative;
+    }
+}
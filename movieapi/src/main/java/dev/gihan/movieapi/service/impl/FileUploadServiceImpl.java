@@ -1,29 +1,72 @@
 package dev.gihan.movieapi.service.impl;
 
 import dev.gihan.movieapi.dto.responseDto.FileUploadResponseDto;
+import dev.gihan.movieapi.exception.BusinessException;
+import dev.gihan.movieapi.media.mp4.Mp4FastStart;
+import dev.gihan.movieapi.model.StoredFile;
+import dev.gihan.movieapi.model.option.MediaJobType;
+import dev.gihan.movieapi.service.ContentStoreService;
 import dev.gihan.movieapi.service.FileUploadService;
+import dev.gihan.movieapi.service.ImageVariantService;
+import dev.gihan.movieapi.service.MediaJobService;
+import jakarta.servlet.http.HttpServletRequest;
+import org.apache.tomcat.util.http.fileupload.FileItemIterator;
+import org.apache.tomcat.util.http.fileupload.FileItemStream;
+import org.apache.tomcat.util.http.fileupload.FileUpload;
+import org.apache.tomcat.util.http.fileupload.impl.SizeException;
+import org.apache.tomcat.util.http.fileupload.servlet.ServletRequestContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.http.MediaTypeFactory;
 import org.springframework.stereotype.Service;
 import org.springframework.util.StringUtils;
+import org.springframework.util.unit.DataSize;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
-import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.Arrays;
+import java.util.HexFormat;
 import java.util.List;
 import java.util.UUID;
+import java.util.function.Predicate;
 
 @Service
 public class FileUploadServiceImpl implements FileUploadService {
 
+    private static final Logger logger = LoggerFactory.getLogger(FileUploadServiceImpl.class);
+
+    @Autowired
+    private MediaJobService mediaJobService;
+
+    @Autowired
+    private ContentStoreService contentStoreService;
+
+    @Autowired
+    private ImageVariantService imageVariantService;
+
     @Value("${app.file.upload.dir:src/main/resources/static/uploads}")
     private String uploadDir;
 
+    // The streaming endpoints bypass the multipart resolver, so they enforce its limits themselves
     @Value("${app.file.max-size:100MB}")
-    private String maxFileSize;
+    private DataSize maxFileSize = DataSize.ofMegabytes(100);
+
+    @Value("${spring.servlet.multipart.max-request-size:100MB}")
+    private DataSize maxRequestSize = DataSize.ofMegabytes(100);
+
+    @Value("${app.video.faststart.enabled:true}")
+    private boolean fastStartEnabled = true;
 
     private static final List<String> ALLOWED_VIDEO_TYPES = Arrays.asList(
             "video/mp4", "video/avi", "video/quicktime", "video/wmv", "video/flv", "video/webm"
@@ -33,13 +76,61 @@ public class FileUploadServiceImpl implements FileUploadService {
             "image/jpeg", "image/jpg", "image/png", "image/gif", "image/webp"
     );
 
+    // ISO base media files that may carry moov after mdat
+    private static final List<String> FAST_START_TYPES = Arrays.asList("video/mp4", "video/quicktime");
+
+    private static final String FILE_FIELD = "file";
+    private static final int COPY_BUFFER_SIZE = 64 * 1024;
+
     @Override
     public FileUploadResponseDto uploadVideo(MultipartFile file) {
         if (!isValidVideoFile(file)) {
             throw new RuntimeException("Invalid video file type");
         }
 
-        return uploadFile(file, "videos");
+        ContentStoreService.Stored stored = uploadFile(file, "videos");
+        if (!stored.duplicate()) {
+            processUploadedVideo(stored.file().getFileName());
+        }
+        return toResponse(stored);
+    }
+
+    /**
+     * Publishes a video received some other way, e.g. by chunked upload, under the hash of its bytes.
+     * The file is moved, or deleted if the content is already stored.
+     */
+    @Override
+    public ContentStoreService.Stored storeVideo(Path file, String extension, String contentType) throws IOException {
+        fastStart(file, contentType);
+        String checksum = sha256Of(file);
+        long size = Files.size(file);
+        ContentStoreService.Stored stored =
+                contentStoreService.store(file, "videos", checksum, extension, contentType, size);
+        logger.info("Stored {} as {} ({} bytes, sha256 {}{})", file.getFileName(), stored.file().getPath(), size,
+                checksum, stored.duplicate() ? ", duplicate" : "");
+        return stored;
+    }
+
+    /**
+     * Queues preparation of a video that has landed in the video directory, however it was
+     * uploaded; the upload request returns without waiting for any of it.
+     */
+    @Override
+    public void processUploadedVideo(String fileName) {
+        mediaJobService.enqueue(MediaJobType.PREPARE_VIDEO, fileName);
+    }
+
+    /**
+     * Queues the seek index for ISO media files; runs as a media job. Fast start already happened before
+     * the upload was published, since published names are content hashes served as immutable.
+     */
+    @Override
+    public void prepareVideo(String fileName) throws IOException {
+        // Content-addressed names keep the upload's extension, which stands in for its content type
+        String contentType = MediaTypeFactory.getMediaType(fileName).map(MediaType::toString).orElse(null);
+        if (FAST_START_TYPES.contains(contentType)) {
+            mediaJobService.enqueue(MediaJobType.SEEK_INDEX, fileName);
+        }
     }
 
     @Override
@@ -48,23 +139,48 @@ public class FileUploadServiceImpl implements FileUploadService {
             throw new RuntimeException("Invalid image file type");
         }
 
-        return uploadFile(file, "images");
+        return toResponse(processUploadedImage(uploadFile(file, "images")));
     }
 
     @Override
-    public void deleteFile(String fileName) {
-        try {
-            Path filePath = Paths.get(uploadDir).resolve(fileName);
-            Files.deleteIfExists(filePath);
-        } catch (IOException e) {
-            throw new RuntimeException("Could not delete file: " + fileName, e);
+    public FileUploadResponseDto uploadVideo(HttpServletRequest request) throws IOException {
+        ContentStoreService.Stored stored = streamUpload(request, "videos", this::isAllowedVideoType,
+                "Invalid video file type");
+        // A duplicate was already prepared when its content first arrived
+        if (!stored.duplicate()) {
+            processUploadedVideo(stored.file().getFileName());
+        }
+        return toResponse(stored);
+    }
+
+    @Override
+    public FileUploadResponseDto uploadImage(HttpServletRequest request) throws IOException {
+        return toResponse(processUploadedImage(
+                streamUpload(request, "images", ALLOWED_IMAGE_TYPES::contains, "Invalid image file type")));
+    }
+
+    // Catalog pages request resized variants; have them ready before the first card renders
+    private ContentStoreService.Stored processUploadedImage(ContentStoreService.Stored stored) {
+        if (!stored.duplicate()) {
+            imageVariantService.scheduleVariants(stored.file().getPath());
         }
+        return stored;
+    }
+
+    /** Deletes a file under the upload directory, refusing while a movie still references it. */
+    @Override
+    public void deleteFile(String fileName) {
+        contentStoreService.delete(fileName);
     }
 
     @Override
     public boolean isValidVideoFile(MultipartFile file) {
-        return file != null && !file.isEmpty() &&
-                ALLOWED_VIDEO_TYPES.contains(file.getContentType());
+        return file != null && !file.isEmpty() && isAllowedVideoType(file.getContentType());
+    }
+
+    @Override
+    public boolean isAllowedVideoType(String contentType) {
+        return ALLOWED_VIDEO_TYPES.contains(contentType);
     }
 
     @Override
@@ -73,36 +189,166 @@ public class FileUploadServiceImpl implements FileUploadService {
                 ALLOWED_IMAGE_TYPES.contains(file.getContentType());
     }
 
-    private FileUploadResponseDto uploadFile(MultipartFile file, String subDirectory) {
+    /**
+     * Moves moov to the front of a staged upload, before it is hashed and published, so playback
+     * needs no request to the end of the file. True if the file was rewritten and must be re-hashed.
+     */
+    private boolean fastStart(Path staged, String contentType) {
+        return fastStartEnabled && FAST_START_TYPES.contains(contentType)
+                && applyFastStart(staged) == Mp4FastStart.Result.REWRITTEN;
+    }
+
+    /** Failures leave the upload as it was; it still streams, just slower to start. */
+    Mp4FastStart.Result applyFastStart(Path video) {
         try {
-            // Create upload directory if it doesn't exist
-            Path uploadPath = Paths.get(uploadDir, subDirectory);
-            if (!Files.exists(uploadPath)) {
-                Files.createDirectories(uploadPath);
+            Mp4FastStart.Result result = Mp4FastStart.apply(video);
+            logger.debug("Fast-start for {}: {}", video.getFileName(), result);
+            if (result == Mp4FastStart.Result.UNSUPPORTED) {
+                logger.info("Upload {} cannot be rewritten for fast start, serving as uploaded", video.getFileName());
             }
+            return result;
+        } catch (IOException e) {
+            logger.warn("Fast-start rewrite failed for {}, serving as uploaded", video.getFileName(), e);
+            return Mp4FastStart.Result.UNSUPPORTED;
+        }
+    }
 
-            // Generate unique filename
-            String originalFilename = StringUtils.cleanPath(file.getOriginalFilename());
-            String fileExtension = originalFilename.substring(originalFilename.lastIndexOf("."));
-            String uniqueFilename = UUID.randomUUID().toString() + fileExtension;
-
-            // Save file
-            Path filePath = uploadPath.resolve(uniqueFilename);
-            Files.copy(file.getInputStream(), filePath, StandardCopyOption.REPLACE_EXISTING);
-
-            // Generate file URL
-            String fileUrl = "/uploads/" + subDirectory + "/" + uniqueFilename;
+    private ContentStoreService.Stored uploadFile(MultipartFile file, String subDirectory) {
+        try {
+            String extension = extensionOf(file.getOriginalFilename());
 
-            return new FileUploadResponseDto(
-                    uniqueFilename,
-                    fileUrl,
-                    file.getContentType(),
-                    file.getSize(),
-                    "File uploaded successfully"
-            );
+            // Hashing only reads the container's temp file; an absolute target then lets it be moved, not copied
+            MessageDigest digest = sha256();
+            try (InputStream in = file.getInputStream()) {
+                byte[] buffer = new byte[COPY_BUFFER_SIZE];
+                int read;
+                while ((read = in.read(buffer)) != -1) {
+                    digest.update(buffer, 0, read);
+                }
+            }
+            Path partFile = newPartFile();
+            file.transferTo(partFile.toFile());
 
+            String checksum = HexFormat.of().formatHex(digest.digest());
+            if ("videos".equals(subDirectory) && fastStart(partFile, file.getContentType())) {
+                checksum = sha256Of(partFile);
+            }
+            return contentStoreService.store(partFile, subDirectory, checksum,
+                    extension, file.getContentType(), Files.size(partFile));
         } catch (IOException e) {
             throw new RuntimeException("Could not store file", e);
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * Reads a multipart body part by part straight off the request and writes the {@code file} part
+     * to disk as it arrives, hashing and counting on the way. Nothing is buffered to a container temp
+     * file first, so each byte is written once. Fields before the file part are skipped.
+     */
+    private ContentStoreService.Stored streamUpload(HttpServletRequest request, String subDirectory,
+                                                    Predicate<String> allowedType, String invalidTypeMessage)
+            throws IOException {
+        FileUpload upload = new FileUpload();
+        upload.setFileSizeMax(maxFileSize.toBytes());
+        upload.setSizeMax(maxRequestSize.toBytes());
+        try {
+            FileItemIterator items = upload.getItemIterator(new ServletRequestContext(request));
+            while (items.hasNext()) {
+                FileItemStream item = items.next();
+                if (!item.isFormField() && FILE_FIELD.equals(item.getFieldName())) {
+                    if (!allowedType.test(item.getContentType())) {
+                        throw new BusinessException(invalidTypeMessage);
+                    }
+                    return store(item, subDirectory);
+                }
+            }
+        } catch (SizeException e) {
+            throw new BusinessException(e.getMessage());
+        } catch (IOException e) {
+            // Limits hit mid-stream surface wrapped in an IOException
+            if (e.getCause() instanceof SizeException sizeException) {
+                throw new BusinessException(sizeException.getMessage());
+            }
+            throw e;
+        }
+        throw new BusinessException("No file provided");
+    }
+
+    private ContentStoreService.Stored store(FileItemStream item, String subDirectory) throws IOException {
+        String extension = extensionOf(item.getName());
+
+        // Written beside the chunked uploads and moved in whole, so a half-received file is never served
+        Path partFile = newPartFile();
+        MessageDigest digest = sha256();
+        long size = 0;
+        try (InputStream in = item.openStream();
+             OutputStream out = Files.newOutputStream(partFile, StandardOpenOption.CREATE_NEW)) {
+            byte[] buffer = new byte[COPY_BUFFER_SIZE];
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                digest.update(buffer, 0, read);
+                out.write(buffer, 0, read);
+                size += read;
+            }
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(partFile);
+            throw e;
+        }
+        if (size == 0) {
+            Files.deleteIfExists(partFile);
+            throw new BusinessException("File is empty");
+        }
+
+        String checksum = HexFormat.of().formatHex(digest.digest());
+        if ("videos".equals(subDirectory) && fastStart(partFile, item.getContentType())) {
+            checksum = sha256Of(partFile);
+        }
+        ContentStoreService.Stored stored =
+                contentStoreService.store(partFile, subDirectory, checksum, extension, item.getContentType(), size);
+        logger.info("Stored {} as {} ({} bytes, sha256 {}{})", item.getName(), stored.file().getPath(), size,
+                checksum, stored.duplicate() ? ", duplicate" : "");
+        return stored;
+    }
+
+    private Path newPartFile() throws IOException {
+        Path partFile = Paths.get(uploadDir, "incoming", UUID.randomUUID() + ".part").toAbsolutePath();
+        Files.createDirectories(partFile.getParent());
+        return partFile;
+    }
+
+    private static String extensionOf(String fileName) {
+        String cleaned = StringUtils.cleanPath(fileName == null ? "" : fileName);
+        int dot = cleaned.lastIndexOf('.');
+        if (dot < 0 || !cleaned.substring(dot).matches("\\.[A-Za-z0-9]{1,8}")) {
+            throw new BusinessException("File name must have an extension");
+        }
+        return cleaned.substring(dot).toLowerCase();
+    }
+
+    private static FileUploadResponseDto toResponse(ContentStoreService.Stored stored) {
+        StoredFile file = stored.file();
+        return new FileUploadResponseDto(file.getFileName(), "/uploads/" + file.getPath(), file.getContentType(),
+                file.getSize(), file.getSha256(),
+                stored.duplicate() ? "File already stored" : "File uploaded successfully");
+    }
+
+    private static String sha256Of(Path file) throws IOException {
+        MessageDigest digest = sha256();
+        try (InputStream in = Files.newInputStream(file)) {
+            byte[] buffer = new byte[COPY_BUFFER_SIZE];
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                digest.update(buffer, 0, read);
+            }
+        }
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
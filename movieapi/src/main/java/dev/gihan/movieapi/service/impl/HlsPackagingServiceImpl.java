@@ -0,0 +1,115 @@
+package dev.gihan.movieapi.service.impl;
+
+import dev.gihan.movieapi.media.hls.HlsSegmenter;
+import dev.gihan.movieapi.service.HlsPackagingService;
+import dev.gihan.movieapi.storage.GeneratedOutputs;
+import dev.gihan.movieapi.storage.MediaStorage;
+import dev.gihan.movieapi.streaming.VideoFileNames;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.util.FileSystemUtils;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.UUID;
+import java.util.regex.Pattern;
+
+/**
+ * Renditions are stored in the media storage as {@code hls/<video>/<rendition>/<file>}, so a package
+ * built on one node is served by all of them.
+ */
+@Service
+public class HlsPackagingServiceImpl implements HlsPackagingService {
+
+    private static final Logger logger = LoggerFactory.getLogger(HlsPackagingServiceImpl.class);
+
+    private static final String KEY_PREFIX = "hls/";
+
+    // Only playlist and segment names produced by our segmenters may be served
+    private static final Pattern PACKAGE_FILE_NAME = Pattern.compile("[A-Za-z0-9_-]+\\.(m3u8|ts|m4s|mp4)");
+
+    private static final Pattern RENDITION_NAME = Pattern.compile("[A-Za-z0-9_-]{1,32}");
+
+    @Autowired
+    private HlsSegmenter hlsSegmenter;
+
+    @Autowired
+    private MediaStorage mediaStorage;
+
+    @Value("${app.hls.segment-seconds:6}")
+    private int segmentSeconds;
+
+    @Override
+    public void packageVideo(String videoFileName) throws IOException {
+        buildRendition(videoFileName, SOURCE_RENDITION,
+                (source, outputDirectory) -> hlsSegmenter.segment(source, outputDirectory, segmentSeconds));
+    }
+
+    @Override
+    public void buildRendition(String videoFileName, String renditionName, RenditionWriter writer)
+            throws IOException {
+        Path source;
+        try {
+            source = mediaStorage.localCopy(VideoFileNames.storageKey(videoFileName));
+        } catch (NoSuchFileException e) {
+            throw new IOException("Source video not found: " + videoFileName, e);
+        }
+
+        String prefix = renditionPrefix(videoFileName, renditionName);
+        // Write into a scratch directory and publish it file by file, so readers never see a half-written playlist
+        Path scratch = mediaStorage.localDirectory(KEY_PREFIX).resolve(".tmp-" + UUID.randomUUID());
+        Files.createDirectories(scratch);
+        try {
+            long startedAt = System.currentTimeMillis();
+            writer.write(source, scratch);
+            if (!Files.exists(scratch.resolve(HlsSegmenter.PLAYLIST_NAME))) {
+                throw new IOException("No playlist produced for " + videoFileName + " (" + renditionName + ")");
+            }
+            GeneratedOutputs.publish(mediaStorage, scratch, prefix, HlsSegmenter.PLAYLIST_NAME, PACKAGE_FILE_NAME);
+            logger.info("Packaged {} rendition of {} as HLS in {} ms",
+                    renditionName, videoFileName, System.currentTimeMillis() - startedAt);
+        } finally {
+            FileSystemUtils.deleteRecursively(scratch);
+        }
+    }
+
+    @Override
+    public void deleteRendition(String videoFileName, String renditionName) throws IOException {
+        GeneratedOutputs.delete(mediaStorage, renditionPrefix(videoFileName, renditionName),
+                HlsSegmenter.PLAYLIST_NAME, PACKAGE_FILE_NAME);
+    }
+
+    @Override
+    public String packageKey(String videoFileName, String fileName) {
+        return renditionKey(videoFileName, SOURCE_RENDITION, fileName);
+    }
+
+    @Override
+    public String renditionKey(String videoFileName, String renditionName, String fileName) {
+        if (fileName == null || !PACKAGE_FILE_NAME.matcher(fileName).matches()) {
+            throw new IllegalArgumentException("Invalid HLS file name: " + fileName);
+        }
+        return renditionPrefix(videoFileName, renditionName) + fileName;
+    }
+
+    @Override
+    public boolean isPackaged(String videoFileName) throws IOException {
+        return mediaStorage.stat(packageKey(videoFileName, HlsSegmenter.PLAYLIST_NAME)).isPresent();
+    }
+
+    private String renditionPrefix(String videoFileName, String renditionName) {
+        if (renditionName == null || !RENDITION_NAME.matcher(renditionName).matches()) {
+            throw new IllegalArgumentException("Invalid rendition name: " + renditionName);
+        }
+        String name = Paths.get(videoFileName).getFileName().toString();
+        int dot = name.lastIndexOf('.');
+        String baseName = (dot > 0 ? name.substring(0, dot) : name).replaceAll("[^A-Za-z0-9_-]", "_");
+        return KEY_PREFIX + baseName + "/" + renditionName + "/";
+    }
+}
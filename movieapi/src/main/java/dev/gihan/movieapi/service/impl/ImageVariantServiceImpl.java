@@ -0,0 +1,241 @@
+package dev.gihan.movieapi.service.impl;
+
+import dev.gihan.movieapi.exception.BusinessException;
+import dev.gihan.movieapi.exception.ResourceNotFoundException;
+import dev.gihan.movieapi.media.image.ImageResizer;
+import dev.gihan.movieapi.service.ImageVariantService;
+import dev.gihan.movieapi.storage.MediaStorage;
+import dev.gihan.movieapi.streaming.ContentFingerprintStrategy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.http.MediaType;
+import org.springframework.http.MediaTypeFactory;
+import org.springframework.stereotype.Service;
+
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Serves posters and thumbnails at a fixed ladder of widths, so catalog cards download a few tens
+ * of kilobytes instead of the multi-megabyte original. Variants are JPEGs written beside the
+ * uploads on upload, or on first request for images that predate this, and reused from disk after.
+ * They are a cache local to each node, not stored objects: a node without a variant resizes the
+ * original, fetched from the media storage, on first request.
+ */
+@Service
+public class ImageVariantServiceImpl implements ImageVariantService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ImageVariantServiceImpl.class);
+
+    private static final String URL_PREFIX = "/uploads/";
+    private static final String IMAGE_DIRECTORY = "images/";
+
+    @Autowired
+    @Qualifier("mediaTaskExecutor")
+    private TaskExecutor mediaTaskExecutor;
+
+    @Autowired
+    private MediaStorage mediaStorage;
+
+    @Value("${app.images.variants.directory:src/main/resources/static/uploads/image-variants}")
+    private String variantDirectory;
+
+    @Value("${app.images.variants.enabled:true}")
+    private boolean enabled = true;
+
+    // Ascending; a request is served from the smallest width that covers it
+    @Value("${app.images.variants.widths:160,320,480,640,960,1280}")
+    private List<Integer> widths = List.of(160, 320, 480, 640, 960, 1280);
+
+    @Value("${app.images.variants.jpeg-quality:0.8}")
+    private float jpegQuality = 0.8f;
+
+    // Variants being written, so a burst of first requests for one image resizes it once
+    private final Map<Path, CompletableFuture<Void>> inFlight = new ConcurrentHashMap<>();
+
+    @Override
+    public int selectWidth(int requestedWidth) {
+        if (requestedWidth <= 0) {
+            throw new BusinessException("Width must be positive");
+        }
+        return widths.stream().filter(width -> width >= requestedWidth).findFirst()
+                .orElse(widths.get(widths.size() - 1));
+    }
+
+    @Override
+    public Variant getVariant(String source, int width) throws IOException {
+        String relative = imagePath(source);
+        Path original = resolveOriginal(relative);
+        if (!enabled || !isResizable(relative)) {
+            return original(original);
+        }
+
+        int selected = selectWidth(width);
+        Path variant = variantPath(relative, selected);
+        if (!isCurrent(variant, original)) {
+            CompletableFuture<Void> mine = new CompletableFuture<>();
+            CompletableFuture<Void> running = inFlight.putIfAbsent(variant, mine);
+            if (running != null) {
+                await(running);
+            } else {
+                try {
+                    BufferedImage image = ImageResizer.read(original);
+                    if (image == null) {
+                        mine.complete(null);
+                        return original(original);
+                    }
+                    writeVariant(image, relative, selected);
+                    mine.complete(null);
+                } catch (IOException | RuntimeException e) {
+                    mine.completeExceptionally(e);
+                    throw e;
+                } finally {
+                    inFlight.remove(variant, mine);
+                }
+            }
+            if (!Files.isRegularFile(variant)) {
+                // The other request found the image unreadable
+                return original(original);
+            }
+        }
+        return new Variant(variant, MediaType.IMAGE_JPEG_VALUE);
+    }
+
+    @Override
+    public void scheduleVariants(String source) {
+        if (!enabled) {
+            return;
+        }
+        String relative = imagePath(source);
+        if (!isResizable(relative)) {
+            return;
+        }
+        try {
+            mediaTaskExecutor.execute(() -> {
+                try {
+                    generateAll(relative);
+                } catch (Exception e) {
+                    logger.warn("Could not generate variants for {}, they will be made on request", relative, e);
+                }
+            });
+        } catch (TaskRejectedException e) {
+            logger.info("Media queue is full, variants for {} will be made on request", relative);
+        }
+    }
+
+    void generateAll(String relative) throws IOException {
+        Path original = resolveOriginal(relative);
+        long startedAt = System.currentTimeMillis();
+        // Decoded once for every width
+        BufferedImage image = ImageResizer.read(original);
+        if (image == null) {
+            logger.info("No image reader for {}, serving it as uploaded", relative);
+            return;
+        }
+        for (int width : widths) {
+            writeVariant(image, relative, width);
+            if (width >= image.getWidth()) {
+                // Wider variants would only repeat this one
+                break;
+            }
+        }
+        logger.debug("Generated variants for {} in {} ms", relative, System.currentTimeMillis() - startedAt);
+    }
+
+    private void writeVariant(BufferedImage image, String relative, int width) throws IOException {
+        Path variant = variantPath(relative, width);
+        Files.createDirectories(variant.getParent());
+        // Written aside and moved in, so readers never see a partial JPEG
+        Path scratch = variant.resolveSibling(variant.getFileName() + ".tmp-" + UUID.randomUUID());
+        try {
+            ImageResizer.writeJpeg(image, width, jpegQuality, scratch);
+            Files.move(scratch, variant, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } finally {
+            Files.deleteIfExists(scratch);
+        }
+    }
+
+    // "images/..." relative to the upload directory, from an upload URL or path
+    private static String imagePath(String source) {
+        if (source == null) {
+            throw new BusinessException("Image source is required");
+        }
+        String path = source;
+        int prefix = path.indexOf(URL_PREFIX);
+        if (prefix >= 0) {
+            path = path.substring(prefix + URL_PREFIX.length());
+        }
+        int query = path.indexOf('?');
+        if (query >= 0) {
+            path = path.substring(0, query);
+        }
+        // Catalog responses carry fingerprinted poster URLs; variants track the file's mtime instead
+        path = ContentFingerprintStrategy.stripFingerprint(path);
+        if (!path.startsWith(IMAGE_DIRECTORY)) {
+            throw new BusinessException("Only uploaded images have variants: " + source);
+        }
+        return path;
+    }
+
+    // A local copy of the original, fetched from the media storage if this node has none
+    private Path resolveOriginal(String relative) throws IOException {
+        // Keys that climb out of the image directory are not images
+        if (!Paths.get(relative).normalize().toString().equals(relative)) {
+            throw new ResourceNotFoundException("Image not found: " + relative);
+        }
+        try {
+            return mediaStorage.localCopy(relative);
+        } catch (NoSuchFileException | IllegalArgumentException e) {
+            throw new ResourceNotFoundException("Image not found: " + relative);
+        }
+    }
+
+    // Mirrors the image's place under the image directory, one tree per width
+    private Path variantPath(String relative, int width) {
+        return Paths.get(variantDirectory, String.valueOf(width))
+                .resolve(relative.substring(IMAGE_DIRECTORY.length()) + ".jpg");
+    }
+
+    // Animated GIFs would lose every frame but the first
+    private static boolean isResizable(String relative) {
+        return !relative.toLowerCase(Locale.ROOT).endsWith(".gif");
+    }
+
+    private static boolean isCurrent(Path variant, Path original) throws IOException {
+        return Files.isRegularFile(variant)
+                && Files.getLastModifiedTime(variant).compareTo(Files.getLastModifiedTime(original)) >= 0;
+    }
+
+    private static Variant original(Path original) {
+        return new Variant(original, MediaTypeFactory.getMediaType(original.getFileName().toString())
+                .orElse(MediaType.APPLICATION_OCTET_STREAM).toString());
+    }
+
+    private static void await(CompletableFuture<Void> running) throws IOException {
+        try {
+            running.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof IOException io) {
+                throw io;
+            }
+            throw e;
+        }
+    }
+}
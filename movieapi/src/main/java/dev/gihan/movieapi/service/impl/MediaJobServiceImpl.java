@@ -0,0 +1,94 @@
+package dev.gihan.movieapi.service.impl;
+
+import dev.gihan.movieapi.dto.responseDto.MediaJobDto;
+import dev.gihan.movieapi.exception.BusinessException;
+import dev.gihan.movieapi.exception.ResourceNotFoundException;
+import dev.gihan.movieapi.model.MediaJob;
+import dev.gihan.movieapi.model.option.MediaJobStatus;
+import dev.gihan.movieapi.model.option.MediaJobType;
+import dev.gihan.movieapi.repository.MediaJobRepository;
+import dev.gihan.movieapi.service.MediaJobService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.EnumSet;
+import java.util.List;
+
+/**
+ * Durable queue of media post-processing jobs, kept in the database so queued work survives
+ * restarts and any node's {@link MediaJobWorker} can run it.
+ */
+@Service
+public class MediaJobServiceImpl implements MediaJobService {
+
+    private static final Logger logger = LoggerFactory.getLogger(MediaJobServiceImpl.class);
+
+    private static final int MAX_LISTED = 200;
+
+    @Autowired
+    private MediaJobRepository mediaJobRepository;
+
+    @Value("${app.jobs.max-attempts:5}")
+    private int maxAttempts = 5;
+
+    @Override
+    public void enqueue(MediaJobType type, String target) {
+        // The same file uploaded again while its jobs are queued needs no second run
+        if (mediaJobRepository.existsByTypeAndTargetAndStatusIn(type, target,
+                EnumSet.of(MediaJobStatus.PENDING, MediaJobStatus.RUNNING))) {
+            logger.debug("{} job for {} is already queued", type, target);
+            return;
+        }
+        MediaJob job = new MediaJob();
+        job.setType(type);
+        job.setTarget(target);
+        job.setMaxAttempts(maxAttempts);
+        mediaJobRepository.save(job);
+        logger.info("Queued {} job for {}", type, target);
+    }
+
+    /**
+     * As {@link #enqueue}, for work a public request asked for: a target whose job failed is not
+     * queued again until an admin retries it, so requests cannot keep re-running a broken job.
+     */
+    @Override
+    public void enqueueOnDemand(MediaJobType type, String target) {
+        if (mediaJobRepository.existsByTypeAndTargetAndStatusIn(type, target,
+                EnumSet.of(MediaJobStatus.PENDING, MediaJobStatus.RUNNING, MediaJobStatus.FAILED))) {
+            logger.debug("{} job for {} is queued or failed, not queueing on demand", type, target);
+            return;
+        }
+        enqueue(type, target);
+    }
+
+    @Override
+    public List<MediaJobDto> getJobs(MediaJobStatus status, int limit) {
+        PageRequest page = PageRequest.of(0, Math.max(1, Math.min(limit, MAX_LISTED)));
+        List<MediaJob> jobs = status != null
+                ? mediaJobRepository.findByStatusOrderByIdDesc(status, page)
+                : mediaJobRepository.findAllByOrderByIdDesc(page);
+        return jobs.stream().map(MediaJobServiceImpl::toDto).toList();
+    }
+
+    @Override
+    public MediaJobDto retry(Long id) {
+        MediaJob job = mediaJobRepository.findById(id)
+                .orElseThrow(() -> new ResourceNotFoundException("Media job not found: " + id));
+        if (mediaJobRepository.retry(id, LocalDateTime.now()) == 0) {
+            throw new BusinessException("Only failed jobs can be retried; job " + id + " is " + job.getStatus());
+        }
+        logger.info("Retrying {} job {} for {}", job.getType(), id, job.getTarget());
+        return toDto(mediaJobRepository.findById(id).orElse(job));
+    }
+
+    static MediaJobDto toDto(MediaJob job) {
+        return new MediaJobDto(job.getId(), job.getType().name(), job.getTarget(), job.getStatus().name(),
+                job.getProgress(), job.getAttempts(), job.getMaxAttempts(), job.getLastError(), job.getRunAfter(),
+                job.getCreatedAt(), job.getUpdatedAt(), job.getFinishedAt());
+    }
+}
@@ -0,0 +1,246 @@
+package dev.gihan.movieapi.service.impl;
+
+import dev.gihan.movieapi.model.MediaJob;
+import dev.gihan.movieapi.model.option.MediaJobStatus;
+import dev.gihan.movieapi.model.option.MediaJobType;
+import dev.gihan.movieapi.repository.MediaJobRepository;
+import dev.gihan.movieapi.service.FileUploadService;
+import dev.gihan.movieapi.service.HlsPackagingService;
+import dev.gihan.movieapi.service.MediaJobService;
+import dev.gihan.movieapi.service.MediaMetadataService;
+import dev.gihan.movieapi.service.SeekIndexService;
+import dev.gihan.movieapi.service.ThumbnailService;
+import dev.gihan.movieapi.service.TranscodingService;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.dao.DataAccessException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.IntConsumer;
+
+/**
+ * Runs queued media jobs on a bounded pool. Each poll claims at most as many due jobs as there are
+ * idle workers, with row locks that other nodes skip, so several nodes share one queue. A failed
+ * attempt is retried with exponential backoff until its attempts run out; jobs of a node that
+ * stops heartbeating are handed to another.
+ */
+@Component
+public class MediaJobWorker {
+
+    private static final Logger logger = LoggerFactory.getLogger(MediaJobWorker.class);
+
+    private static final int MAX_ERROR_LENGTH = 1000;
+
+    @FunctionalInterface
+    interface JobHandler {
+        void run(String target, IntConsumer progress) throws Exception;
+    }
+
+    @Autowired
+    private MediaJobRepository mediaJobRepository;
+
+    @Autowired
+    private MediaJobService mediaJobService;
+
+    @Autowired
+    private FileUploadService fileUploadService;
+
+    @Autowired
+    private MediaMetadataService mediaMetadataService;
+
+    @Autowired
+    private HlsPackagingService hlsPackagingService;
+
+    @Autowired
+    private ThumbnailService thumbnailService;
+
+    @Autowired
+    private TranscodingService transcodingService;
+
+    @Autowired
+    private SeekIndexService seekIndexService;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    @Qualifier("mediaJobExecutor")
+    private TaskExecutor mediaJobExecutor;
+
+    @Value("${app.jobs.enabled:true}")
+    private boolean enabled = true;
+
+    @Value("${app.jobs.workers:2}")
+    private int workers = 2;
+
+    @Value("${app.jobs.backoff:30s}")
+    private Duration backoff = Duration.ofSeconds(30);
+
+    @Value("${app.jobs.max-backoff:30m}")
+    private Duration maxBackoff = Duration.ofMinutes(30);
+
+    // A running job whose node has not heartbeated for this long is considered abandoned
+    @Value("${app.jobs.lease:5m}")
+    private Duration lease = Duration.ofMinutes(5);
+
+    @Value("${app.hls.enabled:true}")
+    private boolean hlsEnabled = true;
+
+    @Value("${app.thumbnails.enabled:true}")
+    private boolean thumbnailsEnabled = true;
+
+    private final String node = nodeName();
+
+    // Ids of the jobs running on this node
+    private final Set<Long> running = ConcurrentHashMap.newKeySet();
+
+    private final Map<MediaJobType, JobHandler> handlers = new EnumMap<>(MediaJobType.class);
+
+    @PostConstruct
+    void registerHandlers() {
+        handlers.put(MediaJobType.PREPARE_VIDEO, (target, progress) -> {
+            fileUploadService.prepareVideo(target);
+            progress.accept(60);
+            // Probed before the ladder is queued, which is sized to the source
+            mediaMetadataService.probe(target);
+            progress.accept(80);
+            // The rest reads the prepared file, so it is queued only now
+            if (hlsEnabled) {
+                mediaJobService.enqueue(MediaJobType.HLS_PACKAGE, target);
+            }
+            if (thumbnailsEnabled) {
+                mediaJobService.enqueue(MediaJobType.THUMBNAILS, target);
+            }
+            // One TRANSCODE_RENDITION job per rung
+            transcodingService.enqueueLadder(target);
+        });
+        handlers.put(MediaJobType.HLS_PACKAGE, (target, progress) -> hlsPackagingService.packageVideo(target));
+        handlers.put(MediaJobType.THUMBNAILS, (target, progress) -> thumbnailService.generateThumbnails(target));
+        handlers.put(MediaJobType.TRANSCODE_RENDITION,
+                (target, progress) -> transcodingService.transcodeRendition(Long.valueOf(target)));
+        handlers.put(MediaJobType.SEEK_INDEX, (target, progress) -> seekIndexService.buildIndex(target));
+    }
+
+    @Scheduled(fixedDelayString = "${app.jobs.poll-interval-ms:2000}")
+    public void poll() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            LocalDateTime now = LocalDateTime.now();
+            if (!running.isEmpty()) {
+                mediaJobRepository.heartbeat(running, node, now);
+            }
+            recoverAbandoned(now);
+
+            int idle = workers - running.size();
+            if (idle > 0) {
+                claim(idle).forEach(this::submit);
+            }
+        } catch (DataAccessException e) {
+            logger.warn("Could not poll the media job queue, retrying on the next poll", e);
+        }
+    }
+
+    List<MediaJob> claim(int limit) {
+        return transactionTemplate.execute(status -> {
+            LocalDateTime now = LocalDateTime.now();
+            List<MediaJob> due = mediaJobRepository.lockDue(now, limit);
+            for (MediaJob job : due) {
+                job.setStatus(MediaJobStatus.RUNNING);
+                job.setAttempts(job.getAttempts() + 1);
+                job.setProgress(0);
+                job.setLockedBy(node);
+                job.setHeartbeatAt(now);
+            }
+            return mediaJobRepository.saveAll(due);
+        });
+    }
+
+    private void submit(MediaJob job) {
+        running.add(job.getId());
+        try {
+            mediaJobExecutor.execute(() -> run(job));
+        } catch (TaskRejectedException e) {
+            // Cannot happen while claims stay within idle workers; give the job back if it does
+            running.remove(job.getId());
+            mediaJobRepository.retryLater(job.getId(), job.getAttempts(), LocalDateTime.now(), "Worker pool was full");
+        }
+    }
+
+    void run(MediaJob job) {
+        long id = job.getId();
+        int attempt = job.getAttempts();
+        long startedAt = System.currentTimeMillis();
+        try {
+            JobHandler handler = handlers.get(job.getType());
+            handler.run(job.getTarget(), percent ->
+                    mediaJobRepository.updateProgress(id, attempt, Math.max(0, Math.min(percent, 99)), LocalDateTime.now()));
+            mediaJobRepository.complete(id, attempt, LocalDateTime.now());
+            logger.info("{} job {} for {} finished in {} ms", job.getType(), id, job.getTarget(),
+                    System.currentTimeMillis() - startedAt);
+        } catch (Exception e) {
+            String error = describe(e);
+            if (attempt >= job.getMaxAttempts()) {
+                mediaJobRepository.fail(id, attempt, error, LocalDateTime.now());
+                logger.error("{} job {} for {} failed after {} attempts", job.getType(), id, job.getTarget(), attempt, e);
+            } else {
+                Duration delay = backoffFor(attempt);
+                mediaJobRepository.retryLater(id, attempt, LocalDateTime.now().plus(delay), error);
+                logger.warn("{} job {} for {} failed (attempt {} of {}), retrying in {}s: {}", job.getType(), id,
+                        job.getTarget(), attempt, job.getMaxAttempts(), delay.toSeconds(), error);
+            }
+        } finally {
+            running.remove(id);
+        }
+    }
+
+    // Doubles per attempt from the base delay, capped
+    Duration backoffFor(int attempt) {
+        Duration delay = backoff.multipliedBy(1L << Math.min(attempt - 1, 20));
+        return delay.compareTo(maxBackoff) > 0 ? maxBackoff : delay;
+    }
+
+    private void recoverAbandoned(LocalDateTime now) {
+        LocalDateTime cutoff = now.minus(lease);
+        int failed = mediaJobRepository.failAbandoned(cutoff, now);
+        int requeued = mediaJobRepository.requeueAbandoned(cutoff, now);
+        if (failed + requeued > 0) {
+            logger.warn("Recovered {} abandoned media jobs ({} requeued, {} out of attempts)",
+                    failed + requeued, requeued, failed);
+        }
+    }
+
+    private static String describe(Exception e) {
+        String message = e.getClass().getSimpleName() + (e.getMessage() != null ? ": " + e.getMessage() : "");
+        return message.length() > MAX_ERROR_LENGTH ? message.substring(0, MAX_ERROR_LENGTH) : message;
+    }
+
+    private static String nodeName() {
+        String host;
+        try {
+            host = InetAddress.getLocalHost().getHostName();
+        } catch (UnknownHostException e) {
+            host = "node";
+        }
+        return host + "-" + UUID.randomUUID().toString().substring(0, 8);
+    }
+}
@@ -0,0 +1,107 @@
+package dev.gihan.movieapi.service.impl;
+
+import dev.gihan.movieapi.media.probe.MediaInfo;
+import dev.gihan.movieapi.media.probe.MediaProbe;
+import dev.gihan.movieapi.model.MediaMetadata;
+import dev.gihan.movieapi.model.Movie;
+import dev.gihan.movieapi.repository.MediaMetadataRepository;
+import dev.gihan.movieapi.repository.MovieRepository;
+import dev.gihan.movieapi.service.MediaMetadataService;
+import dev.gihan.movieapi.storage.MediaStorage;
+import dev.gihan.movieapi.streaming.VideoFileNames;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Optional;
+
+/**
+ * Probes uploaded videos and keeps what their containers say. The probed duration replaces the one
+ * typed into the movie form, which session completion, seek estimates and bandwidth shaping rely on.
+ */
+@Service
+public class MediaMetadataServiceImpl implements MediaMetadataService {
+
+    private static final Logger logger = LoggerFactory.getLogger(MediaMetadataServiceImpl.class);
+
+    @Autowired
+    private MediaMetadataRepository mediaMetadataRepository;
+
+    @Autowired
+    private MovieRepository movieRepository;
+
+    @Autowired
+    private MediaStorage mediaStorage;
+
+    @Override
+    public Optional<MediaMetadata> probe(String videoFileName) throws IOException {
+        String name = VideoFileNames.sanitize(videoFileName);
+        Path file = mediaStorage.localCopy(VideoFileNames.storageKey(name));
+        long size = Files.size(file);
+        MediaInfo info = MediaProbe.probe(file);
+        if (info == null) {
+            logger.info("Video {} is not a container we can probe", name);
+            return Optional.empty();
+        }
+
+        MediaMetadata metadata = mediaMetadataRepository.findBySourceFileName(name).orElseGet(MediaMetadata::new);
+        metadata.setSourceFileName(name);
+        metadata.setFileSize(size);
+        metadata.setContainer(info.container());
+        metadata.setDurationMillis(info.durationMillis());
+        metadata.setVideoCodec(info.videoCodec());
+        metadata.setAudioCodec(info.audioCodec());
+        metadata.setWidth(info.width());
+        metadata.setHeight(info.height());
+        metadata.setFrameRate(info.frameRate());
+        metadata.setBitrateKbps(info.bitrateKbps());
+        metadata.setVideoBitrateKbps(info.videoBitrateKbps());
+        metadata.setAudioBitrateKbps(info.audioBitrateKbps());
+        metadata = mediaMetadataRepository.save(metadata);
+
+        Duration duration = metadata.getDuration();
+        if (duration != null) {
+            // Movies saved before processing finished still carry the typed duration
+            int updated = movieRepository.updateDurationForVideo(duration, name, "%/" + name);
+            if (updated > 0) {
+                logger.info("Set duration of {} movie(s) using {} to {}", updated, name, duration);
+            }
+        }
+        logger.info("Probed {}: {} {}x{} {}/{} {} ms {} kbps", name, info.container(), info.width(), info.height(),
+                info.videoCodec(), info.audioCodec(), info.durationMillis(), info.bitrateKbps());
+        return Optional.of(metadata);
+    }
+
+    /** Stored metadata, probing first when the video has none yet or was replaced since. */
+    @Override
+    public Optional<MediaMetadata> getMetadata(String videoFileName) {
+        String name = VideoFileNames.sanitize(videoFileName);
+        Optional<MediaMetadata> stored = mediaMetadataRepository.findBySourceFileName(name);
+        try {
+            // Only a copy already on this node is checked; request paths never wait on a download
+            Optional<Path> file = mediaStorage.localPath(VideoFileNames.storageKey(name));
+            if (file.isEmpty() || stored.isPresent() && stored.get().getFileSize() == Files.size(file.get())) {
+                return stored;
+            }
+            return probe(name);
+        } catch (IOException e) {
+            logger.warn("Could not probe video: {}", name, e);
+            return stored;
+        }
+    }
+
+    @Override
+    public void applyDuration(Movie movie) {
+        if (movie.getVideoUrl() == null || movie.getVideoUrl().isBlank()) {
+            return;
+        }
+        getMetadata(VideoFileNames.fromVideoUrl(movie.getVideoUrl()))
+                .map(MediaMetadata::getDuration)
+                .ifPresent(movie::setDuration);
+    }
+}
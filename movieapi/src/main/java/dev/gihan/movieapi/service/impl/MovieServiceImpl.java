@@ -6,7 +6,12 @@ import dev.gihan.movieapi.exception.NotFoundException;
 import dev.gihan.movieapi.model.Movie;
 import dev.gihan.movieapi.model.User;
 import dev.gihan.movieapi.repository.MovieRepository;
+import dev.gihan.movieapi.service.ContentStoreService;
+import dev.gihan.movieapi.service.MediaMetadataService;
 import dev.gihan.movieapi.service.MovieService;
+import dev.gihan.movieapi.service.TranscodingService;
+import dev.gihan.movieapi.streaming.StaticAssetUrls;
+import dev.gihan.movieapi.streaming.VideoMetadataCache;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
@@ -14,7 +19,9 @@ import java.math.BigDecimal;
 import java.time.Duration;
 import java.util.Comparator;
 import java.util.List;
+import java.util.Objects;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Service
 public class MovieServiceImpl implements MovieService {
@@ -22,6 +29,21 @@ public class MovieServiceImpl implements MovieService {
     @Autowired
     private MovieRepository movieRepository;
 
+    @Autowired
+    private TranscodingService transcodingService;
+
+    @Autowired
+    private VideoMetadataCache videoMetadataCache;
+
+    @Autowired
+    private ContentStoreService contentStoreService;
+
+    @Autowired
+    private StaticAssetUrls staticAssetUrls;
+
+    @Autowired
+    private MediaMetadataService mediaMetadataService;
+
     @Override
     public MovieResponseDto createMovie(MovieRequestDto movieRequestDto) {
 
@@ -31,13 +53,18 @@ public class MovieServiceImpl implements MovieService {
         movie.setReleaseYear(movieRequestDto.getReleaseYear());
         movie.setDuration(movieRequestDto.getDuration());
         movie.setVideoUrl(movieRequestDto.getVideoUrl());
-        movie.setThumbnailUrl(movieRequestDto.getThumbnailUrl());
-        movie.setPosterUrl(movieRequestDto.getPosterUrl());
+        // Responses hand these out fingerprinted; the edit form may send them back that way
+        movie.setThumbnailUrl(StaticAssetUrls.canonical(movieRequestDto.getThumbnailUrl()));
+        movie.setPosterUrl(StaticAssetUrls.canonical(movieRequestDto.getPosterUrl()));
         movie.setGenre(movieRequestDto.getGenre());
         movie.setImdbRating(
                 movieRequestDto.getImdbRating() != null ? BigDecimal.valueOf(movieRequestDto.getImdbRating()) : null);
+        // The typed duration only stands when the file cannot be probed
+        mediaMetadataService.applyDuration(movie);
 
         Movie savedMovie = movieRepository.save(movie);
+        contentStoreService.updateReferences(List.of(), storedUrls(savedMovie));
+        transcodingService.linkRenditions(savedMovie);
         return convertToMovieResponseDto(savedMovie);
     }
 
@@ -46,19 +73,25 @@ public class MovieServiceImpl implements MovieService {
 
         Movie movie = movieRepository.findById(id)
             .orElseThrow(() -> new NotFoundException("Movie not found"));
+        List<String> previousUrls = storedUrls(movie);
 
         movie.setTitle(movieRequestDto.getTitle());
         movie.setDescription(movieRequestDto.getDescription());
         movie.setReleaseYear(movieRequestDto.getReleaseYear());
         movie.setDuration(movieRequestDto.getDuration());
         movie.setVideoUrl(movieRequestDto.getVideoUrl());
-        movie.setThumbnailUrl(movieRequestDto.getThumbnailUrl());
-        movie.setPosterUrl(movieRequestDto.getPosterUrl());
+        // Responses hand these out fingerprinted; the edit form may send them back that way
+        movie.setThumbnailUrl(StaticAssetUrls.canonical(movieRequestDto.getThumbnailUrl()));
+        movie.setPosterUrl(StaticAssetUrls.canonical(movieRequestDto.getPosterUrl()));
         movie.setGenre(movieRequestDto.getGenre());
         movie.setImdbRating(
                 movieRequestDto.getImdbRating() != null ? BigDecimal.valueOf(movieRequestDto.getImdbRating()) : null);
+        mediaMetadataService.applyDuration(movie);
 
         Movie updatedMovie = movieRepository.save(movie);
+        contentStoreService.updateReferences(previousUrls, storedUrls(updatedMovie));
+        videoMetadataCache.invalidate(id);
+        transcodingService.linkRenditions(updatedMovie);
         return convertToMovieResponseDto(updatedMovie);
     }
 
@@ -68,7 +101,16 @@ public class MovieServiceImpl implements MovieService {
         Movie movie = movieRepository.findById(id)
                 .orElseThrow(() -> new NotFoundException("Movie not found"));
         movieRepository.delete(movie);
+        contentStoreService.updateReferences(storedUrls(movie), List.of());
+        videoMetadataCache.invalidate(id);
+
+    }
 
+    // URL fields that may point at uploaded content and so count as references to it
+    private static List<String> storedUrls(Movie movie) {
+        return Stream.of(movie.getVideoUrl(), movie.getThumbnailUrl(), movie.getPosterUrl())
+                .filter(Objects::nonNull)
+                .toList();
     }
 
     @Override
@@ -173,8 +215,8 @@ public class MovieServiceImpl implements MovieService {
         dto.setReleaseYear(movie.getReleaseYear());
         dto.setDuration(formatDuration(movie.getDuration()));
         dto.setVideoUrl(movie.getVideoUrl());
-        dto.setThumbnailUrl(movie.getThumbnailUrl());
-        dto.setPosterUrl(movie.getPosterUrl());
+        dto.setThumbnailUrl(staticAssetUrls.fingerprint(movie.getThumbnailUrl()));
+        dto.setPosterUrl(staticAssetUrls.fingerprint(movie.getPosterUrl()));
         dto.setTrailerUrl(movie.getTrailerUrl());
         dto.setGenre(movie.getGenre() != null ? movie.getGenre().toString() : null);
         dto.setImdbRating(
@@ -0,0 +1,136 @@
+package dev.gihan.movieapi.service.impl;
+
+import dev.gihan.movieapi.dto.responseDto.SeekOffsetDto;
+import dev.gihan.movieapi.exception.ResourceNotFoundException;
+import dev.gihan.movieapi.media.mp4.SeekIndex;
+import dev.gihan.movieapi.model.Movie;
+import dev.gihan.movieapi.model.option.MediaJobType;
+import dev.gihan.movieapi.service.MediaJobService;
+import dev.gihan.movieapi.service.SeekIndexService;
+import dev.gihan.movieapi.storage.MediaStorage;
+import dev.gihan.movieapi.streaming.VideoFileNames;
+import dev.gihan.movieapi.streaming.VideoMetadataCache;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Indexes are stored in the media storage as {@code seek-index/<video>.seek}, stamped with the size and
+ * mtime the storage reports for the video, so every node can use an index built on any of them. They
+ * are built by SEEK_INDEX media jobs, never in a seek request.
+ */
+@Service
+public class SeekIndexServiceImpl implements SeekIndexService {
+
+    private static final Logger logger = LoggerFactory.getLogger(SeekIndexServiceImpl.class);
+
+    private static final String KEY_PREFIX = "seek-index/";
+
+    // Types whose moov box we can index
+    private static final Set<String> INDEXED_TYPES = Set.of("video/mp4", "video/quicktime");
+
+    @Autowired
+    private VideoMetadataCache videoMetadataCache;
+
+    @Autowired
+    private MediaStorage mediaStorage;
+
+    @Autowired
+    private MediaJobService mediaJobService;
+
+    @Value("${app.video.seek-index.enabled:true}")
+    private boolean enabled = true;
+
+    @Override
+    public void buildIndex(String videoFileName) throws IOException {
+        if (!enabled) {
+            return;
+        }
+        String name = VideoFileNames.sanitize(videoFileName);
+        String key = VideoFileNames.storageKey(name);
+        MediaStorage.ObjectInfo source = mediaStorage.stat(key).orElseThrow(() -> new NoSuchFileException(key));
+        SeekIndex index = SeekIndex.fromMp4(mediaStorage.localCopy(key), source.lastModified());
+        if (index == null) {
+            // Stored anyway, so seeks stop queueing rebuilds for a file we cannot index
+            logger.debug("No seekable MP4 video track in {}", name);
+            index = SeekIndex.empty(source.size(), source.lastModified());
+        }
+        Path directory = Files.createDirectories(mediaStorage.localDirectory(KEY_PREFIX));
+        Path scratch = directory.resolve(name + ".seek.tmp-" + UUID.randomUUID());
+        try {
+            index.write(scratch);
+            mediaStorage.store(indexKeyFor(name), scratch);
+        } finally {
+            Files.deleteIfExists(scratch);
+        }
+        logger.debug("Indexed {} keyframes of {}", index.size(), name);
+    }
+
+    /**
+     * The byte offset of the last keyframe at or before {@code seconds}. Where the index is missing or
+     * stale (uploaded before indexing, or replaced) a rebuild is queued and the offset is estimated
+     * from the average bitrate meanwhile, as it always is for videos that cannot be indexed.
+     */
+    @Override
+    public SeekOffsetDto findOffset(Movie movie, double seconds) throws IOException {
+        if (!(seconds >= 0)) {
+            throw new IllegalArgumentException("Seek time must be a non-negative number of seconds");
+        }
+        VideoMetadataCache.Entry video = videoMetadataCache.get(movie.getId(), movie.getVideoUrl())
+                .orElseThrow(() -> new ResourceNotFoundException("Video file not found for movie: " + movie.getTitle()));
+
+        SeekIndex index = enabled ? loadIndex(video) : null;
+        SeekIndex.Entry keyframe = index != null ? index.floor((long) (seconds * 1000)) : null;
+        if (keyframe != null) {
+            return new SeekOffsetDto(movie.getId(), seconds, keyframe.timeMillis() / 1000.0,
+                    keyframe.byteOffset(), true);
+        }
+
+        Duration duration = movie.getDuration();
+        long offset = 0;
+        if (duration != null && duration.toMillis() > 0 && video.size() > 0) {
+            double fraction = Math.min(1.0, seconds * 1000 / duration.toMillis());
+            offset = Math.min(video.size() - 1, (long) (video.size() * fraction));
+        }
+        return new SeekOffsetDto(movie.getId(), seconds, seconds, offset, false);
+    }
+
+    private SeekIndex loadIndex(VideoMetadataCache.Entry video) throws IOException {
+        if (!INDEXED_TYPES.contains(video.mediaType().toString())) {
+            return null;
+        }
+        String name = video.key().substring(video.key().lastIndexOf('/') + 1);
+        String indexKey = indexKeyFor(name);
+        Optional<MediaStorage.ObjectInfo> source = mediaStorage.stat(video.key());
+        if (source.isEmpty()) {
+            return null;
+        }
+        try {
+            SeekIndex index = SeekIndex.read(mediaStorage.read(indexKey), indexKey);
+            if (index.matches(source.get().size(), source.get().lastModified())) {
+                return index;
+            }
+        } catch (NoSuchFileException e) {
+            // Not indexed yet
+        } catch (IOException e) {
+            logger.warn("Unreadable seek index {}, rebuilding", indexKey, e);
+        }
+        mediaJobService.enqueueOnDemand(MediaJobType.SEEK_INDEX, name);
+        return null;
+    }
+
+    private static String indexKeyFor(String videoFileName) {
+        return KEY_PREFIX + VideoFileNames.sanitize(videoFileName) + ".seek";
+    }
+}
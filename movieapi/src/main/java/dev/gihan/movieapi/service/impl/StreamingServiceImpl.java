@@ -1,26 +1,53 @@
 package dev.gihan.movieapi.service.impl;
 
 import dev.gihan.movieapi.dto.requestDto.VideoProgressDto;
+import dev.gihan.movieapi.dto.responseDto.ActiveStreamsDto;
 import dev.gihan.movieapi.exception.NotFoundException;
 import dev.gihan.movieapi.model.Movie;
-import dev.gihan.movieapi.model.StreamingSession;
 import dev.gihan.movieapi.model.User;
 import dev.gihan.movieapi.repository.MovieRepository;
 import dev.gihan.movieapi.repository.StreamingSessionRepository;
 import dev.gihan.movieapi.service.StreamingService;
+import dev.gihan.movieapi.service.ViewCountService;
 import dev.gihan.movieapi.service.WatchHistoryService;
+import dev.gihan.movieapi.streaming.HotChunkCache;
+import dev.gihan.movieapi.streaming.StreamingSessionRegistry;
 import jakarta.servlet.http.HttpServletRequest;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.ContextClosedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
-import java.time.LocalDateTime;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
 
 @Service
 @Transactional
 public class StreamingServiceImpl implements StreamingService {
 
+    private static final Logger logger = LoggerFactory.getLogger(StreamingServiceImpl.class);
+
+    private static final String INSERT_SESSION_SQL = "INSERT INTO streaming_sessions "
+            + "(session_id, user_id, movie_id, ip_address, user_agent, start_time, completed) "
+            + "VALUES (?, ?, ?, ?, ?, ?, false)";
+
+    private static final String END_SESSION_SQL = "UPDATE streaming_sessions "
+            + "SET end_time = ?, duration_watched = ?, completed = ? WHERE session_id = ?";
+
     @Autowired
     private StreamingSessionRepository sessionRepository;
 
@@ -30,40 +57,44 @@ public class StreamingServiceImpl implements StreamingService {
     @Autowired
     private WatchHistoryService watchHistoryService;
 
+    @Autowired
+    private StreamingSessionRegistry sessionRegistry;
+
+    @Autowired
+    private ViewCountService viewCountService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private HotChunkCache hotChunkCache;
+
+    @Value("${app.streaming.hot-cache.max-movies:20}")
+    private int maxHotMovies;
+
+    @Value("${app.streaming.flush-batch-size:500}")
+    private int flushBatchSize;
+
     @Override
-    public StreamingSession startStreamingSession(String sessionId, User user, Movie movie, HttpServletRequest request) {
-        StreamingSession session = new StreamingSession();
-        session.setSessionId(sessionId);
-        session.setUser(user);
-        session.setMovie(movie);
-        session.setIpAddress(getClientIpAddress(request));
-        session.setUserAgent(request.getHeader("User-Agent"));
-        session.setStartTime(LocalDateTime.now());
-
-        // Increment view count
-        movie.setViewCount(movie.getViewCount() + 1);
-        movieRepository.save(movie);
-
-        return sessionRepository.save(session);
+    public String startStreamingSession(User user, Movie movie, HttpServletRequest request) {
+        // Range requests of an ongoing session only touch memory; the insert is written by the next flush
+        StreamingSessionRegistry.Touch touch = sessionRegistry.touch(user != null ? user.getId() : null,
+                movie.getId(), movie.getDuration() != null ? movie.getDuration().getSeconds() : 0,
+                getClientIpAddress(request), request.getHeader("User-Agent"));
+        if (touch.opened()) {
+            viewCountService.recordView(movie.getId());
+        }
+        return touch.sessionId();
     }
 
     @Override
-    public void endStreamingSession(String sessionId, Integer durationWatched) {
-        StreamingSession session = sessionRepository.findBySessionId(sessionId);
-        if (session != null) {
-            session.setEndTime(LocalDateTime.now());
-            session.setDurationWatched(durationWatched);
-
-            // Mark as completed if watched > 90% of the movie
-            if (durationWatched != null && session.getMovie().getDuration() != null) {
-                long movieDurationSeconds = session.getMovie().getDuration().getSeconds();
-                if (durationWatched >= movieDurationSeconds * 0.9) {
-                    session.setCompleted(true);
-                }
-            }
+    public boolean heartbeat(String sessionId, Integer position) {
+        return sessionRegistry.heartbeat(sessionId, position);
+    }
 
-            sessionRepository.save(session);
-        }
+    @Override
+    public boolean endStreamingSession(String sessionId, Integer durationWatched) {
+        return sessionRegistry.end(sessionId, durationWatched);
     }
 
     @Override
@@ -96,9 +127,8 @@ public class StreamingServiceImpl implements StreamingService {
     }
 
     @Override
-    public List<StreamingSession> getActiveStreams() {
-        LocalDateTime oneHourAgo = LocalDateTime.now().minusHours(1);
-        return sessionRepository.findActiveStreams(oneHourAgo);
+    public ActiveStreamsDto getActiveStreams() {
+        return new ActiveStreamsDto(sessionRegistry.activeSessionCount(), sessionRegistry.activeSessionsByMovie());
     }
 
     @Override
@@ -106,6 +136,102 @@ public class StreamingServiceImpl implements StreamingService {
         return sessionRepository.countByMovieId(movieId);
     }
 
+    @Override
+    @Scheduled(fixedDelayString = "${app.streaming.flush-interval-ms:5000}")
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public void flushPendingWrites() {
+        List<StreamingSessionRegistry.PendingSession> batch;
+        while (!(batch = sessionRegistry.drainSessions(flushBatchSize)).isEmpty()) {
+            try {
+                insertSessions(batch);
+            } catch (DataAccessException e) {
+                logger.warn("Could not write {} streaming sessions, retrying on next flush", batch.size(), e);
+                sessionRegistry.requeueSessions(batch);
+                // Ends must not overtake the inserts of their sessions
+                return;
+            }
+        }
+
+        List<StreamingSessionRegistry.PendingEnd> ends;
+        while (!(ends = sessionRegistry.drainEnds(flushBatchSize)).isEmpty()) {
+            try {
+                jdbcTemplate.batchUpdate(END_SESSION_SQL, ends, ends.size(), (ps, end) -> {
+                    ps.setTimestamp(1, Timestamp.valueOf(end.endTime()));
+                    ps.setObject(2, end.durationWatched());
+                    ps.setBoolean(3, end.completed());
+                    ps.setString(4, end.sessionId());
+                });
+            } catch (DataAccessException e) {
+                logger.warn("Could not close {} streaming sessions, retrying on next flush", ends.size(), e);
+                sessionRegistry.requeueEnds(ends);
+                return;
+            }
+        }
+    }
+
+    /**
+     * Closes sessions that stopped sending range requests and heartbeats; their end rows go out
+     * with the next flush.
+     */
+    @Override
+    @Scheduled(fixedDelayString = "${app.streaming.sweep-interval-ms:30000}")
+    public int sweepIdleSessions() {
+        int closed = sessionRegistry.evictIdle();
+        if (closed > 0) {
+            logger.debug("Closed {} idle streaming sessions", closed);
+        }
+        return closed;
+    }
+
+    /**
+     * Marks the movies with the most live sessions as hot, so their chunks are admitted to the
+     * hot chunk cache. Live sessions track what is popular right now, unlike the all-time view count.
+     */
+    @Override
+    @Scheduled(fixedDelayString = "${app.streaming.hot-cache.refresh-interval-ms:30000}")
+    public void refreshHotMovies() {
+        if (!hotChunkCache.isEnabled()) {
+            return;
+        }
+        Set<Long> hot = sessionRegistry.activeSessionsByMovie().entrySet().stream()
+                .sorted(Map.Entry.<Long, Integer>comparingByValue().reversed())
+                .limit(maxHotMovies)
+                .map(Map.Entry::getKey)
+                .collect(Collectors.toSet());
+        hotChunkCache.setHotMovies(hot);
+    }
+
+    @EventListener(ContextClosedEvent.class)
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public void flushOnShutdown() {
+        sessionRegistry.endAll();
+        flushPendingWrites();
+    }
+
+    private void insertSessions(List<StreamingSessionRegistry.PendingSession> batch) {
+        try {
+            jdbcTemplate.batchUpdate(INSERT_SESSION_SQL, batch, batch.size(), this::bindSession);
+        } catch (DataIntegrityViolationException e) {
+            // A movie or user deleted since the session started fails the whole batch; keep the rest
+            for (StreamingSessionRegistry.PendingSession session : batch) {
+                try {
+                    jdbcTemplate.update(INSERT_SESSION_SQL, ps -> bindSession(ps, session));
+                } catch (DataIntegrityViolationException rowError) {
+                    logger.debug("Dropping streaming session {}: {}", session.sessionId(), rowError.getMessage());
+                }
+            }
+        }
+    }
+
+    private void bindSession(PreparedStatement ps, StreamingSessionRegistry.PendingSession session) throws SQLException {
+        ps.setString(1, session.sessionId());
+        ps.setObject(2, session.userId());
+        ps.setLong(3, session.movieId());
+        ps.setString(4, session.ipAddress());
+        ps.setString(5, session.userAgent());
+        ps.setTimestamp(6, Timestamp.valueOf(session.startTime()));
+    }
+
     private String getClientIpAddress(HttpServletRequest request) {
         String xForwardedFor = request.getHeader("X-Forwarded-For");
         if (xForwardedFor != null && !xForwardedFor.isEmpty()) {
@@ -0,0 +1,125 @@
+package dev.gihan.movieapi.service.impl;
+
+import dev.gihan.movieapi.media.thumbnail.FrameExtractor;
+import dev.gihan.movieapi.media.thumbnail.SpriteSheetWriter;
+import dev.gihan.movieapi.model.option.MediaJobType;
+import dev.gihan.movieapi.service.MediaJobService;
+import dev.gihan.movieapi.service.ThumbnailService;
+import dev.gihan.movieapi.storage.GeneratedOutputs;
+import dev.gihan.movieapi.storage.MediaStorage;
+import dev.gihan.movieapi.streaming.VideoFileNames;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.util.FileSystemUtils;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.UUID;
+import java.util.regex.Pattern;
+
+/**
+ * Tracks and sprite sheets are stored in the media storage as {@code thumbnails/<video>/<file>}, so
+ * they are served by every node whichever one generated them.
+ */
+@Service
+public class ThumbnailServiceImpl implements ThumbnailService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ThumbnailServiceImpl.class);
+
+    private static final String KEY_PREFIX = "thumbnails/";
+
+    // Only the track and sheets we write may be served
+    private static final Pattern THUMBNAIL_FILE_NAME = Pattern.compile("thumbnails\\.vtt|sprite_\\d{3}\\.jpg");
+
+    @Autowired
+    private FrameExtractor frameExtractor;
+
+    @Autowired
+    private MediaStorage mediaStorage;
+
+    @Autowired
+    private MediaJobService mediaJobService;
+
+    @Value("${app.thumbnails.enabled:true}")
+    private boolean enabled;
+
+    @Value("${app.thumbnails.interval-seconds:10}")
+    private int intervalSeconds;
+
+    @Value("${app.thumbnails.width:160}")
+    private int width;
+
+    @Value("${app.thumbnails.height:90}")
+    private int height;
+
+    @Value("${app.thumbnails.columns:10}")
+    private int columns;
+
+    @Value("${app.thumbnails.rows:10}")
+    private int rows;
+
+    /** Queues a thumbnail job for a video that has no track yet, e.g. one uploaded before thumbnails existed. */
+    @Override
+    public void scheduleGeneration(String videoFileName) throws IOException {
+        if (!enabled || isGenerated(videoFileName)) {
+            return;
+        }
+        mediaJobService.enqueueOnDemand(MediaJobType.THUMBNAILS, videoFileName);
+    }
+
+    @Override
+    public void generateThumbnails(String videoFileName) throws IOException {
+        Path source;
+        try {
+            source = mediaStorage.localCopy(VideoFileNames.storageKey(videoFileName));
+        } catch (NoSuchFileException e) {
+            throw new IOException("Source video not found: " + videoFileName, e);
+        }
+
+        // Write into a scratch directory and publish it file by file, so readers never see a half-written track
+        Path scratch = mediaStorage.localDirectory(KEY_PREFIX).resolve(".tmp-" + UUID.randomUUID());
+        Path frames = scratch.resolve("frames");
+        Files.createDirectories(frames);
+        try {
+            long startedAt = System.currentTimeMillis();
+            List<Path> grabs = frameExtractor.extract(source, frames, intervalSeconds, width, height);
+            if (grabs.isEmpty()) {
+                throw new IOException("No frames extracted from " + videoFileName);
+            }
+            int sheets = SpriteSheetWriter.write(grabs, scratch, intervalSeconds, width, height, columns, rows);
+            GeneratedOutputs.publish(mediaStorage, scratch, thumbnailPrefix(videoFileName),
+                    SpriteSheetWriter.TRACK_NAME, THUMBNAIL_FILE_NAME);
+            logger.info("Generated {} thumbnails in {} sprite sheets for {} in {} ms",
+                    grabs.size(), sheets, videoFileName, System.currentTimeMillis() - startedAt);
+        } finally {
+            FileSystemUtils.deleteRecursively(scratch);
+        }
+    }
+
+    @Override
+    public String thumbnailKey(String videoFileName, String fileName) {
+        if (fileName == null || !THUMBNAIL_FILE_NAME.matcher(fileName).matches()) {
+            throw new IllegalArgumentException("Invalid thumbnail file name: " + fileName);
+        }
+        return thumbnailPrefix(videoFileName) + fileName;
+    }
+
+    @Override
+    public boolean isGenerated(String videoFileName) throws IOException {
+        return mediaStorage.stat(thumbnailKey(videoFileName, SpriteSheetWriter.TRACK_NAME)).isPresent();
+    }
+
+    private String thumbnailPrefix(String videoFileName) {
+        String name = Paths.get(videoFileName).getFileName().toString();
+        int dot = name.lastIndexOf('.');
+        String baseName = (dot > 0 ? name.substring(0, dot) : name).replaceAll("[^A-Za-z0-9_-]", "_");
+        return KEY_PREFIX + baseName + "/";
+    }
+}
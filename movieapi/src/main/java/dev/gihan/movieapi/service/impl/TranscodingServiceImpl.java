@@ -0,0 +1,202 @@
+package dev.gihan.movieapi.service.impl;
+
+import dev.gihan.movieapi.media.hls.HlsSegmenter;
+import dev.gihan.movieapi.media.transcode.RenditionProfile;
+import dev.gihan.movieapi.media.transcode.VideoTranscoder;
+import dev.gihan.movieapi.model.MediaMetadata;
+import dev.gihan.movieapi.model.Movie;
+import dev.gihan.movieapi.model.VideoRendition;
+import dev.gihan.movieapi.model.option.MediaJobType;
+import dev.gihan.movieapi.model.option.RenditionStatus;
+import dev.gihan.movieapi.repository.VideoRenditionRepository;
+import dev.gihan.movieapi.service.HlsPackagingService;
+import dev.gihan.movieapi.service.MediaJobService;
+import dev.gihan.movieapi.service.MediaMetadataService;
+import dev.gihan.movieapi.service.TranscodingService;
+import dev.gihan.movieapi.streaming.VideoFileNames;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+@Service
+public class TranscodingServiceImpl implements TranscodingService {
+
+    private static final Logger logger = LoggerFactory.getLogger(TranscodingServiceImpl.class);
+
+    @Autowired
+    private VideoRenditionRepository renditionRepository;
+
+    @Autowired
+    private HlsPackagingService hlsPackagingService;
+
+    @Autowired
+    private VideoTranscoder videoTranscoder;
+
+    @Autowired
+    private MediaMetadataService mediaMetadataService;
+
+    @Autowired
+    private MediaJobService mediaJobService;
+
+    @Value("${app.transcode.enabled:true}")
+    private boolean enabled;
+
+    @Value("${app.transcode.ladder:1080p:1920x1080:5000:192,720p:1280x720:2800:128,480p:854x480:1400:128,360p:640x360:800:96}")
+    private String ladder;
+
+    @Value("${app.hls.segment-seconds:6}")
+    private int segmentSeconds;
+
+    /**
+     * Queues the renditions of the ladder that are not built yet. Ready renditions whose profile is
+     * unchanged are kept, and renditions of rungs no longer in the ladder are removed with their output.
+     */
+    @Override
+    public List<VideoRendition> enqueueLadder(String videoFileName) throws IOException {
+        List<VideoRendition> renditions = new ArrayList<>();
+        if (!enabled) {
+            return renditions;
+        }
+
+        List<RenditionProfile> profiles = fitToSource(RenditionProfile.parseLadder(ladder),
+                mediaMetadataService.getMetadata(videoFileName).orElse(null));
+        Set<String> names = profiles.stream().map(RenditionProfile::name).collect(Collectors.toSet());
+        for (VideoRendition dropped : renditionRepository.findBySourceFileName(videoFileName)) {
+            if (!names.contains(dropped.getName())) {
+                // A queued job for it finds no rendition and does nothing
+                renditionRepository.delete(dropped);
+                hlsPackagingService.deleteRendition(videoFileName, dropped.getName());
+                logger.info("Removed {} rendition of {}, no longer in the ladder", dropped.getName(), videoFileName);
+            }
+        }
+
+        for (RenditionProfile profile : profiles) {
+            VideoRendition rendition = renditionRepository
+                    .findBySourceFileNameAndName(videoFileName, profile.name())
+                    .orElseGet(VideoRendition::new);
+            if (rendition.getStatus() == RenditionStatus.READY && matches(rendition, profile)) {
+                continue;
+            }
+            rendition.setSourceFileName(videoFileName);
+            rendition.setName(profile.name());
+            rendition.setWidth(profile.width());
+            rendition.setHeight(profile.height());
+            rendition.setVideoBitrateKbps(profile.videoBitrateKbps());
+            rendition.setAudioBitrateKbps(profile.audioBitrateKbps());
+            rendition.setStatus(RenditionStatus.PENDING);
+            rendition.setErrorMessage(null);
+            renditions.add(renditionRepository.save(rendition));
+        }
+
+        // Each rung is its own durable job, so rungs spread over nodes and retry independently
+        renditions.forEach(rendition ->
+                mediaJobService.enqueue(MediaJobType.TRANSCODE_RENDITION, rendition.getId().toString()));
+        logger.info("Queued {} renditions for video: {}", renditions.size(), videoFileName);
+        return renditions;
+    }
+
+    private static boolean matches(VideoRendition rendition, RenditionProfile profile) {
+        return rendition.getWidth() == profile.width() && rendition.getHeight() == profile.height()
+                && rendition.getVideoBitrateKbps() == profile.videoBitrateKbps()
+                && rendition.getAudioBitrateKbps() == profile.audioBitrateKbps();
+    }
+
+    /**
+     * Drops rungs taller than the source, which would only upscale it, but keeps the smallest so every
+     * video gets a rendition; video bitrates are capped at the source's own. Unprobed sources get the
+     * whole ladder.
+     */
+    static List<RenditionProfile> fitToSource(List<RenditionProfile> ladder, MediaMetadata source) {
+        if (source == null || ladder.isEmpty()) {
+            return ladder;
+        }
+        RenditionProfile smallest = ladder.stream().min(Comparator.comparingInt(RenditionProfile::height)).get();
+        Integer sourceKbps = source.getVideoBitrateKbps() != null ? source.getVideoBitrateKbps() : source.getBitrateKbps();
+        List<RenditionProfile> fitted = new ArrayList<>();
+        for (RenditionProfile profile : ladder) {
+            if (source.getHeight() != null && profile.height() > source.getHeight() && profile != smallest) {
+                continue;
+            }
+            if (sourceKbps != null && profile.videoBitrateKbps() > sourceKbps) {
+                profile = new RenditionProfile(profile.name(), profile.width(), profile.height(),
+                        sourceKbps, profile.audioBitrateKbps());
+            }
+            fitted.add(profile);
+        }
+        return fitted;
+    }
+
+    /**
+     * Runs as a media job. A failure is recorded on the rendition and rethrown, so the job is
+     * retried with backoff until its attempts run out.
+     */
+    @Override
+    public void transcodeRendition(Long renditionId) throws IOException {
+        VideoRendition rendition = renditionRepository.findById(renditionId).orElse(null);
+        if (rendition == null || rendition.getStatus() == RenditionStatus.READY) {
+            return;
+        }
+
+        rendition.setStatus(RenditionStatus.PROCESSING);
+        rendition = renditionRepository.save(rendition);
+
+        RenditionProfile profile = new RenditionProfile(rendition.getName(), rendition.getWidth(),
+                rendition.getHeight(), rendition.getVideoBitrateKbps(), rendition.getAudioBitrateKbps());
+        try {
+            hlsPackagingService.buildRendition(rendition.getSourceFileName(), rendition.getName(),
+                    (source, outputDirectory) -> videoTranscoder.transcode(source, outputDirectory, profile, segmentSeconds));
+        } catch (IOException | RuntimeException e) {
+            rendition.setStatus(RenditionStatus.FAILED);
+            String message = e.getMessage() != null ? e.getMessage() : e.getClass().getSimpleName();
+            rendition.setErrorMessage(message.length() > 1000 ? message.substring(0, 1000) : message);
+            renditionRepository.save(rendition);
+            throw e;
+        }
+        rendition.setStatus(RenditionStatus.READY);
+        rendition.setErrorMessage(null);
+        renditionRepository.save(rendition);
+    }
+
+    @Override
+    public void linkRenditions(Movie movie) {
+        if (movie.getVideoUrl() != null) {
+            renditionRepository.linkToMovie(movie, VideoFileNames.fromVideoUrl(movie.getVideoUrl()));
+        }
+    }
+
+    @Override
+    public List<VideoRendition> getReadyRenditions(Movie movie) {
+        return renditionRepository.findForMovie(movie.getId(),
+                VideoFileNames.fromVideoUrl(movie.getVideoUrl()), RenditionStatus.READY);
+    }
+
+    @Override
+    public String buildMasterPlaylist(Movie movie) {
+        List<VideoRendition> renditions = getReadyRenditions(movie);
+        if (renditions.isEmpty()) {
+            return null;
+        }
+
+        StringBuilder playlist = new StringBuilder("#EXTM3U\n#EXT-X-VERSION:3\n");
+        for (VideoRendition rendition : renditions) {
+            playlist.append("#EXT-X-STREAM-INF:BANDWIDTH=").append(rendition.getPeakBandwidth())
+                    .append(",AVERAGE-BANDWIDTH=")
+                    .append((rendition.getVideoBitrateKbps() + rendition.getAudioBitrateKbps()) * 1000L)
+                    .append(",RESOLUTION=").append(rendition.getWidth()).append('x').append(rendition.getHeight())
+                    .append(",NAME=\"").append(rendition.getName()).append("\"\n");
+            // Relative to /api/stream/{movieId}/master.m3u8
+            playlist.append("hls/").append(rendition.getName()).append('/')
+                    .append(HlsSegmenter.PLAYLIST_NAME).append('\n');
+        }
+        return playlist.toString();
+    }
+}
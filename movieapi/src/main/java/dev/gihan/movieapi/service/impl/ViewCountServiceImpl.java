@@ -0,0 +1,110 @@
+package dev.gihan.movieapi.service.impl;
+
+import dev.gihan.movieapi.dto.responseDto.ViewCountStatsDto;
+import dev.gihan.movieapi.service.ViewCountService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.event.ContextClosedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counts views in memory and applies them as relative updates, so concurrent viewers never
+ * race on a read-modify-write of the Movie entity and a busy movie costs one UPDATE per flush.
+ */
+@Service
+public class ViewCountServiceImpl implements ViewCountService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ViewCountServiceImpl.class);
+
+    private static final String INCREMENT_SQL = "UPDATE movies SET view_count = view_count + ? WHERE id = ?";
+
+    // One adder per movie ever viewed; they are reset, never removed, so a racing increment is never lost
+    private final Map<Long, LongAdder> pending = new ConcurrentHashMap<>();
+
+    private final AtomicLong flushedViews = new AtomicLong();
+    private final AtomicLong failedFlushes = new AtomicLong();
+    private volatile LocalDateTime lastFlushAt;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Override
+    public void recordView(Long movieId) {
+        pending.computeIfAbsent(movieId, id -> new LongAdder()).increment();
+    }
+
+    /**
+     * Applies all pending deltas in one JDBC batch and one transaction. If the batch fails
+     * nothing is committed, so the deltas are added back for the next flush.
+     */
+    @Override
+    @Scheduled(fixedDelayString = "${app.views.flush-interval-ms:5000}")
+    public synchronized long flush() {
+        List<Object[]> deltas = new ArrayList<>();
+        long total = 0;
+        for (Map.Entry<Long, LongAdder> entry : pending.entrySet()) {
+            long delta = entry.getValue().sumThenReset();
+            if (delta > 0) {
+                deltas.add(new Object[]{delta, entry.getKey()});
+                total += delta;
+            }
+        }
+        if (deltas.isEmpty()) {
+            return 0;
+        }
+
+        try {
+            transactionTemplate.executeWithoutResult(status -> jdbcTemplate.batchUpdate(INCREMENT_SQL, deltas));
+        } catch (DataAccessException e) {
+            failedFlushes.incrementAndGet();
+            logger.warn("Could not apply {} views for {} movies, retrying on next flush", total, deltas.size(), e);
+            for (Object[] delta : deltas) {
+                pending.computeIfAbsent((Long) delta[1], id -> new LongAdder()).add((Long) delta[0]);
+            }
+            return 0;
+        }
+
+        flushedViews.addAndGet(total);
+        lastFlushAt = LocalDateTime.now();
+        return total;
+    }
+
+    @EventListener(ContextClosedEvent.class)
+    public void flushOnShutdown() {
+        long flushed = flush();
+        if (flushed > 0) {
+            logger.info("Flushed {} pending views on shutdown", flushed);
+        }
+    }
+
+    @Override
+    public ViewCountStatsDto getStats() {
+        int movies = 0;
+        long views = 0;
+        for (LongAdder adder : pending.values()) {
+            long delta = adder.sum();
+            if (delta > 0) {
+                movies++;
+                views += delta;
+            }
+        }
+        return new ViewCountStatsDto(movies, views, flushedViews.get(), failedFlushes.get(), lastFlushAt);
+    }
+}
@@ -0,0 +1,69 @@
+package dev.gihan.movieapi.storage;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Reads at most {@code limit} bytes of the underlying stream. Closing it closes the underlying
+ * stream only if {@code closeUnderlying} is set, so one stream can be read in several slices.
+ */
+final class BoundedInputStream extends FilterInputStream {
+
+    private final boolean closeUnderlying;
+    private long remaining;
+
+    BoundedInputStream(InputStream in, long limit, boolean closeUnderlying) {
+        super(in);
+        this.remaining = limit;
+        this.closeUnderlying = closeUnderlying;
+    }
+
+    @Override
+    public int read() throws IOException {
+        if (remaining <= 0) {
+            return -1;
+        }
+        int read = in.read();
+        if (read >= 0) {
+            remaining--;
+        }
+        return read;
+    }
+
+    @Override
+    public int read(byte[] buffer, int offset, int length) throws IOException {
+        if (remaining <= 0) {
+            return -1;
+        }
+        int read = in.read(buffer, offset, (int) Math.min(length, remaining));
+        if (read > 0) {
+            remaining -= read;
+        }
+        return read;
+    }
+
+    @Override
+    public long skip(long n) throws IOException {
+        long skipped = in.skip(Math.min(n, remaining));
+        remaining -= skipped;
+        return skipped;
+    }
+
+    @Override
+    public int available() throws IOException {
+        return (int) Math.min(in.available(), remaining);
+    }
+
+    @Override
+    public boolean markSupported() {
+        return false;
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (closeUnderlying) {
+            in.close();
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package dev.gihan.movieapi.storage;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * Generated output (HLS renditions, thumbnail tracks) stored as media storage objects below a key
+ * prefix, so every node serves what any node generated. The index file (playlist, track) names the
+ * other files: it is stored last, and the old one is read back to find files a new version dropped.
+ */
+public final class GeneratedOutputs {
+
+    private GeneratedOutputs() {
+    }
+
+    /**
+     * Stores the files of {@code scratch} under {@code prefix} one by one, {@code indexName} last, then
+     * deletes the files the previous index named that the new output no longer has. A reader sees either
+     * the old index with its files or the new one. The scratch files are moved away.
+     */
+    public static void publish(MediaStorage storage, Path scratch, String prefix, String indexName,
+                               Pattern fileName) throws IOException {
+        Path index = scratch.resolve(indexName);
+        if (!Files.isRegularFile(index)) {
+            throw new IOException("No " + indexName + " written for " + prefix);
+        }
+        Set<String> previous = referencedFiles(storage, prefix + indexName, fileName);
+        List<Path> files;
+        try (Stream<Path> entries = Files.list(scratch)) {
+            files = entries.filter(file -> !file.equals(index) && Files.isRegularFile(file)).toList();
+        }
+        Set<String> published = new HashSet<>();
+        for (Path file : files) {
+            String name = file.getFileName().toString();
+            storage.store(prefix + name, file);
+            published.add(name);
+        }
+        storage.store(prefix + indexName, index);
+        published.add(indexName);
+
+        previous.removeAll(published);
+        for (String name : previous) {
+            storage.delete(prefix + name);
+        }
+    }
+
+    /** Deletes the index first, so players stop finding the output, then the files it named. */
+    public static void delete(MediaStorage storage, String prefix, String indexName, Pattern fileName)
+            throws IOException {
+        Set<String> files = referencedFiles(storage, prefix + indexName, fileName);
+        storage.delete(prefix + indexName);
+        for (String name : files) {
+            storage.delete(prefix + name);
+        }
+    }
+
+    // Every name in the index matching fileName; empty if there is no index yet
+    private static Set<String> referencedFiles(MediaStorage storage, String indexKey, Pattern fileName)
+            throws IOException {
+        String text;
+        try (InputStream in = storage.read(indexKey)) {
+            text = new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        } catch (NoSuchFileException e) {
+            return new HashSet<>();
+        }
+        Set<String> names = new HashSet<>();
+        Matcher matcher = fileName.matcher(text);
+        while (matcher.find()) {
+            names.add(matcher.group());
+        }
+        return names;
+    }
+}
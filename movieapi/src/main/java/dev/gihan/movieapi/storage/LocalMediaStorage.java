@@ -0,0 +1,126 @@
+package dev.gihan.movieapi.storage;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Objects as files below the upload directory, with "videos/" keys optionally kept in a directory of
+ * their own. The stored file is its own local copy, so media tools and the streaming endpoint read it
+ * in place; several nodes need the directories shared.
+ */
+public class LocalMediaStorage implements MediaStorage {
+
+    private static final String VIDEO_PREFIX = "videos/";
+
+    private final Path root;
+    private final Path videoRoot;
+
+    public LocalMediaStorage(Path root) {
+        this(root, root.resolve(VIDEO_PREFIX));
+    }
+
+    public LocalMediaStorage(Path root, Path videoRoot) {
+        this.root = root.toAbsolutePath().normalize();
+        this.videoRoot = videoRoot.toAbsolutePath().normalize();
+    }
+
+    @Override
+    public Optional<ObjectInfo> stat(String key) throws IOException {
+        try {
+            BasicFileAttributes attributes = Files.readAttributes(resolve(key), BasicFileAttributes.class);
+            if (!attributes.isRegularFile()) {
+                return Optional.empty();
+            }
+            return Optional.of(new ObjectInfo(attributes.size(), attributes.lastModifiedTime().toMillis(), null));
+        } catch (NoSuchFileException e) {
+            return Optional.empty();
+        }
+    }
+
+    @Override
+    public InputStream read(String key) throws IOException {
+        return Files.newInputStream(resolve(key));
+    }
+
+    @Override
+    public InputStream read(String key, long offset, long length) throws IOException {
+        FileChannel channel = FileChannel.open(resolve(key), StandardOpenOption.READ);
+        try {
+            channel.position(offset);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+        return new BoundedInputStream(Channels.newInputStream(channel), length, true);
+    }
+
+    @Override
+    public void write(String key, InputStream content, long length) throws IOException {
+        Path target = resolve(key);
+        Files.createDirectories(target.getParent());
+        // Written aside and moved in, so readers never see a partial object
+        Path scratch = target.resolveSibling(target.getFileName() + ".tmp-" + UUID.randomUUID());
+        try {
+            long written;
+            try (OutputStream out = Files.newOutputStream(scratch, StandardOpenOption.CREATE_NEW)) {
+                written = content.transferTo(out);
+            }
+            if (written != length) {
+                throw new IOException("Expected " + length + " bytes for " + key + " but got " + written);
+            }
+            Files.move(scratch, target, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(scratch);
+        }
+    }
+
+    @Override
+    public void store(String key, Path file) throws IOException {
+        Path target = resolve(key);
+        Files.createDirectories(target.getParent());
+        Files.move(file, target, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    @Override
+    public boolean delete(String key) throws IOException {
+        return Files.deleteIfExists(resolve(key));
+    }
+
+    @Override
+    public Optional<Path> localPath(String key) {
+        Path path = resolve(key);
+        return Files.isRegularFile(path) ? Optional.of(path) : Optional.empty();
+    }
+
+    @Override
+    public Path localCopy(String key) throws IOException {
+        Path path = resolve(key);
+        if (!Files.isRegularFile(path)) {
+            throw new NoSuchFileException(key);
+        }
+        return path;
+    }
+
+    @Override
+    public Path localDirectory(String prefix) {
+        return VIDEO_PREFIX.equals(prefix) ? videoRoot : root.resolve(prefix);
+    }
+
+    private Path resolve(String key) {
+        if (key != null && key.startsWith(VIDEO_PREFIX)) {
+            return StorageKeys.resolve(videoRoot, key.substring(VIDEO_PREFIX.length()));
+        }
+        return StorageKeys.resolve(root, key);
+    }
+}
@@ -0,0 +1,44 @@
+package dev.gihan.movieapi.storage;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Path;
+import java.util.Optional;
+
+/**
+ * Where uploaded originals live, addressed by keys relative to the upload directory such as
+ * {@code videos/<sha256>.mp4} or {@code images/ab/cd/<sha256>.png}. ffmpeg, the MP4 tools and the
+ * image resizer need a file on disk, so every backend can hand out a local copy; remote backends
+ * fetch it into a cache directory first.
+ */
+public interface MediaStorage {
+
+    /** Size and mtime in millis of a stored object; {@code etag} is null where the backend has none. */
+    record ObjectInfo(long size, long lastModified, String etag) {
+    }
+
+    Optional<ObjectInfo> stat(String key) throws IOException;
+
+    /** The whole object; throws {@link java.nio.file.NoSuchFileException} if there is none. */
+    InputStream read(String key) throws IOException;
+
+    /** {@code length} bytes of the object from {@code offset}, fetched as they are read. */
+    InputStream read(String key, long offset, long length) throws IOException;
+
+    /** Stores exactly {@code length} bytes of {@code content} under {@code key}, replacing any object there. */
+    void write(String key, InputStream content, long length) throws IOException;
+
+    /** Publishes {@code file} under {@code key}. The file is moved, so it is gone from its old place. */
+    void store(String key, Path file) throws IOException;
+
+    boolean delete(String key) throws IOException;
+
+    /** The file on this node holding the object, without fetching; empty if there is none yet or it is stale. */
+    Optional<Path> localPath(String key) throws IOException;
+
+    /** A file on this node with the object's bytes, fetched first if needed. */
+    Path localCopy(String key) throws IOException;
+
+    /** The directory on this node holding the local copies of keys starting with {@code prefix}, e.g. "videos/". */
+    Path localDirectory(String prefix);
+}
@@ -0,0 +1,519 @@
+package dev.gihan.movieapi.storage;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.MediaType;
+import org.springframework.http.MediaTypeFactory;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * Objects in an S3-compatible bucket (AWS S3, MinIO, Ceph RGW, or {@link S3StandInServer}), so any
+ * number of nodes share uploads without a shared disk. Range reads go straight to the bucket; media
+ * tools get a copy fetched into the cache directory, which is also where a node's own uploads stay
+ * after they are stored. Each cached copy has the ETag of the object it was taken from recorded under
+ * {@code .etags/}, and is only used while the bucket still reports that ETag, so an object replaced
+ * by another node is fetched again. The least recently used copies are deleted once the cache holds
+ * more than its byte budget. Objects larger than the part size are uploaded in parts.
+ */
+public class S3MediaStorage implements MediaStorage {
+
+    private static final Logger logger = LoggerFactory.getLogger(S3MediaStorage.class);
+
+    // S3 rejects parts below this size, except the last one
+    public static final long MIN_PART_SIZE = 5L * 1024 * 1024;
+
+    private static final Pattern UPLOAD_ID = Pattern.compile("<UploadId>([^<]+)</UploadId>");
+    private static final Pattern ETAG = Pattern.compile("<ETag>([^<]+)</ETag>");
+
+    private final HttpClient client;
+    private final URI endpoint;
+    private final String bucket;
+    private final boolean pathStyle;
+    private final long partSize;
+    private final Path cacheRoot;
+    private final Path etagRoot;
+    private final long cacheMaxBytes;
+    private final S3RequestSigner signer;
+
+    // Sizes of the cached copies by key, least recently used first; guarded by itself
+    private final LinkedHashMap<String, Long> cachedSizes = new LinkedHashMap<>(256, 0.75f, true);
+    private long cachedBytes;
+
+    // Downloads in progress, so concurrent requests for one object fetch it once
+    private final Map<String, CompletableFuture<Path>> fetches = new ConcurrentHashMap<>();
+
+    public S3MediaStorage(URI endpoint, String region, String bucket, String accessKey, String secretKey,
+                          boolean pathStyle, long partSize, Path cacheRoot, long cacheMaxBytes) throws IOException {
+        this.client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(10))
+                .build();
+        this.endpoint = endpoint;
+        this.bucket = bucket;
+        this.pathStyle = pathStyle;
+        this.partSize = partSize;
+        this.cacheRoot = cacheRoot.toAbsolutePath().normalize();
+        this.etagRoot = this.cacheRoot.resolve(".etags");
+        this.cacheMaxBytes = cacheMaxBytes;
+        this.signer = new S3RequestSigner(accessKey, secretKey, region);
+        loadCachedCopies();
+    }
+
+    @Override
+    public Optional<ObjectInfo> stat(String key) throws IOException {
+        HttpResponse<Void> response = send("HEAD", objectUri(key, null), Map.of(),
+                HttpRequest.BodyPublishers.noBody(), HttpResponse.BodyHandlers.discarding());
+        if (response.statusCode() == 404) {
+            return Optional.empty();
+        }
+        if (response.statusCode() != 200) {
+            throw failure("HEAD", key, response.statusCode(), null);
+        }
+        long size = response.headers().firstValueAsLong("Content-Length").orElse(-1);
+        long lastModified = response.headers().firstValue("Last-Modified")
+                .map(S3MediaStorage::parseHttpDate).orElse(0L);
+        return Optional.of(new ObjectInfo(size, lastModified, response.headers().firstValue("ETag").orElse(null)));
+    }
+
+    @Override
+    public InputStream read(String key) throws IOException {
+        return get(key, null, -1);
+    }
+
+    @Override
+    public InputStream read(String key, long offset, long length) throws IOException {
+        if (length <= 0) {
+            return InputStream.nullInputStream();
+        }
+        return get(key, "bytes=" + offset + "-" + (offset + length - 1), offset);
+    }
+
+    private InputStream get(String key, String range, long offset) throws IOException {
+        HttpResponse<InputStream> response = send("GET", objectUri(key, null),
+                range != null ? Map.of("Range", range) : Map.of(),
+                HttpRequest.BodyPublishers.noBody(), HttpResponse.BodyHandlers.ofInputStream());
+        int status = response.statusCode();
+        if (status == 404) {
+            response.body().close();
+            throw new NoSuchFileException(key);
+        }
+        if (status == 206 || (status == 200 && range == null)) {
+            return response.body();
+        }
+        if (status == 200) {
+            // Range ignored: skip to it in the full body
+            InputStream body = response.body();
+            body.skipNBytes(offset);
+            long length = Long.parseLong(range.substring(range.indexOf('-') + 1)) - offset + 1;
+            return new BoundedInputStream(body, length, true);
+        }
+        throw failure("GET", key, status, response.body());
+    }
+
+    @Override
+    public void write(String key, InputStream content, long length) throws IOException {
+        put(key, content, length);
+    }
+
+    // Returns the ETag of the stored object, or null if the backend did not report one
+    private String put(String key, InputStream content, long length) throws IOException {
+        if (length > partSize) {
+            return writeInParts(key, content, length);
+        }
+        HttpResponse<InputStream> response = send("PUT", objectUri(key, null), Map.of("Content-Type", contentType(key)),
+                body(content, length), HttpResponse.BodyHandlers.ofInputStream());
+        if (response.statusCode() != 200) {
+            throw failure("PUT", key, response.statusCode(), response.body());
+        }
+        response.body().close();
+        return response.headers().firstValue("ETag").orElse(null);
+    }
+
+    private String writeInParts(String key, InputStream content, long length) throws IOException {
+        HttpResponse<String> initiated = send("POST", objectUri(key, "uploads"), Map.of("Content-Type", contentType(key)),
+                HttpRequest.BodyPublishers.noBody(), HttpResponse.BodyHandlers.ofString());
+        Matcher id = UPLOAD_ID.matcher(initiated.body());
+        if (initiated.statusCode() != 200 || !id.find()) {
+            throw new IOException("S3 could not start a multipart upload of " + key + " (status "
+                    + initiated.statusCode() + "): " + abbreviate(initiated.body()));
+        }
+        String uploadId = id.group(1);
+        String uploadQuery = "uploadId=" + S3RequestSigner.encode(uploadId, false);
+        try {
+            List<String> etags = new ArrayList<>();
+            for (long sent = 0; sent < length; ) {
+                long size = Math.min(partSize, length - sent);
+                int part = etags.size() + 1;
+                HttpResponse<String> response = send("PUT", objectUri(key, "partNumber=" + part + "&" + uploadQuery),
+                        Map.of(), body(content, size), HttpResponse.BodyHandlers.ofString());
+                Optional<String> etag = response.headers().firstValue("ETag");
+                if (response.statusCode() != 200 || etag.isEmpty()) {
+                    throw new IOException("S3 rejected part " + part + " of " + key + " (status "
+                            + response.statusCode() + "): " + abbreviate(response.body()));
+                }
+                etags.add(etag.get());
+                sent += size;
+            }
+
+            StringBuilder manifest = new StringBuilder("<CompleteMultipartUpload>");
+            for (int i = 0; i < etags.size(); i++) {
+                manifest.append("<Part><PartNumber>").append(i + 1).append("</PartNumber><ETag>")
+                        .append(etags.get(i).replace("&", "&amp;").replace("<", "&lt;")).append("</ETag></Part>");
+            }
+            manifest.append("</CompleteMultipartUpload>");
+            HttpResponse<String> completed = send("POST", objectUri(key, uploadQuery), Map.of("Content-Type", "application/xml"),
+                    HttpRequest.BodyPublishers.ofString(manifest.toString()), HttpResponse.BodyHandlers.ofString());
+            // Completion can fail after a 200 status, with the error in the body
+            if (completed.statusCode() != 200 || completed.body().contains("<Error>")) {
+                throw new IOException("S3 could not complete the upload of " + key + " (status "
+                        + completed.statusCode() + "): " + abbreviate(completed.body()));
+            }
+            logger.debug("Uploaded {} in {} parts", key, etags.size());
+            Matcher etag = ETAG.matcher(completed.body());
+            return etag.find() ? etag.group(1).replace("&quot;", "\"").replace("&amp;", "&") : null;
+        } catch (IOException | RuntimeException e) {
+            try {
+                send("DELETE", objectUri(key, uploadQuery), Map.of(), HttpRequest.BodyPublishers.noBody(),
+                        HttpResponse.BodyHandlers.discarding());
+            } catch (IOException abortFailure) {
+                e.addSuppressed(abortFailure);
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Uploads the file, then keeps it as this node's local copy: the node that received an upload is
+     * usually the one that processes it next.
+     */
+    @Override
+    public void store(String key, Path file) throws IOException {
+        String etag;
+        try (InputStream in = Files.newInputStream(file)) {
+            etag = put(key, in, Files.size(file));
+        }
+        replaceCachedCopy(key, file, etag);
+    }
+
+    @Override
+    public boolean delete(String key) throws IOException {
+        HttpResponse<InputStream> response = send("DELETE", objectUri(key, null), Map.of(),
+                HttpRequest.BodyPublishers.noBody(), HttpResponse.BodyHandlers.ofInputStream());
+        if (response.statusCode() != 204 && response.statusCode() != 200 && response.statusCode() != 404) {
+            throw failure("DELETE", key, response.statusCode(), response.body());
+        }
+        response.body().close();
+        boolean cached;
+        synchronized (cachedSizes) {
+            cached = evict(key);
+        }
+        return response.statusCode() != 404 || cached;
+    }
+
+    /** The cached copy if the bucket still holds the object it was taken from; costs a HEAD request. */
+    @Override
+    public Optional<Path> localPath(String key) throws IOException {
+        Path cached = cachePath(key);
+        if (!Files.isRegularFile(cached)) {
+            return Optional.empty();
+        }
+        Optional<ObjectInfo> info = stat(key);
+        if (info.isEmpty() || !isCurrent(key, cached, info.get())) {
+            return Optional.empty();
+        }
+        touch(key);
+        return Optional.of(cached);
+    }
+
+    @Override
+    public Path localDirectory(String prefix) {
+        return cacheRoot.resolve(prefix);
+    }
+
+    /** The cached copy if it is current, otherwise one downloaded now. */
+    @Override
+    public Path localCopy(String key) throws IOException {
+        CompletableFuture<Path> mine = new CompletableFuture<>();
+        CompletableFuture<Path> running = fetches.putIfAbsent(key, mine);
+        if (running != null) {
+            return await(running);
+        }
+        try {
+            Path cached = fetch(key);
+            mine.complete(cached);
+            return cached;
+        } catch (IOException | RuntimeException e) {
+            mine.completeExceptionally(e);
+            throw e;
+        } finally {
+            fetches.remove(key, mine);
+        }
+    }
+
+    private Path fetch(String key) throws IOException {
+        ObjectInfo info = stat(key).orElseThrow(() -> new NoSuchFileException(key));
+        Path cached = cachePath(key);
+        if (Files.isRegularFile(cached) && isCurrent(key, cached, info)) {
+            touch(key);
+            return cached;
+        }
+        Files.createDirectories(cached.getParent());
+        Path scratch = cached.resolveSibling(cached.getFileName() + ".tmp-" + UUID.randomUUID());
+        try {
+            long startedAt = System.currentTimeMillis();
+            // The ETag comes from the GET itself, in case the object was replaced after the HEAD
+            HttpResponse<InputStream> response = send("GET", objectUri(key, null), Map.of(),
+                    HttpRequest.BodyPublishers.noBody(), HttpResponse.BodyHandlers.ofInputStream());
+            if (response.statusCode() == 404) {
+                response.body().close();
+                throw new NoSuchFileException(key);
+            }
+            if (response.statusCode() != 200) {
+                throw failure("GET", key, response.statusCode(), response.body());
+            }
+            long expected = response.headers().firstValueAsLong("Content-Length").orElse(-1);
+            long copied;
+            try (InputStream in = response.body()) {
+                copied = Files.copy(in, scratch);
+            }
+            if (expected >= 0 && copied != expected) {
+                throw new IOException("Fetched " + copied + " of " + expected + " bytes of " + key);
+            }
+            replaceCachedCopy(key, scratch, response.headers().firstValue("ETag").orElse(null));
+            logger.info("Fetched {} ({} bytes) into the local cache in {} ms", key, copied,
+                    System.currentTimeMillis() - startedAt);
+            return cached;
+        } finally {
+            Files.deleteIfExists(scratch);
+        }
+    }
+
+    private boolean isCurrent(String key, Path cached, ObjectInfo info) throws IOException {
+        String etag = cachedEtag(key);
+        return etag != null && etag.equals(info.etag()) && Files.size(cached) == info.size();
+    }
+
+    /**
+     * Moves {@code file} into the cache as the copy of {@code key}. The old ETag goes first, so a
+     * crash part way leaves a copy without one, which is fetched again rather than trusted.
+     */
+    private void replaceCachedCopy(String key, Path file, String etag) throws IOException {
+        Path cached = cachePath(key);
+        Path sidecar = etagPath(key);
+        Files.deleteIfExists(sidecar);
+        Files.createDirectories(cached.getParent());
+        moveIntoCache(file, cached);
+        cached(key, Files.size(cached));
+        if (etag == null) {
+            return;
+        }
+        Files.createDirectories(sidecar.getParent());
+        Path scratch = sidecar.resolveSibling(sidecar.getFileName() + ".tmp-" + UUID.randomUUID());
+        try {
+            Files.writeString(scratch, etag);
+            Files.move(scratch, sidecar, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } finally {
+            Files.deleteIfExists(scratch);
+        }
+    }
+
+    // Uploads are received outside the cache directory, possibly on another file system
+    private static void moveIntoCache(Path file, Path cached) throws IOException {
+        try {
+            Files.move(file, cached, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException e) {
+            Path scratch = cached.resolveSibling(cached.getFileName() + ".tmp-" + UUID.randomUUID());
+            try {
+                Files.copy(file, scratch);
+                Files.move(scratch, cached, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+                Files.delete(file);
+            } finally {
+                Files.deleteIfExists(scratch);
+            }
+        }
+    }
+
+    /** Indexes the copies left by an earlier run, oldest first, and trims them to the budget. */
+    private void loadCachedCopies() throws IOException {
+        if (!Files.isDirectory(cacheRoot)) {
+            return;
+        }
+        List<Path> files;
+        try (Stream<Path> walk = Files.walk(cacheRoot)) {
+            files = walk.filter(path -> !path.startsWith(etagRoot) && Files.isRegularFile(path)).toList();
+        }
+        List<Map.Entry<String, BasicFileAttributes>> copies = new ArrayList<>();
+        for (Path file : files) {
+            String key = cacheRoot.relativize(file).toString().replace('\\', '/');
+            if (key.contains(".tmp-")) {
+                // Left behind by a fetch or a generating job that never finished
+                Files.deleteIfExists(file);
+                continue;
+            }
+            copies.add(Map.entry(key, Files.readAttributes(file, BasicFileAttributes.class)));
+        }
+        copies.sort(Comparator.comparing(copy -> copy.getValue().lastModifiedTime()));
+        for (Map.Entry<String, BasicFileAttributes> copy : copies) {
+            cached(copy.getKey(), copy.getValue().size());
+        }
+    }
+
+    private void touch(String key) {
+        synchronized (cachedSizes) {
+            cachedSizes.get(key);
+        }
+    }
+
+    /** Records a new copy of {@code key}, then deletes the least recently used others while over budget. */
+    private void cached(String key, long size) {
+        synchronized (cachedSizes) {
+            Long previous = cachedSizes.put(key, size);
+            cachedBytes += size - (previous != null ? previous : 0);
+            List<String> victims = new ArrayList<>();
+            long excess = cachedBytes - cacheMaxBytes;
+            for (Map.Entry<String, Long> copy : cachedSizes.entrySet()) {
+                if (excess <= 0) {
+                    break;
+                }
+                if (!copy.getKey().equals(key)) {
+                    victims.add(copy.getKey());
+                    excess -= copy.getValue();
+                }
+            }
+            for (String victim : victims) {
+                try {
+                    evict(victim);
+                    logger.debug("Evicted {} from the local cache", victim);
+                } catch (IOException e) {
+                    logger.warn("Could not evict {} from the local cache", victim, e);
+                }
+            }
+        }
+    }
+
+    // Deletes the copy of key and its ETag; the caller holds the cachedSizes lock
+    private boolean evict(String key) throws IOException {
+        Long size = cachedSizes.remove(key);
+        if (size != null) {
+            cachedBytes -= size;
+        }
+        Files.deleteIfExists(etagPath(key));
+        return Files.deleteIfExists(cachePath(key));
+    }
+
+    private String cachedEtag(String key) throws IOException {
+        try {
+            return Files.readString(etagPath(key));
+        } catch (NoSuchFileException e) {
+            return null;
+        }
+    }
+
+    private Path etagPath(String key) {
+        return StorageKeys.resolve(etagRoot, key + ".etag");
+    }
+
+    private static Path await(CompletableFuture<Path> running) throws IOException {
+        try {
+            return running.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof IOException io) {
+                throw io;
+            }
+            throw e;
+        }
+    }
+
+    private Path cachePath(String key) {
+        return StorageKeys.resolve(cacheRoot, key);
+    }
+
+    URI objectUri(String key, String query) {
+        // Validates the key like the local backend would
+        StorageKeys.resolve(cacheRoot, key);
+        String authority = pathStyle ? endpoint.getRawAuthority() : bucket + "." + endpoint.getRawAuthority();
+        String path = (pathStyle ? "/" + S3RequestSigner.encode(bucket, false) : "") + "/" + S3RequestSigner.encode(key, true);
+        return URI.create(endpoint.getScheme() + "://" + authority + path + (query != null ? "?" + query : ""));
+    }
+
+    private <T> HttpResponse<T> send(String method, URI uri, Map<String, String> headers,
+                                     HttpRequest.BodyPublisher body, HttpResponse.BodyHandler<T> handler)
+            throws IOException {
+        HttpRequest.Builder request = HttpRequest.newBuilder(uri).method(method, body);
+        headers.forEach(request::header);
+        signer.sign(method, uri, headers, S3RequestSigner.UNSIGNED_PAYLOAD, Instant.now()).forEach(request::header);
+        try {
+            return client.send(request.build(), handler);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted during S3 " + method + " " + uri.getRawPath());
+        }
+    }
+
+    // Streams exactly length bytes of content; content itself stays open for the next part
+    private static HttpRequest.BodyPublisher body(InputStream content, long length) {
+        if (length == 0) {
+            return HttpRequest.BodyPublishers.noBody();
+        }
+        return HttpRequest.BodyPublishers.fromPublisher(
+                HttpRequest.BodyPublishers.ofInputStream(() -> new BoundedInputStream(content, length, false)), length);
+    }
+
+    private static String contentType(String key) {
+        return MediaTypeFactory.getMediaType(key).orElse(MediaType.APPLICATION_OCTET_STREAM).toString();
+    }
+
+    private static IOException failure(String method, String key, int status, InputStream body) throws IOException {
+        String detail = "";
+        if (body != null) {
+            try (body) {
+                detail = ": " + abbreviate(new String(body.readNBytes(1024), StandardCharsets.UTF_8));
+            }
+        }
+        return new IOException("S3 " + method + " of " + key + " failed with status " + status + detail);
+    }
+
+    private static String abbreviate(String text) {
+        return text.length() > 300 ? text.substring(0, 300) + "..." : text;
+    }
+
+    private static long parseHttpDate(String value) {
+        try {
+            return ZonedDateTime.parse(value, DateTimeFormatter.RFC_1123_DATE_TIME).toInstant().toEpochMilli();
+        } catch (DateTimeParseException e) {
+            return 0;
+        }
+    }
+}
@@ -0,0 +1,427 @@
+package dev.gihan.movieapi.storage;
+
+import com.sun.net.httpserver.Headers;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.URLDecoder;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * A single-bucket, S3-compatible object store on the local disk, for development and tests without
+ * a cloud account. It answers the calls {@link S3MediaStorage} makes, path-style only, and checks
+ * their SigV4 signatures, so a client that works against it signs requests the way S3 expects.
+ */
+public class S3StandInServer implements Closeable {
+
+    private static final Logger logger = LoggerFactory.getLogger(S3StandInServer.class);
+
+    private static final Pattern AUTHORIZATION = Pattern.compile(
+            "AWS4-HMAC-SHA256 Credential=([^/]+)/(\\d{8}/[^/]+/s3/aws4_request), ?SignedHeaders=([^,]+), ?Signature=([0-9a-f]{64})");
+    private static final Pattern RANGE = Pattern.compile("bytes=(\\d*)-(\\d*)");
+    private static final Pattern PART = Pattern.compile(
+            "<Part>\\s*<PartNumber>(\\d+)</PartNumber>\\s*<ETag>([^<]*)</ETag>\\s*</Part>");
+    private static final DateTimeFormatter AMZ_DATE =
+            DateTimeFormatter.ofPattern("yyyyMMdd'T'HHmmss'Z'").withZone(ZoneOffset.UTC);
+    // Requests signed further from now than this are rejected, as S3 does
+    private static final Duration MAX_CLOCK_SKEW = Duration.ofMinutes(15);
+
+    private final Path objects;
+    private final Path uploads;
+    private final String bucket;
+    private final String region;
+    private final S3RequestSigner signer;
+    private final HttpServer server;
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+
+    /** Serves {@code bucket} from {@code directory} on the loopback interface; port 0 picks a free one. */
+    public S3StandInServer(Path directory, String bucket, String accessKey, String secretKey, String region, int port)
+            throws IOException {
+        this.objects = directory.toAbsolutePath().normalize().resolve("objects");
+        this.uploads = directory.toAbsolutePath().normalize().resolve("multipart");
+        Files.createDirectories(objects);
+        Files.createDirectories(uploads);
+        this.bucket = bucket;
+        this.region = region;
+        this.signer = new S3RequestSigner(accessKey, secretKey, region);
+        this.server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+        server.setExecutor(executor);
+        server.createContext("/", this::handle);
+        server.start();
+        logger.info("S3 stand-in serving bucket {} from {} at {}", bucket, directory, endpoint());
+    }
+
+    public URI endpoint() {
+        InetSocketAddress address = server.getAddress();
+        return URI.create("http://" + address.getHostString() + ":" + address.getPort());
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            String method = exchange.getRequestMethod();
+            String denied = checkSignature(exchange);
+            if (denied != null) {
+                error(exchange, 403, denied, "The request signature could not be verified");
+                return;
+            }
+            String prefix = "/" + bucket + "/";
+            String path = exchange.getRequestURI().getPath();
+            if (path == null || !path.startsWith(prefix) || path.length() == prefix.length()) {
+                error(exchange, 404, "NoSuchBucket", "Only objects of bucket " + bucket + " are served");
+                return;
+            }
+            String key = path.substring(prefix.length());
+            Path object;
+            try {
+                object = StorageKeys.resolve(objects, key);
+            } catch (IllegalArgumentException e) {
+                error(exchange, 400, "InvalidArgument", e.getMessage());
+                return;
+            }
+            Map<String, String> query = query(exchange.getRequestURI().getRawQuery());
+            String uploadId = query.get("uploadId");
+
+            switch (method) {
+                case "HEAD" -> head(exchange, object);
+                case "GET" -> get(exchange, object);
+                case "PUT" -> {
+                    if (uploadId != null) {
+                        putPart(exchange, uploadId, query.get("partNumber"));
+                    } else {
+                        putObject(exchange, object);
+                    }
+                }
+                case "POST" -> {
+                    if (query.containsKey("uploads")) {
+                        initiate(exchange, key);
+                    } else if (uploadId != null) {
+                        complete(exchange, object, uploadId);
+                    } else {
+                        error(exchange, 400, "InvalidRequest", "Unsupported POST");
+                    }
+                }
+                case "DELETE" -> {
+                    if (uploadId != null) {
+                        deleteTree(uploadDirectory(uploadId));
+                    } else {
+                        Files.deleteIfExists(object);
+                    }
+                    exchange.sendResponseHeaders(204, -1);
+                }
+                default -> error(exchange, 405, "MethodNotAllowed", method + " is not supported");
+            }
+        } catch (IOException | RuntimeException e) {
+            logger.warn("S3 stand-in failed to handle {} {}", exchange.getRequestMethod(), exchange.getRequestURI(), e);
+            throw e;
+        }
+    }
+
+    // The error code if the request is not signed with this server's credentials, otherwise null
+    private String checkSignature(HttpExchange exchange) {
+        Headers headers = exchange.getRequestHeaders();
+        String authorization = headers.getFirst("Authorization");
+        Matcher matcher = authorization != null ? AUTHORIZATION.matcher(authorization) : null;
+        if (matcher == null || !matcher.matches()) {
+            return "AccessDenied";
+        }
+        String scope = matcher.group(2);
+        if (!matcher.group(1).equals(signer.accessKey()) || !scope.split("/")[1].equals(region)) {
+            return "InvalidAccessKeyId";
+        }
+        String amzDate = headers.getFirst("x-amz-date");
+        String payloadHash = headers.getFirst("x-amz-content-sha256");
+        if (amzDate == null || payloadHash == null || !amzDate.startsWith(scope.substring(0, 8))) {
+            return "AccessDenied";
+        }
+        try {
+            Instant signedAt = AMZ_DATE.parse(amzDate, Instant::from);
+            if (Duration.between(signedAt, Instant.now()).abs().compareTo(MAX_CLOCK_SKEW) > 0) {
+                return "RequestTimeTooSkewed";
+            }
+        } catch (DateTimeParseException e) {
+            return "AccessDenied";
+        }
+
+        Map<String, String> signed = new TreeMap<>();
+        for (String name : matcher.group(3).split(";")) {
+            String value = headers.getFirst(name);
+            if (value == null) {
+                return "AccessDenied";
+            }
+            signed.put(name.toLowerCase(Locale.ROOT), value.trim());
+        }
+        if (!signed.containsKey("host")) {
+            return "AccessDenied";
+        }
+        String expected = signer.signature(exchange.getRequestMethod(), exchange.getRequestURI(), signed,
+                payloadHash, amzDate, scope);
+        return MessageDigest.isEqual(expected.getBytes(StandardCharsets.US_ASCII),
+                matcher.group(4).getBytes(StandardCharsets.US_ASCII)) ? null : "SignatureDoesNotMatch";
+    }
+
+    private void head(HttpExchange exchange, Path object) throws IOException {
+        if (!Files.isRegularFile(object)) {
+            exchange.sendResponseHeaders(404, -1);
+            return;
+        }
+        objectHeaders(exchange, object);
+        exchange.getResponseHeaders().set("Content-Length", Long.toString(Files.size(object)));
+        exchange.sendResponseHeaders(200, -1);
+    }
+
+    private void get(HttpExchange exchange, Path object) throws IOException {
+        if (!Files.isRegularFile(object)) {
+            error(exchange, 404, "NoSuchKey", "The specified key does not exist");
+            return;
+        }
+        long size = Files.size(object);
+        long start = 0;
+        long end = size - 1;
+        int status = 200;
+        String range = exchange.getRequestHeaders().getFirst("Range");
+        if (range != null) {
+            Matcher matcher = RANGE.matcher(range);
+            if (matcher.matches() && !(matcher.group(1).isEmpty() && matcher.group(2).isEmpty())) {
+                if (matcher.group(1).isEmpty()) {
+                    start = Math.max(0, size - Long.parseLong(matcher.group(2)));
+                } else {
+                    start = Long.parseLong(matcher.group(1));
+                    if (!matcher.group(2).isEmpty()) {
+                        end = Math.min(end, Long.parseLong(matcher.group(2)));
+                    }
+                }
+                if (start >= size || start > end) {
+                    exchange.getResponseHeaders().set("Content-Range", "bytes */" + size);
+                    error(exchange, 416, "InvalidRange", "The requested range is not satisfiable");
+                    return;
+                }
+                status = 206;
+                exchange.getResponseHeaders().set("Content-Range", "bytes " + start + "-" + end + "/" + size);
+            }
+        }
+        objectHeaders(exchange, object);
+        long length = end - start + 1;
+        exchange.sendResponseHeaders(status, length == 0 ? -1 : length);
+        try (FileChannel channel = FileChannel.open(object, StandardOpenOption.READ);
+             OutputStream out = exchange.getResponseBody()) {
+            channel.transferTo(start, length, Channels.newChannel(out));
+        }
+    }
+
+    private void putObject(HttpExchange exchange, Path object) throws IOException {
+        Files.createDirectories(object.getParent());
+        receive(exchange, object);
+        objectHeaders(exchange, object);
+        exchange.sendResponseHeaders(200, -1);
+    }
+
+    private void initiate(HttpExchange exchange, String key) throws IOException {
+        String uploadId = UUID.randomUUID().toString();
+        Files.createDirectories(uploads.resolve(uploadId));
+        xml(exchange, 200, "<InitiateMultipartUploadResult><Bucket>" + bucket + "</Bucket><Key>" + escape(key)
+                + "</Key><UploadId>" + uploadId + "</UploadId></InitiateMultipartUploadResult>");
+    }
+
+    private void putPart(HttpExchange exchange, String uploadId, String partNumber) throws IOException {
+        Path directory = uploadDirectory(uploadId);
+        if (directory == null || !Files.isDirectory(directory)) {
+            error(exchange, 404, "NoSuchUpload", "The specified upload does not exist");
+            return;
+        }
+        int part;
+        try {
+            part = Integer.parseInt(partNumber);
+        } catch (NumberFormatException e) {
+            part = 0;
+        }
+        if (part < 1 || part > 10_000) {
+            error(exchange, 400, "InvalidArgument", "Part number must be between 1 and 10000");
+            return;
+        }
+        String etag = receive(exchange, directory.resolve(Integer.toString(part)));
+        exchange.getResponseHeaders().set("ETag", etag);
+        exchange.sendResponseHeaders(200, -1);
+    }
+
+    private void complete(HttpExchange exchange, Path object, String uploadId) throws IOException {
+        Path directory = uploadDirectory(uploadId);
+        if (directory == null || !Files.isDirectory(directory)) {
+            error(exchange, 404, "NoSuchUpload", "The specified upload does not exist");
+            return;
+        }
+        String manifest;
+        try (InputStream in = exchange.getRequestBody()) {
+            manifest = new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+        Files.createDirectories(object.getParent());
+        Path scratch = object.resolveSibling(object.getFileName() + ".tmp-" + UUID.randomUUID());
+        try {
+            int expected = 1;
+            try (OutputStream out = Files.newOutputStream(scratch)) {
+                Matcher parts = PART.matcher(manifest);
+                while (parts.find()) {
+                    Path part = directory.resolve(parts.group(1));
+                    if (Integer.parseInt(parts.group(1)) != expected++ || !Files.isRegularFile(part)
+                            || !md5(part).equals(parts.group(2).replace("&quot;", "\""))) {
+                        out.close();
+                        error(exchange, 400, "InvalidPart", "Part " + parts.group(1) + " is missing or its ETag does not match");
+                        return;
+                    }
+                    Files.copy(part, out);
+                }
+            }
+            if (expected == 1) {
+                error(exchange, 400, "MalformedXML", "No parts listed");
+                return;
+            }
+            Files.move(scratch, object, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } finally {
+            Files.deleteIfExists(scratch);
+        }
+        deleteTree(directory);
+        xml(exchange, 200, "<CompleteMultipartUploadResult><Bucket>" + bucket + "</Bucket><ETag>"
+                + escape(etag(object)) + "</ETag></CompleteMultipartUploadResult>");
+    }
+
+    // Writes the request body to target atomically and returns its MD5 ETag
+    private static String receive(HttpExchange exchange, Path target) throws IOException {
+        Path scratch = target.resolveSibling(target.getFileName() + ".tmp-" + UUID.randomUUID());
+        try {
+            MessageDigest md5 = md5Digest();
+            try (InputStream in = new DigestInputStream(exchange.getRequestBody(), md5)) {
+                Files.copy(in, scratch);
+            }
+            Files.move(scratch, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            return "\"" + S3RequestSigner.hex(md5.digest()) + "\"";
+        } finally {
+            Files.deleteIfExists(scratch);
+        }
+    }
+
+    private static void objectHeaders(HttpExchange exchange, Path object) throws IOException {
+        Headers headers = exchange.getResponseHeaders();
+        headers.set("ETag", etag(object));
+        headers.set("Last-Modified", DateTimeFormatter.RFC_1123_DATE_TIME.format(
+                ZonedDateTime.ofInstant(Files.getLastModifiedTime(object).toInstant(), ZoneOffset.UTC)));
+        headers.set("Accept-Ranges", "bytes");
+    }
+
+    // Changes whenever the object is replaced; hashing every object on each HEAD is not worth it here.
+    // Replacements are moved into place, so the file key (inode) tells apart same-size writes within
+    // the filesystem's mtime granularity
+    private static String etag(Path object) throws IOException {
+        BasicFileAttributes attributes = Files.readAttributes(object, BasicFileAttributes.class);
+        Object fileKey = attributes.fileKey();
+        return "\"" + Long.toHexString(attributes.lastModifiedTime().toMillis()) + "-"
+                + Long.toHexString(attributes.size())
+                + (fileKey != null ? "-" + Integer.toHexString(fileKey.hashCode()) : "") + "\"";
+    }
+
+    private Path uploadDirectory(String uploadId) {
+        return uploadId.matches("[0-9a-f-]{36}") ? uploads.resolve(uploadId) : null;
+    }
+
+    private static void deleteTree(Path directory) throws IOException {
+        if (directory == null || !Files.isDirectory(directory)) {
+            return;
+        }
+        try (DirectoryStream<Path> entries = Files.newDirectoryStream(directory)) {
+            for (Path entry : entries) {
+                Files.deleteIfExists(entry);
+            }
+        }
+        Files.deleteIfExists(directory);
+    }
+
+    private static void error(HttpExchange exchange, int status, String code, String message) throws IOException {
+        if ("HEAD".equals(exchange.getRequestMethod())) {
+            exchange.sendResponseHeaders(status, -1);
+            return;
+        }
+        xml(exchange, status, "<Error><Code>" + code + "</Code><Message>" + escape(message) + "</Message></Error>");
+    }
+
+    private static void xml(HttpExchange exchange, int status, String body) throws IOException {
+        byte[] bytes = ("<?xml version=\"1.0\" encoding=\"UTF-8\"?>" + body).getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/xml");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    private static Map<String, String> query(String rawQuery) {
+        Map<String, String> parameters = new HashMap<>();
+        if (rawQuery == null || rawQuery.isEmpty()) {
+            return parameters;
+        }
+        for (String parameter : rawQuery.split("&")) {
+            int equals = parameter.indexOf('=');
+            String name = equals < 0 ? parameter : parameter.substring(0, equals);
+            String value = equals < 0 ? "" : parameter.substring(equals + 1);
+            parameters.put(URLDecoder.decode(name, StandardCharsets.UTF_8), URLDecoder.decode(value, StandardCharsets.UTF_8));
+        }
+        return parameters;
+    }
+
+    private static String md5(Path file) throws IOException {
+        MessageDigest md5 = md5Digest();
+        try (InputStream in = new DigestInputStream(Files.newInputStream(file), md5)) {
+            in.transferTo(OutputStream.nullOutputStream());
+        }
+        return "\"" + S3RequestSigner.hex(md5.digest()) + "\"";
+    }
+
+    private static MessageDigest md5Digest() {
+        try {
+            return MessageDigest.getInstance("MD5");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("MD5 not available", e);
+        }
+    }
+
+    private static String escape(String text) {
+        return text.replace("&", "&amp;").replace("<", "&lt;").replace(">", "&gt;");
+    }
+}
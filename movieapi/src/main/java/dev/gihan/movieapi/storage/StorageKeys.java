@@ -0,0 +1,24 @@
+package dev.gihan.movieapi.storage;
+
+import java.nio.file.Path;
+
+/**
+ * Maps storage keys onto paths below a root directory.
+ */
+final class StorageKeys {
+
+    private StorageKeys() {
+    }
+
+    /** The path of {@code key} below {@code root}; keys that are absolute or climb out are rejected. */
+    static Path resolve(Path root, String key) {
+        if (key == null || key.isBlank() || key.startsWith("/") || key.contains("\\")) {
+            throw new IllegalArgumentException("Invalid storage key: " + key);
+        }
+        Path path = root.resolve(key).normalize();
+        if (!path.startsWith(root) || path.equals(root)) {
+            throw new IllegalArgumentException("Invalid storage key: " + key);
+        }
+        return path;
+    }
+}
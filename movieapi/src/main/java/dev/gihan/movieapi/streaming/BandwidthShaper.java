@@ -0,0 +1,143 @@
+package dev.gihan.movieapi.streaming;
+
+import org.springframework.scheduling.annotation.Scheduled;
+
+import java.io.InterruptedIOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Token-bucket limits on video delivery at three levels: each viewing session gets a multiple of
+ * the movie's average bitrate, each viewer a fixed ceiling across all their sessions, and the node
+ * a global ceiling. Download accelerators opening many connections are held to their user limit
+ * while normal viewers still buffer ahead. A limit of 0 disables that level.
+ */
+public class BandwidthShaper {
+
+    public record Stats(long globalBytesPerSecond, long perUserBytesPerSecond, long shapedBytes,
+                        long throttledBytes, long throttleWaitMillis, int streamsWaiting,
+                        int trackedSessions, int trackedViewers) {
+    }
+
+    private final TokenBucket globalBucket;
+    private final long perUserBytesPerSecond;
+    private final double headroom;
+    private final long minSessionBytesPerSecond;
+    private final int burstSeconds;
+
+    private final Map<String, TokenBucket> sessionBuckets = new ConcurrentHashMap<>();
+    private final Map<String, TokenBucket> viewerBuckets = new ConcurrentHashMap<>();
+
+    private final LongAdder shapedBytes = new LongAdder();
+    private final LongAdder throttledBytes = new LongAdder();
+    private final LongAdder throttleWaitNanos = new LongAdder();
+    private final AtomicInteger streamsWaiting = new AtomicInteger();
+
+    public BandwidthShaper(long globalBytesPerSecond, long perUserBytesPerSecond, double headroom,
+                           long minSessionBytesPerSecond, int burstSeconds) {
+        this.globalBucket = globalBytesPerSecond > 0 ?
+                new TokenBucket(globalBytesPerSecond, globalBytesPerSecond * burstSeconds) : null;
+        this.perUserBytesPerSecond = perUserBytesPerSecond;
+        this.headroom = headroom;
+        this.minSessionBytesPerSecond = minSessionBytesPerSecond;
+        this.burstSeconds = burstSeconds;
+    }
+
+    /**
+     * The throttle for one response of a session, or null when no level applies. The session rate
+     * is the movie's average bitrate (file size / duration) times the headroom factor; it is skipped
+     * when the duration is unknown or headroom is 0.
+     */
+    public Throttle throttleFor(String sessionId, String viewerKey, long fileSize, Duration movieDuration) {
+        List<TokenBucket> buckets = new ArrayList<>(3);
+        long sessionRate = sessionBytesPerSecond(fileSize, movieDuration);
+        if (sessionRate > 0 && sessionId != null) {
+            // The bucket is fixed at the rate of the session's first response; the movie doesn't change mid-session
+            buckets.add(sessionBuckets.computeIfAbsent(sessionId,
+                    id -> new TokenBucket(sessionRate, sessionRate * burstSeconds)));
+        }
+        if (perUserBytesPerSecond > 0 && viewerKey != null) {
+            buckets.add(viewerBuckets.computeIfAbsent(viewerKey,
+                    key -> new TokenBucket(perUserBytesPerSecond, perUserBytesPerSecond * burstSeconds)));
+        }
+        if (globalBucket != null) {
+            buckets.add(globalBucket);
+        }
+        return buckets.isEmpty() ? null : new Throttle(buckets);
+    }
+
+    long sessionBytesPerSecond(long fileSize, Duration movieDuration) {
+        if (headroom <= 0 || movieDuration == null || movieDuration.getSeconds() <= 0) {
+            return 0;
+        }
+        long averageBytesPerSecond = fileSize / movieDuration.getSeconds();
+        return Math.max(minSessionBytesPerSecond, (long) (averageBytesPerSecond * headroom));
+    }
+
+    /** Drops buckets that have refilled completely; recreating them later is indistinguishable. */
+    @Scheduled(fixedDelayString = "${app.streaming.bandwidth.prune-interval-ms:60000}")
+    public void pruneIdleBuckets() {
+        sessionBuckets.values().removeIf(TokenBucket::isFull);
+        viewerBuckets.values().removeIf(TokenBucket::isFull);
+    }
+
+    public Stats getStats() {
+        return new Stats(globalBucket != null ? globalBucket.getBytesPerSecond() : 0, perUserBytesPerSecond,
+                shapedBytes.sum(), throttledBytes.sum(), TimeUnit.NANOSECONDS.toMillis(throttleWaitNanos.sum()),
+                streamsWaiting.get(), sessionBuckets.size(), viewerBuckets.size());
+    }
+
+    /** The buckets that apply to one response. */
+    public final class Throttle {
+
+        private final List<TokenBucket> buckets;
+
+        Throttle(List<TokenBucket> buckets) {
+            this.buckets = buckets;
+        }
+
+        /** Takes {@code bytes} from every bucket if all of them can cover it right now. */
+        public boolean tryAcquire(long bytes) {
+            for (int i = 0; i < buckets.size(); i++) {
+                if (!buckets.get(i).tryTake(bytes)) {
+                    for (int j = 0; j < i; j++) {
+                        buckets.get(j).refund(bytes);
+                    }
+                    return false;
+                }
+            }
+            shapedBytes.add(bytes);
+            return true;
+        }
+
+        /** Takes {@code bytes} from every bucket, sleeping until the slowest one allows them. */
+        public void acquire(long bytes) throws InterruptedIOException {
+            long waitNanos = 0;
+            for (TokenBucket bucket : buckets) {
+                waitNanos = Math.max(waitNanos, bucket.reserve(bytes));
+            }
+            shapedBytes.add(bytes);
+            if (waitNanos <= 0) {
+                return;
+            }
+            throttledBytes.add(bytes);
+            throttleWaitNanos.add(waitNanos);
+            streamsWaiting.incrementAndGet();
+            try {
+                // Requests run on virtual threads, so sleeping parks no platform thread
+                TimeUnit.NANOSECONDS.sleep(waitNanos);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while throttled");
+            } finally {
+                streamsWaiting.decrementAndGet();
+            }
+        }
+    }
+}
@@ -0,0 +1,21 @@
+package dev.gihan.movieapi.streaming;
+
+/**
+ * A satisfiable byte range with inclusive bounds, already resolved against the representation size.
+ */
+public record ByteRange(long start, long end) {
+
+    public ByteRange {
+        if (start < 0 || end < start) {
+            throw new IllegalArgumentException("Invalid byte range: " + start + "-" + end);
+        }
+    }
+
+    public long length() {
+        return end - start + 1;
+    }
+
+    public String toContentRange(long size) {
+        return "bytes " + start + "-" + end + "/" + size;
+    }
+}
@@ -0,0 +1,100 @@
+package dev.gihan.movieapi.streaming;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+
+/**
+ * Evaluates RFC 7232 preconditions (section 6 order) and the RFC 7233 If-Range check against a
+ * file validator.
+ */
+public final class ConditionalRequests {
+
+    private ConditionalRequests() {
+    }
+
+    public enum Outcome {
+        PROCEED,
+        NOT_MODIFIED,
+        PRECONDITION_FAILED
+    }
+
+    public static Outcome evaluate(HttpServletRequest request, FileValidatorCache.Validator validator) {
+        String ifMatch = request.getHeader(HttpHeaders.IF_MATCH);
+        if (ifMatch != null) {
+            if (!matches(ifMatch, validator.etag(), true)) {
+                return Outcome.PRECONDITION_FAILED;
+            }
+        } else {
+            long ifUnmodifiedSince = dateHeader(request, HttpHeaders.IF_UNMODIFIED_SINCE);
+            if (ifUnmodifiedSince >= 0 && validator.lastModifiedSeconds() > ifUnmodifiedSince / 1000) {
+                return Outcome.PRECONDITION_FAILED;
+            }
+        }
+
+        boolean safeMethod = "GET".equals(request.getMethod()) || "HEAD".equals(request.getMethod());
+        String ifNoneMatch = request.getHeader(HttpHeaders.IF_NONE_MATCH);
+        if (ifNoneMatch != null) {
+            if (matches(ifNoneMatch, validator.etag(), false)) {
+                return safeMethod ? Outcome.NOT_MODIFIED : Outcome.PRECONDITION_FAILED;
+            }
+        } else if (safeMethod) {
+            long ifModifiedSince = dateHeader(request, HttpHeaders.IF_MODIFIED_SINCE);
+            if (ifModifiedSince >= 0 && validator.lastModifiedSeconds() <= ifModifiedSince / 1000) {
+                return Outcome.NOT_MODIFIED;
+            }
+        }
+        return Outcome.PROCEED;
+    }
+
+    /**
+     * False when an If-Range validator no longer matches, in which case Range must be ignored
+     * and the full representation sent, so a resumed download never splices two file versions.
+     */
+    public static boolean rangeApplies(HttpServletRequest request, FileValidatorCache.Validator validator) {
+        String ifRange = request.getHeader(HttpHeaders.IF_RANGE);
+        if (ifRange == null) {
+            return true;
+        }
+        ifRange = ifRange.trim();
+        if (ifRange.startsWith("\"") || ifRange.startsWith("W/")) {
+            // Weak tags never satisfy If-Range
+            return !ifRange.startsWith("W/") && ifRange.equals(validator.etag());
+        }
+        long date = dateHeader(request, HttpHeaders.IF_RANGE);
+        return date >= 0 && date / 1000 == validator.lastModifiedSeconds();
+    }
+
+    public static void writeValidators(HttpServletResponse response, FileValidatorCache.Validator validator) {
+        response.setHeader(HttpHeaders.ETAG, validator.etag());
+        response.setDateHeader(HttpHeaders.LAST_MODIFIED, validator.lastModifiedSeconds() * 1000);
+    }
+
+    private static boolean matches(String header, String etag, boolean strong) {
+        if ("*".equals(header.trim())) {
+            return true;
+        }
+        for (String candidate : header.split(",")) {
+            String tag = candidate.trim();
+            if (tag.startsWith("W/")) {
+                if (strong) {
+                    continue;
+                }
+                tag = tag.substring(2);
+            }
+            if (tag.equals(etag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static long dateHeader(HttpServletRequest request, String name) {
+        try {
+            return request.getDateHeader(name);
+        } catch (IllegalArgumentException e) {
+            // Unparseable dates are ignored, as RFC 7232 requires
+            return -1;
+        }
+    }
+}
@@ -0,0 +1,101 @@
+package dev.gihan.movieapi.streaming;
+
+import org.springframework.core.io.Resource;
+import org.springframework.util.DigestUtils;
+import org.springframework.web.servlet.resource.AbstractVersionStrategy;
+import org.springframework.web.servlet.resource.VersionPathStrategy;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Versions static files by the MD5 of their content, as "name-&lt;md5&gt;.ext". Unlike Spring's
+ * content strategy the hash is cached per file while its size and mtime are unchanged, so building
+ * URLs for a page of movies does not re-read every poster, and replacing a file changes its URL.
+ */
+public class ContentFingerprintStrategy extends AbstractVersionStrategy {
+
+    // Only a trailing 32-hex segment counts; upload names are UUIDs, which contain hyphens too
+    private static final Pattern FINGERPRINT = Pattern.compile("-([0-9a-f]{32})(\\.[^./]+)$");
+
+    private record Fingerprint(long size, long lastModified, String version) {
+    }
+
+    private final Map<Path, Fingerprint> cache;
+
+    public ContentFingerprintStrategy(int maxEntries) {
+        super(new FileNameFingerprintPathStrategy());
+        this.cache = Collections.synchronizedMap(new LinkedHashMap<>(256, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Path, Fingerprint> eldest) {
+                return size() > maxEntries;
+            }
+        });
+    }
+
+    @Override
+    public String getResourceVersion(Resource resource) {
+        try {
+            if (!resource.isFile()) {
+                return digest(resource);
+            }
+            Path key = resource.getFile().toPath().toAbsolutePath().normalize();
+            long size = resource.contentLength();
+            long lastModified = resource.lastModified();
+            Fingerprint cached = cache.get(key);
+            if (cached != null && cached.size() == size && cached.lastModified() == lastModified) {
+                return cached.version();
+            }
+            String version = digest(resource);
+            cache.put(key, new Fingerprint(size, lastModified, version));
+            return version;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to fingerprint " + resource, e);
+        }
+    }
+
+    /** {@code path} without a content fingerprint in its file name, if it has one. */
+    public static String stripFingerprint(String path) {
+        if (path == null) {
+            return null;
+        }
+        Matcher matcher = FINGERPRINT.matcher(path);
+        return matcher.find() ? path.substring(0, matcher.start()) + matcher.group(2) : path;
+    }
+
+    private static String digest(Resource resource) throws IOException {
+        try (InputStream in = resource.getInputStream()) {
+            return DigestUtils.md5DigestAsHex(in);
+        }
+    }
+
+    private static final class FileNameFingerprintPathStrategy implements VersionPathStrategy {
+
+        @Override
+        public String extractVersion(String requestPath) {
+            Matcher matcher = FINGERPRINT.matcher(requestPath);
+            return matcher.find() ? matcher.group(1) : null;
+        }
+
+        @Override
+        public String removeVersion(String requestPath, String version) {
+            return stripFingerprint(requestPath);
+        }
+
+        @Override
+        public String addVersion(String requestPath, String version) {
+            int dot = requestPath.lastIndexOf('.');
+            if (dot <= requestPath.lastIndexOf('/')) {
+                return requestPath + "-" + version;
+            }
+            return requestPath.substring(0, dot) + "-" + version + requestPath.substring(dot);
+        }
+    }
+}
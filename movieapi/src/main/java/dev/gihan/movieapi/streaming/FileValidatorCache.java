@@ -0,0 +1,83 @@
+package dev.gihan.movieapi.streaming;
+
+import dev.gihan.movieapi.storage.MediaStorage;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.Resource;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Strong validators (ETag + Last-Modified) for media files, cached per path and reused for as long
+ * as the file's size and mtime are unchanged. Replacing a file always yields a new ETag.
+ */
+@Component
+public class FileValidatorCache {
+
+    public record Validator(long size, long lastModified, String etag) {
+
+        // HTTP dates have second precision
+        public long lastModifiedSeconds() {
+            return lastModified / 1000;
+        }
+    }
+
+    private final Map<Path, Validator> cache;
+
+    public FileValidatorCache(@Value("${app.streaming.validator-cache-size:10000}") int maxEntries) {
+        this.cache = Collections.synchronizedMap(new LinkedHashMap<>(256, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Path, Validator> eldest) {
+                return size() > maxEntries;
+            }
+        });
+    }
+
+    public Validator get(Path file) throws IOException {
+        BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+        return get(file, attributes.size(), attributes.lastModifiedTime().toMillis());
+    }
+
+    public Validator get(Path file, long size, long lastModified) {
+        Path key = file.toAbsolutePath().normalize();
+        Validator cached = cache.get(key);
+        if (cached != null && cached.size() == size && cached.lastModified() == lastModified) {
+            return cached;
+        }
+        Validator validator = new Validator(size, lastModified, computeEtag(key, size, lastModified));
+        cache.put(key, validator);
+        return validator;
+    }
+
+    /** Validators of an object this node has no copy of; the backend's ETag is used when it has one. */
+    public static Validator forStoredObject(MediaStorage.ObjectInfo info) {
+        String etag = info.etag() != null ? info.etag()
+                : "\"" + Long.toHexString(info.lastModified()) + "-" + Long.toHexString(info.size()) + "\"";
+        return new Validator(info.size(), info.lastModified(), etag);
+    }
+
+    /**
+     * ETag generator for Spring's static resource handlers; null leaves the response without an ETag.
+     */
+    public String etagFor(Resource resource) {
+        try {
+            if (!resource.isFile()) {
+                return null;
+            }
+            return get(resource.getFile().toPath()).etag();
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    private static String computeEtag(Path path, long size, long lastModified) {
+        return "\"" + Long.toHexString(lastModified) + "-" + Long.toHexString(size)
+                + "-" + Integer.toHexString(path.hashCode()) + "\"";
+    }
+}
@@ -0,0 +1,252 @@
+package dev.gihan.movieapi.streaming;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Off-heap cache of fixed-size chunks of the trending movies' video files. Chunks live in direct
+ * buffers from a pool capped by the memory budget; when the pool is exhausted the least recently
+ * used chunk is evicted. Only movies in the hot set are admitted, so a crawl through the back
+ * catalogue cannot flush the titles most viewers are watching.
+ * <p>
+ * Chunks are keyed by path, size and mtime, so a replaced file never serves stale bytes. A chunk
+ * being written to a client is reference counted and its buffer is only reused once released.
+ * When every buffer is held by a reader, the chunk is sent straight from the file instead.
+ */
+public class HotChunkCache {
+
+    public record Stats(long hits, long misses, double hitRatio, int cachedChunks, long cachedBytes,
+                        long budgetBytes, int chunkSize, int hotMovies) {
+    }
+
+    /** A file whose chunks may be served from the cache. */
+    public record CachedFile(Path path, long size, long lastModified) {
+    }
+
+    private record ChunkKey(CachedFile file, long index) {
+    }
+
+    private static final class Chunk {
+        final ByteBuffer buffer;
+        // One reference per reader, plus one while the chunk is in the map
+        final AtomicInteger refs = new AtomicInteger(1);
+
+        Chunk(ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        boolean retain() {
+            int current;
+            do {
+                current = refs.get();
+                if (current <= 0) {
+                    return false;
+                }
+            } while (!refs.compareAndSet(current, current + 1));
+            return true;
+        }
+    }
+
+    private final int chunkSize;
+    private final int maxChunks;
+    // Access-ordered, so eviction starts from the least recently used end; guarded by itself
+    private final LinkedHashMap<ChunkKey, Chunk> chunks = new LinkedHashMap<>(16, 0.75f, true);
+    private final ArrayDeque<ByteBuffer> freeBuffers = new ArrayDeque<>();
+    private int allocatedBuffers;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private volatile Set<Long> hotMovies = Set.of();
+
+    public HotChunkCache(int chunkSize, long budgetBytes) {
+        this.chunkSize = chunkSize;
+        this.maxChunks = chunkSize > 0 ? (int) Math.min(Integer.MAX_VALUE, budgetBytes / chunkSize) : 0;
+    }
+
+    public boolean isEnabled() {
+        return maxChunks > 0;
+    }
+
+    /** Replaces the movies whose files may be cached; chunks of movies that drop out age out. */
+    public void setHotMovies(Set<Long> movieIds) {
+        hotMovies = Set.copyOf(movieIds);
+    }
+
+    /** The cacheable view of a movie's file, or null if the movie is not hot or caching is off. */
+    public CachedFile lookup(Long movieId, Path file, FileValidatorCache.Validator validator) {
+        if (!isEnabled() || !hotMovies.contains(movieId)) {
+            return null;
+        }
+        return new CachedFile(file, validator.size(), validator.lastModified());
+    }
+
+    /**
+     * Writes {@code length} bytes of {@code file} from {@code start} to {@code target}, reading
+     * missing chunks from disk. {@code throttle} may be null.
+     */
+    public void write(CachedFile file, long start, long length, WritableByteChannel target,
+                      BandwidthShaper.Throttle throttle) throws IOException {
+        long end = start + length;
+        if (start < 0 || end > file.size()) {
+            throw new IOException("Region " + start + "-" + end + " is outside " + file.path());
+        }
+        FileChannel channel = null;
+        try {
+            long position = start;
+            while (position < end) {
+                long index = position / chunkSize;
+                int offset = (int) (position - index * chunkSize);
+                int count = (int) Math.min(chunkSize - offset, end - position);
+                // Wait for the throttle before pinning a buffer, so paced viewers do not hold the pool
+                if (throttle != null) {
+                    throttle.acquire(count);
+                }
+                ChunkKey key = new ChunkKey(file, index);
+                Chunk chunk = cached(key);
+                if (chunk == null) {
+                    if (channel == null) {
+                        channel = FileChannel.open(file.path(), StandardOpenOption.READ);
+                    }
+                    chunk = load(key, channel);
+                }
+                if (chunk == null) {
+                    VideoRegionWriter.transfer(channel, position, count, target);
+                    position += count;
+                    continue;
+                }
+                try {
+                    ByteBuffer region = chunk.buffer.duplicate();
+                    region.limit(offset + count).position(offset);
+                    while (region.hasRemaining()) {
+                        target.write(region);
+                    }
+                    position += count;
+                } finally {
+                    release(chunk);
+                }
+            }
+        } finally {
+            if (channel != null) {
+                channel.close();
+            }
+        }
+    }
+
+    public Stats getStats() {
+        long hitCount = hits.sum();
+        long missCount = misses.sum();
+        long lookups = hitCount + missCount;
+        int cached;
+        synchronized (chunks) {
+            cached = chunks.size();
+        }
+        return new Stats(hitCount, missCount, lookups == 0 ? 0 : (double) hitCount / lookups, cached,
+                (long) cached * chunkSize, (long) maxChunks * chunkSize, chunkSize, hotMovies.size());
+    }
+
+    private Chunk cached(ChunkKey key) {
+        Chunk chunk;
+        synchronized (chunks) {
+            chunk = chunks.get(key);
+        }
+        if (chunk == null || !chunk.retain()) {
+            return null;
+        }
+        hits.increment();
+        return chunk;
+    }
+
+    /** Reads the chunk into a pooled buffer and caches it; null when no buffer is free. */
+    private Chunk load(ChunkKey key, FileChannel channel) throws IOException {
+        misses.increment();
+        ByteBuffer buffer = takeBuffer();
+        if (buffer == null) {
+            return null;
+        }
+
+        long chunkStart = key.index() * chunkSize;
+        int length = (int) Math.min(chunkSize, key.file().size() - chunkStart);
+        buffer.clear().limit(length);
+        try {
+            while (buffer.hasRemaining()) {
+                if (channel.read(buffer, chunkStart + buffer.position()) < 0) {
+                    throw new IOException("File truncated while caching " + key.file().path());
+                }
+            }
+        } catch (IOException e) {
+            returnBuffer(buffer);
+            throw e;
+        }
+        buffer.flip();
+
+        Chunk loaded = new Chunk(buffer);
+        synchronized (chunks) {
+            if (chunks.putIfAbsent(key, loaded) == null) {
+                loaded.refs.incrementAndGet();
+            }
+        }
+        // If another reader cached the chunk first, ours stays private and its buffer returns after use
+        return loaded;
+    }
+
+    /** A pooled buffer, evicting as needed; null when every cached chunk is in use. */
+    private ByteBuffer takeBuffer() {
+        while (true) {
+            synchronized (freeBuffers) {
+                ByteBuffer free = freeBuffers.poll();
+                if (free != null) {
+                    return free;
+                }
+                if (allocatedBuffers < maxChunks) {
+                    allocatedBuffers++;
+                    return ByteBuffer.allocateDirect(chunkSize);
+                }
+            }
+            if (!evictLeastRecentlyUsed()) {
+                return null;
+            }
+        }
+    }
+
+    /** Evicts the least recently used chunk that no reader holds; false if there is none. */
+    private boolean evictLeastRecentlyUsed() {
+        Chunk evicted = null;
+        synchronized (chunks) {
+            Iterator<Chunk> iterator = chunks.values().iterator();
+            while (iterator.hasNext()) {
+                Chunk chunk = iterator.next();
+                if (chunk.refs.get() == 1) {
+                    iterator.remove();
+                    evicted = chunk;
+                    break;
+                }
+            }
+        }
+        if (evicted == null) {
+            return false;
+        }
+        release(evicted);
+        return true;
+    }
+
+    private void release(Chunk chunk) {
+        if (chunk.refs.decrementAndGet() == 0) {
+            returnBuffer(chunk.buffer);
+        }
+    }
+
+    private void returnBuffer(ByteBuffer buffer) {
+        synchronized (freeBuffers) {
+            freeBuffers.push(buffer);
+        }
+    }
+}
@@ -0,0 +1,143 @@
+package dev.gihan.movieapi.streaming;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Parses {@code Range} request headers per RFC 7233 section 2.1 / 3.1.
+ * Handles first-last, open-ended ({@code 500-}) and suffix ({@code -500}) specs, comma-separated
+ * range sets, and coalesces overlapping or nearly adjacent ranges so a client cannot make us
+ * send the same bytes twice.
+ */
+public final class HttpRangeParser {
+
+    // Gaps smaller than a multipart part header are cheaper to send than to split
+    static final long COALESCE_GAP = 80;
+
+    // More ranges than this after coalescing is treated as abusive and answered with the full body
+    static final int MAX_RANGES = 32;
+
+    private HttpRangeParser() {
+    }
+
+    public enum Status {
+        /** Header absent, malformed or in an unknown unit: serve the full representation. */
+        IGNORE,
+        /** Syntactically valid but no range overlaps the representation: 416. */
+        UNSATISFIABLE,
+        /** At least one range can be served: 206. */
+        SATISFIABLE
+    }
+
+    public record Result(Status status, List<ByteRange> ranges) {
+
+        static final Result IGNORE = new Result(Status.IGNORE, List.of());
+        static final Result UNSATISFIABLE = new Result(Status.UNSATISFIABLE, List.of());
+
+        public boolean isMultipart() {
+            return ranges.size() > 1;
+        }
+    }
+
+    public static Result parse(String header, long size) {
+        if (header == null) {
+            return Result.IGNORE;
+        }
+        int equals = header.indexOf('=');
+        if (equals < 0 || !"bytes".equalsIgnoreCase(header.substring(0, equals).trim())) {
+            return Result.IGNORE;
+        }
+
+        List<ByteRange> satisfiable = new ArrayList<>();
+        boolean sawSpec = false;
+        for (String element : header.substring(equals + 1).split(",", -1)) {
+            String spec = element.trim();
+            // The grammar allows empty list elements ("bytes=0-1,,5-6")
+            if (spec.isEmpty()) {
+                continue;
+            }
+            int dash = spec.indexOf('-');
+            if (dash < 0) {
+                return Result.IGNORE;
+            }
+            String first = spec.substring(0, dash).trim();
+            String last = spec.substring(dash + 1).trim();
+            long firstPos;
+            long lastPos;
+            try {
+                if (first.isEmpty()) {
+                    // suffix-byte-range-spec: the final N bytes
+                    long suffixLength = parsePosition(last);
+                    sawSpec = true;
+                    if (suffixLength == 0 || size == 0) {
+                        continue;
+                    }
+                    firstPos = Math.max(0, size - suffixLength);
+                    lastPos = size - 1;
+                } else {
+                    firstPos = parsePosition(first);
+                    lastPos = last.isEmpty() ? Long.MAX_VALUE : parsePosition(last);
+                    if (lastPos < firstPos) {
+                        return Result.IGNORE;
+                    }
+                    sawSpec = true;
+                    if (firstPos >= size) {
+                        continue;
+                    }
+                    lastPos = Math.min(lastPos, size - 1);
+                }
+            } catch (NumberFormatException e) {
+                return Result.IGNORE;
+            }
+            satisfiable.add(new ByteRange(firstPos, lastPos));
+        }
+
+        if (!sawSpec) {
+            return Result.IGNORE;
+        }
+        if (satisfiable.isEmpty()) {
+            return Result.UNSATISFIABLE;
+        }
+
+        List<ByteRange> coalesced = coalesce(satisfiable);
+        if (coalesced.size() > MAX_RANGES) {
+            return Result.IGNORE;
+        }
+        return new Result(Status.SATISFIABLE, coalesced);
+    }
+
+    static List<ByteRange> coalesce(List<ByteRange> ranges) {
+        if (ranges.size() < 2) {
+            return ranges;
+        }
+        List<ByteRange> sorted = new ArrayList<>(ranges);
+        sorted.sort(Comparator.comparingLong(ByteRange::start));
+
+        List<ByteRange> merged = new ArrayList<>();
+        ByteRange current = sorted.get(0);
+        for (int i = 1; i < sorted.size(); i++) {
+            ByteRange next = sorted.get(i);
+            if (next.start() <= current.end() + 1 + COALESCE_GAP) {
+                current = new ByteRange(current.start(), Math.max(current.end(), next.end()));
+            } else {
+                merged.add(current);
+                current = next;
+            }
+        }
+        merged.add(current);
+        return merged;
+    }
+
+    private static long parsePosition(String value) {
+        if (value.isEmpty() || value.length() > 19) {
+            throw new NumberFormatException("Invalid range position: " + value);
+        }
+        for (int i = 0; i < value.length(); i++) {
+            if (value.charAt(i) < '0' || value.charAt(i) > '9') {
+                throw new NumberFormatException("Invalid range position: " + value);
+            }
+        }
+        return Long.parseLong(value);
+    }
+}
@@ -0,0 +1,90 @@
+package dev.gihan.movieapi.streaming;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletRequestWrapper;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.Map;
+
+/**
+ * Adds If-Range support to Spring's static resource handlers, which honour Range but not If-Range.
+ * When the client's validator no longer matches the file, Range is hidden from the handler so the
+ * client receives the whole new file rather than a byte range of it.
+ */
+public class IfRangeFilter extends OncePerRequestFilter {
+
+    private final Map<String, Path> locations;
+    private final FileValidatorCache fileValidatorCache;
+
+    /**
+     * @param locations URL prefix (e.g. "/uploads/") to the directory it is served from
+     */
+    public IfRangeFilter(Map<String, Path> locations, FileValidatorCache fileValidatorCache) {
+        this.locations = locations;
+        this.fileValidatorCache = fileValidatorCache;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return request.getHeader(HttpHeaders.RANGE) == null || request.getHeader(HttpHeaders.IF_RANGE) == null;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        Path file = resolve(request.getRequestURI().substring(request.getContextPath().length()));
+        if (file != null && Files.isRegularFile(file)
+                && !ConditionalRequests.rangeApplies(request, fileValidatorCache.get(file))) {
+            request = new RangeStrippingRequest(request);
+        }
+        filterChain.doFilter(request, response);
+    }
+
+    Path resolve(String path) {
+        for (Map.Entry<String, Path> location : locations.entrySet()) {
+            if (path.startsWith(location.getKey())) {
+                Path directory = location.getValue().toAbsolutePath().normalize();
+                Path file = directory.resolve(path.substring(location.getKey().length())).normalize();
+                return file.startsWith(directory) ? file : null;
+            }
+        }
+        return null;
+    }
+
+    private static final class RangeStrippingRequest extends HttpServletRequestWrapper {
+
+        RangeStrippingRequest(HttpServletRequest request) {
+            super(request);
+        }
+
+        private static boolean isHidden(String name) {
+            return HttpHeaders.RANGE.equalsIgnoreCase(name) || HttpHeaders.IF_RANGE.equalsIgnoreCase(name);
+        }
+
+        @Override
+        public String getHeader(String name) {
+            return isHidden(name) ? null : super.getHeader(name);
+        }
+
+        @Override
+        public Enumeration<String> getHeaders(String name) {
+            return isHidden(name) ? Collections.emptyEnumeration() : super.getHeaders(name);
+        }
+
+        @Override
+        public Enumeration<String> getHeaderNames() {
+            return Collections.enumeration(Collections.list(super.getHeaderNames()).stream()
+                    .filter(name -> !isHidden(name))
+                    .toList());
+        }
+    }
+}
@@ -0,0 +1,136 @@
+package dev.gihan.movieapi.streaming;
+
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.core.io.AbstractResource;
+import org.springframework.core.io.Resource;
+import org.springframework.http.HttpHeaders;
+import org.springframework.util.StringUtils;
+import org.springframework.web.servlet.resource.AbstractResourceResolver;
+import org.springframework.web.servlet.resource.HttpResource;
+import org.springframework.web.servlet.resource.ResourceResolverChain;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.net.URL;
+import java.nio.channels.ReadableByteChannel;
+import java.util.List;
+import java.util.regex.Pattern;
+
+/**
+ * Marks responses whose URL names their content, so browsers and CDNs keep them for a year without
+ * revalidating: files requested by content fingerprint, and content-addressed uploads named by
+ * their SHA-256. Anything else keeps the handler's short cache period.
+ */
+public class ImmutableResourceResolver extends AbstractResourceResolver {
+
+    public static final String IMMUTABLE = "public, max-age=31536000, immutable";
+
+    private static final Pattern CONTENT_ADDRESSED = Pattern.compile("[0-9a-f]{64}\\.[A-Za-z0-9]+");
+
+    @Override
+    protected Resource resolveResourceInternal(HttpServletRequest request, String requestPath,
+                                               List<? extends Resource> locations, ResourceResolverChain chain) {
+        Resource resource = chain.resolveResource(request, requestPath, locations);
+        return resource != null && namesItsContent(requestPath, resource) ? new ImmutableResource(resource) : resource;
+    }
+
+    @Override
+    protected String resolveUrlPathInternal(String resourceUrlPath, List<? extends Resource> locations,
+                                            ResourceResolverChain chain) {
+        return chain.resolveUrlPath(resourceUrlPath, locations);
+    }
+
+    // A requested name that differs from the file's can only be a verified fingerprint
+    private static boolean namesItsContent(String requestPath, Resource resource) {
+        String requested = StringUtils.getFilename(requestPath);
+        return requested != null
+                && (CONTENT_ADDRESSED.matcher(requested).matches() || !requested.equals(resource.getFilename()));
+    }
+
+    private static final class ImmutableResource extends AbstractResource implements HttpResource {
+
+        private final Resource resource;
+
+        ImmutableResource(Resource resource) {
+            this.resource = resource;
+        }
+
+        @Override
+        public HttpHeaders getResponseHeaders() {
+            // Keeps Content-Encoding and Vary from a precompressed variant
+            HttpHeaders headers = new HttpHeaders();
+            if (resource instanceof HttpResource httpResource) {
+                headers.putAll(httpResource.getResponseHeaders());
+            }
+            headers.setCacheControl(IMMUTABLE);
+            return headers;
+        }
+
+        @Override
+        public boolean exists() {
+            return resource.exists();
+        }
+
+        @Override
+        public boolean isReadable() {
+            return resource.isReadable();
+        }
+
+        @Override
+        public boolean isFile() {
+            return resource.isFile();
+        }
+
+        @Override
+        public URL getURL() throws IOException {
+            return resource.getURL();
+        }
+
+        @Override
+        public URI getURI() throws IOException {
+            return resource.getURI();
+        }
+
+        @Override
+        public File getFile() throws IOException {
+            return resource.getFile();
+        }
+
+        @Override
+        public InputStream getInputStream() throws IOException {
+            return resource.getInputStream();
+        }
+
+        @Override
+        public ReadableByteChannel readableChannel() throws IOException {
+            return resource.readableChannel();
+        }
+
+        @Override
+        public long contentLength() throws IOException {
+            return resource.contentLength();
+        }
+
+        @Override
+        public long lastModified() throws IOException {
+            return resource.lastModified();
+        }
+
+        @Override
+        public Resource createRelative(String relativePath) throws IOException {
+            return resource.createRelative(relativePath);
+        }
+
+        @Override
+        public String getFilename() {
+            return resource.getFilename();
+        }
+
+        @Override
+        public String getDescription() {
+            return "Immutable [" + resource.getDescription() + "]";
+        }
+    }
+}
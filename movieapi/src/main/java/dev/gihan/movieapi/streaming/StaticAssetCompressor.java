@@ -0,0 +1,93 @@
+package dev.gihan.movieapi.streaming;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.UUID;
+import java.util.stream.Stream;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Writes a ".gz" beside each compressible static file, which Spring's encoded resource resolver
+ * serves to clients that accept gzip. Media is already compressed and is left alone, as are
+ * playlists and tracks rewritten at runtime, where a stale sibling would be served.
+ */
+public final class StaticAssetCompressor {
+
+    public static final Set<String> COMPRESSIBLE =
+            Set.of("css", "js", "mjs", "map", "json", "svg", "txt", "xml", "html", "ico");
+
+    private static final String GZIP_EXTENSION = ".gz";
+
+    private StaticAssetCompressor() {
+    }
+
+    /** Compresses every compressible file under {@code root}; returns how many were (re)written. */
+    public static int compressAll(Path root) throws IOException {
+        if (!Files.isDirectory(root)) {
+            return 0;
+        }
+        List<Path> files;
+        try (Stream<Path> walk = Files.walk(root)) {
+            files = walk.filter(Files::isRegularFile).filter(StaticAssetCompressor::isCompressible).toList();
+        }
+        int written = 0;
+        for (Path file : files) {
+            if (compress(file)) {
+                written++;
+            }
+        }
+        return written;
+    }
+
+    /**
+     * Writes {@code file}'s ".gz" sibling unless it is already current. No sibling is kept when
+     * gzip would not make the file smaller.
+     */
+    public static boolean compress(Path file) throws IOException {
+        Path gzip = file.resolveSibling(file.getFileName() + GZIP_EXTENSION);
+        FileTime modified = Files.getLastModifiedTime(file);
+        if (Files.isRegularFile(gzip) && Files.getLastModifiedTime(gzip).compareTo(modified) >= 0) {
+            return false;
+        }
+
+        Path scratch = gzip.resolveSibling(gzip.getFileName() + ".tmp-" + UUID.randomUUID());
+        try {
+            try (InputStream in = Files.newInputStream(file);
+                 OutputStream out = new BestGzipOutputStream(Files.newOutputStream(scratch))) {
+                in.transferTo(out);
+            }
+            if (Files.size(scratch) >= Files.size(file)) {
+                Files.deleteIfExists(gzip);
+                return false;
+            }
+            Files.move(scratch, gzip, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            return true;
+        } finally {
+            Files.deleteIfExists(scratch);
+        }
+    }
+
+    public static boolean isCompressible(Path file) {
+        String name = file.getFileName().toString().toLowerCase(Locale.ROOT);
+        int dot = name.lastIndexOf('.');
+        return dot >= 0 && COMPRESSIBLE.contains(name.substring(dot + 1));
+    }
+
+    // Compressed once and served many times, so the slowest level pays for itself
+    private static final class BestGzipOutputStream extends GZIPOutputStream {
+
+        BestGzipOutputStream(OutputStream out) throws IOException {
+            super(out, 64 * 1024);
+            def.setLevel(Deflater.BEST_COMPRESSION);
+        }
+    }
+}
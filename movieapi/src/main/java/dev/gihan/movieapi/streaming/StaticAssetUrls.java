@@ -0,0 +1,35 @@
+package dev.gihan.movieapi.streaming;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.resource.ResourceUrlProvider;
+
+/**
+ * Turns stored static file URLs into fingerprinted ones for API responses, and back again for
+ * storage. Only local paths are rewritten; absolute URLs point at someone else's cache policy.
+ */
+@Component
+public class StaticAssetUrls {
+
+    @Autowired
+    @Qualifier("mvcResourceUrlProvider")
+    private ResourceUrlProvider resourceUrlProvider;
+
+    /** {@code url} with a content fingerprint, or unchanged when no static handler versions it. */
+    public String fingerprint(String url) {
+        if (url == null || !url.startsWith("/") || url.startsWith("//")) {
+            return url;
+        }
+        String versioned = resourceUrlProvider.getForLookupPath(url);
+        return versioned != null ? versioned : url;
+    }
+
+    /** The stored form of a URL that may have been handed out fingerprinted. */
+    public static String canonical(String url) {
+        if (url == null || !url.startsWith("/") || url.startsWith("//")) {
+            return url;
+        }
+        return ContentFingerprintStrategy.stripFingerprint(url);
+    }
+}
@@ -0,0 +1,56 @@
+package dev.gihan.movieapi.streaming;
+
+import dev.gihan.movieapi.storage.MediaStorage;
+import jakarta.servlet.http.HttpServletRequest;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.io.Resource;
+import org.springframework.web.servlet.resource.AbstractResourceResolver;
+import org.springframework.web.servlet.resource.ResourceResolverChain;
+
+import java.io.IOException;
+import java.nio.file.NoSuchFileException;
+import java.util.List;
+
+/**
+ * Fetches uploaded files this node has no copy of from the media storage into its local directory
+ * for {@code prefix}, which is the location being served, then serves them like any other static
+ * file. Request paths are relative to that location; with local storage a miss is simply a miss.
+ */
+public class StoredMediaResourceResolver extends AbstractResourceResolver {
+
+    private static final Logger logger = LoggerFactory.getLogger(StoredMediaResourceResolver.class);
+
+    private final MediaStorage mediaStorage;
+    private final String prefix;
+
+    public StoredMediaResourceResolver(MediaStorage mediaStorage, String prefix) {
+        this.mediaStorage = mediaStorage;
+        this.prefix = prefix;
+    }
+
+    @Override
+    protected Resource resolveResourceInternal(HttpServletRequest request, String requestPath,
+                                               List<? extends Resource> locations, ResourceResolverChain chain) {
+        Resource resource = chain.resolveResource(request, requestPath, locations);
+        if (resource != null) {
+            return resource;
+        }
+        String key = prefix + requestPath;
+        try {
+            mediaStorage.localCopy(key);
+        } catch (NoSuchFileException | IllegalArgumentException e) {
+            return null;
+        } catch (IOException e) {
+            logger.warn("Could not fetch {} from media storage", key, e);
+            return null;
+        }
+        return chain.resolveResource(request, requestPath, locations);
+    }
+
+    @Override
+    protected String resolveUrlPathInternal(String resourceUrlPath, List<? extends Resource> locations,
+                                            ResourceResolverChain chain) {
+        return chain.resolveUrlPath(resourceUrlPath, locations);
+    }
+}
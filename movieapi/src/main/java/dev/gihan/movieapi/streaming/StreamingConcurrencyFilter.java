@@ -0,0 +1,86 @@
+package dev.gihan.movieapi.streaming;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+/**
+ * Caps concurrent work on /api/stream with separate budgets for byte transfers (video bodies and
+ * media segments) and metadata calls (playlists, progress, seek lookups), so a crowd of slow
+ * viewers cannot starve the cheap requests players need to start or resume playback.
+ * Requests run on virtual threads, so the limits bound open files and memory rather than threads.
+ * <p>
+ * A transfer permit is held while the request is in the servlet, so it covers bodies copied with
+ * transferTo or from media storage. Regions handed to the connector for sendfile are written after
+ * the servlet returns and there is no callback when they finish, so those are bounded only by
+ * {@code server.tomcat.max-connections}, not by the transfer limit.
+ */
+public class StreamingConcurrencyFilter extends OncePerRequestFilter {
+
+    private static final Logger log = LoggerFactory.getLogger(StreamingConcurrencyFilter.class);
+
+    private static final Pattern TRANSFER_PATH = Pattern.compile("/api/stream/\\d+(/.*\\.(ts|m4s|mp4))?");
+
+    private final Semaphore transferPermits;
+    private final Semaphore metadataPermits;
+    private final long acquireTimeoutMillis;
+
+    public StreamingConcurrencyFilter(int maxConcurrentTransfers, int maxConcurrentMetadata, long acquireTimeoutMillis) {
+        this.transferPermits = new Semaphore(maxConcurrentTransfers);
+        this.metadataPermits = new Semaphore(maxConcurrentMetadata);
+        this.acquireTimeoutMillis = acquireTimeoutMillis;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        boolean transfer = isTransfer(request);
+        Semaphore permits = transfer ? transferPermits : metadataPermits;
+
+        boolean acquired;
+        try {
+            acquired = permits.tryAcquire(acquireTimeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            acquired = false;
+        }
+        if (!acquired) {
+            log.warn("Rejecting {} request, concurrency limit reached: {}",
+                    transfer ? "transfer" : "metadata", request.getRequestURI());
+            response.setHeader(HttpHeaders.RETRY_AFTER, "1");
+            response.sendError(HttpStatus.SERVICE_UNAVAILABLE.value());
+            return;
+        }
+
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            // For a sendfile hand-off the body is still unsent here; see the class comment
+            permits.release();
+        }
+    }
+
+    boolean isTransfer(HttpServletRequest request) {
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+        return "GET".equals(request.getMethod()) && TRANSFER_PATH.matcher(path).matches();
+    }
+
+    public int getAvailableTransferPermits() {
+        return transferPermits.availablePermits();
+    }
+
+    public int getAvailableMetadataPermits() {
+        return metadataPermits.availablePermits();
+    }
+}
@@ -0,0 +1,193 @@
+package dev.gihan.movieapi.streaming;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.servlet.http.HttpServletRequest;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+/**
+ * Delivery metrics for video transfers, tagged by movie: requests by type, bytes served, time to
+ * first byte, unsatisfiable ranges, client aborts and transfers in progress.
+ * <p>
+ * Meters are registered once per movie and looked up by id, so recording never builds tags or
+ * strings. Only the first {@code maxTaggedMovies} movies get their own series; the rest share the
+ * {@code movie=other} series to bound cardinality.
+ */
+public class StreamingMetrics {
+
+    /** Request attribute carrying the {@link Transfer} to {@link VideoRegionWriter}. */
+    public static final String TRANSFER_ATTRIBUTE = StreamingMetrics.class.getName() + ".transfer";
+
+    static final String OTHER_MOVIES = "other";
+
+    public enum RequestType { FULL, RANGE, MULTIPART }
+
+    private final MeterRegistry registry;
+    private final int maxTaggedMovies;
+    private final Map<Long, MovieMeters> movies = new ConcurrentHashMap<>();
+    private final Function<Long, MovieMeters> registerMovie = this::register;
+    private final MovieMeters otherMovies;
+
+    public StreamingMetrics(MeterRegistry registry, int maxTaggedMovies) {
+        this.registry = registry;
+        this.maxTaggedMovies = maxTaggedMovies;
+        this.otherMovies = new MovieMeters(registry, OTHER_MOVIES);
+    }
+
+    /**
+     * Starts a transfer for {@code movieId}; {@code startNanos} is when the request reached the
+     * handler. The caller must {@link Transfer#finish() finish} it.
+     */
+    public Transfer begin(Long movieId, long startNanos) {
+        MovieMeters meters = movies.get(movieId);
+        if (meters == null) {
+            meters = movies.size() < maxTaggedMovies ? movies.computeIfAbsent(movieId, registerMovie) : otherMovies;
+        }
+        meters.active.incrementAndGet();
+        return new Transfer(meters, startNanos);
+    }
+
+    /** The transfer the handler attached to {@code request}, or null when it is not metered. */
+    public static Transfer transferOf(HttpServletRequest request) {
+        return request.getAttribute(TRANSFER_ATTRIBUTE) instanceof Transfer transfer ? transfer : null;
+    }
+
+    private MovieMeters register(Long movieId) {
+        return new MovieMeters(registry, movieId.toString());
+    }
+
+    private static final class MovieMeters {
+        final Counter fullRequests;
+        final Counter rangeRequests;
+        final Counter multipartRequests;
+        final Counter bytes;
+        final Counter unsatisfiable;
+        final Counter aborted;
+        final Counter failed;
+        final Timer timeToFirstByte;
+        // Micrometer holds gauge targets weakly; this reference keeps it alive
+        final AtomicInteger active = new AtomicInteger();
+
+        MovieMeters(MeterRegistry registry, String movie) {
+            fullRequests = requests(registry, movie, "full");
+            rangeRequests = requests(registry, movie, "range");
+            multipartRequests = requests(registry, movie, "multipart");
+            bytes = Counter.builder("streaming.bytes.served")
+                    .description("Video bytes written to clients")
+                    .baseUnit("bytes")
+                    .tag("movie", movie)
+                    .register(registry);
+            unsatisfiable = Counter.builder("streaming.range.unsatisfiable")
+                    .description("Range requests answered with 416")
+                    .tag("movie", movie)
+                    .register(registry);
+            aborted = Counter.builder("streaming.aborted")
+                    .description("Transfers cut short by the client (broken pipe, reset)")
+                    .tag("movie", movie)
+                    .register(registry);
+            failed = Counter.builder("streaming.failed")
+                    .description("Transfers the server could not complete (truncated file, storage or disk error)")
+                    .tag("movie", movie)
+                    .register(registry);
+            timeToFirstByte = Timer.builder("streaming.ttfb")
+                    .description("Time from the handler receiving the request to the first body byte")
+                    .tag("movie", movie)
+                    .register(registry);
+            Gauge.builder("streaming.transfers.active", active, AtomicInteger::get)
+                    .description("Video transfers in progress")
+                    .tag("movie", movie)
+                    .register(registry);
+        }
+
+        private static Counter requests(MeterRegistry registry, String movie, String type) {
+            return Counter.builder("streaming.requests")
+                    .description("Video requests by response type")
+                    .tags("movie", movie, "type", type)
+                    .register(registry);
+        }
+    }
+
+    /** One video response. Recording methods allocate nothing. */
+    public static final class Transfer {
+        private final MovieMeters meters;
+        private final long startNanos;
+        private boolean firstByteSent;
+        private boolean finished;
+
+        private Transfer(MovieMeters meters, long startNanos) {
+            this.meters = meters;
+            this.startNanos = startNanos;
+        }
+
+        public void request(RequestType type) {
+            switch (type) {
+                case FULL -> meters.fullRequests.increment();
+                case RANGE -> meters.rangeRequests.increment();
+                case MULTIPART -> meters.multipartRequests.increment();
+            }
+        }
+
+        public void rangeNotSatisfiable() {
+            meters.unsatisfiable.increment();
+        }
+
+        /** Counts body bytes; the first call with bytes records time to first byte. */
+        public void sent(long bytes) {
+            if (bytes <= 0) {
+                return;
+            }
+            if (!firstByteSent) {
+                firstByteSent = true;
+                meters.timeToFirstByte.record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+            }
+            meters.bytes.increment(bytes);
+        }
+
+        public void aborted() {
+            meters.aborted.increment();
+        }
+
+        public void failed() {
+            meters.failed.increment();
+        }
+
+        public void finish() {
+            if (!finished) {
+                finished = true;
+                meters.active.decrementAndGet();
+            }
+        }
+
+        /** Wraps {@code target} so every write is counted as it reaches the client. */
+        WritableByteChannel meter(WritableByteChannel target) {
+            return new WritableByteChannel() {
+                @Override
+                public int write(ByteBuffer source) throws IOException {
+                    int written = target.write(source);
+                    sent(written);
+                    return written;
+                }
+
+                @Override
+                public boolean isOpen() {
+                    return target.isOpen();
+                }
+
+                @Override
+                public void close() throws IOException {
+                    target.close();
+                }
+            };
+        }
+    }
+}
@@ -0,0 +1,247 @@
+package dev.gihan.movieapi.streaming;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * In-memory view of who is watching what. The many range requests a player issues while
+ * buffering and seeking collapse into one logical session per viewer and movie, kept alive by
+ * those requests and by heartbeats. A session ends when the player says so or when it has been
+ * idle past the timeout. Session starts and ends are queued here and written in batches by
+ * {@code StreamingService}.
+ */
+@Component
+public class StreamingSessionRegistry {
+
+    /** A session row waiting to be inserted; {@code userId} is null for guests. */
+    public record PendingSession(String sessionId, Long userId, Long movieId,
+                                 String ipAddress, String userAgent, LocalDateTime startTime) {
+    }
+
+    /** A session row waiting to be closed. */
+    public record PendingEnd(String sessionId, LocalDateTime endTime, Integer durationWatched, boolean completed) {
+    }
+
+    /** Result of {@link #touch}: {@code opened} is true only for the request that started the session. */
+    public record Touch(String sessionId, boolean opened) {
+    }
+
+    static final class ActiveSession {
+        final String key;
+        final String sessionId;
+        final Long movieId;
+        final long movieDurationSeconds;
+        final long startMillis;
+        volatile long lastSeenMillis;
+        volatile Integer positionSeconds;
+
+        ActiveSession(String key, Long movieId, long movieDurationSeconds, long now) {
+            this.key = key;
+            this.sessionId = UUID.randomUUID().toString();
+            this.movieId = movieId;
+            this.movieDurationSeconds = movieDurationSeconds;
+            this.startMillis = now;
+            this.lastSeenMillis = now;
+        }
+    }
+
+    private final Map<String, ActiveSession> active = new ConcurrentHashMap<>();
+    private final Map<String, ActiveSession> bySessionId = new ConcurrentHashMap<>();
+    private final PendingQueue<PendingSession> pendingSessions = new PendingQueue<>();
+    private final PendingQueue<PendingEnd> pendingEnds = new PendingQueue<>();
+    private final Clock clock;
+
+    // A viewer who resumes within this window continues the same session
+    @Value("${app.streaming.session-idle-timeout-ms:600000}")
+    private long idleTimeoutMillis = 600_000;
+
+    // Writes beyond this are dropped rather than exhausting the heap while the database is down
+    @Value("${app.streaming.max-pending-sessions:100000}")
+    private int maxPending = 100_000;
+
+    public StreamingSessionRegistry() {
+        this(Clock.systemDefaultZone());
+    }
+
+    StreamingSessionRegistry(Clock clock) {
+        this.clock = clock;
+    }
+
+    /**
+     * Returns the session for this viewer and movie, opening a new one (and queueing its insert)
+     * only when there is no live one. {@code movieDurationSeconds} is 0 when unknown.
+     */
+    public Touch touch(Long userId, Long movieId, long movieDurationSeconds, String ipAddress, String userAgent) {
+        String key = viewerKey(userId, ipAddress, userAgent) + "#" + movieId;
+        long now = clock.millis();
+        boolean[] opened = new boolean[1];
+        ActiveSession session = active.compute(key, (k, existing) -> {
+            if (existing != null && now - existing.lastSeenMillis < idleTimeoutMillis) {
+                existing.lastSeenMillis = now;
+                return existing;
+            }
+            if (existing != null) {
+                // Expired but not yet swept
+                close(existing, existing.lastSeenMillis, null);
+            }
+            opened[0] = true;
+            ActiveSession started = new ActiveSession(k, movieId, movieDurationSeconds, now);
+            bySessionId.put(started.sessionId, started);
+            pendingSessions.add(new PendingSession(started.sessionId, userId, movieId, ipAddress, userAgent,
+                    toDateTime(now)), maxPending);
+            return started;
+        });
+        return new Touch(session.sessionId, opened[0]);
+    }
+
+    /**
+     * Keeps a session alive while the player is paused or playing from buffer. Returns false if
+     * the session is unknown or already ended, in which case the player should start a new one.
+     */
+    public boolean heartbeat(String sessionId, Integer positionSeconds) {
+        ActiveSession session = bySessionId.get(sessionId);
+        if (session == null) {
+            return false;
+        }
+        session.lastSeenMillis = clock.millis();
+        if (positionSeconds != null) {
+            session.positionSeconds = positionSeconds;
+        }
+        return true;
+    }
+
+    /** Ends a session at the player's request; false if it is unknown or already ended. */
+    public boolean end(String sessionId, Integer durationWatched) {
+        ActiveSession session = bySessionId.get(sessionId);
+        if (session == null || !active.remove(session.key, session)) {
+            return false;
+        }
+        close(session, clock.millis(), durationWatched);
+        return true;
+    }
+
+    /** Ends sessions idle past the timeout, as of their last activity; returns how many were closed. */
+    public int evictIdle() {
+        long cutoff = clock.millis() - idleTimeoutMillis;
+        int closed = 0;
+        for (ActiveSession session : active.values()) {
+            if (session.lastSeenMillis <= cutoff && active.remove(session.key, session)) {
+                close(session, session.lastSeenMillis, null);
+                closed++;
+            }
+        }
+        return closed;
+    }
+
+    /** Ends every live session now, e.g. on shutdown. */
+    public int endAll() {
+        int closed = 0;
+        for (ActiveSession session : active.values()) {
+            if (active.remove(session.key, session)) {
+                close(session, clock.millis(), null);
+                closed++;
+            }
+        }
+        return closed;
+    }
+
+    /** Takes up to {@code max} queued session inserts. */
+    public List<PendingSession> drainSessions(int max) {
+        return pendingSessions.drain(max);
+    }
+
+    /** Puts back inserts whose batch failed, so the next flush retries them. */
+    public void requeueSessions(Collection<PendingSession> sessions) {
+        sessions.forEach(session -> pendingSessions.add(session, maxPending));
+    }
+
+    /** Takes up to {@code max} queued session ends. */
+    public List<PendingEnd> drainEnds(int max) {
+        return pendingEnds.drain(max);
+    }
+
+    public void requeueEnds(Collection<PendingEnd> ends) {
+        ends.forEach(end -> pendingEnds.add(end, maxPending));
+    }
+
+    public int activeSessionCount() {
+        return active.size();
+    }
+
+    /** Live sessions per movie id. */
+    public Map<Long, Integer> activeSessionsByMovie() {
+        Map<Long, Integer> counts = new HashMap<>();
+        for (ActiveSession session : active.values()) {
+            counts.merge(session.movieId, 1, Integer::sum);
+        }
+        return counts;
+    }
+
+    public int pendingSessionCount() {
+        return pendingSessions.size();
+    }
+
+    private void close(ActiveSession session, long endMillis, Integer durationWatched) {
+        bySessionId.remove(session.sessionId, session);
+        // Only watched time the player reported can complete a view; a position says where it
+        // stopped, not how much was watched (a seek to the end or a paused tab would count)
+        boolean completed = durationWatched != null && session.movieDurationSeconds > 0
+                && durationWatched >= session.movieDurationSeconds * 0.9;
+        if (durationWatched == null) {
+            // Fall back to the last reported position, then to wall-clock time
+            durationWatched = session.positionSeconds != null ?
+                    session.positionSeconds : (int) ((endMillis - session.startMillis) / 1000);
+        }
+        pendingEnds.add(new PendingEnd(session.sessionId, toDateTime(endMillis), durationWatched, completed),
+                maxPending);
+    }
+
+    private LocalDateTime toDateTime(long millis) {
+        return LocalDateTime.ofInstant(Instant.ofEpochMilli(millis), clock.getZone());
+    }
+
+    private static String viewerKey(Long userId, String ipAddress, String userAgent) {
+        return userId != null ? "u:" + userId : "a:" + ipAddress + "|" + userAgent;
+    }
+
+    private static final class PendingQueue<T> {
+        private final Queue<T> queue = new ConcurrentLinkedQueue<>();
+        private final AtomicInteger size = new AtomicInteger();
+
+        void add(T item, int max) {
+            if (size.incrementAndGet() > max) {
+                size.decrementAndGet();
+                return;
+            }
+            queue.add(item);
+        }
+
+        List<T> drain(int max) {
+            List<T> drained = new ArrayList<>(Math.min(max, size.get()));
+            T next;
+            while (drained.size() < max && (next = queue.poll()) != null) {
+                size.decrementAndGet();
+                drained.add(next);
+            }
+            return drained;
+        }
+
+        int size() {
+            return size.get();
+        }
+    }
+}
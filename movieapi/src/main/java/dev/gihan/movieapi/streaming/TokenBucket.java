@@ -0,0 +1,73 @@
+package dev.gihan.movieapi.streaming;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+/**
+ * Byte-rate token bucket. {@link #reserve} lets a caller go into debt and tells it how long to
+ * wait, so one large chunk never starves behind a stream of small ones.
+ */
+public class TokenBucket {
+
+    private final long bytesPerSecond;
+    private final double capacity;
+    private final LongSupplier nanoTime;
+    private double tokens;
+    private long lastRefillNanos;
+
+    public TokenBucket(long bytesPerSecond, long capacity) {
+        this(bytesPerSecond, capacity, System::nanoTime);
+    }
+
+    TokenBucket(long bytesPerSecond, long capacity, LongSupplier nanoTime) {
+        this.bytesPerSecond = bytesPerSecond;
+        this.capacity = capacity;
+        this.nanoTime = nanoTime;
+        this.tokens = capacity;
+        this.lastRefillNanos = nanoTime.getAsLong();
+    }
+
+    /** Takes {@code bytes} only if they are available now. */
+    public synchronized boolean tryTake(long bytes) {
+        refill();
+        if (tokens < bytes) {
+            return false;
+        }
+        tokens -= bytes;
+        return true;
+    }
+
+    /** Returns tokens taken by a {@link #tryTake} that turned out not to be used. */
+    public synchronized void refund(long bytes) {
+        tokens = Math.min(capacity, tokens + bytes);
+    }
+
+    /** Takes {@code bytes} unconditionally and returns how many nanoseconds the caller should wait. */
+    public synchronized long reserve(long bytes) {
+        refill();
+        tokens -= bytes;
+        if (tokens >= 0) {
+            return 0;
+        }
+        return (long) (-tokens * TimeUnit.SECONDS.toNanos(1) / bytesPerSecond);
+    }
+
+    /** A full bucket behaves exactly like a new one, so it can be dropped without changing any limit. */
+    public synchronized boolean isFull() {
+        refill();
+        return tokens >= capacity;
+    }
+
+    public long getBytesPerSecond() {
+        return bytesPerSecond;
+    }
+
+    private void refill() {
+        long now = nanoTime.getAsLong();
+        long elapsed = now - lastRefillNanos;
+        if (elapsed > 0) {
+            tokens = Math.min(capacity, tokens + (double) elapsed * bytesPerSecond / TimeUnit.SECONDS.toNanos(1));
+            lastRefillNanos = now;
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package dev.gihan.movieapi.streaming;
+
+import java.nio.file.Paths;
+
+/**
+ * Maps stored {@code Movie.videoUrl} values to the sanitized file name inside the video directory.
+ */
+public final class VideoFileNames {
+
+    private VideoFileNames() {
+    }
+
+    /**
+     * Accepts full URLs, "/uploads/videos/name.mp4" style paths or bare file names.
+     */
+    public static String fromVideoUrl(String videoUrl) {
+        // Extract filename from URL path
+        String fileName;
+        if (videoUrl.startsWith("http") || videoUrl.startsWith("/uploads/")) {
+            fileName = videoUrl.substring(videoUrl.lastIndexOf('/') + 1);
+        } else {
+            // If it's already just a filename
+            fileName = videoUrl;
+        }
+        return sanitize(fileName);
+    }
+
+    /** The media storage key of a video file name. */
+    public static String storageKey(String fileName) {
+        return "videos/" + sanitize(fileName);
+    }
+
+    /**
+     * Strips any directory components and replaces characters outside [a-zA-Z0-9._-], keeping the extension.
+     */
+    public static String sanitize(String fileName) {
+        if (fileName.contains("..") || fileName.contains("/") || fileName.contains("\\")) {
+            // If there are path traversal attempts, extract just the filename
+            fileName = Paths.get(fileName.replace('\\', '/')).getFileName().toString();
+        }
+        return fileName.replaceAll("[^a-zA-Z0-9._-]", "_");
+    }
+}
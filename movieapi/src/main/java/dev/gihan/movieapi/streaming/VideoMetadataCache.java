@@ -0,0 +1,187 @@
+package dev.gihan.movieapi.streaming;
+
+import dev.gihan.movieapi.storage.MediaStorage;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.http.MediaTypeFactory;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Resolved video file metadata per movie, so range requests after the first one skip path
+ * resolution, stat calls and content type probing. Entries are dropped when a watcher on the
+ * video directory reports a change to their file, or when the movie itself is updated or deleted.
+ * Videos that are only in remote media storage have no path and are looked up on every request,
+ * since no watcher sees them change.
+ */
+@Component
+public class VideoMetadataCache {
+
+    private static final Logger logger = LoggerFactory.getLogger(VideoMetadataCache.class);
+
+    /** {@code path} is the file on this node, or null when the video is read from remote storage by {@code key}. */
+    public record Entry(String videoUrl, String key, Path path, MediaType mediaType,
+                        FileValidatorCache.Validator validator) {
+
+        public long size() {
+            return validator.size();
+        }
+    }
+
+    private final Path videoDirectory;
+    private final FileValidatorCache fileValidatorCache;
+    private final MediaStorage mediaStorage;
+    private final Map<Long, Entry> cache;
+
+    private WatchService watchService;
+
+    // Only cache while the watcher is running; otherwise replaced files would be served stale
+    private volatile boolean caching;
+
+    public VideoMetadataCache(@Value("${app.streaming.metadata-cache-size:10000}") int maxEntries,
+                              FileValidatorCache fileValidatorCache,
+                              MediaStorage mediaStorage) {
+        this.videoDirectory = mediaStorage.localDirectory("videos/").toAbsolutePath().normalize();
+        this.fileValidatorCache = fileValidatorCache;
+        this.mediaStorage = mediaStorage;
+        this.cache = Collections.synchronizedMap(new LinkedHashMap<>(256, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, Entry> eldest) {
+                return size() > maxEntries;
+            }
+        });
+    }
+
+    /**
+     * Metadata for the movie's video file, or empty when the file does not exist or resolves
+     * outside the video directory. A changed {@code videoUrl} is treated as a miss.
+     */
+    public Optional<Entry> get(Long movieId, String videoUrl) throws IOException {
+        Entry cached = cache.get(movieId);
+        if (cached != null && cached.videoUrl().equals(videoUrl)) {
+            return Optional.of(cached);
+        }
+
+        String key = VideoFileNames.storageKey(VideoFileNames.fromVideoUrl(videoUrl));
+        Optional<Path> local = mediaStorage.localPath(key);
+        if (local.isEmpty()) {
+            return remoteEntry(videoUrl, key);
+        }
+        Path file = local.get().toAbsolutePath().normalize();
+        if (!file.startsWith(videoDirectory)) {
+            logger.error("Security violation: video for movie {} resolves outside video directory: {}", movieId, file);
+            return Optional.empty();
+        }
+
+        BasicFileAttributes attributes;
+        try {
+            attributes = Files.readAttributes(file, BasicFileAttributes.class);
+        } catch (NoSuchFileException e) {
+            return Optional.empty();
+        }
+        if (!attributes.isRegularFile()) {
+            return Optional.empty();
+        }
+
+        String contentType = Files.probeContentType(file);
+        MediaType mediaType = contentType != null ?
+                MediaType.valueOf(contentType) : MediaType.APPLICATION_OCTET_STREAM;
+        FileValidatorCache.Validator validator = fileValidatorCache.get(
+                file, attributes.size(), attributes.lastModifiedTime().toMillis());
+
+        Entry entry = new Entry(videoUrl, key, file, mediaType, validator);
+        if (caching) {
+            cache.put(movieId, entry);
+        }
+        return Optional.of(entry);
+    }
+
+    private Optional<Entry> remoteEntry(String videoUrl, String key) throws IOException {
+        Optional<MediaStorage.ObjectInfo> info = mediaStorage.stat(key);
+        if (info.isEmpty()) {
+            return Optional.empty();
+        }
+        MediaType mediaType = MediaTypeFactory.getMediaType(key).orElse(MediaType.APPLICATION_OCTET_STREAM);
+        return Optional.of(new Entry(videoUrl, key, null, mediaType, FileValidatorCache.forStoredObject(info.get())));
+    }
+
+    public void invalidate(Long movieId) {
+        cache.remove(movieId);
+    }
+
+    public int size() {
+        return cache.size();
+    }
+
+    @PostConstruct
+    void startWatching() {
+        try {
+            Files.createDirectories(videoDirectory);
+            watchService = videoDirectory.getFileSystem().newWatchService();
+            videoDirectory.register(watchService, StandardWatchEventKinds.ENTRY_CREATE,
+                    StandardWatchEventKinds.ENTRY_DELETE, StandardWatchEventKinds.ENTRY_MODIFY);
+        } catch (IOException e) {
+            logger.warn("Could not watch video directory {}, metadata caching disabled", videoDirectory, e);
+            return;
+        }
+        caching = true;
+        Thread.ofPlatform().daemon().name("video-dir-watcher").start(this::watchLoop);
+    }
+
+    @PreDestroy
+    void stopWatching() throws IOException {
+        caching = false;
+        if (watchService != null) {
+            watchService.close();
+        }
+    }
+
+    private void watchLoop() {
+        try {
+            while (true) {
+                WatchKey key = watchService.take();
+                for (WatchEvent<?> event : key.pollEvents()) {
+                    if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                        cache.clear();
+                    } else {
+                        evictFile(videoDirectory.resolve((Path) event.context()));
+                    }
+                }
+                if (!key.reset()) {
+                    logger.warn("Video directory {} is no longer watchable, metadata caching disabled", videoDirectory);
+                    caching = false;
+                    cache.clear();
+                    return;
+                }
+            }
+        } catch (ClosedWatchServiceException e) {
+            // Shutting down
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void evictFile(Path file) {
+        synchronized (cache) {
+            cache.values().removeIf(entry -> file.equals(entry.path()));
+        }
+    }
+}
@@ -0,0 +1,307 @@
+package dev.gihan.movieapi.streaming;
+
+import dev.gihan.movieapi.storage.MediaStorage;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Writes an exact byte region of a video file to the client without staging it in heap buffers.
+ * Uses Tomcat's sendfile hand-off when the connector supports it, otherwise FileChannel.transferTo.
+ * Videos that are only in remote media storage are copied from ranged reads instead.
+ */
+@Component
+public class VideoRegionWriter {
+
+    private static final Logger logger = LoggerFactory.getLogger(VideoRegionWriter.class);
+
+    // Request attributes understood by Tomcat's NIO/NIO2 connectors (see DefaultServlet)
+    static final String SENDFILE_SUPPORTED_ATTR = "org.apache.tomcat.sendfile.support";
+    static final String SENDFILE_FILENAME_ATTR = "org.apache.tomcat.sendfile.filename";
+    static final String SENDFILE_START_ATTR = "org.apache.tomcat.sendfile.start";
+    static final String SENDFILE_END_ATTR = "org.apache.tomcat.sendfile.end";
+
+    @Autowired
+    private HotChunkCache hotChunkCache;
+
+    @Autowired
+    private MediaStorage mediaStorage;
+
+    @FunctionalInterface
+    private interface PartWriter {
+        void write(ByteRange range, WritableByteChannel target) throws IOException;
+    }
+
+    @Value("${app.streaming.sendfile.enabled:true}")
+    private boolean sendfileEnabled = true;
+
+    // Below this size the sendfile setup costs more than it saves
+    @Value("${app.streaming.sendfile.min-size:49152}")
+    private long sendfileMinSize = 49152;
+
+    // Granularity of bandwidth shaping on the channel path
+    static final int THROTTLE_CHUNK_SIZE = 64 * 1024;
+
+    // Consecutive empty transferTo calls tolerated before the target counts as stalled
+    static final int MAX_STALLED_TRANSFERS = 16;
+
+    /**
+     * Sends {@code length} bytes of {@code file} starting at {@code start}. Status and headers
+     * (including Content-Length) must already be set on the response.
+     */
+    public void writeRegion(HttpServletRequest request, HttpServletResponse response,
+                            Path file, long start, long length) throws IOException {
+        writeRegion(request, response, file, start, length, null);
+    }
+
+    /**
+     * As {@link #writeRegion(HttpServletRequest, HttpServletResponse, Path, long, long)}, paced by
+     * {@code throttle} when it is not null. Sendfile runs after we return and cannot be paced, so it
+     * is only used when the throttle can cover the whole region immediately.
+     */
+    public void writeRegion(HttpServletRequest request, HttpServletResponse response, Path file,
+                            long start, long length, BandwidthShaper.Throttle throttle) throws IOException {
+        writeRegion(request, response, file, start, length, throttle, null);
+    }
+
+    /**
+     * As above, serving the region from {@code hotChunkCache} when {@code cached} is not null. Cached
+     * chunks take precedence over sendfile: the bytes are already in memory, so the disk is spared.
+     */
+    public void writeRegion(HttpServletRequest request, HttpServletResponse response, Path file,
+                            long start, long length, BandwidthShaper.Throttle throttle,
+                            HotChunkCache.CachedFile cached) throws IOException {
+        if (length <= 0 || "HEAD".equalsIgnoreCase(request.getMethod())) {
+            return;
+        }
+
+        StreamingMetrics.Transfer transfer = StreamingMetrics.transferOf(request);
+        if (cached != null) {
+            OutputStream out = response.getOutputStream();
+            hotChunkCache.write(cached, start, length, target(out, transfer), throttle);
+            out.flush();
+            return;
+        }
+
+        if (canUseSendfile(request, length) && (throttle == null || throttle.tryAcquire(length))) {
+            // Tomcat streams the region with sendfile(2) once the servlet returns
+            request.setAttribute(SENDFILE_FILENAME_ATTR, file.toAbsolutePath().toString());
+            request.setAttribute(SENDFILE_START_ATTR, start);
+            request.setAttribute(SENDFILE_END_ATTR, start + length);
+            if (transfer != null) {
+                // The connector does not report progress, so the region counts as sent on hand-off
+                transfer.sent(length);
+            }
+            return;
+        }
+
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            OutputStream out = response.getOutputStream();
+            transfer(channel, start, length, target(out, transfer), throttle);
+            out.flush();
+        }
+    }
+
+    /**
+     * Writes a {@code multipart/byteranges} body (RFC 7233 appendix A) for several ranges of
+     * {@code file}, setting Content-Type and the exact Content-Length. Each part is copied with
+     * transferTo; sendfile cannot interleave part headers so it is not used here.
+     */
+    public void writeMultipartRegions(HttpServletRequest request, HttpServletResponse response, Path file,
+                                      List<ByteRange> ranges, String partContentType, long fileSize)
+            throws IOException {
+        writeMultipartRegions(request, response, file, ranges, partContentType, fileSize, null);
+    }
+
+    public void writeMultipartRegions(HttpServletRequest request, HttpServletResponse response, Path file,
+                                      List<ByteRange> ranges, String partContentType, long fileSize,
+                                      BandwidthShaper.Throttle throttle) throws IOException {
+        writeMultipartRegions(request, response, file, ranges, partContentType, fileSize, throttle, null);
+    }
+
+    public void writeMultipartRegions(HttpServletRequest request, HttpServletResponse response, Path file,
+                                      List<ByteRange> ranges, String partContentType, long fileSize,
+                                      BandwidthShaper.Throttle throttle, HotChunkCache.CachedFile cached)
+            throws IOException {
+        if (cached != null) {
+            writeParts(request, response, ranges, partContentType, fileSize, (range, target) ->
+                    hotChunkCache.write(cached, range.start(), range.length(), target, throttle));
+            return;
+        }
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            writeParts(request, response, ranges, partContentType, fileSize, (range, target) ->
+                    transfer(channel, range.start(), range.length(), target, throttle));
+        }
+    }
+
+    /**
+     * Sends {@code length} bytes of the stored object {@code key} starting at {@code start}, for videos
+     * this node has no copy of. Status and headers must already be set on the response.
+     */
+    public void writeStoredRegion(HttpServletRequest request, HttpServletResponse response, String key,
+                                  long start, long length, BandwidthShaper.Throttle throttle) throws IOException {
+        if (length <= 0 || "HEAD".equalsIgnoreCase(request.getMethod())) {
+            return;
+        }
+        try (InputStream in = openStored(key, start, length)) {
+            OutputStream out = response.getOutputStream();
+            copy(in, length, target(out, StreamingMetrics.transferOf(request)), throttle);
+            out.flush();
+        }
+    }
+
+    /** As {@link #writeMultipartRegions}, with one ranged read of {@code key} per part. */
+    public void writeStoredMultipartRegions(HttpServletRequest request, HttpServletResponse response, String key,
+                                            List<ByteRange> ranges, String partContentType, long fileSize,
+                                            BandwidthShaper.Throttle throttle) throws IOException {
+        writeParts(request, response, ranges, partContentType, fileSize, (range, target) -> {
+            try (InputStream in = openStored(key, range.start(), range.length())) {
+                copy(in, range.length(), target, throttle);
+            }
+        });
+    }
+
+    private void writeParts(HttpServletRequest request, HttpServletResponse response, List<ByteRange> ranges,
+                            String partContentType, long fileSize, PartWriter partWriter) throws IOException {
+        String boundary = UUID.randomUUID().toString().replace("-", "");
+        List<byte[]> partHeaders = new ArrayList<>(ranges.size());
+        long contentLength = 0;
+        for (ByteRange range : ranges) {
+            byte[] header = ("\r\n--" + boundary + "\r\n"
+                    + "Content-Type: " + partContentType + "\r\n"
+                    + "Content-Range: " + range.toContentRange(fileSize) + "\r\n\r\n")
+                    .getBytes(StandardCharsets.US_ASCII);
+            partHeaders.add(header);
+            contentLength += header.length + range.length();
+        }
+        byte[] closing = ("\r\n--" + boundary + "--\r\n").getBytes(StandardCharsets.US_ASCII);
+        contentLength += closing.length;
+
+        response.setContentType("multipart/byteranges; boundary=" + boundary);
+        response.setContentLengthLong(contentLength);
+        if ("HEAD".equalsIgnoreCase(request.getMethod())) {
+            return;
+        }
+
+        OutputStream out = response.getOutputStream();
+        WritableByteChannel target = target(out, StreamingMetrics.transferOf(request));
+        for (int i = 0; i < ranges.size(); i++) {
+            out.write(partHeaders.get(i));
+            partWriter.write(ranges.get(i), target);
+        }
+        out.write(closing);
+        out.flush();
+    }
+
+    // Storage failures are not client aborts; they surface as unchecked so the caller reports them
+    private InputStream openStored(String key, long start, long length) throws NoSuchFileException {
+        try {
+            return mediaStorage.read(key, start, length);
+        } catch (NoSuchFileException e) {
+            throw e;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not read " + key + " from media storage", e);
+        }
+    }
+
+    private static void copy(InputStream in, long length, WritableByteChannel target,
+                             BandwidthShaper.Throttle throttle) throws IOException {
+        byte[] buffer = new byte[THROTTLE_CHUNK_SIZE];
+        long remaining = length;
+        while (remaining > 0) {
+            int chunk = (int) Math.min(buffer.length, remaining);
+            if (throttle != null) {
+                throttle.acquire(chunk);
+            }
+            int read = in.readNBytes(buffer, 0, chunk);
+            if (read < chunk) {
+                throw new IOException("Stored object ended " + (remaining - read) + " bytes early");
+            }
+            ByteBuffer bytes = ByteBuffer.wrap(buffer, 0, read);
+            while (bytes.hasRemaining()) {
+                target.write(bytes);
+            }
+            remaining -= read;
+        }
+    }
+
+    /**
+     * Copies a region of {@code channel} to {@code target}, looping because transferTo may
+     * move fewer bytes than requested. Gives up if the target repeatedly accepts nothing.
+     */
+    public static void transfer(FileChannel channel, long start, long length, WritableByteChannel target)
+            throws IOException {
+        long position = start;
+        long remaining = length;
+        int stalled = 0;
+        while (remaining > 0) {
+            long written = channel.transferTo(position, remaining, target);
+            if (written <= 0) {
+                // Region extends past EOF (file truncated while streaming)
+                if (position >= channel.size()) {
+                    throw new IOException("File truncated during transfer at position " + position);
+                }
+                if (++stalled > MAX_STALLED_TRANSFERS) {
+                    throw new IOException("Transfer stalled at position " + position);
+                }
+                Thread.yield();
+                continue;
+            }
+            stalled = 0;
+            position += written;
+            remaining -= written;
+        }
+    }
+
+    private static void transfer(FileChannel channel, long start, long length, WritableByteChannel target,
+                                 BandwidthShaper.Throttle throttle) throws IOException {
+        if (throttle == null) {
+            transfer(channel, start, length, target);
+            return;
+        }
+        long position = start;
+        long end = start + length;
+        while (position < end) {
+            long chunk = Math.min(THROTTLE_CHUNK_SIZE, end - position);
+            throttle.acquire(chunk);
+            transfer(channel, position, chunk, target);
+            position += chunk;
+        }
+    }
+
+    private static WritableByteChannel target(OutputStream out, StreamingMetrics.Transfer transfer) {
+        WritableByteChannel channel = Channels.newChannel(out);
+        return transfer != null ? transfer.meter(channel) : channel;
+    }
+
+    private boolean canUseSendfile(HttpServletRequest request, long length) {
+        if (!sendfileEnabled || length < sendfileMinSize) {
+            return false;
+        }
+        boolean supported = Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORTED_ATTR));
+        if (!supported) {
+            logger.debug("Sendfile not supported by connector, falling back to channel transfer");
+        }
+        return supported;
+    }
+}
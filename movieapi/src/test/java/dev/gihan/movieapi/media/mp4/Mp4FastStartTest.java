@@ -0,0 +1,122 @@
+package dev.gihan.movieapi.media.mp4;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class Mp4FastStartTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void movesMoovFirstAndShiftsChunkOffsets() throws Exception {
+        byte[] ftyp = box("ftyp", "isom\0\0\0\0".getBytes(StandardCharsets.ISO_8859_1));
+        byte[] payload = "AAAABBBBCCCC".getBytes(StandardCharsets.ISO_8859_1);
+        byte[] mdat = box("mdat", payload);
+        long dataStart = ftyp.length + 8;
+        byte[] moov = moov(new long[]{dataStart, dataStart + 4}, new long[]{dataStart + 8});
+        Path video = write(ftyp, mdat, moov);
+        // Scratch from a rewrite that was killed part way
+        Files.write(directory.resolve("video.mp4.faststart"), new byte[]{1, 2, 3});
+
+        assertEquals(Mp4FastStart.Result.REWRITTEN, Mp4FastStart.apply(video));
+
+        byte[] rewritten = Files.readAllBytes(video);
+        assertEquals(ftyp.length + mdat.length + moov.length, rewritten.length);
+        assertEquals("moov", type(rewritten, ftyp.length));
+        assertEquals("mdat", type(rewritten, ftyp.length + moov.length));
+
+        long shift = moov.length;
+        assertEquals(dataStart + shift, findStco(rewritten, "stco", 0));
+        assertEquals(dataStart + 4 + shift, findStco(rewritten, "stco", 1));
+        assertEquals(dataStart + 8 + shift, findStco(rewritten, "co64", 0));
+        assertEquals("CCCC", new String(rewritten, (int) (dataStart + 8 + shift), 4, StandardCharsets.ISO_8859_1));
+        try (Stream<Path> files = Files.list(directory)) {
+            assertTrue(files.noneMatch(file -> file.getFileName().toString().contains(".tmp-")));
+        }
+    }
+
+    @Test
+    void leavesFastStartFileUntouched() throws Exception {
+        byte[] ftyp = box("ftyp", new byte[8]);
+        byte[] moov = moov(new long[]{0}, new long[0]);
+        Path video = write(ftyp, moov, box("mdat", new byte[4]));
+        byte[] before = Files.readAllBytes(video);
+
+        assertEquals(Mp4FastStart.Result.ALREADY_FAST_START, Mp4FastStart.apply(video));
+        assertArrayEquals(before, Files.readAllBytes(video));
+    }
+
+    @Test
+    void leavesFileUntouchedWhenOffsetsPointOutsideMediaData() throws Exception {
+        byte[] ftyp = box("ftyp", new byte[8]);
+        Path video = write(ftyp, box("mdat", new byte[4]), moov(new long[]{3}, new long[0]));
+        byte[] before = Files.readAllBytes(video);
+
+        assertEquals(Mp4FastStart.Result.UNSUPPORTED, Mp4FastStart.apply(video));
+        assertArrayEquals(before, Files.readAllBytes(video));
+    }
+
+    @Test
+    void ignoresNonMp4Files() throws Exception {
+        Path video = Files.write(directory.resolve("video.mp4"), "not an mp4 file".getBytes(StandardCharsets.UTF_8));
+        assertEquals(Mp4FastStart.Result.NOT_MP4, Mp4FastStart.apply(video));
+    }
+
+    private Path write(byte[]... boxes) throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        for (byte[] box : boxes) {
+            out.write(box);
+        }
+        return Files.write(directory.resolve("video.mp4"), out.toByteArray());
+    }
+
+    /** moov with one track using 32-bit offsets and one using 64-bit offsets. */
+    private static byte[] moov(long[] stcoOffsets, long[] co64Offsets) throws Exception {
+        ByteBuffer stco = ByteBuffer.allocate(8 + 4 * stcoOffsets.length).putInt(0).putInt(stcoOffsets.length);
+        Arrays.stream(stcoOffsets).forEach(offset -> stco.putInt((int) offset));
+        ByteBuffer co64 = ByteBuffer.allocate(8 + 8 * co64Offsets.length).putInt(0).putInt(co64Offsets.length);
+        Arrays.stream(co64Offsets).forEach(co64::putLong);
+
+        ByteArrayOutputStream tracks = new ByteArrayOutputStream();
+        tracks.write(box("mvhd", new byte[12]));
+        tracks.write(track(box("stco", stco.array())));
+        tracks.write(track(box("co64", co64.array())));
+        return box("moov", tracks.toByteArray());
+    }
+
+    private static byte[] track(byte[] chunkOffsets) throws Exception {
+        return box("trak", box("mdia", box("minf", box("stbl", chunkOffsets))));
+    }
+
+    private static byte[] box(String type, byte[] body) {
+        return ByteBuffer.allocate(8 + body.length)
+                .putInt(8 + body.length)
+                .put(type.getBytes(StandardCharsets.ISO_8859_1))
+                .put(body)
+                .array();
+    }
+
+    private static String type(byte[] file, int offset) {
+        return new String(file, offset + 4, 4, StandardCharsets.ISO_8859_1);
+    }
+
+    /** Entry {@code index} of the first {@code stco}/{@code co64} box found by scanning for its type. */
+    private static long findStco(byte[] file, String type, int index) {
+        String text = new String(file, StandardCharsets.ISO_8859_1);
+        int body = text.indexOf(type) + 4;
+        ByteBuffer buffer = ByteBuffer.wrap(file);
+        return type.equals("stco") ?
+                Integer.toUnsignedLong(buffer.getInt(body + 8 + 4 * index)) : buffer.getLong(body + 8 + 8 * index);
+    }
+}
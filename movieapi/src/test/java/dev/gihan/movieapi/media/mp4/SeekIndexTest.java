@@ -0,0 +1,120 @@
+package dev.gihan.movieapi.media.mp4;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SeekIndexTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void mapsKeyframeTimesToSampleOffsets() throws Exception {
+        Path video = write(mp4("vide"));
+
+        SeekIndex index = SeekIndex.fromMp4(video);
+
+        assertNotNull(index);
+        assertEquals(2, index.size());
+        assertEquals(new SeekIndex.Entry(0, 100), index.floor(0));
+        assertEquals(new SeekIndex.Entry(0, 100), index.floor(1499));
+        // Sample 4 opens the second chunk
+        assertEquals(new SeekIndex.Entry(1500, 1000), index.floor(1500));
+        assertEquals(new SeekIndex.Entry(1500, 1000), index.floor(60_000));
+    }
+
+    @Test
+    void sidecarRoundTrips() throws Exception {
+        Path video = write(mp4("vide"));
+        SeekIndex index = SeekIndex.fromMp4(video);
+        Path sidecar = directory.resolve("video.mp4.seek");
+
+        index.write(sidecar);
+        SeekIndex read = SeekIndex.read(sidecar);
+
+        assertEquals(index.floor(2000), read.floor(2000));
+        assertTrue(read.matches(Files.size(video), Files.getLastModifiedTime(video).toMillis()));
+        assertFalse(read.matches(Files.size(video) + 1, Files.getLastModifiedTime(video).toMillis()));
+        // Header plus 12 bytes per keyframe
+        assertEquals(28 + 2 * 12, Files.size(sidecar));
+        try (var files = Files.list(directory)) {
+            assertEquals(2, files.count());
+        }
+    }
+
+    @Test
+    void emptyIndexRecordsTheSourceItCovers() throws Exception {
+        Path sidecar = directory.resolve("audio.mp4.seek");
+
+        SeekIndex.empty(1234, 5678).write(sidecar);
+        SeekIndex read = SeekIndex.read(sidecar);
+
+        assertEquals(0, read.size());
+        assertNull(read.floor(1000));
+        assertTrue(read.matches(1234, 5678));
+    }
+
+    @Test
+    void returnsNullWithoutVideoTrack() throws Exception {
+        assertNull(SeekIndex.fromMp4(write(mp4("soun"))));
+        assertNull(SeekIndex.fromMp4(write("not an mp4 file".getBytes(StandardCharsets.UTF_8))));
+    }
+
+    private Path write(byte[] content) throws Exception {
+        return Files.write(directory.resolve("video.mp4"), content);
+    }
+
+    /**
+     * Six samples of 500ms in two chunks of three at offsets 100 and 1000; samples 1 and 4 are
+     * keyframes.
+     */
+    private static byte[] mp4(String handler) throws Exception {
+        byte[] mdhd = fullBox("mdhd", ints(0, 0, 1000, 3000, 0));
+        byte[] hdlr = fullBox("hdlr", concat(ints(0), handler.getBytes(StandardCharsets.ISO_8859_1), ints(0, 0, 0)));
+        byte[] stbl = box("stbl", concat(
+                fullBox("stts", ints(1, 6, 500)),
+                fullBox("stsc", ints(1, 1, 3, 1)),
+                fullBox("stsz", ints(0, 6, 10, 20, 30, 40, 50, 60)),
+                fullBox("stss", ints(2, 1, 4)),
+                fullBox("stco", ints(2, 100, 1000))));
+        byte[] mdia = box("mdia", concat(mdhd, hdlr, box("minf", stbl)));
+        byte[] moov = box("moov", box("trak", mdia));
+        return concat(box("ftyp", new byte[8]), moov, box("mdat", new byte[16]));
+    }
+
+    private static byte[] fullBox(String type, byte[] body) throws Exception {
+        return box(type, concat(new byte[4], body));
+    }
+
+    private static byte[] box(String type, byte[] body) {
+        return ByteBuffer.allocate(8 + body.length)
+                .putInt(8 + body.length)
+                .put(type.getBytes(StandardCharsets.ISO_8859_1))
+                .put(body)
+                .array();
+    }
+
+    private static byte[] ints(int... values) {
+        ByteBuffer buffer = ByteBuffer.allocate(values.length * 4);
+        for (int value : values) {
+            buffer.putInt(value);
+        }
+        return buffer.array();
+    }
+
+    private static byte[] concat(byte[]... parts) throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        for (byte[] part : parts) {
+            out.write(part);
+        }
+        return out.toByteArray();
+    }
+}
@@ -0,0 +1,177 @@
+package dev.gihan.movieapi.media.probe;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MediaProbeTest {
+
+    private static final byte[] UNKNOWN_SIZE = {0x01, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF,
+            (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF};
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void readsMp4TracksFromTheMovieBox() throws Exception {
+        Path video = write("movie.mp4", mp4());
+
+        MediaInfo info = MediaProbe.probe(video);
+
+        assertNotNull(info);
+        assertEquals("mp4", info.container());
+        assertEquals(10_000L, info.durationMillis());
+        assertEquals("h264", info.videoCodec());
+        assertEquals("aac", info.audioCodec());
+        assertEquals(1280, info.width());
+        assertEquals(720, info.height());
+        assertEquals(25.0, info.frameRate());
+        // 250 samples of 5000 bytes and 469 of 400 bytes over ten seconds
+        assertEquals(1000, info.videoBitrateKbps());
+        assertEquals(150, info.audioBitrateKbps());
+        assertEquals(MediaInfo.kbps(Files.size(video), 10_000L), info.bitrateKbps());
+    }
+
+    @Test
+    void readsWebmHeadersAndSkipsClusters() throws Exception {
+        MediaInfo info = MediaProbe.probe(write("movie.webm", webm(true)));
+
+        assertNotNull(info);
+        assertEquals("webm", info.container());
+        assertEquals(12_345L, info.durationMillis());
+        assertEquals("vp9", info.videoCodec());
+        assertEquals("opus", info.audioCodec());
+        assertEquals(1920, info.width());
+        assertEquals(1080, info.height());
+        assertEquals(30.0, info.frameRate());
+        assertNull(info.videoBitrateKbps());
+    }
+
+    @Test
+    void liveRecordedWebmHasNoDuration() throws Exception {
+        MediaInfo info = MediaProbe.probe(write("recording.webm", webm(false)));
+
+        assertNotNull(info);
+        assertNull(info.durationMillis());
+        assertNull(info.bitrateKbps());
+        assertEquals(1080, info.height());
+    }
+
+    @Test
+    void returnsNullForOtherAndTruncatedFiles() throws Exception {
+        assertNull(MediaProbe.probe(write("notes.txt", "not a video".getBytes(StandardCharsets.UTF_8))));
+        byte[] mp4 = mp4();
+        byte[] truncated = new byte[mp4.length / 2];
+        System.arraycopy(mp4, 0, truncated, 0, truncated.length);
+        assertNull(MediaProbe.probe(write("truncated.mp4", truncated)));
+        byte[] webm = webm(true);
+        byte[] cut = new byte[40];
+        System.arraycopy(webm, 0, cut, 0, cut.length);
+        assertNull(MediaProbe.probe(write("truncated.webm", cut)));
+    }
+
+    private Path write(String name, byte[] content) throws Exception {
+        return Files.write(directory.resolve(name), content);
+    }
+
+    /** Ten seconds of 1280x720 H.264 at 25 fps and AAC, tables only. */
+    private static byte[] mp4() throws Exception {
+        byte[] mvhd = fullBox("mvhd", concat(ints(0, 0, 1000, 10_000), new byte[80]));
+        // Track header: times, id, duration, then layer, volume and matrix before the 16.16 size
+        byte[] tkhd = fullBox("tkhd", concat(ints(0, 0, 1, 0, 0), new byte[52], ints(1280 << 16, 720 << 16)));
+        byte[] avc1 = box("avc1", concat(new byte[24],
+                ByteBuffer.allocate(4).putShort((short) 1280).putShort((short) 720).array(), new byte[50]));
+        byte[] video = box("trak", concat(tkhd, box("mdia", concat(
+                fullBox("mdhd", ints(0, 0, 90_000, 900_000, 0)),
+                hdlr("vide"),
+                box("minf", box("stbl", concat(
+                        fullBox("stsd", concat(ints(1), avc1)),
+                        fullBox("stsz", ints(5000, 250)))))))));
+        byte[] audio = box("trak", box("mdia", concat(
+                fullBox("mdhd", ints(0, 0, 48_000, 480_000, 0)),
+                hdlr("soun"),
+                box("minf", box("stbl", concat(
+                        fullBox("stsd", concat(ints(1), box("mp4a", new byte[28]))),
+                        fullBox("stsz", ints(400, 469))))))));
+        byte[] ftyp = box("ftyp", concat("isom".getBytes(StandardCharsets.ISO_8859_1), ints(0),
+                "isom".getBytes(StandardCharsets.ISO_8859_1)));
+        return concat(ftyp, box("moov", concat(mvhd, video, audio)), box("mdat", new byte[64]));
+    }
+
+    /** VP9 1080p at 30 fps with Opus, in a segment and cluster of unknown size as live muxers write. */
+    private static byte[] webm(boolean withDuration) throws Exception {
+        byte[] info = element(0x1549A966, concat(
+                element(0x2AD7B1, uint(1_000_000)),
+                withDuration ? element(0x4489, ByteBuffer.allocate(8).putDouble(12_345.0).array()) : new byte[0]));
+        byte[] videoTrack = element(0xAE, concat(
+                element(0x83, uint(1)),
+                element(0x86, "V_VP9".getBytes(StandardCharsets.US_ASCII)),
+                element(0x23E383, uint(33_333_333)),
+                element(0xE0, concat(element(0xB0, uint(1920)), element(0xBA, uint(1080))))));
+        byte[] audioTrack = element(0xAE, concat(
+                element(0x83, uint(2)),
+                element(0x86, "A_OPUS".getBytes(StandardCharsets.US_ASCII))));
+        byte[] cluster = concat(id(0x1F43B675), UNKNOWN_SIZE, new byte[256]);
+        return concat(
+                element(0x1A45DFA3, element(0x4282, "webm".getBytes(StandardCharsets.US_ASCII))),
+                id(0x18538067), UNKNOWN_SIZE,
+                info, element(0x1654AE6B, concat(videoTrack, audioTrack)), cluster);
+    }
+
+    private static byte[] element(int id, byte[] body) throws Exception {
+        // Eight byte sizes are valid for any element and keep the encoder trivial
+        return concat(id(id), ByteBuffer.allocate(8).putLong(0x0100000000000000L | body.length).array(), body);
+    }
+
+    private static byte[] id(int id) {
+        int length = 4 - Integer.numberOfLeadingZeros(id) / 8;
+        byte[] bytes = new byte[length];
+        for (int i = 0; i < length; i++) {
+            bytes[i] = (byte) (id >>> (8 * (length - 1 - i)));
+        }
+        return bytes;
+    }
+
+    private static byte[] uint(long value) {
+        return ByteBuffer.allocate(8).putLong(value).array();
+    }
+
+    private static byte[] hdlr(String handler) throws Exception {
+        return fullBox("hdlr", concat(ints(0), handler.getBytes(StandardCharsets.ISO_8859_1), ints(0, 0, 0)));
+    }
+
+    private static byte[] fullBox(String type, byte[] body) throws Exception {
+        return box(type, concat(new byte[4], body));
+    }
+
+    private static byte[] box(String type, byte[] body) {
+        return ByteBuffer.allocate(8 + body.length)
+                .putInt(8 + body.length)
+                .put(type.getBytes(StandardCharsets.ISO_8859_1))
+                .put(body)
+                .array();
+    }
+
+    private static byte[] ints(int... values) {
+        ByteBuffer buffer = ByteBuffer.allocate(values.length * 4);
+        for (int value : values) {
+            buffer.putInt(value);
+        }
+        return buffer.array();
+    }
+
+    private static byte[] concat(byte[]... parts) throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        for (byte[] part : parts) {
+            out.write(part);
+        }
+        return out.toByteArray();
+    }
+}
@@ -0,0 +1,46 @@
+package dev.gihan.movieapi.repository;
+
+import dev.gihan.movieapi.model.Movie;
+import dev.gihan.movieapi.model.option.Genre;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest
+class MovieRepositoryTest {
+
+    @Autowired
+    private MovieRepository movieRepository;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Test
+    void savingALoadedMovieKeepsViewsFlushedSinceItWasRead() {
+        Movie movie = new Movie();
+        movie.setTitle("Arrival");
+        movie.setVideoUrl("/api/files/videos/arrival.mp4");
+        movie.setGenre(Genre.values()[0]);
+        Long id = entityManager.persistFlushFind(movie).getId();
+        entityManager.clear();
+
+        // An admin edit loads the movie before the view counter flushes
+        Movie loaded = movieRepository.findById(id).orElseThrow();
+        entityManager.getEntityManager()
+                .createNativeQuery("UPDATE movies SET view_count = view_count + ? WHERE id = ?")
+                .setParameter(1, 5L)
+                .setParameter(2, id)
+                .executeUpdate();
+
+        loaded.setFeatured(true);
+        movieRepository.saveAndFlush(loaded);
+        entityManager.clear();
+
+        Movie saved = movieRepository.findById(id).orElseThrow();
+        assertTrue(saved.getFeatured());
+        assertEquals(5L, saved.getViewCount());
+    }
+}
@@ -0,0 +1,308 @@
+package dev.gihan.movieapi.service.impl;
+
+import dev.gihan.movieapi.dto.requestDto.UploadInitRequestDto;
+import dev.gihan.movieapi.dto.responseDto.FileUploadResponseDto;
+import dev.gihan.movieapi.dto.responseDto.UploadSessionDto;
+import dev.gihan.movieapi.exception.BusinessException;
+import dev.gihan.movieapi.model.StoredFile;
+import dev.gihan.movieapi.model.UploadChunk;
+import dev.gihan.movieapi.model.UploadSession;
+import dev.gihan.movieapi.model.option.UploadStatus;
+import dev.gihan.movieapi.repository.UploadChunkRepository;
+import dev.gihan.movieapi.repository.UploadSessionRepository;
+import dev.gihan.movieapi.service.ContentStoreService;
+import dev.gihan.movieapi.service.FileUploadService;
+import dev.gihan.movieapi.storage.LocalMediaStorage;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.util.unit.DataSize;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class ChunkedUploadServiceImplTest {
+
+    private static final int CHUNK = 1000;
+
+    @TempDir
+    Path tempDir;
+
+    private final Map<String, UploadSession> sessions = new ConcurrentHashMap<>();
+    private final Set<String> chunks = ConcurrentHashMap.newKeySet();
+    private final FileUploadService fileUploadService = mock(FileUploadService.class);
+    private ChunkedUploadServiceImpl uploadService;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        UploadSessionRepository sessionRepository = mock(UploadSessionRepository.class);
+        when(sessionRepository.save(any(UploadSession.class))).thenAnswer(invocation -> {
+            UploadSession session = invocation.getArgument(0);
+            sessions.put(session.getId(), session);
+            return session;
+        });
+        when(sessionRepository.findById(anyString())).thenAnswer(invocation ->
+                Optional.ofNullable(sessions.get(invocation.<String>getArgument(0))));
+        when(sessionRepository.updateStatus(anyString(), any(), any())).thenAnswer(invocation -> {
+            UploadSession session = sessions.get(invocation.<String>getArgument(0));
+            if (session == null || session.getStatus() != invocation.getArgument(1)) {
+                return 0;
+            }
+            session.setStatus(invocation.getArgument(2));
+            return 1;
+        });
+        when(sessionRepository.extendExpiry(anyString(), any())).thenAnswer(invocation -> {
+            UploadSession session = sessions.get(invocation.<String>getArgument(0));
+            if (session == null || session.getStatus() != UploadStatus.UPLOADING) {
+                return 0;
+            }
+            session.setExpiresAt(invocation.getArgument(1));
+            return 1;
+        });
+        when(sessionRepository.findByExpiresAtBeforeAndStatusIn(any(), anyCollection())).thenAnswer(invocation ->
+                sessions.values().stream()
+                        .filter(session -> session.getExpiresAt().isBefore(invocation.getArgument(0)))
+                        .filter(session -> invocation.<Collection<?>>getArgument(1).contains(session.getStatus()))
+                        .toList());
+        when(sessionRepository.deleteExpired(anyString(), any(), any())).thenAnswer(invocation -> {
+            UploadSession session = sessions.get(invocation.<String>getArgument(0));
+            if (session == null || session.getStatus() != invocation.getArgument(1)
+                    || !session.getExpiresAt().isBefore(invocation.getArgument(2))) {
+                return 0;
+            }
+            sessions.remove(session.getId());
+            return 1;
+        });
+
+        UploadChunkRepository chunkRepository = mock(UploadChunkRepository.class);
+        when(chunkRepository.save(any(UploadChunk.class))).thenAnswer(invocation -> {
+            UploadChunk chunk = invocation.getArgument(0);
+            chunks.add(chunk.getUploadId() + ":" + chunk.getChunkIndex());
+            return chunk;
+        });
+        when(chunkRepository.existsByUploadIdAndChunkIndex(anyString(), anyInt())).thenAnswer(invocation ->
+                chunks.contains(invocation.getArgument(0) + ":" + invocation.getArgument(1)));
+        when(chunkRepository.countByUploadId(anyString())).thenAnswer(invocation ->
+                (long) findIndexes(invocation.getArgument(0)).size());
+        when(chunkRepository.findChunkIndexes(anyString())).thenAnswer(invocation ->
+                findIndexes(invocation.getArgument(0)));
+
+        when(fileUploadService.isAllowedVideoType("video/mp4")).thenReturn(true);
+        // Content-addressed like the real content store, which has its own tests
+        LocalMediaStorage storage = new LocalMediaStorage(tempDir);
+        when(fileUploadService.storeVideo(any(Path.class), anyString(), anyString())).thenAnswer(invocation -> {
+            Path file = invocation.getArgument(0);
+            StoredFile stored = new StoredFile();
+            stored.setDirectory("videos");
+            stored.setSha256(HexFormat.of().formatHex(
+                    MessageDigest.getInstance("SHA-256").digest(Files.readAllBytes(file))));
+            stored.setPath("videos/" + stored.getSha256() + invocation.getArgument(1));
+            boolean duplicate = storage.stat(stored.getPath()).isPresent();
+            if (duplicate) {
+                Files.delete(file);
+            } else {
+                storage.store(stored.getPath(), file);
+            }
+            return new ContentStoreService.Stored(stored, duplicate);
+        });
+
+        uploadService = new ChunkedUploadServiceImpl();
+        ReflectionTestUtils.setField(uploadService, "uploadSessionRepository", sessionRepository);
+        ReflectionTestUtils.setField(uploadService, "uploadChunkRepository", chunkRepository);
+        ReflectionTestUtils.setField(uploadService, "fileUploadService", fileUploadService);
+        ReflectionTestUtils.setField(uploadService, "uploadDir", tempDir.toString());
+        ReflectionTestUtils.setField(uploadService, "mediaStorage", storage);
+        ReflectionTestUtils.setField(uploadService, "chunkSize", DataSize.ofBytes(CHUNK));
+    }
+
+    @Test
+    void assemblesChunksSentInParallelAndOutOfOrder() throws Exception {
+        byte[] video = new byte[CHUNK * 7 + 123];
+        new Random(7).nextBytes(video);
+        UploadSessionDto session = uploadService.initiate(request(video.length));
+        assertEquals(8, session.getTotalChunks());
+
+        List<Integer> order = new ArrayList<>(session.getMissingChunks());
+        Collections.shuffle(order, new Random(3));
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<?>> writes = new ArrayList<>();
+            for (int index : order) {
+                writes.add(executor.submit(() -> {
+                    sendChunk(session.getUploadId(), index, video);
+                    return null;
+                }));
+            }
+            for (Future<?> write : writes) {
+                write.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+        // A retried chunk is accepted without being recorded twice
+        sendChunk(session.getUploadId(), 2, video);
+
+        FileUploadResponseDto response = uploadService.complete(session.getUploadId());
+
+        Path published = tempDir.resolve("videos").resolve(response.getFileName());
+        assertArrayEquals(video, Files.readAllBytes(published));
+        assertEquals(HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(video)) + ".mp4",
+                response.getFileName());
+        assertFalse(Files.exists(tempDir.resolve("incoming").resolve(session.getUploadId() + ".part")));
+        assertEquals(UploadStatus.COMPLETED, sessions.get(session.getUploadId()).getStatus());
+        verify(fileUploadService).processUploadedVideo(response.getFileName());
+    }
+
+    @Test
+    void sameContentUploadedTwiceIsStoredAndProcessedOnce() throws Exception {
+        byte[] video = new byte[CHUNK * 2 + 10];
+        new Random(11).nextBytes(video);
+
+        List<String> names = new ArrayList<>();
+        for (int upload = 0; upload < 2; upload++) {
+            UploadSessionDto session = uploadService.initiate(request(video.length));
+            for (int index = 0; index < session.getTotalChunks(); index++) {
+                sendChunk(session.getUploadId(), index, video);
+            }
+            names.add(uploadService.complete(session.getUploadId()).getFileName());
+            assertFalse(Files.exists(partFile(session.getUploadId())));
+        }
+
+        assertEquals(names.get(0), names.get(1));
+        verify(fileUploadService, times(1)).processUploadedVideo(names.get(0));
+        try (Stream<Path> files = Files.list(tempDir.resolve("videos"))) {
+            assertEquals(1, files.count());
+        }
+    }
+
+    @Test
+    void reportsMissingChunksSoClientsCanResume() throws Exception {
+        byte[] video = new byte[CHUNK * 3];
+        UploadSessionDto session = uploadService.initiate(request(video.length));
+        sendChunk(session.getUploadId(), 1, video);
+
+        UploadSessionDto status = uploadService.getStatus(session.getUploadId());
+
+        assertEquals(List.of(0, 2), status.getMissingChunks());
+        assertEquals(CHUNK, status.getReceivedBytes());
+        assertThrows(BusinessException.class, () -> uploadService.complete(session.getUploadId()));
+    }
+
+    @Test
+    void rejectsMisalignedShortAndTruncatedChunks() throws Exception {
+        UploadSessionDto session = uploadService.initiate(request(CHUNK * 2));
+        String id = session.getUploadId();
+
+        assertThrows(BusinessException.class, () ->
+                uploadService.writeChunk(id, 10, CHUNK, new ByteArrayInputStream(new byte[CHUNK])));
+        assertThrows(BusinessException.class, () ->
+                uploadService.writeChunk(id, 0, CHUNK - 1, new ByteArrayInputStream(new byte[CHUNK - 1])));
+        // Connection dropped halfway through the body
+        assertThrows(IOException.class, () ->
+                uploadService.writeChunk(id, CHUNK, CHUNK, new ByteArrayInputStream(new byte[CHUNK / 2])));
+
+        assertEquals(List.of(0, 1), uploadService.getStatus(id).getMissingChunks());
+    }
+
+    @Test
+    void chunksExtendTheResumeWindow() throws Exception {
+        byte[] video = new byte[CHUNK * 2];
+        UploadSessionDto session = uploadService.initiate(request(video.length));
+        UploadSession stored = sessions.get(session.getUploadId());
+        stored.setExpiresAt(LocalDateTime.now().plusMinutes(1));
+
+        sendChunk(session.getUploadId(), 0, video);
+
+        assertTrue(stored.getExpiresAt().isAfter(LocalDateTime.now().plusHours(23)));
+    }
+
+    @Test
+    void sweeperLeavesSessionsBeingFinalizedAlone() throws Exception {
+        byte[] video = new byte[CHUNK];
+        UploadSessionDto abandoned = uploadService.initiate(request(video.length));
+        UploadSessionDto finalizing = uploadService.initiate(request(video.length));
+        sessions.values().forEach(session -> session.setExpiresAt(LocalDateTime.now().minusMinutes(1)));
+        sessions.get(finalizing.getUploadId()).setStatus(UploadStatus.COMPLETING);
+
+        uploadService.expireSessions();
+
+        assertFalse(sessions.containsKey(abandoned.getUploadId()));
+        assertFalse(Files.exists(partFile(abandoned.getUploadId())));
+        assertTrue(sessions.containsKey(finalizing.getUploadId()));
+        assertTrue(Files.exists(partFile(finalizing.getUploadId())));
+    }
+
+    @Test
+    void failedQueueingReopensTheSessionForAnotherFinalize() throws Exception {
+        byte[] video = new byte[CHUNK];
+        new Random(5).nextBytes(video);
+        UploadSessionDto session = uploadService.initiate(request(video.length));
+        sendChunk(session.getUploadId(), 0, video);
+        doThrow(new IllegalStateException("queue down")).doNothing()
+                .when(fileUploadService).processUploadedVideo(anyString());
+
+        assertThrows(RuntimeException.class, () -> uploadService.complete(session.getUploadId()));
+        assertEquals(UploadStatus.UPLOADING, sessions.get(session.getUploadId()).getStatus());
+
+        FileUploadResponseDto response = uploadService.complete(session.getUploadId());
+        assertArrayEquals(video, Files.readAllBytes(tempDir.resolve("videos").resolve(response.getFileName())));
+        assertEquals(UploadStatus.COMPLETED, sessions.get(session.getUploadId()).getStatus());
+    }
+
+    private Path partFile(String uploadId) {
+        return tempDir.resolve("incoming").resolve(uploadId + ".part");
+    }
+
+    private void sendChunk(String uploadId, int index, byte[] video) throws IOException {
+        int from = index * CHUNK;
+        byte[] chunk = Arrays.copyOfRange(video, from, Math.min(video.length, from + CHUNK));
+        uploadService.writeChunk(uploadId, from, chunk.length, new ByteArrayInputStream(chunk));
+    }
+
+    private List<Integer> findIndexes(String uploadId) {
+        return chunks.stream()
+                .filter(key -> key.startsWith(uploadId + ":"))
+                .map(key -> Integer.parseInt(key.substring(key.indexOf(':') + 1)))
+                .sorted()
+                .toList();
+    }
+
+    private static UploadInitRequestDto request(long size) {
+        UploadInitRequestDto request = new UploadInitRequestDto();
+        request.setFileName("Feature Film.MP4");
+        request.setContentType("video/mp4");
+        request.setFileSize(size);
+        return request;
+    }
+}
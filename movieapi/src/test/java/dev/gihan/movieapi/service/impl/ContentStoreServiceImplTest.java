@@ -0,0 +1,125 @@
+package dev.gihan.movieapi.service.impl;
+
+import dev.gihan.movieapi.exception.BusinessException;
+import dev.gihan.movieapi.model.StoredFile;
+import dev.gihan.movieapi.repository.StoredFileRepository;
+import dev.gihan.movieapi.service.ContentStoreService;
+import dev.gihan.movieapi.storage.LocalMediaStorage;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class ContentStoreServiceImplTest {
+
+    private static final String SHA = "ab" + "cd" + "0".repeat(60);
+
+    @TempDir
+    Path tempDir;
+
+    private final Map<String, StoredFile> files = new ConcurrentHashMap<>();
+    private final StoredFileRepository repository = mock(StoredFileRepository.class);
+    private ContentStoreServiceImpl contentStore;
+
+    @BeforeEach
+    void setUp() {
+        when(repository.findByDirectoryAndSha256(anyString(), anyString())).thenAnswer(invocation ->
+                files.values().stream()
+                        .filter(file -> file.getDirectory().equals(invocation.getArgument(0))
+                                && file.getSha256().equals(invocation.getArgument(1)))
+                        .findFirst());
+        when(repository.findByPath(anyString())).thenAnswer(invocation ->
+                Optional.ofNullable(files.get(invocation.<String>getArgument(0))));
+        when(repository.saveAndFlush(any(StoredFile.class))).thenAnswer(invocation -> {
+            StoredFile file = invocation.getArgument(0);
+            files.put(file.getPath(), file);
+            return file;
+        });
+        when(repository.retain(anyString())).thenAnswer(invocation -> adjust(invocation.getArgument(0), 1));
+        when(repository.release(anyString())).thenAnswer(invocation -> adjust(invocation.getArgument(0), -1));
+        when(repository.deleteUnreferenced(anyString())).thenAnswer(invocation -> {
+            StoredFile file = files.get(invocation.<String>getArgument(0));
+            if (file == null || file.getReferenceCount() > 0) {
+                return 0;
+            }
+            files.remove(file.getPath());
+            return 1;
+        });
+
+        contentStore = new ContentStoreServiceImpl();
+        ReflectionTestUtils.setField(contentStore, "storedFileRepository", repository);
+        ReflectionTestUtils.setField(contentStore, "mediaStorage", new LocalMediaStorage(tempDir));
+    }
+
+    @Test
+    void keepsOneCopyOfIdenticalUploads() throws Exception {
+        ContentStoreService.Stored first = contentStore.store(upload("first"), "images", SHA, ".png", "image/png", 5);
+        Path second = upload("second");
+        ContentStoreService.Stored duplicate = contentStore.store(second, "images", SHA, ".png", "image/png", 5);
+
+        assertFalse(first.duplicate());
+        assertTrue(duplicate.duplicate());
+        assertEquals("images/ab/cd/" + SHA + ".png", duplicate.file().getPath());
+        assertTrue(Files.exists(tempDir.resolve(first.file().getPath())));
+        assertFalse(Files.exists(second));
+        assertEquals(1, files.size());
+    }
+
+    @Test
+    void keepsVideosFlatInTheVideoDirectory() throws Exception {
+        ContentStoreService.Stored stored = contentStore.store(upload("video"), "videos", SHA, ".mp4", "video/mp4", 5);
+
+        assertEquals(SHA + ".mp4", stored.file().getFileName());
+        assertTrue(Files.exists(tempDir.resolve("videos").resolve(SHA + ".mp4")));
+    }
+
+    @Test
+    void deletesBytesOnlyOnceNoMovieReferencesThem() throws Exception {
+        String path = contentStore.store(upload("poster"), "images", SHA, ".png", "image/png", 5).file().getPath();
+        String url = "https://cdn.example.com/uploads/" + path;
+
+        contentStore.updateReferences(List.of(), List.of(url, "https://elsewhere.example.com/poster.png"));
+        assertThrows(BusinessException.class, () -> contentStore.delete(path));
+        assertTrue(Files.exists(tempDir.resolve(path)));
+
+        // An update that keeps the URL neither releases nor retakes it
+        contentStore.updateReferences(List.of(url), List.of(url));
+        assertEquals(1, files.get(path).getReferenceCount());
+
+        contentStore.updateReferences(List.of(url), List.of());
+        contentStore.delete("/uploads/" + path);
+
+        assertFalse(Files.exists(tempDir.resolve(path)));
+        assertTrue(files.isEmpty());
+        verify(repository, never()).retain("poster.png");
+    }
+
+    private Path upload(String content) throws Exception {
+        Path incoming = Files.createDirectories(tempDir.resolve("incoming"));
+        return Files.writeString(incoming.resolve(content + ".part"), content);
+    }
+
+    private int adjust(String path, int delta) {
+        StoredFile file = files.get(path);
+        if (file == null || file.getReferenceCount() + delta < 0) {
+            return 0;
+        }
+        file.setReferenceCount(file.getReferenceCount() + delta);
+        return 1;
+    }
+}
@@ -1,14 +1,65 @@
 package dev.gihan.movieapi.service.impl;
 
+import dev.gihan.movieapi.dto.responseDto.FileUploadResponseDto;
+import dev.gihan.movieapi.exception.BusinessException;
+import dev.gihan.movieapi.model.StoredFile;
+import dev.gihan.movieapi.model.option.MediaJobType;
+import dev.gihan.movieapi.repository.StoredFileRepository;
+import dev.gihan.movieapi.service.ContentStoreService;
 import dev.gihan.movieapi.service.FileUploadService;
+import dev.gihan.movieapi.service.ImageVariantService;
+import dev.gihan.movieapi.service.MediaJobService;
+import dev.gihan.movieapi.storage.LocalMediaStorage;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.mock.web.MockHttpServletRequest;
 import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.util.unit.DataSize;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.util.HexFormat;
+import java.util.Optional;
+import java.util.Random;
+import java.util.stream.Stream;
 
 import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
 
 class FileUploadServiceImplTest {
 
+    private static final String BOUNDARY = "----upload-boundary";
+
     private final FileUploadService fileUploadService = new FileUploadServiceImpl();
+    private final ImageVariantService imageVariantService = mock(ImageVariantService.class);
+    private final MediaJobService mediaJobService = mock(MediaJobService.class);
+
+    @TempDir
+    Path tempDir;
+
+    @BeforeEach
+    void setUp() {
+        StoredFileRepository storedFileRepository = mock(StoredFileRepository.class);
+        when(storedFileRepository.findByDirectoryAndSha256(anyString(), anyString())).thenReturn(Optional.empty());
+        when(storedFileRepository.saveAndFlush(any(StoredFile.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        ContentStoreServiceImpl contentStoreService = new ContentStoreServiceImpl();
+        ReflectionTestUtils.setField(contentStoreService, "storedFileRepository", storedFileRepository);
+        ReflectionTestUtils.setField(contentStoreService, "mediaStorage", new LocalMediaStorage(tempDir));
+        ReflectionTestUtils.setField(fileUploadService, "contentStoreService", contentStoreService);
+        ReflectionTestUtils.setField(fileUploadService, "imageVariantService", imageVariantService);
+        ReflectionTestUtils.setField(fileUploadService, "mediaJobService", mediaJobService);
+        ReflectionTestUtils.setField(fileUploadService, "uploadDir", tempDir.toString());
+    }
 
     @Test
     void acceptsQuicktimeVideo() {
@@ -21,5 +72,116 @@ class FileUploadServiceImplTest {
         MockMultipartFile file = new MockMultipartFile("file", "sample.xyz", "video/xyz", new byte[10]);
         assertFalse(fileUploadService.isValidVideoFile(file));
     }
-}
 
+    @Test
+    void streamsFilePartToDiskWithSizeAndChecksum() throws Exception {
+        byte[] image = new byte[300_000];
+        new Random(11).nextBytes(image);
+
+        FileUploadResponseDto response = fileUploadService.uploadImage(multipart("poster.png", "image/png", image));
+
+        String sha256 = HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(image));
+        assertArrayEquals(image, Files.readAllBytes(tempDir.resolve("images").resolve(response.getFileName())));
+        assertEquals(image.length, response.getFileSize());
+        assertEquals(sha256, response.getSha256());
+        // Content-addressed under two levels of hash prefix
+        assertEquals(sha256.substring(0, 2) + "/" + sha256.substring(2, 4) + "/" + sha256 + ".png",
+                response.getFileName());
+        assertEquals("/uploads/images/" + response.getFileName(), response.getFileUrl());
+        assertEquals(0, countFiles(tempDir.resolve("incoming")));
+        verify(imageVariantService).scheduleVariants("images/" + response.getFileName());
+    }
+
+    @Test
+    void storesReceivedVideoUnderItsContentHash() throws Exception {
+        byte[] video = new byte[200_000];
+        new Random(13).nextBytes(video);
+        Path staged = Files.write(Files.createDirectories(tempDir.resolve("incoming")).resolve("upload.part"), video);
+
+        ContentStoreService.Stored stored = fileUploadService.storeVideo(staged, ".mp4", "video/mp4");
+
+        String sha256 = HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(video));
+        assertFalse(stored.duplicate());
+        assertEquals("videos/" + sha256 + ".mp4", stored.file().getPath());
+        assertEquals(video.length, stored.file().getSize());
+        assertArrayEquals(video, Files.readAllBytes(tempDir.resolve(stored.file().getPath())));
+        assertFalse(Files.exists(staged));
+    }
+
+    @Test
+    void appliesFastStartBeforePublishingVideo() throws Exception {
+        byte[] ftyp = box("ftyp", "isom\0\0\0\0".getBytes(StandardCharsets.ISO_8859_1));
+        byte[] mdat = box("mdat", "AAAABBBB".getBytes(StandardCharsets.ISO_8859_1));
+        ByteBuffer stco = ByteBuffer.allocate(12).putInt(0).putInt(1).putInt(ftyp.length + 8);
+        byte[] moov = box("moov", box("trak", box("mdia", box("minf", box("stbl", box("stco", stco.array()))))));
+        ByteArrayOutputStream video = new ByteArrayOutputStream();
+        video.write(ftyp);
+        video.write(mdat);
+        video.write(moov);
+
+        FileUploadResponseDto response =
+                fileUploadService.uploadVideo(multipart("movie.mp4", "video/mp4", video.toByteArray()));
+
+        // Named by the bytes that are published, which are served as immutable
+        byte[] published = Files.readAllBytes(tempDir.resolve("videos").resolve(response.getFileName()));
+        assertEquals("moov", new String(published, ftyp.length + 4, 4, StandardCharsets.ISO_8859_1));
+        String sha256 = HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(published));
+        assertEquals(sha256, response.getSha256());
+        assertEquals(sha256 + ".mp4", response.getFileName());
+        verify(mediaJobService).enqueue(MediaJobType.PREPARE_VIDEO, response.getFileName());
+    }
+
+    @Test
+    void rejectsOversizedFileWithoutLeavingPartialData() throws Exception {
+        ReflectionTestUtils.setField(fileUploadService, "maxFileSize", DataSize.ofBytes(1000));
+
+        assertThrows(BusinessException.class, () ->
+                fileUploadService.uploadImage(multipart("poster.png", "image/png", new byte[5000])));
+
+        assertEquals(0, countFiles(tempDir.resolve("incoming")));
+        assertFalse(Files.exists(tempDir.resolve("images")));
+    }
+
+    @Test
+    void rejectsDisallowedTypeBeforeWriting() {
+        assertThrows(BusinessException.class, () ->
+                fileUploadService.uploadImage(multipart("script.svg", "image/svg+xml", new byte[100])));
+
+        assertFalse(Files.exists(tempDir.resolve("incoming")));
+    }
+
+    // A form field ahead of the file, as browsers send when other inputs precede it
+    private static MockHttpServletRequest multipart(String fileName, String contentType, byte[] content) {
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        body.writeBytes(("--" + BOUNDARY + "\r\n"
+                + "Content-Disposition: form-data; name=\"title\"\r\n\r\n"
+                + "Poster\r\n"
+                + "--" + BOUNDARY + "\r\n"
+                + "Content-Disposition: form-data; name=\"file\"; filename=\"" + fileName + "\"\r\n"
+                + "Content-Type: " + contentType + "\r\n\r\n").getBytes(StandardCharsets.US_ASCII));
+        body.writeBytes(content);
+        body.writeBytes(("\r\n--" + BOUNDARY + "--\r\n").getBytes(StandardCharsets.US_ASCII));
+
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/api/admin/upload/image");
+        request.setContentType("multipart/form-data; boundary=" + BOUNDARY);
+        request.setContent(body.toByteArray());
+        return request;
+    }
+
+    private static byte[] box(String type, byte[] body) {
+        return ByteBuffer.allocate(8 + body.length)
+                .putInt(8 + body.length)
+                .put(type.getBytes(StandardCharsets.ISO_8859_1))
+                .put(body)
+                .array();
+    }
+
+    private static long countFiles(Path directory) throws Exception {
+        if (!Files.exists(directory)) {
+            return 0;
+        }
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.count();
+        }
+    }
+}
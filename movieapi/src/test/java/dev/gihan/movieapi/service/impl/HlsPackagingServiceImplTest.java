@@ -0,0 +1,100 @@
+package dev.gihan.movieapi.service.impl;
+
+import dev.gihan.movieapi.media.hls.ByteChunkHlsSegmenter;
+import dev.gihan.movieapi.storage.LocalMediaStorage;
+import dev.gihan.movieapi.storage.S3MediaStorage;
+import dev.gihan.movieapi.storage.S3StandInServer;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.ByteArrayInputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class HlsPackagingServiceImplTest {
+
+    @TempDir
+    Path tempDir;
+
+    private HlsPackagingServiceImpl hlsPackagingService;
+    private Path videoDirectory;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        videoDirectory = Files.createDirectories(tempDir.resolve("videos"));
+        hlsPackagingService = new HlsPackagingServiceImpl();
+        ReflectionTestUtils.setField(hlsPackagingService, "hlsSegmenter", new ByteChunkHlsSegmenter(1000));
+        ReflectionTestUtils.setField(hlsPackagingService, "mediaStorage", new LocalMediaStorage(tempDir));
+        ReflectionTestUtils.setField(hlsPackagingService, "segmentSeconds", 6);
+    }
+
+    @Test
+    void packagesVideoIntoPlaylistAndSegments() throws Exception {
+        Files.write(videoDirectory.resolve("movie.ts"), new byte[2500]);
+
+        hlsPackagingService.packageVideo("movie.ts");
+
+        assertTrue(hlsPackagingService.isPackaged("movie.ts"));
+        List<String> playlist = Files.readAllLines(packageFile("index.m3u8"));
+        assertEquals("#EXTM3U", playlist.get(0));
+        assertEquals(3, playlist.stream().filter(line -> line.startsWith("#EXTINF:6.000")).count());
+        assertEquals("#EXT-X-ENDLIST", playlist.get(playlist.size() - 1));
+        assertEquals(500, Files.size(packageFile("segment_00002.ts")));
+    }
+
+    @Test
+    void repackagingReplacesPreviousOutput() throws Exception {
+        Files.write(videoDirectory.resolve("movie.ts"), new byte[2500]);
+        hlsPackagingService.packageVideo("movie.ts");
+
+        Files.write(videoDirectory.resolve("movie.ts"), new byte[800]);
+        hlsPackagingService.packageVideo("movie.ts");
+
+        assertTrue(Files.exists(packageFile("segment_00000.ts")));
+        assertFalse(Files.exists(packageFile("segment_00001.ts")));
+        try (var entries = Files.list(tempDir.resolve("hls"))) {
+            assertEquals(1, entries.count());
+        }
+    }
+
+    @Test
+    void packageBuiltOnOneNodeIsServedFromAnother() throws Exception {
+        try (S3StandInServer server = new S3StandInServer(tempDir.resolve("bucket"), "media", "key", "secret",
+                "us-east-1", 0)) {
+            S3MediaStorage builder = new S3MediaStorage(server.endpoint(), "us-east-1", "media", "key", "secret",
+                    true, 1000, tempDir.resolve("builder-cache"), Long.MAX_VALUE);
+            S3MediaStorage other = new S3MediaStorage(server.endpoint(), "us-east-1", "media", "key", "secret",
+                    true, 1000, tempDir.resolve("other-cache"), Long.MAX_VALUE);
+            builder.write("videos/movie.ts", new ByteArrayInputStream(new byte[2500]), 2500);
+            ReflectionTestUtils.setField(hlsPackagingService, "mediaStorage", builder);
+            hlsPackagingService.packageVideo("movie.ts");
+
+            // Shorter source: the segment it no longer has is deleted from the bucket too
+            builder.write("videos/movie.ts", new ByteArrayInputStream(new byte[1500]), 1500);
+            hlsPackagingService.packageVideo("movie.ts");
+
+            ReflectionTestUtils.setField(hlsPackagingService, "mediaStorage", other);
+            assertTrue(hlsPackagingService.isPackaged("movie.ts"));
+            assertEquals(500, other.stat(hlsPackagingService.packageKey("movie.ts", "segment_00001.ts"))
+                    .orElseThrow().size());
+            assertTrue(other.stat(hlsPackagingService.packageKey("movie.ts", "segment_00002.ts")).isEmpty());
+        }
+    }
+
+    @Test
+    void rejectsFileNamesOutsideThePackage() {
+        assertThrows(IllegalArgumentException.class,
+                () -> hlsPackagingService.packageKey("movie.ts", "../movie.ts"));
+        assertThrows(IllegalArgumentException.class,
+                () -> hlsPackagingService.packageKey("movie.ts", "index.m3u8.bak"));
+    }
+
+    private Path packageFile(String fileName) {
+        return tempDir.resolve(hlsPackagingService.packageKey("movie.ts", fileName));
+    }
+}
@@ -0,0 +1,102 @@
+package dev.gihan.movieapi.service.impl;
+
+import dev.gihan.movieapi.exception.BusinessException;
+import dev.gihan.movieapi.exception.ResourceNotFoundException;
+import dev.gihan.movieapi.service.ImageVariantService;
+import dev.gihan.movieapi.storage.LocalMediaStorage;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.core.task.SyncTaskExecutor;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import javax.imageio.ImageIO;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ImageVariantServiceImplTest {
+
+    @TempDir
+    Path tempDir;
+
+    private final ImageVariantServiceImpl variantService = new ImageVariantServiceImpl();
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(variantService, "mediaStorage", new LocalMediaStorage(tempDir.resolve("uploads")));
+        ReflectionTestUtils.setField(variantService, "variantDirectory", tempDir.resolve("variants").toString());
+        ReflectionTestUtils.setField(variantService, "mediaTaskExecutor", new SyncTaskExecutor());
+    }
+
+    @Test
+    void servesTheSmallestWidthThatCoversTheRequest() {
+        assertEquals(160, variantService.selectWidth(100));
+        assertEquals(480, variantService.selectWidth(321));
+        assertEquals(1280, variantService.selectWidth(5000));
+        assertThrows(BusinessException.class, () -> variantService.selectWidth(0));
+    }
+
+    @Test
+    void resizesOnFirstRequestAndReusesTheFileAfter() throws Exception {
+        writePoster("images/ab/cd/poster.png", 1000, 1500);
+
+        ImageVariantService.Variant variant = variantService.getVariant("/uploads/images/ab/cd/poster.png", 300);
+
+        assertEquals("image/jpeg", variant.contentType());
+        assertEquals(tempDir.resolve("variants/320/ab/cd/poster.png.jpg"), variant.file());
+        BufferedImage resized = ImageIO.read(variant.file().toFile());
+        assertEquals(320, resized.getWidth());
+        assertEquals(480, resized.getHeight());
+
+        FileTime written = FileTime.fromMillis(System.currentTimeMillis() + 60_000);
+        Files.setLastModifiedTime(variant.file(), written);
+        variantService.getVariant("https://cdn.example.com/uploads/images/ab/cd/poster.png", 320);
+        assertEquals(written, Files.getLastModifiedTime(variant.file()));
+    }
+
+    @Test
+    void pregeneratesUpToTheOriginalWidth() throws Exception {
+        writePoster("images/small.png", 400, 600);
+
+        variantService.scheduleVariants("images/small.png");
+
+        assertTrue(Files.exists(tempDir.resolve("variants/160/small.png.jpg")));
+        assertTrue(Files.exists(tempDir.resolve("variants/320/small.png.jpg")));
+        // Not enlarged past the original
+        assertEquals(400, ImageIO.read(tempDir.resolve("variants/480/small.png.jpg").toFile()).getWidth());
+        assertFalse(Files.exists(tempDir.resolve("variants/640")));
+    }
+
+    @Test
+    void fallsBackToTheOriginalAndStaysInsideTheImageDirectory() throws Exception {
+        Path unreadable = Files.createDirectories(tempDir.resolve("uploads/images")).resolve("broken.png");
+        Files.write(unreadable, new byte[]{1, 2, 3});
+        Files.createDirectories(tempDir.resolve("uploads/videos"));
+        Files.write(tempDir.resolve("uploads/videos/movie.png"), new byte[]{1});
+
+        ImageVariantService.Variant variant = variantService.getVariant("/uploads/images/broken.png", 320);
+
+        assertEquals(unreadable.toAbsolutePath(), variant.file());
+        assertEquals("image/png", variant.contentType());
+        assertThrows(BusinessException.class, () -> variantService.getVariant("/uploads/videos/movie.png", 320));
+        assertThrows(ResourceNotFoundException.class, () ->
+                variantService.getVariant("/uploads/images/../videos/movie.png", 320));
+    }
+
+    private void writePoster(String relative, int width, int height) throws Exception {
+        Path file = tempDir.resolve("uploads").resolve(relative);
+        Files.createDirectories(file.getParent());
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+        Graphics2D graphics = image.createGraphics();
+        graphics.setColor(Color.ORANGE);
+        graphics.fillRect(0, 0, width / 2, height);
+        graphics.dispose();
+        ImageIO.write(image, "png", file.toFile());
+    }
+}
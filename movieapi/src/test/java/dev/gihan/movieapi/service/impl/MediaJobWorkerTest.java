@@ -0,0 +1,212 @@
+package dev.gihan.movieapi.service.impl;
+
+import dev.gihan.movieapi.model.MediaJob;
+import dev.gihan.movieapi.model.option.MediaJobStatus;
+import dev.gihan.movieapi.model.option.MediaJobType;
+import dev.gihan.movieapi.repository.MediaJobRepository;
+import dev.gihan.movieapi.service.FileUploadService;
+import dev.gihan.movieapi.service.HlsPackagingService;
+import dev.gihan.movieapi.service.MediaMetadataService;
+import dev.gihan.movieapi.service.SeekIndexService;
+import dev.gihan.movieapi.service.ThumbnailService;
+import dev.gihan.movieapi.service.TranscodingService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.task.SyncTaskExecutor;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class MediaJobWorkerTest {
+
+    private final Map<Long, MediaJob> jobs = new ConcurrentSkipListMap<>();
+    private final MediaJobRepository repository = mock(MediaJobRepository.class);
+    private final FileUploadService fileUploadService = mock(FileUploadService.class);
+    private final ThumbnailService thumbnailService = mock(ThumbnailService.class);
+    private final TranscodingService transcodingService = mock(TranscodingService.class);
+    private final MediaMetadataService mediaMetadataService = mock(MediaMetadataService.class);
+    private final SeekIndexService seekIndexService = mock(SeekIndexService.class);
+    private final MediaJobServiceImpl mediaJobService = new MediaJobServiceImpl();
+    private final MediaJobWorker worker = new MediaJobWorker();
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        AtomicLong ids = new AtomicLong();
+        when(repository.save(any(MediaJob.class))).thenAnswer(invocation -> {
+            MediaJob job = invocation.getArgument(0);
+            job.setId(ids.incrementAndGet());
+            job.setRunAfter(LocalDateTime.now());
+            jobs.put(job.getId(), job);
+            return job;
+        });
+        when(repository.saveAll(any())).thenAnswer(invocation -> invocation.getArgument(0));
+        when(repository.existsByTypeAndTargetAndStatusIn(any(), anyString(), anyCollection())).thenAnswer(invocation ->
+                jobs.values().stream().anyMatch(job -> job.getType() == invocation.getArgument(0)
+                        && job.getTarget().equals(invocation.getArgument(1))
+                        && invocation.<Collection<MediaJobStatus>>getArgument(2).contains(job.getStatus())));
+        when(repository.lockDue(any(), anyInt())).thenAnswer(invocation -> jobs.values().stream()
+                .filter(job -> job.getStatus() == MediaJobStatus.PENDING
+                        && !job.getRunAfter().isAfter(invocation.getArgument(0)))
+                .limit(invocation.<Integer>getArgument(1))
+                .toList());
+        when(repository.complete(anyLong(), anyInt(), any())).thenAnswer(invocation ->
+                running(invocation.getArgument(0), invocation.getArgument(1), job -> {
+                    job.setStatus(MediaJobStatus.SUCCEEDED);
+                    job.setProgress(100);
+                }));
+        when(repository.retryLater(anyLong(), anyInt(), any(), any())).thenAnswer(invocation ->
+                running(invocation.getArgument(0), invocation.getArgument(1), job -> {
+                    job.setStatus(MediaJobStatus.PENDING);
+                    job.setRunAfter(invocation.getArgument(2));
+                    job.setLastError(invocation.getArgument(3));
+                }));
+        when(repository.fail(anyLong(), anyInt(), any(), any())).thenAnswer(invocation ->
+                running(invocation.getArgument(0), invocation.getArgument(1), job -> {
+                    job.setStatus(MediaJobStatus.FAILED);
+                    job.setLastError(invocation.getArgument(2));
+                }));
+
+        TransactionTemplate transactionTemplate = mock(TransactionTemplate.class);
+        when(transactionTemplate.execute(any())).thenAnswer(invocation ->
+                invocation.<TransactionCallback<?>>getArgument(0).doInTransaction(null));
+
+        ReflectionTestUtils.setField(mediaJobService, "mediaJobRepository", repository);
+        ReflectionTestUtils.setField(mediaJobService, "maxAttempts", 2);
+        ReflectionTestUtils.setField(worker, "mediaJobRepository", repository);
+        ReflectionTestUtils.setField(worker, "mediaJobService", mediaJobService);
+        ReflectionTestUtils.setField(worker, "fileUploadService", fileUploadService);
+        ReflectionTestUtils.setField(worker, "mediaMetadataService", mediaMetadataService);
+        ReflectionTestUtils.setField(worker, "hlsPackagingService", mock(HlsPackagingService.class));
+        ReflectionTestUtils.setField(worker, "thumbnailService", thumbnailService);
+        ReflectionTestUtils.setField(worker, "seekIndexService", seekIndexService);
+        ReflectionTestUtils.setField(worker, "transcodingService", transcodingService);
+        ReflectionTestUtils.setField(worker, "transactionTemplate", transactionTemplate);
+        ReflectionTestUtils.setField(worker, "mediaJobExecutor", new SyncTaskExecutor());
+        worker.registerHandlers();
+    }
+
+    @Test
+    void preparedVideoQueuesTheWorkThatReadsIt() throws Exception {
+        mediaJobService.enqueue(MediaJobType.PREPARE_VIDEO, "movie.mp4");
+        // Already queued
+        mediaJobService.enqueue(MediaJobType.PREPARE_VIDEO, "movie.mp4");
+
+        worker.poll();
+
+        verify(fileUploadService).prepareVideo("movie.mp4");
+        verify(mediaMetadataService).probe("movie.mp4");
+        verify(transcodingService).enqueueLadder("movie.mp4");
+        assertEquals(List.of(MediaJobStatus.SUCCEEDED, MediaJobStatus.PENDING, MediaJobStatus.PENDING),
+                jobs.values().stream().map(MediaJob::getStatus).toList());
+        assertEquals(List.of(MediaJobType.PREPARE_VIDEO, MediaJobType.HLS_PACKAGE, MediaJobType.THUMBNAILS),
+                jobs.values().stream().map(MediaJob::getType).toList());
+    }
+
+    @Test
+    void renditionsAreTranscodedAsJobs() throws Exception {
+        mediaJobService.enqueue(MediaJobType.TRANSCODE_RENDITION, "42");
+
+        worker.poll();
+
+        verify(transcodingService).transcodeRendition(42L);
+        assertEquals(MediaJobStatus.SUCCEEDED, jobs.get(1L).getStatus());
+    }
+
+    @Test
+    void seekIndexesAreBuiltAsJobs() throws Exception {
+        mediaJobService.enqueue(MediaJobType.SEEK_INDEX, "movie.mp4");
+        // A seek that finds the index missing while the job is pending
+        mediaJobService.enqueueOnDemand(MediaJobType.SEEK_INDEX, "movie.mp4");
+
+        worker.poll();
+
+        verify(seekIndexService).buildIndex("movie.mp4");
+        assertEquals(1, jobs.size());
+        assertEquals(MediaJobStatus.SUCCEEDED, jobs.get(1L).getStatus());
+    }
+
+    @Test
+    void failedAttemptsBackOffUntilAttemptsRunOut() throws Exception {
+        doThrow(new IOException("No frames extracted")).when(thumbnailService).generateThumbnails("movie.mp4");
+        mediaJobService.enqueue(MediaJobType.THUMBNAILS, "movie.mp4");
+        MediaJob job = jobs.get(1L);
+
+        worker.poll();
+        assertEquals(MediaJobStatus.PENDING, job.getStatus());
+        assertEquals(1, job.getAttempts());
+        assertEquals("IOException: No frames extracted", job.getLastError());
+        assertTrue(job.getRunAfter().isAfter(LocalDateTime.now().plusSeconds(25)));
+
+        // Not due yet
+        worker.poll();
+        assertEquals(1, job.getAttempts());
+
+        job.setRunAfter(LocalDateTime.now().minusSeconds(1));
+        worker.poll();
+        assertEquals(MediaJobStatus.FAILED, job.getStatus());
+        assertEquals(2, job.getAttempts());
+    }
+
+    @Test
+    void claimsNoMoreJobsThanIdleWorkers() {
+        List<Runnable> started = new ArrayList<>();
+        ReflectionTestUtils.setField(worker, "mediaJobExecutor", (TaskExecutor) started::add);
+        ReflectionTestUtils.setField(worker, "workers", 1);
+        mediaJobService.enqueue(MediaJobType.HLS_PACKAGE, "a.mp4");
+        mediaJobService.enqueue(MediaJobType.HLS_PACKAGE, "b.mp4");
+
+        worker.poll();
+        worker.poll();
+        assertEquals(1, started.size());
+        // The running job is kept alive meanwhile
+        verify(repository).heartbeat(eq(Set.of(1L)), anyString(), any());
+
+        started.get(0).run();
+        worker.poll();
+        assertEquals(2, started.size());
+        assertEquals(MediaJobStatus.SUCCEEDED, jobs.get(1L).getStatus());
+        assertEquals(MediaJobStatus.RUNNING, jobs.get(2L).getStatus());
+    }
+
+    @Test
+    void backoffDoublesUpToTheCap() {
+        assertEquals(Duration.ofSeconds(30), worker.backoffFor(1));
+        assertEquals(Duration.ofSeconds(120), worker.backoffFor(3));
+        assertEquals(Duration.ofMinutes(30), worker.backoffFor(12));
+    }
+
+    private int running(long id, int attempt, Consumer<MediaJob> update) {
+        MediaJob job = jobs.get(id);
+        if (job == null || job.getStatus() != MediaJobStatus.RUNNING || job.getAttempts() != attempt) {
+            return 0;
+        }
+        update.accept(job);
+        return 1;
+    }
+}
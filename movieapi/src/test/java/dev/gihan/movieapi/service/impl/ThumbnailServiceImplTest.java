@@ -0,0 +1,120 @@
+package dev.gihan.movieapi.service.impl;
+
+import dev.gihan.movieapi.media.thumbnail.FrameExtractor;
+import dev.gihan.movieapi.model.option.MediaJobType;
+import dev.gihan.movieapi.service.MediaJobService;
+import dev.gihan.movieapi.storage.LocalMediaStorage;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoMoreInteractions;
+
+class ThumbnailServiceImplTest {
+
+    @TempDir
+    Path tempDir;
+
+    private ThumbnailServiceImpl thumbnailService;
+    private final MediaJobService mediaJobService = mock(MediaJobService.class);
+    private Path videoDirectory;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        videoDirectory = Files.createDirectories(tempDir.resolve("videos"));
+        thumbnailService = new ThumbnailServiceImpl();
+        ReflectionTestUtils.setField(thumbnailService, "frameExtractor", frames(25));
+        ReflectionTestUtils.setField(thumbnailService, "mediaJobService", mediaJobService);
+        ReflectionTestUtils.setField(thumbnailService, "mediaStorage", new LocalMediaStorage(tempDir));
+        ReflectionTestUtils.setField(thumbnailService, "enabled", true);
+        ReflectionTestUtils.setField(thumbnailService, "intervalSeconds", 10);
+        ReflectionTestUtils.setField(thumbnailService, "width", 16);
+        ReflectionTestUtils.setField(thumbnailService, "height", 9);
+        ReflectionTestUtils.setField(thumbnailService, "columns", 4);
+        ReflectionTestUtils.setField(thumbnailService, "rows", 3);
+    }
+
+    @Test
+    void packsFramesIntoSheetsWithThumbnailTrack() throws Exception {
+        Files.write(videoDirectory.resolve("movie.mp4"), new byte[100]);
+
+        thumbnailService.generateThumbnails("movie.mp4");
+
+        assertTrue(thumbnailService.isGenerated("movie.mp4"));
+        List<String> track = Files.readAllLines(thumbnailFile("thumbnails.vtt"));
+        assertEquals("WEBVTT", track.get(0));
+        assertEquals(25, track.stream().filter(line -> line.contains(" --> ")).count());
+        // Frame 14 is the second tile of the second sheet
+        int cue = track.indexOf("00:02:10.000 --> 00:02:20.000");
+        assertEquals("sprite_001.jpg#xywh=16,0,16,9", track.get(cue + 1));
+
+        BufferedImage lastSheet = ImageIO.read(thumbnailFile("sprite_002.jpg").toFile());
+        assertEquals(64, lastSheet.getWidth());
+        assertEquals(9, lastSheet.getHeight());
+        assertFalse(Files.exists(thumbnailFile("sprite_003.jpg")));
+    }
+
+    @Test
+    void regeneratingReplacesPreviousSheetsInPlace() throws Exception {
+        Files.write(videoDirectory.resolve("movie.mp4"), new byte[100]);
+        thumbnailService.generateThumbnails("movie.mp4");
+
+        ReflectionTestUtils.setField(thumbnailService, "frameExtractor", frames(5));
+        thumbnailService.generateThumbnails("movie.mp4");
+
+        List<String> track = Files.readAllLines(thumbnailFile("thumbnails.vtt"));
+        assertEquals(5, track.stream().filter(line -> line.contains(" --> ")).count());
+        assertTrue(Files.exists(thumbnailFile("sprite_000.jpg")));
+        assertFalse(Files.exists(thumbnailFile("sprite_001.jpg")));
+        try (var entries = Files.list(tempDir.resolve("thumbnails"))) {
+            assertEquals(1, entries.count());
+        }
+    }
+
+    @Test
+    void queuesGenerationOnlyWhileTheTrackIsMissing() throws Exception {
+        Files.write(videoDirectory.resolve("movie.mp4"), new byte[100]);
+
+        thumbnailService.scheduleGeneration("movie.mp4");
+        verify(mediaJobService).enqueueOnDemand(MediaJobType.THUMBNAILS, "movie.mp4");
+
+        thumbnailService.generateThumbnails("movie.mp4");
+        thumbnailService.scheduleGeneration("movie.mp4");
+        verifyNoMoreInteractions(mediaJobService);
+    }
+
+    @Test
+    void rejectsFileNamesOutsideTheTrack() {
+        assertThrows(IllegalArgumentException.class,
+                () -> thumbnailService.thumbnailKey("movie.mp4", "../movie.mp4"));
+        assertThrows(IllegalArgumentException.class,
+                () -> thumbnailService.thumbnailKey("movie.mp4", "frame_00001.jpg"));
+    }
+
+    private Path thumbnailFile(String fileName) {
+        return tempDir.resolve(thumbnailService.thumbnailKey("movie.mp4", fileName));
+    }
+
+    private static FrameExtractor frames(int count) {
+        return (source, outputDirectory, intervalSeconds, width, height) -> {
+            List<Path> files = new ArrayList<>();
+            for (int i = 0; i < count; i++) {
+                Path file = outputDirectory.resolve(String.format("frame_%05d.jpg", i + 1));
+                ImageIO.write(new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB), "jpg", file.toFile());
+                files.add(file);
+            }
+            return files;
+        };
+    }
+}
@@ -0,0 +1,187 @@
+package dev.gihan.movieapi.service.impl;
+
+import dev.gihan.movieapi.media.hls.ByteChunkHlsSegmenter;
+import dev.gihan.movieapi.media.transcode.RenditionProfile;
+import dev.gihan.movieapi.media.transcode.SegmentingVideoTranscoder;
+import dev.gihan.movieapi.model.MediaMetadata;
+import dev.gihan.movieapi.model.Movie;
+import dev.gihan.movieapi.model.VideoRendition;
+import dev.gihan.movieapi.model.option.MediaJobType;
+import dev.gihan.movieapi.model.option.RenditionStatus;
+import dev.gihan.movieapi.repository.VideoRenditionRepository;
+import dev.gihan.movieapi.service.MediaJobService;
+import dev.gihan.movieapi.service.MediaMetadataService;
+import dev.gihan.movieapi.storage.LocalMediaStorage;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class TranscodingServiceImplTest {
+
+    @TempDir
+    Path tempDir;
+
+    private final Map<Long, VideoRendition> renditions = new HashMap<>();
+    private final List<String> queued = new ArrayList<>();
+    private TranscodingServiceImpl transcodingService;
+    private HlsPackagingServiceImpl hlsPackagingService;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        Path videoDirectory = Files.createDirectories(tempDir.resolve("videos"));
+        Files.write(videoDirectory.resolve("movie.ts"), new byte[3000]);
+
+        ByteChunkHlsSegmenter segmenter = new ByteChunkHlsSegmenter(1000);
+        hlsPackagingService = new HlsPackagingServiceImpl();
+        ReflectionTestUtils.setField(hlsPackagingService, "hlsSegmenter", segmenter);
+        ReflectionTestUtils.setField(hlsPackagingService, "mediaStorage", new LocalMediaStorage(tempDir));
+
+        VideoRenditionRepository repository = mock(VideoRenditionRepository.class);
+        AtomicLong ids = new AtomicLong();
+        when(repository.save(any(VideoRendition.class))).thenAnswer(invocation -> {
+            VideoRendition rendition = invocation.getArgument(0);
+            if (rendition.getId() == null) {
+                rendition.setId(ids.incrementAndGet());
+            }
+            renditions.put(rendition.getId(), rendition);
+            return rendition;
+        });
+        when(repository.findById(anyLong())).thenAnswer(invocation ->
+                Optional.ofNullable(renditions.get(invocation.<Long>getArgument(0))));
+        when(repository.findBySourceFileNameAndName(anyString(), anyString())).thenAnswer(invocation ->
+                renditions.values().stream()
+                        .filter(r -> r.getSourceFileName().equals(invocation.getArgument(0))
+                                && r.getName().equals(invocation.getArgument(1)))
+                        .findFirst());
+        when(repository.findBySourceFileName(anyString())).thenAnswer(invocation ->
+                renditions.values().stream()
+                        .filter(r -> r.getSourceFileName().equals(invocation.getArgument(0)))
+                        .toList());
+        doAnswer(invocation -> renditions.remove(invocation.<VideoRendition>getArgument(0).getId()))
+                .when(repository).delete(any(VideoRendition.class));
+        when(repository.findForMovie(any(), eq("movie.ts"), eq(RenditionStatus.READY))).thenAnswer(invocation ->
+                renditions.values().stream()
+                        .filter(r -> r.getStatus() == RenditionStatus.READY)
+                        .sorted((a, b) -> b.getVideoBitrateKbps() - a.getVideoBitrateKbps())
+                        .toList());
+
+        MediaJobService mediaJobService = mock(MediaJobService.class);
+        doAnswer(invocation -> queued.add(invocation.getArgument(1)))
+                .when(mediaJobService).enqueue(eq(MediaJobType.TRANSCODE_RENDITION), anyString());
+
+        transcodingService = new TranscodingServiceImpl();
+        ReflectionTestUtils.setField(transcodingService, "renditionRepository", repository);
+        ReflectionTestUtils.setField(transcodingService, "hlsPackagingService", hlsPackagingService);
+        ReflectionTestUtils.setField(transcodingService, "videoTranscoder", new SegmentingVideoTranscoder(segmenter));
+        ReflectionTestUtils.setField(transcodingService, "mediaMetadataService", mock(MediaMetadataService.class));
+        ReflectionTestUtils.setField(transcodingService, "mediaJobService", mediaJobService);
+        ReflectionTestUtils.setField(transcodingService, "enabled", true);
+        ReflectionTestUtils.setField(transcodingService, "ladder", "720p:1280x720:2800:128,360p:640x360:800:96");
+        ReflectionTestUtils.setField(transcodingService, "segmentSeconds", 6);
+    }
+
+    @Test
+    void transcodesEveryLadderRungAndBuildsMasterPlaylist() throws Exception {
+        transcodingService.enqueueLadder("movie.ts");
+        assertEquals(List.of("1", "2"), queued);
+        for (String id : queued) {
+            transcodingService.transcodeRendition(Long.valueOf(id));
+        }
+
+        assertEquals(2, renditions.size());
+        assertTrue(renditions.values().stream().allMatch(r -> r.getStatus() == RenditionStatus.READY));
+        assertTrue(Files.exists(renditionFile("720p", "index.m3u8")));
+        assertTrue(Files.exists(renditionFile("360p", "segment_00002.ts")));
+
+        Movie movie = new Movie();
+        movie.setId(7L);
+        movie.setVideoUrl("/uploads/videos/movie.ts");
+        String playlist = transcodingService.buildMasterPlaylist(movie);
+
+        assertEquals("#EXTM3U\n#EXT-X-VERSION:3\n"
+                + "#EXT-X-STREAM-INF:BANDWIDTH=3220800,AVERAGE-BANDWIDTH=2928000,RESOLUTION=1280x720,NAME=\"720p\"\n"
+                + "hls/720p/index.m3u8\n"
+                + "#EXT-X-STREAM-INF:BANDWIDTH=985600,AVERAGE-BANDWIDTH=896000,RESOLUTION=640x360,NAME=\"360p\"\n"
+                + "hls/360p/index.m3u8\n", playlist);
+    }
+
+    @Test
+    void requeuingTheLadderKeepsReadyRenditionsAndRemovesDroppedRungs() throws Exception {
+        transcodingService.enqueueLadder("movie.ts");
+        for (String id : queued) {
+            transcodingService.transcodeRendition(Long.valueOf(id));
+        }
+        queued.clear();
+
+        ReflectionTestUtils.setField(transcodingService, "ladder", "720p:1280x720:2800:128");
+        assertEquals(List.of(), transcodingService.enqueueLadder("movie.ts"));
+
+        assertEquals(List.of(), queued);
+        assertEquals(List.of("720p"), renditions.values().stream().map(VideoRendition::getName).toList());
+        assertTrue(Files.exists(renditionFile("720p", "index.m3u8")));
+        assertFalse(Files.exists(renditionFile("360p", "index.m3u8")));
+    }
+
+    @Test
+    void marksRenditionFailedWhenSourceIsMissing() throws Exception {
+        transcodingService.enqueueLadder("missing.ts");
+        for (String id : queued) {
+            // Thrown so the job is retried
+            assertThrows(IOException.class, () -> transcodingService.transcodeRendition(Long.valueOf(id)));
+        }
+
+        assertTrue(renditions.values().stream().allMatch(r -> r.getStatus() == RenditionStatus.FAILED));
+        assertTrue(renditions.values().iterator().next().getErrorMessage().contains("Source video not found"));
+    }
+
+    @Test
+    void ladderIsFittedToTheProbedSource() {
+        List<RenditionProfile> ladder = RenditionProfile.parseLadder(
+                "1080p:1920x1080:5000:192,720p:1280x720:2800:128,360p:640x360:800:96");
+        MediaMetadata source = new MediaMetadata();
+        source.setHeight(720);
+        source.setVideoBitrateKbps(2000);
+
+        assertEquals(List.of(new RenditionProfile("720p", 1280, 720, 2000, 128),
+                        new RenditionProfile("360p", 640, 360, 800, 96)),
+                TranscodingServiceImpl.fitToSource(ladder, source));
+
+        // A source below every rung still gets the smallest one
+        source.setHeight(240);
+        source.setVideoBitrateKbps(null);
+        assertEquals(List.of(new RenditionProfile("360p", 640, 360, 800, 96)),
+                TranscodingServiceImpl.fitToSource(ladder, source));
+        assertEquals(ladder, TranscodingServiceImpl.fitToSource(ladder, null));
+    }
+
+    @Test
+    void parsesLadderConfiguration() {
+        assertEquals(List.of(new RenditionProfile("720p", 1280, 720, 2800, 128)),
+                RenditionProfile.parseLadder(" 720p:1280x720:2800:128 "));
+        assertThrows(IllegalArgumentException.class, () -> RenditionProfile.parseLadder("720p:1280:2800"));
+    }
+
+    private Path renditionFile(String rendition, String fileName) {
+        return tempDir.resolve(hlsPackagingService.renditionKey("movie.ts", rendition, fileName));
+    }
+}
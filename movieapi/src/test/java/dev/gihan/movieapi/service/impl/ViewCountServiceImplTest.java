@@ -0,0 +1,83 @@
+package dev.gihan.movieapi.service.impl;
+
+import dev.gihan.movieapi.dto.responseDto.ViewCountStatsDto;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class ViewCountServiceImplTest {
+
+    private final JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+    private final List<List<Object[]>> batches = new ArrayList<>();
+    private ViewCountServiceImpl viewCountService;
+
+    @BeforeEach
+    void setUp() {
+        when(jdbcTemplate.batchUpdate(anyString(), anyList())).thenAnswer(invocation -> {
+            List<Object[]> args = invocation.getArgument(1);
+            batches.add(args);
+            return new int[args.size()];
+        });
+        viewCountService = new ViewCountServiceImpl();
+        ReflectionTestUtils.setField(viewCountService, "jdbcTemplate", jdbcTemplate);
+        ReflectionTestUtils.setField(viewCountService, "transactionTemplate",
+                new TransactionTemplate(mock(PlatformTransactionManager.class)));
+    }
+
+    @Test
+    void concurrentViewsAreAppliedAsOneBatchOfDeltas() throws Exception {
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < 3000; i++) {
+                long movieId = i % 3 == 0 ? 2L : 1L;
+                executor.submit(() -> viewCountService.recordView(movieId));
+            }
+        }
+        assertEquals(3000L, viewCountService.getStats().getPendingViews());
+
+        assertEquals(3000, viewCountService.flush());
+
+        assertEquals(1, batches.size());
+        List<Object[]> batch = new ArrayList<>(batches.get(0));
+        batch.sort(Comparator.comparing(args -> (Long) args[1]));
+        assertArrayEquals(new Object[]{2000L, 1L}, batch.get(0));
+        assertArrayEquals(new Object[]{1000L, 2L}, batch.get(1));
+
+        ViewCountStatsDto stats = viewCountService.getStats();
+        assertEquals(0, stats.getPendingMovies());
+        assertEquals(3000L, stats.getFlushedViews());
+        assertNotNull(stats.getLastFlushAt());
+        assertEquals(0, viewCountService.flush());
+    }
+
+    @Test
+    void failedBatchKeepsDeltasForNextFlush() {
+        viewCountService.recordView(1L);
+        viewCountService.recordView(1L);
+        when(jdbcTemplate.batchUpdate(anyString(), anyList())).thenThrow(new QueryTimeoutException("down"));
+
+        assertEquals(0, viewCountService.flush());
+        viewCountService.recordView(1L);
+
+        ViewCountStatsDto stats = viewCountService.getStats();
+        assertEquals(1, stats.getPendingMovies());
+        assertEquals(3L, stats.getPendingViews());
+        assertEquals(1L, stats.getFailedFlushes());
+        assertEquals(0L, stats.getFlushedViews());
+    }
+}
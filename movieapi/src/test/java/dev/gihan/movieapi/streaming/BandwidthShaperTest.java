@@ -0,0 +1,92 @@
+package dev.gihan.movieapi.streaming;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BandwidthShaperTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void bucketChargesDebtAndRefillsAtRate() {
+        AtomicLong now = new AtomicLong();
+        TokenBucket bucket = new TokenBucket(1000, 2000, now::get);
+
+        assertTrue(bucket.tryTake(2000));
+        assertFalse(bucket.tryTake(1));
+        assertEquals(TimeUnit.MILLISECONDS.toNanos(500), bucket.reserve(500));
+
+        now.addAndGet(TimeUnit.SECONDS.toNanos(1));
+        assertTrue(bucket.tryTake(500));
+        assertFalse(bucket.isFull());
+        now.addAndGet(TimeUnit.SECONDS.toNanos(10));
+        assertTrue(bucket.isFull());
+    }
+
+    @Test
+    void sessionRateFollowsMovieBitrateWithHeadroomAndFloor() {
+        BandwidthShaper shaper = new BandwidthShaper(0, 0, 2.0, 100_000, 10);
+
+        // 3.6 GB over two hours is 500 KB/s
+        assertEquals(1_000_000, shaper.sessionBytesPerSecond(3_600_000_000L, Duration.ofHours(2)));
+        assertEquals(100_000, shaper.sessionBytesPerSecond(1_000_000, Duration.ofHours(2)));
+        assertEquals(0, shaper.sessionBytesPerSecond(1_000_000, null));
+        assertNull(shaper.throttleFor("s1", "u:1", 1_000_000, null));
+    }
+
+    @Test
+    void connectionsOfOneSessionShareItsBucket() {
+        BandwidthShaper shaper = new BandwidthShaper(0, 0, 1.0, 1000, 1);
+
+        BandwidthShaper.Throttle first = shaper.throttleFor("s1", "u:1", 3_600_000, Duration.ofHours(1));
+        BandwidthShaper.Throttle second = shaper.throttleFor("s1", "u:1", 3_600_000, Duration.ofHours(1));
+        assertTrue(first.tryAcquire(600));
+        assertFalse(second.tryAcquire(600));
+        assertTrue(shaper.throttleFor("s2", "u:1", 3_600_000, Duration.ofHours(1)).tryAcquire(600));
+        assertEquals(2, shaper.getStats().trackedSessions());
+    }
+
+    @Test
+    void failedTryAcquireDoesNotDrainOtherBuckets() {
+        BandwidthShaper shaper = new BandwidthShaper(1000, 10_000, 0, 0, 1);
+        BandwidthShaper.Throttle throttle = shaper.throttleFor("s1", "u:1", 0, null);
+
+        assertFalse(throttle.tryAcquire(5000));
+        // The per-user bucket would only have 5000 left had the refund not happened
+        assertTrue(shaper.throttleFor("s2", "u:1", 0, null).tryAcquire(1000));
+        assertFalse(shaper.throttleFor("s3", "u:1", 0, null).tryAcquire(1));
+    }
+
+    @Test
+    void regionWriterPacesChannelTransferAndSkipsSendfile() throws Exception {
+        Path video = Files.write(tempDir.resolve("video.mp4"), new byte[400_000]);
+        // 1 MB/s with a 100 KB burst: the remaining 300 KB take about 300 ms
+        BandwidthShaper shaper = new BandwidthShaper(1_000_000, 0, 0, 0, 1);
+        VideoRegionWriter writer = new VideoRegionWriter();
+        shaper.throttleFor("s1", null, 0, null).acquire(900_000);
+
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/stream/1");
+        request.setAttribute(VideoRegionWriter.SENDFILE_SUPPORTED_ATTR, Boolean.TRUE);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        long started = System.nanoTime();
+        writer.writeRegion(request, response, video, 0, 400_000, shaper.throttleFor("s1", null, 0, null));
+        long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started);
+
+        assertEquals(400_000, response.getContentAsByteArray().length);
+        assertNull(request.getAttribute(VideoRegionWriter.SENDFILE_FILENAME_ATTR));
+        assertTrue(elapsedMillis >= 250, "transfer should be paced, took " + elapsedMillis + " ms");
+        assertTrue(shaper.getStats().throttledBytes() > 0);
+    }
+}
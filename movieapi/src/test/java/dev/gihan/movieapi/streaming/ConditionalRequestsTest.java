@@ -0,0 +1,107 @@
+package dev.gihan.movieapi.streaming;
+
+import jakarta.servlet.http.HttpServletRequest;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ConditionalRequestsTest {
+
+    private static final long MODIFIED = 1_700_000_000_000L;
+
+    @TempDir
+    Path tempDir;
+
+    private final FileValidatorCache cache = new FileValidatorCache(100);
+    private final FileValidatorCache.Validator validator = cache.get(Path.of("/videos/a.mp4"), 1000, MODIFIED);
+
+    @Test
+    void validatorChangesWithSizeOrMtimeOnly() {
+        assertSame(validator, cache.get(Path.of("/videos/a.mp4"), 1000, MODIFIED));
+        assertNotEquals(validator.etag(), cache.get(Path.of("/videos/a.mp4"), 1001, MODIFIED).etag());
+        assertNotEquals(validator.etag(), cache.get(Path.of("/videos/a.mp4"), 1000, MODIFIED + 1000).etag());
+    }
+
+    @Test
+    void ifNoneMatchAndIfModifiedSinceYieldNotModified() {
+        MockHttpServletRequest byEtag = new MockHttpServletRequest("GET", "/");
+        byEtag.addHeader("If-None-Match", "\"other\", W/" + validator.etag());
+        assertEquals(ConditionalRequests.Outcome.NOT_MODIFIED, ConditionalRequests.evaluate(byEtag, validator));
+
+        MockHttpServletRequest byDate = new MockHttpServletRequest("GET", "/");
+        byDate.addHeader("If-Modified-Since", MODIFIED);
+        assertEquals(ConditionalRequests.Outcome.NOT_MODIFIED, ConditionalRequests.evaluate(byDate, validator));
+
+        // If-None-Match takes precedence over If-Modified-Since
+        MockHttpServletRequest both = new MockHttpServletRequest("GET", "/");
+        both.addHeader("If-None-Match", "\"other\"");
+        both.addHeader("If-Modified-Since", MODIFIED);
+        assertEquals(ConditionalRequests.Outcome.PROCEED, ConditionalRequests.evaluate(both, validator));
+    }
+
+    @Test
+    void failedIfMatchOrIfUnmodifiedSinceYieldsPreconditionFailed() {
+        MockHttpServletRequest ifMatch = new MockHttpServletRequest("GET", "/");
+        ifMatch.addHeader("If-Match", "W/" + validator.etag());
+        assertEquals(ConditionalRequests.Outcome.PRECONDITION_FAILED, ConditionalRequests.evaluate(ifMatch, validator));
+
+        MockHttpServletRequest unmodified = new MockHttpServletRequest("GET", "/");
+        unmodified.addHeader("If-Unmodified-Since", MODIFIED - 60_000);
+        assertEquals(ConditionalRequests.Outcome.PRECONDITION_FAILED, ConditionalRequests.evaluate(unmodified, validator));
+
+        MockHttpServletRequest garbage = new MockHttpServletRequest("GET", "/");
+        garbage.addHeader("If-Modified-Since", "not a date");
+        assertEquals(ConditionalRequests.Outcome.PROCEED, ConditionalRequests.evaluate(garbage, validator));
+    }
+
+    @Test
+    void ifRangeHonoursOnlyMatchingStrongValidators() {
+        MockHttpServletRequest current = new MockHttpServletRequest("GET", "/");
+        current.addHeader("If-Range", validator.etag());
+        assertTrue(ConditionalRequests.rangeApplies(current, validator));
+
+        MockHttpServletRequest stale = new MockHttpServletRequest("GET", "/");
+        stale.addHeader("If-Range", "\"stale\"");
+        assertFalse(ConditionalRequests.rangeApplies(stale, validator));
+
+        MockHttpServletRequest weak = new MockHttpServletRequest("GET", "/");
+        weak.addHeader("If-Range", "W/" + validator.etag());
+        assertFalse(ConditionalRequests.rangeApplies(weak, validator));
+
+        MockHttpServletRequest date = new MockHttpServletRequest("GET", "/");
+        date.addHeader("If-Range", MODIFIED);
+        assertTrue(ConditionalRequests.rangeApplies(date, validator));
+    }
+
+    @Test
+    void ifRangeFilterHidesRangeWhenStaticFileChanged() throws Exception {
+        Path image = Files.write(tempDir.resolve("poster.jpg"), new byte[100]);
+        Files.setLastModifiedTime(image, FileTime.fromMillis(MODIFIED));
+        IfRangeFilter filter = new IfRangeFilter(Map.of("/uploads/", tempDir), cache);
+
+        MockHttpServletRequest stale = new MockHttpServletRequest("GET", "/uploads/poster.jpg");
+        stale.addHeader("Range", "bytes=10-");
+        stale.addHeader("If-Range", "\"stale\"");
+        MockFilterChain staleChain = new MockFilterChain();
+        filter.doFilter(stale, new MockHttpServletResponse(), staleChain);
+        assertNull(((HttpServletRequest) staleChain.getRequest()).getHeader("Range"));
+
+        MockHttpServletRequest fresh = new MockHttpServletRequest("GET", "/uploads/poster.jpg");
+        fresh.addHeader("Range", "bytes=10-");
+        fresh.addHeader("If-Range", cache.get(image).etag());
+        MockFilterChain freshChain = new MockFilterChain();
+        filter.doFilter(fresh, new MockHttpServletResponse(), freshChain);
+        assertEquals("bytes=10-", ((HttpServletRequest) freshChain.getRequest()).getHeader("Range"));
+
+        assertNull(filter.resolve("/uploads/../secret.txt"));
+    }
+}
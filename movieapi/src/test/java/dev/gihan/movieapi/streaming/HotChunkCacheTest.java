@@ -0,0 +1,157 @@
+package dev.gihan.movieapi.streaming;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.Arrays;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class HotChunkCacheTest {
+
+    private static final int CHUNK = 1024;
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void servesRepeatedRangesFromCache() throws Exception {
+        byte[] content = content(5000, 1);
+        Path video = Files.write(directory.resolve("a.mp4"), content);
+        HotChunkCache cache = new HotChunkCache(CHUNK, 8 * CHUNK);
+        cache.setHotMovies(Set.of(1L));
+        HotChunkCache.CachedFile file = cache.lookup(1L, video, validator(video));
+
+        // Spans chunks 0-2
+        assertArrayEquals(Arrays.copyOfRange(content, 1000, 2100), read(cache, file, 1000, 1100));
+        assertEquals(3, cache.getStats().misses());
+
+        assertArrayEquals(Arrays.copyOfRange(content, 0, 5000), read(cache, file, 0, 5000));
+        HotChunkCache.Stats stats = cache.getStats();
+        assertEquals(3, stats.hits());
+        assertEquals(5, stats.misses());
+        assertEquals(5, stats.cachedChunks());
+        assertEquals(3.0 / 8, stats.hitRatio(), 1e-9);
+    }
+
+    @Test
+    void onlyAdmitsHotMovies() throws Exception {
+        Path video = Files.write(directory.resolve("a.mp4"), content(100, 1));
+        HotChunkCache cache = new HotChunkCache(CHUNK, 8 * CHUNK);
+        cache.setHotMovies(Set.of(1L));
+
+        assertNull(cache.lookup(2L, video, validator(video)));
+        assertNull(new HotChunkCache(CHUNK, 0).lookup(1L, video, validator(video)));
+    }
+
+    @Test
+    void evictsLeastRecentlyUsedChunkWithinBudget() throws Exception {
+        byte[] content = content(4 * CHUNK, 7);
+        Path video = Files.write(directory.resolve("a.mp4"), content);
+        HotChunkCache cache = new HotChunkCache(CHUNK, 2 * CHUNK);
+        cache.setHotMovies(Set.of(1L));
+        HotChunkCache.CachedFile file = cache.lookup(1L, video, validator(video));
+
+        read(cache, file, 0, 1);
+        read(cache, file, CHUNK, 1);
+        read(cache, file, 0, 1);
+        // Evicts chunk 1, the least recently used
+        assertArrayEquals(Arrays.copyOfRange(content, 2 * CHUNK, 3 * CHUNK), read(cache, file, 2 * CHUNK, CHUNK));
+        assertEquals(2, cache.getStats().cachedChunks());
+
+        long misses = cache.getStats().misses();
+        read(cache, file, 0, 1);
+        assertEquals(misses, cache.getStats().misses());
+        read(cache, file, CHUNK, 1);
+        assertEquals(misses + 1, cache.getStats().misses());
+    }
+
+    @Test
+    void sendsFromFileWhenEveryBufferIsInUse() throws Exception {
+        byte[] content = content(3 * CHUNK, 5);
+        Path video = Files.write(directory.resolve("a.mp4"), content);
+        HotChunkCache cache = new HotChunkCache(CHUNK, CHUNK);
+        cache.setHotMovies(Set.of(1L));
+        HotChunkCache.CachedFile file = cache.lookup(1L, video, validator(video));
+
+        // A second viewer asks for chunk 2 while the only buffer is being written out with chunk 0
+        ByteArrayOutputStream first = new ByteArrayOutputStream();
+        byte[][] second = new byte[1][];
+        WritableByteChannel target = new WritableByteChannel() {
+            private final WritableByteChannel out = Channels.newChannel(first);
+
+            @Override
+            public int write(ByteBuffer src) throws IOException {
+                if (second[0] == null) {
+                    try {
+                        second[0] = read(cache, file, 2 * CHUNK, CHUNK);
+                    } catch (Exception e) {
+                        throw new IOException(e);
+                    }
+                }
+                return out.write(src);
+            }
+
+            @Override
+            public boolean isOpen() {
+                return true;
+            }
+
+            @Override
+            public void close() {
+            }
+        };
+        cache.write(file, 0, CHUNK, target, null);
+
+        assertArrayEquals(Arrays.copyOfRange(content, 0, CHUNK), first.toByteArray());
+        assertArrayEquals(Arrays.copyOfRange(content, 2 * CHUNK, 3 * CHUNK), second[0]);
+        assertEquals(1, cache.getStats().cachedChunks());
+        assertEquals(0, cache.getStats().hits());
+
+        // Chunk 0 stayed cached
+        read(cache, file, 0, CHUNK);
+        assertEquals(1, cache.getStats().hits());
+    }
+
+    @Test
+    void replacedFileIsNeverServedStale() throws Exception {
+        Path video = Files.write(directory.resolve("a.mp4"), content(2000, 1));
+        HotChunkCache cache = new HotChunkCache(CHUNK, 8 * CHUNK);
+        cache.setHotMovies(Set.of(1L));
+        read(cache, cache.lookup(1L, video, validator(video)), 0, 2000);
+
+        byte[] replacement = content(2000, 9);
+        Files.write(video, replacement);
+        Files.setLastModifiedTime(video, FileTime.fromMillis(Files.getLastModifiedTime(video).toMillis() + 5000));
+
+        assertArrayEquals(replacement, read(cache, cache.lookup(1L, video, validator(video)), 0, 2000));
+    }
+
+    private static byte[] read(HotChunkCache cache, HotChunkCache.CachedFile file, long start, int length)
+            throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        cache.write(file, start, length, Channels.newChannel(out), null);
+        return out.toByteArray();
+    }
+
+    private static FileValidatorCache.Validator validator(Path file) throws Exception {
+        return new FileValidatorCache.Validator(Files.size(file), Files.getLastModifiedTime(file).toMillis(), "\"x\"");
+    }
+
+    private static byte[] content(int length, int seed) {
+        byte[] content = new byte[length];
+        for (int i = 0; i < length; i++) {
+            content[i] = (byte) (i * 31 + seed);
+        }
+        return content;
+    }
+}
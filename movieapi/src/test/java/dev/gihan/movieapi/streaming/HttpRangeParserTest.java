@@ -0,0 +1,74 @@
+package dev.gihan.movieapi.streaming;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class HttpRangeParserTest {
+
+    private static final long SIZE = 10_000;
+
+    @Test
+    void parsesClosedAndOpenEndedRanges() {
+        assertEquals(List.of(new ByteRange(0, 499)), HttpRangeParser.parse("bytes=0-499", SIZE).ranges());
+        assertEquals(List.of(new ByteRange(9500, 9999)), HttpRangeParser.parse("bytes=9500-", SIZE).ranges());
+    }
+
+    @Test
+    void clampsLastPositionToRepresentation() {
+        assertEquals(List.of(new ByteRange(9000, 9999)), HttpRangeParser.parse("bytes=9000-20000", SIZE).ranges());
+    }
+
+    @Test
+    void parsesSuffixRanges() {
+        assertEquals(List.of(new ByteRange(9500, 9999)), HttpRangeParser.parse("bytes=-500", SIZE).ranges());
+        assertEquals(List.of(new ByteRange(0, 9999)), HttpRangeParser.parse("bytes=-50000", SIZE).ranges());
+    }
+
+    @Test
+    void parsesMultiRangesWithWhitespaceAndEmptyElements() {
+        HttpRangeParser.Result result = HttpRangeParser.parse("bytes = 0-99, ,5000-5099 ,-100", SIZE);
+
+        assertEquals(HttpRangeParser.Status.SATISFIABLE, result.status());
+        assertTrue(result.isMultipart());
+        assertEquals(List.of(new ByteRange(0, 99), new ByteRange(5000, 5099), new ByteRange(9900, 9999)),
+                result.ranges());
+    }
+
+    @Test
+    void coalescesOverlappingAndNearbyRanges() {
+        HttpRangeParser.Result result = HttpRangeParser.parse("bytes=500-999,0-600,1010-1100", SIZE);
+
+        assertEquals(List.of(new ByteRange(0, 1100)), result.ranges());
+        assertFalse(result.isMultipart());
+    }
+
+    @Test
+    void reportsUnsatisfiableWhenNoRangeOverlaps() {
+        assertEquals(HttpRangeParser.Status.UNSATISFIABLE, HttpRangeParser.parse("bytes=10000-", SIZE).status());
+        assertEquals(HttpRangeParser.Status.UNSATISFIABLE, HttpRangeParser.parse("bytes=-0", SIZE).status());
+    }
+
+    @Test
+    void ignoresMalformedOrForeignHeaders() {
+        assertEquals(HttpRangeParser.Status.IGNORE, HttpRangeParser.parse(null, SIZE).status());
+        assertEquals(HttpRangeParser.Status.IGNORE, HttpRangeParser.parse("bytes=abc-def", SIZE).status());
+        assertEquals(HttpRangeParser.Status.IGNORE, HttpRangeParser.parse("bytes=500-100", SIZE).status());
+        assertEquals(HttpRangeParser.Status.IGNORE, HttpRangeParser.parse("bytes=100", SIZE).status());
+        assertEquals(HttpRangeParser.Status.IGNORE, HttpRangeParser.parse("items=0-5", SIZE).status());
+        assertEquals(HttpRangeParser.Status.IGNORE, HttpRangeParser.parse("bytes=", SIZE).status());
+        assertEquals(HttpRangeParser.Status.IGNORE, HttpRangeParser.parse("bytes=+1-5", SIZE).status());
+    }
+
+    @Test
+    void ignoresExcessiveRangeSets() {
+        StringBuilder header = new StringBuilder("bytes=");
+        for (int i = 0; i < HttpRangeParser.MAX_RANGES + 1; i++) {
+            header.append(i * 200).append('-').append(i * 200 + 1).append(',');
+        }
+
+        assertEquals(HttpRangeParser.Status.IGNORE, HttpRangeParser.parse(header.toString(), SIZE).status());
+    }
+}
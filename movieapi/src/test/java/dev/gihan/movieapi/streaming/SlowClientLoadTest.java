@@ -0,0 +1,192 @@
+package dev.gihan.movieapi.streaming;
+
+import jakarta.servlet.http.HttpServlet;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.apache.catalina.Context;
+import org.apache.catalina.connector.Connector;
+import org.apache.catalina.startup.Tomcat;
+import org.apache.coyote.AbstractProtocol;
+import org.apache.tomcat.util.threads.VirtualThreadExecutor;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * How many concurrent slow viewers one node keeps streaming on a 200-thread platform pool versus
+ * virtual threads, and what sendfile adds on top.
+ * <p>
+ * All runs serve the file through {@link VideoRegionWriter}. The thread comparison has sendfile off,
+ * so both sides copy with transferTo and hold their thread until the client has read everything;
+ * the difference is down to the executor alone. The third run puts sendfile back on the platform
+ * pool, where the connector's poller takes over the body and frees the worker. Every client reads
+ * a trickle of bytes per interval, so no transfer completes during the run.
+ * <p>
+ * On JDK 21 a virtual thread blocked in Tomcat's socket write waits inside a monitor and pins its
+ * carrier, so the transferTo path on virtual threads tops out near the carrier pool limit (256 by
+ * default) rather than serving every client; sendfile is what lets a node hold most slow streams.
+ * <p>
+ * Run with {@code mvn test -Pload-test}; tune with -Dload.clients and -Dload.windowSeconds.
+ */
+@Tag("load")
+class SlowClientLoadTest {
+
+    private static final Logger log = LoggerFactory.getLogger(SlowClientLoadTest.class);
+
+    private static final int CLIENTS = Integer.getInteger("load.clients", 600);
+    private static final int WINDOW_SECONDS = Integer.getInteger("load.windowSeconds", 8);
+    private static final int PLATFORM_THREADS = 200;
+    private static final long VIDEO_SIZE = 32L * 1024 * 1024;
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void virtualThreadsSustainMoreConcurrentSlowStreams() throws Exception {
+        Path video = tempDir.resolve("video.mp4");
+        try (RandomAccessFile file = new RandomAccessFile(video.toFile(), "rw")) {
+            file.setLength(VIDEO_SIZE);
+        }
+
+        // Virtual threads last: writers still blocked from its run would hold carriers into the next one
+        int platformSendfile = measure(false, true, video);
+        int platform = measure(false, false, video);
+        int virtual = measure(true, false, video);
+
+        log.info("Slow-client load test ({} clients, {}s window), streams receiving bytes: "
+                        + "{} platform threads with transferTo {}, virtual threads with transferTo {}, "
+                        + "platform threads with sendfile {}",
+                CLIENTS, WINDOW_SECONDS, PLATFORM_THREADS, platform, virtual, platformSendfile);
+
+        assertTrue(platform <= PLATFORM_THREADS + 10,
+                "platform pool should cap concurrent transferTo streams, got " + platform);
+        assertTrue(virtual > platform,
+                "virtual threads should outgrow the platform pool, got " + virtual + " vs " + platform);
+        assertTrue(platformSendfile >= CLIENTS * 0.95,
+                "sendfile should free platform workers, got " + platformSendfile + " of " + CLIENTS);
+    }
+
+    private int measure(boolean virtualThreads, boolean sendfile, Path video) throws Exception {
+        Tomcat tomcat = startServer(virtualThreads, sendfile, video);
+        try {
+            int port = tomcat.getConnector().getLocalPort();
+            AtomicInteger receiving = new AtomicInteger();
+            CountDownLatch done = new CountDownLatch(CLIENTS);
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(WINDOW_SECONDS);
+
+            List<Thread> clients = new ArrayList<>(CLIENTS);
+            for (int i = 0; i < CLIENTS; i++) {
+                // Platform client threads, so the clients never compete with the server for carriers
+                clients.add(Thread.ofPlatform().start(() -> {
+                    try {
+                        slowClient(port, deadline, receiving);
+                    } finally {
+                        done.countDown();
+                    }
+                }));
+            }
+            done.await(WINDOW_SECONDS + 30L, TimeUnit.SECONDS);
+            clients.forEach(Thread::interrupt);
+            return receiving.get();
+        } finally {
+            tomcat.stop();
+            tomcat.destroy();
+        }
+    }
+
+    private void slowClient(int port, long deadline, AtomicInteger receiving) {
+        try (Socket socket = new Socket()) {
+            socket.setReceiveBufferSize(8192);
+            socket.connect(new InetSocketAddress("127.0.0.1", port), 5000);
+            OutputStream out = socket.getOutputStream();
+            out.write("GET /stream HTTP/1.1\r\nHost: localhost\r\n\r\n".getBytes(StandardCharsets.US_ASCII));
+            out.flush();
+
+            InputStream in = socket.getInputStream();
+            byte[] buffer = new byte[1024];
+            boolean counted = false;
+            while (System.nanoTime() < deadline) {
+                long remainingMillis = TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime());
+                socket.setSoTimeout((int) Math.max(1, remainingMillis));
+                try {
+                    if (in.read(buffer) < 0) {
+                        return;
+                    }
+                } catch (SocketTimeoutException e) {
+                    return;
+                }
+                if (!counted) {
+                    receiving.incrementAndGet();
+                    counted = true;
+                }
+                // A viewer on a weak link: ~5 KB/s
+                Thread.sleep(200);
+            }
+        } catch (IOException e) {
+            // Connection refused or reset counts as not served
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private Tomcat startServer(boolean virtualThreads, boolean sendfile, Path video) throws Exception {
+        Tomcat tomcat = new Tomcat();
+        tomcat.setBaseDir(Files.createTempDirectory(tempDir, "tomcat").toString());
+
+        Connector connector = new Connector();
+        connector.setPort(0);
+        connector.setProperty("maxConnections", "10000");
+        connector.setProperty("acceptCount", "1000");
+        if (virtualThreads) {
+            ((AbstractProtocol<?>) connector.getProtocolHandler()).setExecutor(new VirtualThreadExecutor("load-"));
+        } else {
+            connector.setProperty("maxThreads", String.valueOf(PLATFORM_THREADS));
+        }
+        tomcat.setConnector(connector);
+
+        Context context = tomcat.addContext("", tempDir.toString());
+        Tomcat.addServlet(context, "stream", new RegionWriterServlet(video, sendfile));
+        context.addServletMappingDecoded("/stream", "stream");
+
+        tomcat.start();
+        return tomcat;
+    }
+
+    private static final class RegionWriterServlet extends HttpServlet {
+        private final Path video;
+        private final VideoRegionWriter writer = new VideoRegionWriter();
+
+        RegionWriterServlet(Path video, boolean sendfile) {
+            this.video = video;
+            ReflectionTestUtils.setField(writer, "sendfileEnabled", sendfile);
+        }
+
+        @Override
+        protected void doGet(HttpServletRequest request, HttpServletResponse response) throws IOException {
+            response.setContentType("video/mp4");
+            response.setContentLengthLong(VIDEO_SIZE);
+            writer.writeRegion(request, response, video, 0, VIDEO_SIZE);
+        }
+    }
+}
@@ -0,0 +1,130 @@
+package dev.gihan.movieapi.streaming;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.mock.web.MockServletContext;
+import org.springframework.web.servlet.HandlerMapping;
+import org.springframework.web.servlet.resource.EncodedResourceResolver;
+import org.springframework.web.servlet.resource.NoResourceFoundException;
+import org.springframework.web.servlet.resource.PathResourceResolver;
+import org.springframework.web.servlet.resource.ResourceHttpRequestHandler;
+import org.springframework.web.servlet.resource.VersionResourceResolver;
+
+import java.io.ByteArrayInputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StaticAssetServingTest {
+
+    private static final String POSTER = "3f2a9c1e-7b4d-4e2a-9f10-8c6d5e4b3a21.png";
+
+    @TempDir
+    Path directory;
+
+    private final ContentFingerprintStrategy fingerprints = new ContentFingerprintStrategy(100);
+    private ResourceHttpRequestHandler handler;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        handler = new ResourceHttpRequestHandler();
+        handler.setLocations(List.of(new FileSystemResource(directory.toString() + "/")));
+        handler.setResourceResolvers(List.of(
+                new ImmutableResourceResolver(),
+                new EncodedResourceResolver(),
+                new VersionResourceResolver().addVersionStrategy(fingerprints, "/**/*.png", "/**/*.css"),
+                new PathResourceResolver()));
+        handler.setCacheSeconds(3600);
+        handler.setServletContext(new MockServletContext());
+        handler.afterPropertiesSet();
+    }
+
+    @Test
+    void fingerprintChangesOnlyWhenTheFileDoes() throws Exception {
+        Path poster = Files.write(directory.resolve(POSTER), new byte[]{1, 2, 3});
+        String first = fingerprints.getResourceVersion(new FileSystemResource(poster));
+
+        // Cached while size and mtime hold, even though the bytes changed behind it
+        FileTime modified = Files.getLastModifiedTime(poster);
+        Files.write(poster, new byte[]{4, 5, 6});
+        Files.setLastModifiedTime(poster, modified);
+        assertEquals(first, fingerprints.getResourceVersion(new FileSystemResource(poster)));
+
+        Files.setLastModifiedTime(poster, FileTime.fromMillis(modified.toMillis() + 1000));
+        assertNotEquals(first, fingerprints.getResourceVersion(new FileSystemResource(poster)));
+
+        assertEquals("/uploads/" + POSTER, ContentFingerprintStrategy.stripFingerprint(
+                "/uploads/" + POSTER.replace(".png", "-" + first + ".png")));
+        assertEquals("/uploads/" + POSTER, ContentFingerprintStrategy.stripFingerprint("/uploads/" + POSTER));
+    }
+
+    @Test
+    void fingerprintedAndContentAddressedNamesAreImmutable() throws Exception {
+        Path poster = Files.write(directory.resolve(POSTER), new byte[]{1, 2, 3});
+        String version = fingerprints.getResourceVersion(new FileSystemResource(poster));
+        String sha = "ab".repeat(32) + ".png";
+        Files.write(directory.resolve(sha), new byte[]{7});
+
+        MockHttpServletResponse plain = get(POSTER, null);
+        assertEquals(200, plain.getStatus());
+        assertEquals("max-age=3600", plain.getHeader(HttpHeaders.CACHE_CONTROL));
+
+        MockHttpServletResponse versioned = get(POSTER.replace(".png", "-" + version + ".png"), null);
+        assertEquals(200, versioned.getStatus());
+        assertEquals(ImmutableResourceResolver.IMMUTABLE, versioned.getHeader(HttpHeaders.CACHE_CONTROL));
+        assertArrayEquals(new byte[]{1, 2, 3}, versioned.getContentAsByteArray());
+
+        assertEquals(ImmutableResourceResolver.IMMUTABLE, get(sha, null).getHeader(HttpHeaders.CACHE_CONTROL));
+        // A fingerprint of other content is not served as this file
+        assertThrows(NoResourceFoundException.class,
+                () -> get(POSTER.replace(".png", "-" + "0".repeat(32) + ".png"), null));
+    }
+
+    @Test
+    void servesThePrecompressedSiblingToGzipClients() throws Exception {
+        Path css = Files.writeString(directory.resolve("site.css"), "body { color: white; }\n".repeat(200));
+        assertTrue(StaticAssetCompressor.compress(css));
+        assertFalse(StaticAssetCompressor.compress(css));
+        String version = fingerprints.getResourceVersion(new FileSystemResource(css));
+
+        MockHttpServletResponse response = get("site-" + version + ".css", "gzip, deflate");
+
+        assertEquals("gzip", response.getHeader(HttpHeaders.CONTENT_ENCODING));
+        assertEquals(ImmutableResourceResolver.IMMUTABLE, response.getHeader(HttpHeaders.CACHE_CONTROL));
+        assertTrue(response.getHeaders(HttpHeaders.VARY).contains(HttpHeaders.ACCEPT_ENCODING));
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(response.getContentAsByteArray()))) {
+            assertEquals(Files.readString(css), new String(in.readAllBytes()));
+        }
+        assertNull(get("site.css", null).getHeader(HttpHeaders.CONTENT_ENCODING));
+    }
+
+    @Test
+    void leavesMediaAndIncompressibleFilesAlone() throws Exception {
+        Files.write(directory.resolve("movie.mp4"), new byte[4096]);
+        Files.write(directory.resolve("tiny.json"), new byte[]{'{', '}'});
+
+        assertEquals(0, StaticAssetCompressor.compressAll(directory));
+        assertFalse(Files.exists(directory.resolve("movie.mp4.gz")));
+        assertFalse(Files.exists(directory.resolve("tiny.json.gz")));
+    }
+
+    private MockHttpServletResponse get(String path, String acceptEncoding) throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/uploads/" + path);
+        request.setAttribute(HandlerMapping.PATH_WITHIN_HANDLER_MAPPING_ATTRIBUTE, path);
+        if (acceptEncoding != null) {
+            request.addHeader(HttpHeaders.ACCEPT_ENCODING, acceptEncoding);
+        }
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        handler.handleRequest(request, response);
+        return response;
+    }
+}
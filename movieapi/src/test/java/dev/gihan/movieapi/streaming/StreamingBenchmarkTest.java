@@ -0,0 +1,406 @@
+package dev.gihan.movieapi.streaming;
+
+import com.sun.management.ThreadMXBean;
+import dev.gihan.movieapi.model.Movie;
+import dev.gihan.movieapi.model.User;
+import dev.gihan.movieapi.model.option.Genre;
+import dev.gihan.movieapi.model.option.Role;
+import dev.gihan.movieapi.repository.MovieRepository;
+import dev.gihan.movieapi.repository.UserRepository;
+import dev.gihan.movieapi.security.JwtTokenProvider;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Random;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Throughput and time-to-first-byte of {@code GET /api/stream/{id}} under concurrent viewers,
+ * against the full application (security, session tracking, shaping, hot chunk cache) with H2
+ * standing in for MySQL and seeded synthetic video files.
+ * <p>
+ * Each virtual viewer picks a movie with a skewed popularity, probes the tail like a player
+ * looking for a trailing moov, opens with {@code bytes=0-} and abandons it after a startup buffer,
+ * then fetches 1MB ranges: mostly the next chunk, sometimes a forward or backward seek. One
+ * viewer in ten downloads the whole file without a Range header. The report covers throughput,
+ * p50/p99 TTFB per request kind and GC/allocation during the measured window; the client shares
+ * the JVM, so allocation includes its (fixed, reused) buffers.
+ * <p>
+ * Run with {@code mvn test -Pbenchmark}; tune with -Dbenchmark.clients, -Dbenchmark.seconds,
+ * -Dbenchmark.warmupSeconds, -Dbenchmark.movies and -Dbenchmark.videoMegabytes. Results are written
+ * to target/benchmark/streaming-report.properties; pass a previous report as -Dbenchmark.baseline
+ * to fail on a throughput drop or p99 TTFB rise beyond -Dbenchmark.maxRegressionPercent, or set
+ * -Dbenchmark.maxP99TtfbMillis for an absolute limit. Absolute numbers depend on the machine, so
+ * compare runs on the same host.
+ */
+@Tag("benchmark")
+@ActiveProfiles("benchmark")
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+class StreamingBenchmarkTest {
+
+    private static final int CLIENTS = Integer.getInteger("benchmark.clients", 64);
+    private static final int SECONDS = Integer.getInteger("benchmark.seconds", 20);
+    private static final int WARMUP_SECONDS = Integer.getInteger("benchmark.warmupSeconds", 5);
+    private static final int MOVIES = Integer.getInteger("benchmark.movies", 4);
+    private static final long VIDEO_SIZE = Long.getLong("benchmark.videoMegabytes", 64L) * 1024 * 1024;
+    private static final long MAX_P99_TTFB_MILLIS = Long.getLong("benchmark.maxP99TtfbMillis", 0L);
+    private static final int MAX_REGRESSION_PERCENT = Integer.getInteger("benchmark.maxRegressionPercent", 20);
+    private static final long SEED = Long.getLong("benchmark.seed", 42L);
+
+    private static final int CHUNK = 1024 * 1024;
+    private static final int STARTUP_BUFFER = 2 * CHUNK;
+    private static final int TAIL_PROBE = 64 * 1024;
+
+    private static final Path WORK_DIRECTORY = Paths.get("target", "benchmark");
+    private static final Path VIDEO_DIRECTORY = WORK_DIRECTORY.resolve("videos");
+
+    enum Kind { FULL, OPEN, TAIL, NEXT, SEEK }
+
+    private record Sample(Kind kind, long ttfbNanos, long bytes) {
+    }
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private MovieRepository movieRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private PasswordEncoder passwordEncoder;
+
+    @Autowired
+    private JwtTokenProvider jwtTokenProvider;
+
+    private final ConcurrentLinkedQueue<Sample> samples = new ConcurrentLinkedQueue<>();
+    private final AtomicLong errors = new AtomicLong();
+    private volatile boolean measuring;
+
+    @DynamicPropertySource
+    static void videoDirectory(DynamicPropertyRegistry registry) throws IOException {
+        // The metadata cache watches the directory from startup, so it must exist first
+        Files.createDirectories(VIDEO_DIRECTORY);
+        registry.add("app.file.upload.dir", () -> WORK_DIRECTORY.toAbsolutePath().toString());
+    }
+
+    @Test
+    void streamingThroughputAndLatency() throws Exception {
+        List<Long> movieIds = createMovies();
+        String token = createViewerToken();
+        HttpClient client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(5))
+                .executor(Executors.newVirtualThreadPerTaskExecutor())
+                .build();
+
+        long warmupEnd = System.nanoTime() + TimeUnit.SECONDS.toNanos(WARMUP_SECONDS);
+        long deadline = warmupEnd + TimeUnit.SECONDS.toNanos(SECONDS);
+        List<Thread> viewers = new ArrayList<>(CLIENTS);
+        for (int i = 0; i < CLIENTS; i++) {
+            Random random = new Random(SEED + i);
+            viewers.add(Thread.ofVirtual().name("viewer-" + i)
+                    .start(() -> viewer(client, token, movieIds, random, deadline)));
+        }
+
+        TimeUnit.NANOSECONDS.sleep(warmupEnd - System.nanoTime());
+        long gcCountBefore = gcCount();
+        long gcMillisBefore = gcMillis();
+        long allocatedBefore = allocatedBytes();
+        long start = System.nanoTime();
+        measuring = true;
+
+        for (Thread viewer : viewers) {
+            viewer.join(TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime()) + 30_000);
+        }
+        measuring = false;
+        double elapsedSeconds = (System.nanoTime() - start) / 1e9;
+
+        Properties report = report(elapsedSeconds, gcCount() - gcCountBefore,
+                gcMillis() - gcMillisBefore, allocatedBytes() - allocatedBefore);
+        Files.createDirectories(WORK_DIRECTORY);
+        try (Writer writer = Files.newBufferedWriter(WORK_DIRECTORY.resolve("streaming-report.properties"))) {
+            report.store(writer, "Streaming benchmark, " + CLIENTS + " clients, " + SECONDS + "s");
+        }
+
+        assertFalse(samples.isEmpty(), "no requests completed in the measured window");
+        assertEquals(0, errors.get(), "requests failed or returned an unexpected status");
+        double p99 = Double.parseDouble(report.getProperty("ttfb.all.p99.ms"));
+        assertTrue(MAX_P99_TTFB_MILLIS <= 0 || p99 <= MAX_P99_TTFB_MILLIS, "p99 TTFB " + p99 + " ms exceeds " + MAX_P99_TTFB_MILLIS + " ms");
+        compareWithBaseline(report);
+    }
+
+    private void viewer(HttpClient client, String token, List<Long> movieIds, Random random, long deadline) {
+        byte[] buffer = new byte[64 * 1024];
+        try {
+            while (System.nanoTime() < deadline) {
+                URI uri = URI.create("http://localhost:" + port + "/api/stream/" + pickMovie(movieIds, random));
+                if (random.nextInt(10) == 0) {
+                    fetch(client, token, uri, Kind.FULL, null, Long.MAX_VALUE, buffer);
+                    continue;
+                }
+                if (random.nextInt(10) < 3) {
+                    fetch(client, token, uri, Kind.TAIL, "bytes=-" + TAIL_PROBE, TAIL_PROBE, buffer);
+                }
+                fetch(client, token, uri, Kind.OPEN, "bytes=0-", STARTUP_BUFFER, buffer);
+
+                long position = STARTUP_BUFFER;
+                int actions = 1 + random.nextInt(8);
+                for (int i = 0; i < actions && System.nanoTime() < deadline; i++) {
+                    int roll = random.nextInt(10);
+                    Kind kind = Kind.NEXT;
+                    if (roll >= 7) {
+                        kind = Kind.SEEK;
+                        long target = roll < 9
+                                ? position + (long) (random.nextDouble() * (VIDEO_SIZE - position))
+                                : (long) (random.nextDouble() * position);
+                        position = target / CHUNK * CHUNK;
+                    }
+                    if (position >= VIDEO_SIZE) {
+                        break;
+                    }
+                    long end = Math.min(VIDEO_SIZE, position + CHUNK) - 1;
+                    fetch(client, token, uri, kind, "bytes=" + position + "-" + end, end - position + 1, buffer);
+                    position = end + 1;
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /** Sends one request and reads up to {@code limit} body bytes, closing early like a player that moved on. */
+    private void fetch(HttpClient client, String token, URI uri, Kind kind, String range, long limit, byte[] buffer)
+            throws InterruptedException {
+        HttpRequest.Builder request = HttpRequest.newBuilder(uri)
+                .timeout(Duration.ofSeconds(30))
+                .header("Authorization", "Bearer " + token);
+        if (range != null) {
+            request.header("Range", range);
+        }
+        int expectedStatus = range != null ? 206 : 200;
+
+        long sent = System.nanoTime();
+        try {
+            HttpResponse<InputStream> response = client.send(request.build(), HttpResponse.BodyHandlers.ofInputStream());
+            try (InputStream body = response.body()) {
+                if (response.statusCode() != expectedStatus || body.read() < 0) {
+                    recordError();
+                    return;
+                }
+                long ttfb = System.nanoTime() - sent;
+                long received = 1;
+                int read;
+                while (received < limit
+                        && (read = body.read(buffer, 0, (int) Math.min(buffer.length, limit - received))) > 0) {
+                    received += read;
+                }
+                if (measuring) {
+                    samples.add(new Sample(kind, ttfb, received));
+                }
+            }
+        } catch (IOException e) {
+            recordError();
+        }
+    }
+
+    private void recordError() {
+        if (measuring) {
+            errors.incrementAndGet();
+        }
+    }
+
+    /** Zipf-like popularity: the first movie is requested about twice as often as the second. */
+    private static long pickMovie(List<Long> movieIds, Random random) {
+        double total = 0;
+        for (int i = 0; i < movieIds.size(); i++) {
+            total += 1.0 / (i + 1);
+        }
+        double roll = random.nextDouble() * total;
+        for (int i = 0; i < movieIds.size(); i++) {
+            roll -= 1.0 / (i + 1);
+            if (roll <= 0) {
+                return movieIds.get(i);
+            }
+        }
+        return movieIds.get(movieIds.size() - 1);
+    }
+
+    private List<Long> createMovies() throws IOException {
+        List<Long> ids = new ArrayList<>();
+        for (int i = 0; i < MOVIES; i++) {
+            String fileName = "benchmark-" + i + ".mp4";
+            writeVideo(VIDEO_DIRECTORY.resolve(fileName), SEED + i);
+
+            Movie movie = new Movie();
+            movie.setTitle("Benchmark " + i);
+            movie.setVideoUrl("/uploads/videos/" + fileName);
+            movie.setGenre(Genre.DOCUMENTARY);
+            ids.add(movieRepository.save(movie).getId());
+        }
+        return ids;
+    }
+
+    /** Seeded pseudo-random content, kept between runs while the size matches. */
+    private static void writeVideo(Path file, long seed) throws IOException {
+        if (Files.isRegularFile(file) && Files.size(file) == VIDEO_SIZE) {
+            return;
+        }
+        Random random = new Random(seed);
+        byte[] block = new byte[CHUNK];
+        try (OutputStream out = Files.newOutputStream(file)) {
+            for (long written = 0; written < VIDEO_SIZE; written += block.length) {
+                random.nextBytes(block);
+                out.write(block, 0, (int) Math.min(block.length, VIDEO_SIZE - written));
+            }
+        }
+    }
+
+    private String createViewerToken() {
+        User user = new User();
+        user.setRole(Role.USER);
+        user.setEmail("viewer@benchmark.local");
+        user.setPassword(passwordEncoder.encode("benchmark"));
+        user.setFirstName("Bench");
+        user.setLastName("Viewer");
+        userRepository.save(user);
+        return jwtTokenProvider.generateToken(new UsernamePasswordAuthenticationToken(
+                user.getEmail(), null, List.of(new SimpleGrantedAuthority("ROLE_USER"))));
+    }
+
+    private Properties report(double elapsedSeconds, long gcCount, long gcMillis, long allocated) {
+        List<Sample> measured = new ArrayList<>(samples);
+        long bytes = measured.stream().mapToLong(Sample::bytes).sum();
+        double megabytes = bytes / (1024.0 * 1024.0);
+
+        Properties report = new Properties();
+        report.setProperty("clients", String.valueOf(CLIENTS));
+        report.setProperty("seconds", format(elapsedSeconds));
+        report.setProperty("requests", String.valueOf(measured.size()));
+        report.setProperty("errors", String.valueOf(errors.get()));
+        report.setProperty("throughput.mb.per.second", format(megabytes / elapsedSeconds));
+        report.setProperty("requests.per.second", format(measured.size() / elapsedSeconds));
+        report.setProperty("gc.count", String.valueOf(gcCount));
+        report.setProperty("gc.ms", String.valueOf(gcMillis));
+        report.setProperty("allocated.mb", format(allocated / (1024.0 * 1024.0)));
+        report.setProperty("allocated.kb.per.mb.served", format(megabytes > 0 ? allocated / 1024.0 / megabytes : 0));
+
+        System.out.printf("%nStreaming benchmark (%d clients, %d movies x %d MB, %.1fs measured)%n",
+                CLIENTS, MOVIES, VIDEO_SIZE / (1024 * 1024), elapsedSeconds);
+        System.out.printf("  throughput: %.1f MB/s, %.1f requests/s, %d errors%n",
+                megabytes / elapsedSeconds, measured.size() / elapsedSeconds, errors.get());
+
+        Map<Kind, List<Sample>> byKind = new EnumMap<>(Kind.class);
+        measured.forEach(sample -> byKind.computeIfAbsent(sample.kind(), k -> new ArrayList<>()).add(sample));
+        System.out.printf("  %-5s %9s %10s %10s%n", "kind", "requests", "p50 TTFB", "p99 TTFB");
+        addLatency(report, "all", measured);
+        byKind.forEach((kind, kindSamples) -> addLatency(report, kind.name().toLowerCase(Locale.ROOT), kindSamples));
+
+        System.out.printf("  GC: %d collections, %d ms; allocated %.1f MB (%.1f KB per MB served)%n%n",
+                gcCount, gcMillis, allocated / (1024.0 * 1024.0), megabytes > 0 ? allocated / 1024.0 / megabytes : 0);
+        return report;
+    }
+
+    private static void addLatency(Properties report, String name, List<Sample> samples) {
+        long[] ttfb = samples.stream().mapToLong(Sample::ttfbNanos).sorted().toArray();
+        double p50 = percentileMillis(ttfb, 0.50);
+        double p99 = percentileMillis(ttfb, 0.99);
+        report.setProperty("ttfb." + name + ".p50.ms", format(p50));
+        report.setProperty("ttfb." + name + ".p99.ms", format(p99));
+        System.out.printf("  %-5s %9d %7.2f ms %7.2f ms%n", name, ttfb.length, p50, p99);
+    }
+
+    private static double percentileMillis(long[] sorted, double percentile) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        int index = (int) Math.ceil(percentile * sorted.length) - 1;
+        return sorted[Math.max(0, index)] / 1e6;
+    }
+
+    private static void compareWithBaseline(Properties report) throws IOException {
+        String baselinePath = System.getProperty("benchmark.baseline");
+        if (baselinePath == null || baselinePath.isBlank()) {
+            return;
+        }
+        Properties baseline = new Properties();
+        try (Reader reader = Files.newBufferedReader(Paths.get(baselinePath))) {
+            baseline.load(reader);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot read benchmark baseline " + baselinePath, e);
+        }
+        double allowed = MAX_REGRESSION_PERCENT / 100.0;
+
+        double throughput = value(report, "throughput.mb.per.second");
+        double baselineThroughput = value(baseline, "throughput.mb.per.second");
+        assertTrue(throughput >= baselineThroughput * (1 - allowed),
+                String.format(Locale.ROOT, "throughput fell from %.1f to %.1f MB/s", baselineThroughput, throughput));
+
+        // A millisecond of slack keeps sub-millisecond baselines from failing on noise
+        double p99 = value(report, "ttfb.all.p99.ms");
+        double baselineP99 = value(baseline, "ttfb.all.p99.ms");
+        assertTrue(p99 <= baselineP99 * (1 + allowed) + 1,
+                String.format(Locale.ROOT, "p99 TTFB rose from %.2f to %.2f ms", baselineP99, p99));
+    }
+
+    private static double value(Properties properties, String key) {
+        String value = properties.getProperty(key);
+        assertNotNull(value, "benchmark report is missing " + key);
+        return Double.parseDouble(value);
+    }
+
+    private static String format(double value) {
+        return String.format(Locale.ROOT, "%.2f", value);
+    }
+
+    private static long gcCount() {
+        return ManagementFactory.getGarbageCollectorMXBeans().stream()
+                .mapToLong(GarbageCollectorMXBean::getCollectionCount).filter(count -> count > 0).sum();
+    }
+
+    private static long gcMillis() {
+        return ManagementFactory.getGarbageCollectorMXBeans().stream()
+                .mapToLong(GarbageCollectorMXBean::getCollectionTime).filter(time -> time > 0).sum();
+    }
+
+    private static long allocatedBytes() {
+        return ((ThreadMXBean) ManagementFactory.getThreadMXBean()).getTotalThreadAllocatedBytes();
+    }
+}
@@ -0,0 +1,64 @@
+package dev.gihan.movieapi.streaming;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StreamingConcurrencyFilterTest {
+
+    @Test
+    void classifiesVideoBodiesAndSegmentsAsTransfers() {
+        StreamingConcurrencyFilter filter = new StreamingConcurrencyFilter(1, 1, 0);
+
+        assertTrue(filter.isTransfer(new MockHttpServletRequest("GET", "/api/stream/42")));
+        assertTrue(filter.isTransfer(new MockHttpServletRequest("GET", "/api/stream/42/hls/720p/segment_00001.ts")));
+        assertFalse(filter.isTransfer(new MockHttpServletRequest("GET", "/api/stream/42/hls/720p/index.m3u8")));
+        assertFalse(filter.isTransfer(new MockHttpServletRequest("GET", "/api/stream/42/master.m3u8")));
+        assertFalse(filter.isTransfer(new MockHttpServletRequest("POST", "/api/stream/progress")));
+    }
+
+    @Test
+    void rejectsTransfersOverTheLimitButKeepsMetadataFlowing() throws Exception {
+        StreamingConcurrencyFilter filter = new StreamingConcurrencyFilter(1, 1, 0);
+        CountDownLatch transferStarted = new CountDownLatch(1);
+        CountDownLatch releaseTransfer = new CountDownLatch(1);
+        AtomicReference<Exception> failure = new AtomicReference<>();
+
+        Thread slowViewer = Thread.ofVirtual().start(() -> {
+            try {
+                filter.doFilter(new MockHttpServletRequest("GET", "/api/stream/1"), new MockHttpServletResponse(),
+                        (request, response) -> {
+                            transferStarted.countDown();
+                            try {
+                                releaseTransfer.await();
+                            } catch (InterruptedException e) {
+                                Thread.currentThread().interrupt();
+                            }
+                        });
+            } catch (Exception e) {
+                failure.set(e);
+            }
+        });
+        transferStarted.await();
+
+        MockHttpServletResponse rejected = new MockHttpServletResponse();
+        filter.doFilter(new MockHttpServletRequest("GET", "/api/stream/2"), rejected, new MockFilterChain());
+        assertEquals(503, rejected.getStatus());
+        assertEquals("1", rejected.getHeader("Retry-After"));
+
+        MockHttpServletResponse metadata = new MockHttpServletResponse();
+        filter.doFilter(new MockHttpServletRequest("GET", "/api/stream/2/master.m3u8"), metadata, new MockFilterChain());
+        assertEquals(200, metadata.getStatus());
+
+        releaseTransfer.countDown();
+        slowViewer.join();
+        assertNull(failure.get());
+        assertEquals(1, filter.getAvailableTransferPermits());
+    }
+}
@@ -0,0 +1,70 @@
+package dev.gihan.movieapi.streaming;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StreamingMetricsTest {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final StreamingMetrics metrics = new StreamingMetrics(registry, 2);
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void recordsRequestsAndTimeToFirstBytePerMovie() {
+        StreamingMetrics.Transfer transfer = metrics.begin(7L, System.nanoTime());
+        assertEquals(1, gauge("7"));
+
+        transfer.request(StreamingMetrics.RequestType.RANGE);
+        transfer.sent(1000);
+        transfer.sent(500);
+        transfer.finish();
+        transfer.finish();
+
+        assertEquals(1, registry.get("streaming.requests").tags("movie", "7", "type", "range").counter().count());
+        assertEquals(0, registry.get("streaming.requests").tags("movie", "7", "type", "full").counter().count());
+        assertEquals(1500, registry.get("streaming.bytes.served").tag("movie", "7").counter().count());
+        assertEquals(1, registry.get("streaming.ttfb").tag("movie", "7").timer().count());
+        assertEquals(0, gauge("7"));
+    }
+
+    @Test
+    void sharesOneSeriesPastTheMovieCap() {
+        metrics.begin(1L, System.nanoTime()).rangeNotSatisfiable();
+        metrics.begin(2L, System.nanoTime()).aborted();
+        metrics.begin(3L, System.nanoTime()).aborted();
+        metrics.begin(4L, System.nanoTime()).aborted();
+        metrics.begin(4L, System.nanoTime()).failed();
+
+        assertEquals(1, registry.get("streaming.range.unsatisfiable").tag("movie", "1").counter().count());
+        assertEquals(2, registry.get("streaming.aborted").tag("movie", StreamingMetrics.OTHER_MOVIES).counter().count());
+        assertNull(registry.find("streaming.aborted").tag("movie", "3").counter());
+        assertEquals(1, registry.get("streaming.failed").tag("movie", StreamingMetrics.OTHER_MOVIES).counter().count());
+    }
+
+    @Test
+    void regionWriterCountsBytesAsTheyAreWritten() throws Exception {
+        Path video = Files.write(tempDir.resolve("video.mp4"), new byte[100_000]);
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/stream/7");
+        StreamingMetrics.Transfer transfer = metrics.begin(7L, System.nanoTime());
+        request.setAttribute(StreamingMetrics.TRANSFER_ATTRIBUTE, transfer);
+
+        new VideoRegionWriter().writeRegion(request, new MockHttpServletResponse(), video, 10, 90_000);
+
+        assertEquals(90_000, registry.get("streaming.bytes.served").tag("movie", "7").counter().count());
+        assertEquals(1, registry.get("streaming.ttfb").tag("movie", "7").timer().count());
+    }
+
+    private double gauge(String movie) {
+        return registry.get("streaming.transfers.active").tag("movie", movie).gauge().value();
+    }
+}
@@ -0,0 +1,165 @@
+package dev.gihan.movieapi.streaming;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StreamingSessionRegistryTest {
+
+    private final MutableClock clock = new MutableClock();
+    private final StreamingSessionRegistry registry = new StreamingSessionRegistry(clock);
+
+    @Test
+    void rangeRequestsOfOneViewerShareASession() {
+        StreamingSessionRegistry.Touch first = registry.touch(7L, 1L, 0, "10.0.0.1", "player");
+        assertTrue(first.opened());
+        for (int i = 0; i < 50; i++) {
+            clock.advance(1000);
+            StreamingSessionRegistry.Touch next = registry.touch(7L, 1L, 0, "10.0.0.2", "other device");
+            assertEquals(first.sessionId(), next.sessionId());
+            assertFalse(next.opened());
+        }
+        StreamingSessionRegistry.Touch guest = registry.touch(null, 1L, 0, "10.0.0.1", "player");
+        assertNotEquals(first.sessionId(), guest.sessionId());
+
+        List<StreamingSessionRegistry.PendingSession> sessions = registry.drainSessions(100);
+        assertEquals(2, sessions.size());
+        assertEquals(7L, sessions.get(0).userId());
+        assertNull(sessions.get(1).userId());
+    }
+
+    @Test
+    void viewerReturningAfterIdleTimeoutStartsNewSession() {
+        StreamingSessionRegistry.Touch first = registry.touch(7L, 1L, 0, "10.0.0.1", "player");
+        clock.advance(600_000);
+        assertEquals(1, registry.evictIdle());
+        StreamingSessionRegistry.Touch resumed = registry.touch(7L, 1L, 0, "10.0.0.1", "player");
+        assertTrue(resumed.opened());
+        assertNotEquals(first.sessionId(), resumed.sessionId());
+    }
+
+    @Test
+    void heartbeatsKeepSessionAliveAndEndRecordsCompletion() {
+        StreamingSessionRegistry.Touch session = registry.touch(7L, 1L, 6000, "10.0.0.1", "player");
+        for (int i = 0; i < 5; i++) {
+            clock.advance(300_000);
+            assertTrue(registry.heartbeat(session.sessionId(), i * 300));
+            assertEquals(0, registry.evictIdle());
+        }
+
+        assertTrue(registry.end(session.sessionId(), 5500));
+        assertFalse(registry.end(session.sessionId(), 5500));
+        assertFalse(registry.heartbeat(session.sessionId(), null));
+        assertEquals(0, registry.activeSessionCount());
+
+        List<StreamingSessionRegistry.PendingEnd> ends = registry.drainEnds(10);
+        assertEquals(1, ends.size());
+        assertEquals(session.sessionId(), ends.get(0).sessionId());
+        assertEquals(5500, ends.get(0).durationWatched());
+        assertTrue(ends.get(0).completed());
+    }
+
+    @Test
+    void sweptSessionsEndAtLastActivityWithLastPosition() {
+        StreamingSessionRegistry.Touch session = registry.touch(7L, 1L, 6000, "10.0.0.1", "player");
+        clock.advance(60_000);
+        registry.heartbeat(session.sessionId(), 120);
+        LocalDateTime lastSeen = LocalDateTime.ofInstant(clock.instant(), clock.getZone());
+        clock.advance(600_000);
+
+        assertEquals(1, registry.evictIdle());
+        assertFalse(registry.heartbeat(session.sessionId(), 130));
+
+        StreamingSessionRegistry.PendingEnd end = registry.drainEnds(10).get(0);
+        assertEquals(lastSeen, end.endTime());
+        assertEquals(120, end.durationWatched());
+        assertFalse(end.completed());
+        assertEquals(Map.of(), registry.activeSessionsByMovie());
+    }
+
+    @Test
+    void sessionsWithoutReportedWatchTimeNeverComplete() {
+        StreamingSessionRegistry.Touch seeked = registry.touch(7L, 1L, 6000, "10.0.0.1", "player");
+        registry.heartbeat(seeked.sessionId(), 5990);
+        assertTrue(registry.end(seeked.sessionId(), null));
+
+        StreamingSessionRegistry.Touch paused = registry.touch(8L, 1L, 6000, "10.0.0.1", "player");
+        for (int i = 0; i < 40; i++) {
+            clock.advance(180_000);
+            registry.heartbeat(paused.sessionId(), null);
+        }
+        assertEquals(1, registry.endAll());
+
+        List<StreamingSessionRegistry.PendingEnd> ends = registry.drainEnds(10);
+        assertEquals(5990, ends.get(0).durationWatched());
+        assertEquals(7200, ends.get(1).durationWatched());
+        assertFalse(ends.get(0).completed());
+        assertFalse(ends.get(1).completed());
+    }
+
+    @Test
+    void failedInsertsAreRequeued() {
+        registry.touch(7L, 1L, 0, "10.0.0.1", "player");
+        registry.touch(8L, 2L, 0, "10.0.0.1", "player");
+
+        List<StreamingSessionRegistry.PendingSession> batch = registry.drainSessions(1);
+        assertEquals(1, batch.size());
+        assertEquals(1, registry.pendingSessionCount());
+        registry.requeueSessions(batch);
+        assertEquals(2, registry.drainSessions(10).size());
+    }
+
+    @Test
+    void concurrentViewersOpenOneSessionEach() throws Exception {
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (long user = 0; user < 1000; user++) {
+                long userId = user;
+                executor.submit(() -> {
+                    for (int request = 0; request < 20; request++) {
+                        registry.touch(userId, 1L, 0, "10.0.0.1", "player");
+                    }
+                });
+            }
+        }
+        assertEquals(1000, registry.drainSessions(5000).size());
+        assertEquals(Map.of(1L, 1000), registry.activeSessionsByMovie());
+    }
+
+    private static final class MutableClock extends Clock {
+        private long millis = 1_700_000_000_000L;
+
+        void advance(long delta) {
+            millis += delta;
+        }
+
+        @Override
+        public long millis() {
+            return millis;
+        }
+
+        @Override
+        public Instant instant() {
+            return Instant.ofEpochMilli(millis);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+    }
+}
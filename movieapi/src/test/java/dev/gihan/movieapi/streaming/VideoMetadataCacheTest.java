@@ -0,0 +1,74 @@
+package dev.gihan.movieapi.streaming;
+
+import dev.gihan.movieapi.storage.LocalMediaStorage;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class VideoMetadataCacheTest {
+
+    @TempDir
+    Path uploadDirectory;
+
+    private Path videoDirectory;
+
+    private VideoMetadataCache cache;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        videoDirectory = Files.createDirectories(uploadDirectory.resolve("videos"));
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        if (cache != null) {
+            cache.stopWatching();
+        }
+    }
+
+    @Test
+    void reusesEntryUntilVideoUrlChanges() throws Exception {
+        Files.write(videoDirectory.resolve("a.mp4"), new byte[100]);
+        Files.write(videoDirectory.resolve("b.mp4"), new byte[200]);
+        cache = startCache();
+
+        VideoMetadataCache.Entry first = cache.get(1L, "/uploads/videos/a.mp4").orElseThrow();
+        assertEquals(100, first.size());
+        assertEquals(videoDirectory.resolve("a.mp4").toAbsolutePath().normalize(), first.path());
+        assertSame(first, cache.get(1L, "/uploads/videos/a.mp4").orElseThrow());
+
+        assertEquals(200, cache.get(1L, "/uploads/videos/b.mp4").orElseThrow().size());
+        assertTrue(cache.get(2L, "/uploads/videos/missing.mp4").isEmpty());
+    }
+
+    @Test
+    void watcherEvictsEntryWhenFileIsReplaced() throws Exception {
+        Path video = Files.write(videoDirectory.resolve("a.mp4"), new byte[100]);
+        cache = startCache();
+        VideoMetadataCache.Entry first = cache.get(1L, "/uploads/videos/a.mp4").orElseThrow();
+
+        Files.write(video, new byte[300]);
+
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (cache.size() > 0 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+        }
+        VideoMetadataCache.Entry refreshed = cache.get(1L, "/uploads/videos/a.mp4").orElseThrow();
+        assertNotSame(first, refreshed);
+        assertEquals(300, refreshed.size());
+        assertNotEquals(first.validator().etag(), refreshed.validator().etag());
+    }
+
+    private VideoMetadataCache startCache() {
+        VideoMetadataCache started = new VideoMetadataCache(100, new FileValidatorCache(100),
+                new LocalMediaStorage(uploadDirectory));
+        started.startWatching();
+        return started;
+    }
+}
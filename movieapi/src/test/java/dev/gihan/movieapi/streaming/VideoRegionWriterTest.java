@@ -0,0 +1,126 @@
+package dev.gihan.movieapi.streaming;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class VideoRegionWriterTest {
+
+    private final VideoRegionWriter writer = new VideoRegionWriter();
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void writesExactRegionThroughChannelWhenSendfileUnavailable() throws Exception {
+        Path video = createVideo(200_000);
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/stream/1");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        writer.writeRegion(request, response, video, 1000, 150_000);
+
+        byte[] expected = Arrays.copyOfRange(Files.readAllBytes(video), 1000, 151_000);
+        assertArrayEquals(expected, response.getContentAsByteArray());
+        assertNull(request.getAttribute(VideoRegionWriter.SENDFILE_FILENAME_ATTR));
+    }
+
+    @Test
+    void handsRegionToConnectorWhenSendfileSupported() throws Exception {
+        Path video = createVideo(200_000);
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/stream/1");
+        request.setAttribute(VideoRegionWriter.SENDFILE_SUPPORTED_ATTR, Boolean.TRUE);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        writer.writeRegion(request, response, video, 100, 100_000);
+
+        assertEquals(video.toAbsolutePath().toString(), request.getAttribute(VideoRegionWriter.SENDFILE_FILENAME_ATTR));
+        assertEquals(100L, request.getAttribute(VideoRegionWriter.SENDFILE_START_ATTR));
+        assertEquals(100_100L, request.getAttribute(VideoRegionWriter.SENDFILE_END_ATTR));
+        assertEquals(0, response.getContentAsByteArray().length);
+    }
+
+    @Test
+    void writesNothingForHeadRequests() throws Exception {
+        Path video = createVideo(1000);
+        MockHttpServletRequest request = new MockHttpServletRequest("HEAD", "/api/stream/1");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        writer.writeRegion(request, response, video, 0, 1000);
+
+        assertEquals(0, response.getContentAsByteArray().length);
+    }
+
+    @Test
+    void writesMultipartByterangesBody() throws Exception {
+        Path video = createVideo(1000);
+        byte[] data = Files.readAllBytes(video);
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/stream/1");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        writer.writeMultipartRegions(request, response, video,
+                List.of(new ByteRange(0, 9), new ByteRange(900, 999)), "video/mp4", 1000);
+
+        String contentType = response.getContentType();
+        assertTrue(contentType.startsWith("multipart/byteranges; boundary="));
+        String boundary = contentType.substring(contentType.indexOf('=') + 1);
+        byte[] body = response.getContentAsByteArray();
+        assertEquals(body.length, response.getContentLengthLong());
+
+        String text = new String(body, StandardCharsets.ISO_8859_1);
+        assertTrue(text.contains("--" + boundary + "\r\nContent-Type: video/mp4\r\nContent-Range: bytes 0-9/1000\r\n\r\n"
+                + new String(data, 0, 10, StandardCharsets.ISO_8859_1)));
+        assertTrue(text.contains("Content-Range: bytes 900-999/1000\r\n\r\n"
+                + new String(data, 900, 100, StandardCharsets.ISO_8859_1)));
+        assertTrue(text.endsWith("\r\n--" + boundary + "--\r\n"));
+    }
+
+    @Test
+    void failsInsteadOfSpinningWhenTargetAcceptsNothing() throws Exception {
+        Path video = createVideo(10_000);
+        WritableByteChannel stalled = new WritableByteChannel() {
+            @Override
+            public int write(ByteBuffer src) {
+                return 0;
+            }
+
+            @Override
+            public boolean isOpen() {
+                return true;
+            }
+
+            @Override
+            public void close() {
+            }
+        };
+
+        try (FileChannel channel = FileChannel.open(video, StandardOpenOption.READ)) {
+            IOException e = assertThrows(IOException.class,
+                    () -> VideoRegionWriter.transfer(channel, 0, 10_000, stalled));
+            assertTrue(e.getMessage().contains("stalled"));
+        }
+    }
+
+    private Path createVideo(int size) throws Exception {
+        byte[] data = new byte[size];
+        for (int i = 0; i < size; i++) {
+            data[i] = (byte) (i * 31);
+        }
+        Path video = tempDir.resolve("video.mp4");
+        Files.write(video, data);
+        return video;
+    }
+}